@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Access to the formulas generated by {@link CorpusGenerator} and packaged
+ * with the benchmarks
+ */
+public final class Corpus
+{
+	/**
+	 * Private constructor of utility class
+	 */
+	private Corpus()
+	{
+	}
+
+	/**
+	 * Loads the formulas of a corpus
+	 * @param name the name of the corpus (such as "size-100" or "depth-16")
+	 * @return the formulas of the corpus (one per line)
+	 * @throws IllegalArgumentException if there is no such corpus
+	 * @throws UncheckedIOException if the corpus can't be read
+	 */
+	public static List<String> load(String name)
+		throws IllegalArgumentException, UncheckedIOException
+	{
+		InputStream input = Corpus.class.getResourceAsStream("/corpora/" + name + ".txt");
+		if (input == null)
+		{
+			throw new IllegalArgumentException("Unknown corpus : " + name);
+		}
+		List<String> formulas = new ArrayList<String>();
+		try (BufferedReader reader =
+		    new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)))
+		{
+			for (String line = reader.readLine(); line != null; line = reader.readLine())
+			{
+				if (!line.isEmpty())
+				{
+					formulas.add(line);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return formulas;
+	}
+
+	/**
+	 * Specimen of a numeric type
+	 * @param type the simple name of the type ("Integer", "Float" or
+	 * "Double")
+	 * @return a specimen of this type
+	 * @throws IllegalArgumentException if type is not supported
+	 */
+	public static Number specimen(String type) throws IllegalArgumentException
+	{
+		switch (type)
+		{
+			case "Integer":
+				return Integer.valueOf(0);
+			case "Float":
+				return Float.valueOf(0.0f);
+			case "Double":
+				return Double.valueOf(0.0);
+			default:
+				throw new IllegalArgumentException("Unsupported type : " + type);
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generator of the formulas used by benchmarks.
+ * Formulas only use integer constants, single letter variables, additions
+ * and parentheses so they can be parsed with every numeric type. A fixed
+ * seed is used for each corpus so the checked in corpora can be regenerated
+ * identically :
+ * <pre>
+ * java -cp target/benchmarks.jar benchmarks.CorpusGenerator corpora
+ * </pre>
+ * <ul>
+ * <li>"size-n" corpora contain formulas of n operands grouped randomly</li>
+ * <li>"depth-n" corpora contain formulas nested n parentheses deep</li>
+ * </ul>
+ */
+public class CorpusGenerator
+{
+	/**
+	 * Number of operands of formulas of "size" corpora
+	 */
+	public static final int[] SIZES = {10, 100, 1000};
+
+	/**
+	 * Nesting depth of formulas of "depth" corpora
+	 */
+	public static final int[] DEPTHS = {4, 16, 64};
+
+	/**
+	 * Number of formulas in each corpus
+	 */
+	public static final int FORMULAS = 16;
+
+	/**
+	 * Base seed of random generators
+	 */
+	private static final long SEED = 0x45585052L;
+
+	/**
+	 * Random generator of the current corpus
+	 */
+	private final Random random;
+
+	/**
+	 * Constructor
+	 * @param seed the seed of the corpus
+	 */
+	public CorpusGenerator(long seed)
+	{
+		random = new Random(seed);
+	}
+
+	/**
+	 * Random operand : a constant between 1 and 99 or a variable
+	 * @return a random operand
+	 */
+	private String operand()
+	{
+		if (random.nextBoolean())
+		{
+			return String.valueOf(1 + random.nextInt(99));
+		}
+		return String.valueOf((char) ('a' + random.nextInt(26)));
+	}
+
+	/**
+	 * Random formula with a number of operands
+	 * @param size the number of operands
+	 * @return a formula whose right operands are randomly grouped in
+	 * parentheses
+	 */
+	public String formula(int size)
+	{
+		StringBuilder sb = new StringBuilder();
+		append(sb, size);
+		return sb.toString();
+	}
+
+	/**
+	 * Appends a random formula
+	 * @param sb the builder to append to
+	 * @param size the number of operands of the formula
+	 */
+	private void append(StringBuilder sb, int size)
+	{
+		if (size == 1)
+		{
+			sb.append(operand());
+			return;
+		}
+		int left = 1 + random.nextInt(size - 1);
+		append(sb, left);
+		sb.append(" + ");
+		if (size - left > 1)
+		{
+			sb.append('(');
+			append(sb, size - left);
+			sb.append(')');
+		}
+		else
+		{
+			append(sb, 1);
+		}
+	}
+
+	/**
+	 * Random formula with a nesting depth
+	 * @param depth the number of nested parentheses
+	 * @return a formula with depth nested sub-expressions, each one added to
+	 * an operand on its left or right
+	 */
+	public String nested(int depth)
+	{
+		String formula = operand();
+		for (int i = 0; i < depth; i++)
+		{
+			if (random.nextBoolean())
+			{
+				formula = "(" + formula + ") + " + operand();
+			}
+			else
+			{
+				formula = operand() + " + (" + formula + ")";
+			}
+		}
+		return formula;
+	}
+
+	/**
+	 * Writes a corpus
+	 * @param file the file to write
+	 * @param size the size (or depth) of formulas
+	 * @param nested true for "depth" corpora
+	 * @throws IOException if writing fails
+	 */
+	private static void write(Path file, int size, boolean nested) throws IOException
+	{
+		CorpusGenerator generator = new CorpusGenerator(SEED + (nested ? -size : size));
+		try (PrintWriter writer =
+		    new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8)))
+		{
+			for (int i = 0; i < FORMULAS; i++)
+			{
+				writer.print(nested ? generator.nested(size) : generator.formula(size));
+				writer.print('\n');
+			}
+		}
+	}
+
+	/**
+	 * Generates all corpora
+	 * @param args the directory where to write corpora (default "corpora")
+	 * @throws IOException if writing fails
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		Path directory = Paths.get(args.length > 0 ? args[0] : "corpora");
+		Files.createDirectories(directory);
+		for (int size : SIZES)
+		{
+			write(directory.resolve("size-" + size + ".txt"), size, false);
+		}
+		for (int depth : DEPTHS)
+		{
+			write(directory.resolve("depth-" + depth + ".txt"), depth, true);
+		}
+	}
+}
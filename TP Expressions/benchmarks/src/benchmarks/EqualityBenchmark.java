@@ -0,0 +1,110 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import expressions.Expression;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Cost of {@link Expression#equals(Object)} and {@link Expression#hashCode()}
+ * by tree size ("size" corpora) : each operation compares (or hashes) all
+ * the formulas of a corpus with an equal but distinct copy, parsed
+ * separately.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EqualityBenchmark
+{
+	/**
+	 * The number of operands of compared formulas
+	 */
+	@Param({"10", "100", "1000"})
+	public int size;
+
+	/**
+	 * The expressions to compare
+	 */
+	private List<Expression<Double>> expressions;
+
+	/**
+	 * Equal copies of the expressions to compare
+	 */
+	private List<Expression<Double>> copies;
+
+	/**
+	 * Parses the corpus twice
+	 * @throws ParserException if parsing fails
+	 */
+	@Setup
+	public void setup() throws ParserException
+	{
+		ExpressionParser<Double> parser = new ExpressionParser<Double>(0.0);
+		expressions = new ArrayList<Expression<Double>>();
+		copies = new ArrayList<Expression<Double>>();
+		for (String formula : Corpus.load("size-" + size))
+		{
+			expressions.addAll(parser.parse(formula));
+			copies.addAll(parser.parse(formula));
+		}
+	}
+
+	/**
+	 * Structural comparison of equal expressions
+	 * @param blackhole consumer of comparisons results
+	 */
+	@Benchmark
+	public void equals(Blackhole blackhole)
+	{
+		for (int i = 0; i < expressions.size(); i++)
+		{
+			blackhole.consume(expressions.get(i).equals(copies.get(i)));
+		}
+	}
+
+	/**
+	 * Hash codes of expressions
+	 * @param blackhole consumer of hash codes
+	 */
+	@Benchmark
+	public void hashCodes(Blackhole blackhole)
+	{
+		for (Expression<Double> expression : expressions)
+		{
+			blackhole.consume(expression.hashCode());
+		}
+	}
+
+	/**
+	 * Hash codes of the String representations of expressions (the
+	 * reference implementation of {@link Expression#hashCode()})
+	 * @param blackhole consumer of hash codes
+	 */
+	@Benchmark
+	public void stringHashCodes(Blackhole blackhole)
+	{
+		for (Expression<Double> expression : expressions)
+		{
+			blackhole.consume(expression.toString().hashCode());
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.terminal.SymbolTable;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Evaluation latency by tree size ("size" corpora) and numeric type : each
+ * operation evaluates all the formulas of a corpus either boxed with an
+ * {@link EvaluationContext} (which bypasses cached values) or with the
+ * primitive evaluation methods.
+ * Expressions are typed with {@link Number} since JMH states can't be
+ * generic : the actual type of numbers is the one of {@link #type}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark
+{
+	/**
+	 * The number of operands of evaluated formulas
+	 */
+	@Param({"10", "100", "1000"})
+	public int size;
+
+	/**
+	 * The numeric type of evaluated formulas
+	 */
+	@Param({"Integer", "Float", "Double"})
+	public String type;
+
+	/**
+	 * The expressions to evaluate
+	 */
+	private List<Expression<Number>> expressions;
+
+	/**
+	 * The values of variables
+	 */
+	private EvaluationContext<Number> context;
+
+	/**
+	 * Parses the corpus and gives a value to every variable
+	 * @throws ParserException if parsing fails
+	 */
+	@Setup
+	public void setup() throws ParserException
+	{
+		Number specimen = Corpus.specimen(type);
+		ExpressionParser<Number> parser = new ExpressionParser<Number>(specimen);
+		SymbolTable<Number> symbols = new SymbolTable<Number>(specimen);
+		expressions = new ArrayList<Expression<Number>>();
+		for (String formula : Corpus.load("size-" + size))
+		{
+			expressions.addAll(parser.parse(formula, symbols));
+		}
+		double[] frame = symbols.newFrame();
+		context = new EvaluationContext<Number>();
+		for (int slot = 0; slot < frame.length; slot++)
+		{
+			frame[slot] = slot + 1;
+		}
+		symbols.store(frame);
+		for (int slot = 0; slot < frame.length; slot++)
+		{
+			context.set(symbols.getNames().get(slot), symbols.get(slot).value());
+		}
+	}
+
+	/**
+	 * Boxed evaluation with values of variables provided by a context
+	 * @param blackhole consumer of values
+	 */
+	@Benchmark
+	public void valueInContext(Blackhole blackhole)
+	{
+		for (Expression<Number> expression : expressions)
+		{
+			blackhole.consume(expression.value(context));
+		}
+	}
+
+	/**
+	 * Primitive evaluation in the arithmetic of the numeric type
+	 * @param blackhole consumer of values
+	 */
+	@Benchmark
+	public void primitive(Blackhole blackhole)
+	{
+		switch (type)
+		{
+			case "Integer":
+				for (Expression<Number> expression : expressions)
+				{
+					blackhole.consume(expression.evalInt());
+				}
+				break;
+			case "Float":
+				for (Expression<Number> expression : expressions)
+				{
+					blackhole.consume(expression.evalFloat());
+				}
+				break;
+			default:
+				for (Expression<Number> expression : expressions)
+				{
+					blackhole.consume(expression.evalDouble());
+				}
+				break;
+		}
+	}
+}
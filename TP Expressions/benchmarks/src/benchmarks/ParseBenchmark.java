@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Parsing throughput by input size ("size" corpora) and nesting depth
+ * ("depth" corpora) : each operation parses all the formulas of a corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark
+{
+	/**
+	 * The name of the parsed corpus
+	 */
+	@Param({"size-10", "size-100", "size-1000", "depth-4", "depth-16", "depth-64"})
+	public String corpus;
+
+	/**
+	 * The formulas to parse
+	 */
+	private List<String> formulas;
+
+	/**
+	 * The parser
+	 */
+	private ExpressionParser<Double> parser;
+
+	/**
+	 * Loads the corpus
+	 */
+	@Setup
+	public void setup()
+	{
+		formulas = Corpus.load(corpus);
+		parser = new ExpressionParser<Double>(0.0);
+	}
+
+	/**
+	 * Parses all the formulas of the corpus
+	 * @param blackhole consumer of parsed expressions
+	 * @throws ParserException if parsing fails
+	 */
+	@Benchmark
+	public void parse(Blackhole blackhole) throws ParserException
+	{
+		for (String formula : formulas)
+		{
+			blackhole.consume(parser.parse(formula));
+		}
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * Package containing JMH benchmarks of parsing, evaluation and comparison of
+ * {@link expressions.Expression}s over the generated formulas of the
+ * "corpora" directory (see {@link benchmarks.CorpusGenerator}).
+ * Run with {@code java -jar target/benchmarks.jar} (add {@code -prof gc} to
+ * measure allocation rates).
+ */
+package benchmarks;
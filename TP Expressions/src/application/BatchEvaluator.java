@@ -0,0 +1,422 @@
+package application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.binary.AssignmentExpression;
+import parser.ExpressionParser;
+import parser.StatementReader;
+import parser.exceptions.ParserException;
+
+/**
+ * Evaluator of programs streamed from a {@link Reader} (such as the
+ * standard input or a file) writing one machine-readable record per
+ * statement, so scripts can evaluate millions of statements without holding
+ * them in memory.
+ * Statements are parsed one at a time by a single reused parser and
+ * evaluated with the usual sequential semantics in an
+ * {@link EvaluationContext} shared by the whole program. With several
+ * workers, statements between two assignments are evaluated concurrently
+ * (they only read the context) while records are still written in program
+ * order. Invalid statements produce error records and don't stop the
+ * evaluation.
+ * @param <E> The type of numbers in evaluated statements
+ */
+public class BatchEvaluator<E extends Number>
+{
+	/**
+	 * Formats of records
+	 */
+	public enum Format
+	{
+		/**
+		 * Comma separated values with a header line : statement, expression,
+		 * value, error
+		 */
+		CSV,
+		/**
+		 * One JSON object per line with a "statement" index and either an
+		 * "expression" and its "value" or an "error"
+		 */
+		JSONL;
+	}
+
+	/**
+	 * Header line of CSV records
+	 */
+	public static final String CSV_HEADER = "statement,expression,value,error";
+
+	/**
+	 * Maximum number of statements being evaluated (or waiting to be
+	 * written) per worker
+	 */
+	private static final int WINDOW_PER_WORKER = 256;
+
+	/**
+	 * Size of the output buffer
+	 */
+	private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The parser (reused for all statements)
+	 */
+	private final ExpressionParser<E> parser;
+
+	/**
+	 * The format of records
+	 */
+	private final Format format;
+
+	/**
+	 * The number of threads evaluating statements
+	 */
+	private final int workers;
+
+	/**
+	 * The values of variables assigned by evaluated statements
+	 */
+	private final EvaluationContext<E> context;
+
+	/**
+	 * Number of records written by the last run
+	 */
+	private long statements;
+
+	/**
+	 * Number of error records written by the last run
+	 */
+	private long errors;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for statements
+	 * @param format the format of records
+	 * @param workers the number of threads evaluating statements
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}, if format is null or
+	 * if workers is not positive
+	 */
+	public BatchEvaluator(Number specimen, Format format, int workers)
+		throws IllegalArgumentException
+	{
+		if (format == null)
+		{
+			throw new IllegalArgumentException("Null format");
+		}
+		if (workers < 1)
+		{
+			throw new IllegalArgumentException("Invalid workers count : " + workers);
+		}
+		parser = new ExpressionParser<E>(specimen);
+		this.format = format;
+		this.workers = workers;
+		context = new EvaluationContext<E>();
+		statements = 0;
+		errors = 0;
+	}
+
+	/**
+	 * Values of variables
+	 * @return the values of the variables assigned by evaluated statements
+	 * (which are kept from one run to the next)
+	 */
+	public EvaluationContext<E> getContext()
+	{
+		return context;
+	}
+
+	/**
+	 * Number of records
+	 * @return the number of records written by the last run
+	 */
+	public long getStatementsCount()
+	{
+		return statements;
+	}
+
+	/**
+	 * Number of error records
+	 * @return the number of invalid statements or statements which couldn't
+	 * be evaluated during the last run
+	 */
+	public long getErrorsCount()
+	{
+		return errors;
+	}
+
+	/**
+	 * Evaluates all the statements provided by a reader
+	 * @param input the reader providing the program (which is closed)
+	 * @param output the channel where records are written (which is not
+	 * closed)
+	 * @throws IOException if reading or writing fails
+	 */
+	public void run(Reader input, WritableByteChannel output) throws IOException
+	{
+		statements = 0;
+		errors = 0;
+		Writer writer = new BufferedWriter(Channels.newWriter(output, StandardCharsets.UTF_8),
+		                                   OUTPUT_BUFFER_SIZE);
+		ExecutorService pool = workers > 1 ? Executors.newFixedThreadPool(workers) : null;
+		Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		try (StatementReader<E> reader =
+		    new StatementReader<E>(parser, input, StatementReader.DEFAULT_BUFFER_SIZE))
+		{
+			if (format == Format.CSV)
+			{
+				writer.write(CSV_HEADER);
+				writer.write('\n');
+			}
+			while (true)
+			{
+				Expression<E> expression;
+				try
+				{
+					expression = reader.nextStatement();
+				}
+				catch (ParserException e)
+				{
+					String error = record(reader.getStatementsCount(), null, null, e.getMessage());
+					if (pool == null)
+					{
+						writer.write(error);
+					}
+					else
+					{
+						pending.add(CompletableFuture.completedFuture(error));
+					}
+					continue;
+				}
+				if (expression == null)
+				{
+					break;
+				}
+				int index = reader.getStatementsCount();
+				if (pool == null)
+				{
+					writer.write(evaluate(index, expression));
+					continue;
+				}
+				if (expression instanceof AssignmentExpression<?>)
+				{
+					// Statements reading the context must be done before it changes
+					drain(pending, writer, 0);
+					pending.add(CompletableFuture.completedFuture(evaluate(index, expression)));
+				}
+				else
+				{
+					pending.add(pool.submit(() -> evaluate(index, expression)));
+				}
+				drain(pending, writer, workers * WINDOW_PER_WORKER);
+			}
+			drain(pending, writer, 0);
+		}
+		finally
+		{
+			if (pool != null)
+			{
+				pool.shutdownNow();
+			}
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Writes the records of evaluated statements in program order
+	 * @param pending the records being computed in program order
+	 * @param writer the writer of records
+	 * @param capacity the number of pending records to keep : records are
+	 * written (waiting for their evaluation if needed) until there are no
+	 * more than capacity pending records
+	 * @throws IOException if writing fails
+	 */
+	private void drain(Deque<Future<String>> pending, Writer writer, int capacity)
+		throws IOException
+	{
+		while (pending.size() > capacity || (!pending.isEmpty() && pending.peek().isDone()))
+		{
+			try
+			{
+				writer.write(pending.poll().get());
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted evaluation", e);
+			}
+			catch (ExecutionException e)
+			{
+				throw new IllegalStateException("Unexpected evaluation failure", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Evaluates a statement
+	 * @param index the index of the statement
+	 * @param expression the statement
+	 * @return the record of the statement
+	 */
+	private String evaluate(int index, Expression<E> expression)
+	{
+		String text = expression.toString();
+		try
+		{
+			return record(index, text, expression.value(context), null);
+		}
+		catch (IllegalStateException | ArithmeticException e)
+		{
+			return record(index, text, null, e.getMessage());
+		}
+	}
+
+	/**
+	 * Formats a record (and counts it)
+	 * @param index the index of the statement
+	 * @param expression the statement (or null if it couldn't be parsed)
+	 * @param value the value of the statement (or null if there is an error)
+	 * @param error the error message (or null if there is no error)
+	 * @return the record terminated by a line break
+	 */
+	private String record(int index, String expression, E value, String error)
+	{
+		synchronized (this)
+		{
+			statements++;
+			if (value == null)
+			{
+				errors++;
+			}
+		}
+		String message = (value == null && error == null) ? "Error" : error;
+		StringBuilder sb = new StringBuilder();
+		if (format == Format.CSV)
+		{
+			sb.append(index);
+			sb.append(',');
+			appendCsv(sb, expression);
+			sb.append(',');
+			if (value != null)
+			{
+				sb.append(value);
+			}
+			sb.append(',');
+			appendCsv(sb, value == null ? message : null);
+		}
+		else
+		{
+			sb.append("{\"statement\":");
+			sb.append(index);
+			if (expression != null)
+			{
+				sb.append(",\"expression\":");
+				appendJson(sb, expression);
+			}
+			if (value != null)
+			{
+				sb.append(",\"value\":");
+				double number = value.doubleValue();
+				if (Double.isNaN(number) || Double.isInfinite(number))
+				{
+					appendJson(sb, value.toString()); // not a JSON number
+				}
+				else
+				{
+					sb.append(value);
+				}
+			}
+			else
+			{
+				sb.append(",\"error\":");
+				appendJson(sb, message);
+			}
+			sb.append('}');
+		}
+		sb.append('\n');
+		return sb.toString();
+	}
+
+	/**
+	 * Appends a CSV field, quoted if needed
+	 * @param sb the builder to append to
+	 * @param field the field to append (nothing is appended if null)
+	 */
+	private static void appendCsv(StringBuilder sb, String field)
+	{
+		if (field == null)
+		{
+			return;
+		}
+		boolean quoted = false;
+		for (int i = 0; i < field.length() && !quoted; i++)
+		{
+			char c = field.charAt(i);
+			quoted = (c == ',') || (c == '"') || (c == '\n') || (c == '\r');
+		}
+		if (!quoted)
+		{
+			sb.append(field);
+			return;
+		}
+		sb.append('"');
+		sb.append(field.replace("\"", "\"\""));
+		sb.append('"');
+	}
+
+	/**
+	 * Appends a JSON string
+	 * @param sb the builder to append to
+	 * @param text the text to append as a JSON string
+	 */
+	private static void appendJson(StringBuilder sb, String text)
+	{
+		sb.append('"');
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			switch (c)
+			{
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (c < 0x20)
+					{
+						sb.append(String.format("\\u%04x", (int) c));
+					}
+					else
+					{
+						sb.append(c);
+					}
+					break;
+			}
+		}
+		sb.append('"');
+	}
+}
@@ -0,0 +1,570 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.program.Program;
+import expressions.program.StackMachine;
+import parser.AbstractCachingParser;
+import parser.CachingExpressionParser;
+import parser.CachingTreeParser;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Server evaluating formulas sent by clients over TCP connections.
+ * Each request is a line composed of a formula (one or more statements
+ * separated by ";") optionally followed by "|" and the values of its
+ * variables separated by "," (e.g. "a + x + b|a=2,x=3,b=1"). Each response
+ * is a line "ok value" with the value of the last statement or
+ * "error message". Clients can pipeline requests : they can send any number
+ * of requests without waiting for responses, which are written in requests
+ * order.
+ * Formulas are compiled once into {@link Program}s kept in a
+ * {@link CachingExpressionParser} shared by all connections, so a formula is
+ * parsed once however many requests evaluate it. Each request evaluates the
+ * cached programs in its own frame with its own {@link StackMachine} :
+ * nothing leaks from one request to another and a cached formula can be
+ * evaluated by several connections at once.
+ * Numbers which can't be lowered into programs ({@link Long} and
+ * {@link BigDecimal}) are served from a {@link CachingTreeParser} whose trees
+ * are evaluated with {@link Expression#value(EvaluationContext)} in a new
+ * {@link EvaluationContext} per request.
+ * Each connection is handled by its own thread : a virtual thread when the
+ * running JVM provides them (see {@link #isVirtual()}), otherwise a thread
+ * of a cached pool.
+ * @param <E> The type of numbers in evaluated formulas
+ */
+public class EvaluationServer<E extends Number> implements Closeable
+{
+	/**
+	 * Default maximum number of cached formulas
+	 */
+	public static final int DEFAULT_MAX_FORMULAS = 4096;
+
+	/**
+	 * Separator between a formula and its variables in requests
+	 */
+	public static final char VARIABLES_SEPARATOR = '|';
+
+	/**
+	 * Size of the buffers of connections
+	 */
+	private static final int BUFFER_SIZE = 1 << 14;
+
+	/**
+	 * The class of numbers in formulas
+	 */
+	private final Class<? extends Number> numberClass;
+
+	/**
+	 * Compiled formulas cache (or null if numbers can't be lowered into
+	 * programs)
+	 */
+	private final CachingExpressionParser<E> programs;
+
+	/**
+	 * Parsed formulas cache used when numbers can't be lowered into
+	 * programs (or null)
+	 */
+	private final CachingTreeParser<E> trees;
+
+	/**
+	 * The cache in use ({@link #programs} or {@link #trees})
+	 */
+	private final AbstractCachingParser<E, ?> formulas;
+
+	/**
+	 * The executor running connections handlers
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Indicates if {@link #executor} runs virtual threads
+	 */
+	private final boolean virtual;
+
+	/**
+	 * Open connections (closed with the server)
+	 */
+	private final Set<SocketChannel> connections;
+
+	/**
+	 * The listening channel (or null before {@link #start(InetSocketAddress)})
+	 */
+	private ServerSocketChannel server;
+
+	/**
+	 * The thread accepting connections (or null before
+	 * {@link #start(InetSocketAddress)})
+	 */
+	private Thread acceptor;
+
+	/**
+	 * Number of evaluated requests
+	 */
+	private final LongAdder requests;
+
+	/**
+	 * Number of error responses
+	 */
+	private final LongAdder errors;
+
+	/**
+	 * Constructor with {@link #DEFAULT_MAX_FORMULAS}
+	 * @param specimen A specimen to provide the Number class for formulas
+	 * @throws IllegalArgumentException if the specimen's class is not
+	 * supported by {@link ExpressionParser}
+	 */
+	public EvaluationServer(Number specimen) throws IllegalArgumentException
+	{
+		this(specimen, DEFAULT_MAX_FORMULAS);
+	}
+
+	/**
+	 * Valued constructor
+	 * @param specimen A specimen to provide the Number class for formulas
+	 * @param maxFormulas the maximum number of cached formulas
+	 * @throws IllegalArgumentException if the specimen's class is not
+	 * supported by {@link ExpressionParser} or if maxFormulas is not positive
+	 */
+	public EvaluationServer(Number specimen, int maxFormulas)
+		throws IllegalArgumentException
+	{
+		numberClass = specimen.getClass();
+		if (numberClass == Integer.class
+		    || numberClass == Float.class
+		    || numberClass == Double.class)
+		{
+			programs = new CachingExpressionParser<E>(specimen,
+			                                          maxFormulas,
+			                                          AbstractCachingParser.DEFAULT_MAX_WEIGHT);
+			trees = null;
+			formulas = programs;
+		}
+		else
+		{
+			programs = null;
+			trees = new CachingTreeParser<E>(specimen,
+			                                 maxFormulas,
+			                                 AbstractCachingParser.DEFAULT_MAX_WEIGHT);
+			formulas = trees;
+		}
+		ExecutorService virtualExecutor = newVirtualThreadExecutor();
+		virtual = virtualExecutor != null;
+		executor = virtual ? virtualExecutor : Executors.newCachedThreadPool();
+		connections = ConcurrentHashMap.newKeySet();
+		server = null;
+		acceptor = null;
+		requests = new LongAdder();
+		errors = new LongAdder();
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread per task
+	 * @return a new virtual threads executor or null if the running JVM
+	 * doesn't provide virtual threads
+	 * @implNote the executor is looked up reflectively since sources target
+	 * a release without virtual threads
+	 */
+	private static ExecutorService newVirtualThreadExecutor()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class
+			    .getMethod("newVirtualThreadPerTaskExecutor")
+			    .invoke(null);
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Indicates if connections are handled by virtual threads
+	 * @return true if each connection is handled by a virtual thread, false
+	 * if connections are handled by a pool of platform threads
+	 */
+	public boolean isVirtual()
+	{
+		return virtual;
+	}
+
+	/**
+	 * Number of evaluated requests
+	 * @return the number of requests answered since start
+	 */
+	public long getRequestsCount()
+	{
+		return requests.sum();
+	}
+
+	/**
+	 * Number of error responses
+	 * @return the number of requests answered with an error since start
+	 */
+	public long getErrorsCount()
+	{
+		return errors.sum();
+	}
+
+	/**
+	 * Number of formulas cache hits
+	 * @return the number of requests whose formula was already parsed
+	 */
+	public long getCacheHits()
+	{
+		return formulas.getHits();
+	}
+
+	/**
+	 * Number of formulas cache misses
+	 * @return the number of requests which had to parse their formula
+	 */
+	public long getCacheMisses()
+	{
+		return formulas.getMisses();
+	}
+
+	/**
+	 * Starts listening and accepting connections (in a background thread)
+	 * @param address the address to listen to (port 0 chooses a free port)
+	 * or null to listen to a free port of the loopback address
+	 * @return the address actually listened to
+	 * @throws IOException if the address can't be listened to
+	 * @throws IllegalStateException if the server is already started
+	 */
+	public synchronized InetSocketAddress start(InetSocketAddress address)
+		throws IOException, IllegalStateException
+	{
+		if (server != null)
+		{
+			throw new IllegalStateException("Server already started");
+		}
+		server = ServerSocketChannel.open();
+		server.bind(address != null ? address
+		    : new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		acceptor = new Thread(this::accept, "EvaluationServer-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return (InetSocketAddress) server.getLocalAddress();
+	}
+
+	/**
+	 * Waits until the server is closed
+	 * @throws InterruptedException if the current thread is interrupted
+	 * while waiting
+	 * @throws IllegalStateException if the server is not started
+	 */
+	public void join() throws InterruptedException, IllegalStateException
+	{
+		Thread thread;
+		synchronized (this)
+		{
+			thread = acceptor;
+		}
+		if (thread == null)
+		{
+			throw new IllegalStateException("Server not started");
+		}
+		thread.join();
+	}
+
+	/**
+	 * Accepts connections until the server is closed
+	 */
+	private void accept()
+	{
+		try
+		{
+			while (true)
+			{
+				SocketChannel connection = server.accept();
+				connections.add(connection);
+				try
+				{
+					executor.execute(() -> serve(connection));
+				}
+				catch (RejectedExecutionException e)
+				{
+					connections.remove(connection);
+					connection.close();
+					return;
+				}
+			}
+		}
+		catch (ClosedChannelException e)
+		{
+			// Server closed
+		}
+		catch (IOException e)
+		{
+			System.err.println("EvaluationServer : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Answers the requests of a connection until it is closed by the client
+	 * @param connection the connection to serve
+	 */
+	private void serve(SocketChannel connection)
+	{
+		// Socket streams (rather than channel streams) tell when requests are pending
+		try (connection;
+		     BufferedReader reader =
+		         new BufferedReader(new InputStreamReader(connection.socket().getInputStream(),
+		                                                  StandardCharsets.UTF_8),
+		                            BUFFER_SIZE);
+		     Writer writer =
+		         new BufferedWriter(new OutputStreamWriter(connection.socket().getOutputStream(),
+		                                                   StandardCharsets.UTF_8),
+		                            BUFFER_SIZE))
+		{
+			String request;
+			while ((request = reader.readLine()) != null)
+			{
+				writer.write(evaluate(request));
+				writer.write('\n');
+				if (!reader.ready())
+				{
+					// Pipelined requests are answered in batches
+					writer.flush();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// Connection closed by the client or the server
+		}
+		finally
+		{
+			connections.remove(connection);
+		}
+	}
+
+	/**
+	 * Evaluates a request
+	 * @param request the request : a formula optionally followed by
+	 * {@link #VARIABLES_SEPARATOR} and comma separated "name=value" pairs
+	 * @return the response (without line break)
+	 */
+	private String evaluate(String request)
+	{
+		requests.increment();
+		int separator = request.indexOf(VARIABLES_SEPARATOR);
+		String formula = (separator < 0 ? request : request.substring(0, separator)).trim();
+		try
+		{
+			Map<String, E> values = new HashMap<String, E>();
+			if (separator >= 0)
+			{
+				bind(values, request.substring(separator + 1));
+			}
+			E value = programs != null
+			    ? evaluatePrograms(programs.parse(formula), values)
+			    : evaluateTrees(trees.parse(formula), values);
+			return "ok " + value;
+		}
+		catch (ParserException | IllegalStateException | IllegalArgumentException
+		    | ArithmeticException | UnsupportedOperationException e)
+		{
+			errors.increment();
+			String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+			return "error " + message.replace('\n', ' ').replace('\r', ' ');
+		}
+	}
+
+	/**
+	 * Evaluates the compiled statements of a formula in a new frame
+	 * @param statements the programs of the formula (sharing variables slots)
+	 * @param values the values of the request's variables
+	 * @return the value of the last statement
+	 * @throws IllegalStateException if the formula is empty or if a
+	 * statement reads a variable which has no value
+	 * @throws ArithmeticException if an integer division by zero occurs
+	 */
+	private E evaluatePrograms(List<Program> statements, Map<String, E> values)
+		throws IllegalStateException, ArithmeticException
+	{
+		if (statements.isEmpty())
+		{
+			throw new IllegalStateException("Empty formula");
+		}
+		Program first = statements.get(0);
+		double[] frame = first.newFrame();
+		boolean[] valued = new boolean[frame.length];
+		for (Map.Entry<String, E> entry : values.entrySet())
+		{
+			int slot = first.slotOf(entry.getKey());
+			if (slot >= 0)
+			{
+				frame[slot] = entry.getValue().doubleValue();
+				valued[slot] = true;
+			}
+		}
+		StackMachine machine = new StackMachine();
+		double value = 0.0;
+		for (Program statement : statements)
+		{
+			for (String name : statement.getInputVariables())
+			{
+				if (!valued[first.slotOf(name)])
+				{
+					throw new IllegalStateException("Variable " + name + " has no value");
+				}
+			}
+			value = machine.evaluate(statement, frame);
+			for (String name : statement.getAssignedVariables())
+			{
+				valued[first.slotOf(name)] = true;
+			}
+		}
+		return fromDouble(value);
+	}
+
+	/**
+	 * Evaluates the parsed statements of a formula in a new context
+	 * @param statements the statements of the formula
+	 * @param values the values of the request's variables
+	 * @return the value of the last statement
+	 * @throws IllegalStateException if the formula is empty or if a
+	 * statement reads a variable which has no value
+	 * @throws ArithmeticException if an integer division by zero occurs
+	 */
+	private E evaluateTrees(List<Expression<E>> statements, Map<String, E> values)
+		throws IllegalStateException, ArithmeticException
+	{
+		if (statements.isEmpty())
+		{
+			throw new IllegalStateException("Empty formula");
+		}
+		EvaluationContext<E> context = new EvaluationContext<E>(values);
+		E value = null;
+		for (Expression<E> statement : statements)
+		{
+			value = statement.value(context);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads the values of the variables of a request
+	 * @param values the values of the request's variables to fill
+	 * @param variables comma separated "name=value" pairs
+	 * @throws IllegalArgumentException if a pair is invalid
+	 */
+	private void bind(Map<String, E> values, String variables)
+		throws IllegalArgumentException
+	{
+		for (String pair : variables.split(","))
+		{
+			if (pair.isBlank())
+			{
+				continue;
+			}
+			int equals = pair.indexOf('=');
+			if (equals < 0)
+			{
+				throw new IllegalArgumentException("Invalid variable : " + pair.trim());
+			}
+			values.put(pair.substring(0, equals).trim(), number(pair.substring(equals + 1).trim()));
+		}
+	}
+
+	/**
+	 * Creates a number of the formulas' class
+	 * @param text the text of the number
+	 * @return the number
+	 * @throws NumberFormatException if text is not a valid number (which is
+	 * an {@link IllegalArgumentException})
+	 */
+	@SuppressWarnings("unchecked")
+	private E number(String text) throws NumberFormatException
+	{
+		if (numberClass == Integer.class)
+		{
+			return (E) Integer.valueOf(text);
+		}
+		else if (numberClass == Long.class)
+		{
+			return (E) Long.valueOf(text);
+		}
+		else if (numberClass == BigDecimal.class)
+		{
+			return (E) new BigDecimal(text);
+		}
+		else if (numberClass == Float.class)
+		{
+			return (E) Float.valueOf(text);
+		}
+		else
+		{
+			return (E) Double.valueOf(text);
+		}
+	}
+
+	/**
+	 * Converts a value computed by a {@link StackMachine} to the formulas'
+	 * class
+	 * @param value the value to convert
+	 * @return the converted value
+	 */
+	@SuppressWarnings("unchecked")
+	private E fromDouble(double value)
+	{
+		if (numberClass == Integer.class)
+		{
+			return (E) Integer.valueOf((int) value);
+		}
+		else if (numberClass == Float.class)
+		{
+			return (E) Float.valueOf((float) value);
+		}
+		return (E) Double.valueOf(value);
+	}
+
+	/**
+	 * Stops listening and closes all connections
+	 * @throws IOException if the listening channel can't be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (this)
+		{
+			if (server != null)
+			{
+				server.close();
+			}
+		}
+		executor.shutdownNow();
+		for (SocketChannel connection : connections)
+		{
+			connection.close();
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for an {@link EvaluationServer} measuring the latency of
+ * requests.
+ * Each connection sends its requests pipelined : up to a number of
+ * requests are sent without waiting for their responses. The latency of a
+ * request is the time between sending it and receiving its response.
+ */
+public class LoadClient
+{
+	/**
+	 * Results of a load
+	 */
+	public static class Result
+	{
+		/**
+		 * Latencies of all requests in nanoseconds in increasing order
+		 */
+		private final long[] latencies;
+
+		/**
+		 * Number of error responses
+		 */
+		private final long errors;
+
+		/**
+		 * Duration of the load in nanoseconds
+		 */
+		private final long elapsedNanos;
+
+		/**
+		 * Constructor
+		 * @param latencies the latencies of all requests (which are sorted)
+		 * @param errors the number of error responses
+		 * @param elapsedNanos the duration of the load
+		 */
+		private Result(long[] latencies, long errors, long elapsedNanos)
+		{
+			Arrays.sort(latencies);
+			this.latencies = latencies;
+			this.errors = errors;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Number of requests
+		 * @return the number of answered requests
+		 */
+		public long getRequestsCount()
+		{
+			return latencies.length;
+		}
+
+		/**
+		 * Number of error responses
+		 * @return the number of requests answered with an error
+		 */
+		public long getErrorsCount()
+		{
+			return errors;
+		}
+
+		/**
+		 * Throughput
+		 * @return the number of requests answered per second
+		 */
+		public double getThroughput()
+		{
+			return elapsedNanos == 0 ? 0.0 : latencies.length * 1e9 / elapsedNanos;
+		}
+
+		/**
+		 * Latency percentile (nearest rank)
+		 * @param percent the percentile in [0, 100]
+		 * @return the latency in nanoseconds below which percent of the
+		 * requests were answered (or 0 if there was no request)
+		 * @throws IllegalArgumentException if percent is not in [0, 100]
+		 */
+		public long getPercentile(double percent) throws IllegalArgumentException
+		{
+			if (!(percent >= 0.0 && percent <= 100.0))
+			{
+				throw new IllegalArgumentException("Invalid percentile : " + percent);
+			}
+			if (latencies.length == 0)
+			{
+				return 0;
+			}
+			int rank = (int) Math.ceil(percent / 100.0 * latencies.length);
+			return latencies[Math.max(0, rank - 1)];
+		}
+
+		/**
+		 * Median latency
+		 * @return the 50th percentile latency in nanoseconds
+		 */
+		public long getP50()
+		{
+			return getPercentile(50.0);
+		}
+
+		/**
+		 * Tail latency
+		 * @return the 99th percentile latency in nanoseconds
+		 */
+		public long getP99()
+		{
+			return getPercentile(99.0);
+		}
+
+		/**
+		 * String representation of these results
+		 * @return the counts, throughput and latency percentiles
+		 */
+		@Override
+		public String toString()
+		{
+			return String.format("requests=%d errors=%d throughput=%.0f/s p50=%.1fus p99=%.1fus",
+			                     getRequestsCount(),
+			                     errors,
+			                     getThroughput(),
+			                     getP50() / 1e3,
+			                     getP99() / 1e3);
+		}
+	}
+
+	/**
+	 * The address of the server
+	 */
+	private final InetSocketAddress address;
+
+	/**
+	 * Number of concurrent connections
+	 */
+	private final int connections;
+
+	/**
+	 * Number of requests sent by each connection
+	 */
+	private final int requestsPerConnection;
+
+	/**
+	 * Maximum number of requests sent and not answered yet per connection
+	 */
+	private final int pipelineDepth;
+
+	/**
+	 * Constructor
+	 * @param address the address of the server
+	 * @param connections the number of concurrent connections
+	 * @param requestsPerConnection the number of requests sent by each
+	 * connection
+	 * @param pipelineDepth the maximum number of requests sent and not
+	 * answered yet per connection (1 waits for each response before sending
+	 * the next request)
+	 * @throws IllegalArgumentException if address is null or if one of the
+	 * counts is not positive
+	 */
+	public LoadClient(InetSocketAddress address,
+	                  int connections,
+	                  int requestsPerConnection,
+	                  int pipelineDepth)
+		throws IllegalArgumentException
+	{
+		if (address == null)
+		{
+			throw new IllegalArgumentException("Null address");
+		}
+		if (connections < 1 || requestsPerConnection < 1 || pipelineDepth < 1)
+		{
+			throw new IllegalArgumentException("Invalid load : " + connections + " connections, "
+			    + requestsPerConnection + " requests, pipeline of " + pipelineDepth);
+		}
+		this.address = address;
+		this.connections = connections;
+		this.requestsPerConnection = requestsPerConnection;
+		this.pipelineDepth = pipelineDepth;
+	}
+
+	/**
+	 * Sends requests on all connections and waits for their responses
+	 * @param requests the requests to send (each connection sends them in
+	 * turn, starting over when they are all sent)
+	 * @return the results of the load
+	 * @throws IOException if a connection fails
+	 * @throws IllegalArgumentException if requests is empty or contains a
+	 * line break
+	 */
+	public Result run(List<String> requests) throws IOException, IllegalArgumentException
+	{
+		if (requests.isEmpty())
+		{
+			throw new IllegalArgumentException("No request");
+		}
+		for (String request : requests)
+		{
+			if (request.indexOf('\n') >= 0 || request.indexOf('\r') >= 0)
+			{
+				throw new IllegalArgumentException("Request with a line break : " + request);
+			}
+		}
+		long[] latencies = new long[connections * requestsPerConnection];
+		long[] errors = new long[connections];
+		ExecutorService pool = Executors.newFixedThreadPool(connections);
+		List<Future<?>> loads = new ArrayList<Future<?>>(connections);
+		long start = System.nanoTime();
+		try
+		{
+			for (int i = 0; i < connections; i++)
+			{
+				int connection = i;
+				loads.add(pool.submit(() ->
+				{
+					errors[connection] = load(requests, latencies, connection * requestsPerConnection);
+					return null;
+				}));
+			}
+			for (Future<?> load : loads)
+			{
+				load.get();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted load", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof IOException cause)
+			{
+				throw cause;
+			}
+			throw new IllegalStateException("Unexpected load failure", e.getCause());
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		long elapsed = System.nanoTime() - start;
+		return new Result(latencies, Arrays.stream(errors).sum(), elapsed);
+	}
+
+	/**
+	 * Sends the requests of one connection
+	 * @param requests the requests to send in turn
+	 * @param latencies the latencies of all requests
+	 * @param offset the index of the latency of the first request of this
+	 * connection
+	 * @return the number of error responses
+	 * @throws IOException if the connection fails
+	 */
+	private long load(List<String> requests, long[] latencies, int offset) throws IOException
+	{
+		long[] sent = new long[pipelineDepth];
+		long errors = 0;
+		try (SocketChannel channel = SocketChannel.open(address);
+		     BufferedReader reader =
+		         new BufferedReader(new InputStreamReader(channel.socket().getInputStream(),
+		                                                  StandardCharsets.UTF_8));
+		     Writer writer =
+		         new BufferedWriter(new OutputStreamWriter(channel.socket().getOutputStream(),
+		                                                   StandardCharsets.UTF_8)))
+		{
+			int sentCount = 0;
+			for (int received = 0; received < requestsPerConnection; received++)
+			{
+				if (sentCount < requestsPerConnection && sentCount - received < pipelineDepth)
+				{
+					while (sentCount < requestsPerConnection && sentCount - received < pipelineDepth)
+					{
+						writer.write(requests.get(sentCount % requests.size()));
+						writer.write('\n');
+						sent[sentCount % pipelineDepth] = System.nanoTime();
+						sentCount++;
+					}
+					writer.flush();
+				}
+				String response = reader.readLine();
+				if (response == null)
+				{
+					throw new EOFException("Connection closed by the server");
+				}
+				latencies[offset + received] = System.nanoTime() - sent[received % pipelineDepth];
+				if (!response.startsWith("ok "))
+				{
+					errors++;
+				}
+			}
+		}
+		return errors;
+	}
+
+	/**
+	 * Load generator entry point
+	 * @param args host, port, then optionally the number of connections
+	 * [default is 64], the number of requests per connection [default is
+	 * 10000], the pipeline depth [default is 16] and the requests to send
+	 * [default is "a + x + 1|a=2,x=3"]
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 2)
+		{
+			System.out.println("usage: java application.LoadClient host port [connections] [requests] [depth] [request...]");
+			return;
+		}
+		try
+		{
+			InetSocketAddress address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+			int connections = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+			int requests = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+			int depth = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+			List<String> lines = args.length > 5
+			    ? Arrays.asList(args).subList(5, args.length)
+			    : List.of("a + x + 1|a=2,x=3");
+			Result result = new LoadClient(address, connections, requests, depth).run(lines);
+			System.out.println(result);
+		}
+		catch (IOException | IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -1,14 +1,30 @@
 package application;
 
-import java.util.Collection;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Optional;
 
+import expressions.EvaluationContext;
 import expressions.Expression;
 import expressions.binary.AssignmentExpression;
 import expressions.binary.BinaryExpression;
-import expressions.terminal.VariableExpression;
+import expressions.profiling.ExpressionProfiler;
+import expressions.statements.DependencyGraph;
 import parser.ExpressionParser;
 import parser.exceptions.ParserException;
 
@@ -18,110 +34,152 @@ import parser.exceptions.ParserException;
 public class Main
 {
 	/**
-	 * Extract variable set from expressions.
-	 * The same variables can be encounterd multiple times within expressions
-	 * but
-	 * stored only once in the resulting set. Howecer a variable already stored
-	 * in the resulting set can be modified for instance when a variable with no
-	 * value is already stored in the set and the variable with the same name
-	 * and a defined value is encountered within the expressions.
-	 * @param expressions the list of expressions to explore
-	 * @return a set of all variables encountered within th expressions list
+	 * Print expressions in tree form
+	 * @param expr the expression to, print on the console
+	 * @param tabLevel the number of tabulations to prepend.
 	 */
-	private static <E extends Number> Set<VariableExpression<E>>
-	    extractVariables(Collection<Expression<E>> expressions)
+	private static void printExpression(Expression<? extends Number> expr, int tabLevel)
 	{
-		Set<VariableExpression<E>> variables = new TreeSet<>();
-		for (Expression<E> expression : expressions)
+		for (int i = 0; i < tabLevel; i++)
 		{
-			Set<VariableExpression<E>> expressionVariables =
-			    extractVariables(expression);
-			for (VariableExpression<E> expressionVariable : expressionVariables)
-			{
-				if (variables.contains(expressionVariable))
-				{
-					// find this variable in already registerd variables
-					for (VariableExpression<E> registeredVariable : variables)
-					{
-						if (registeredVariable.equals(expressionVariable))
-						{
-							if (!registeredVariable.hasValue()
-							    && expressionVariable.hasValue())
-							{
-								registeredVariable.setValue(expressionVariable.value());
-							}
-						}
-					}
-				}
-				else
-				{
-					// Add it
-					variables.add(expressionVariable);
-				}
-			}
+			System.out.print('\t');
 		}
-		return variables;
+
+		if (expr instanceof BinaryExpression<?>)
+		{
+			BinaryExpression<? extends Number> op = (BinaryExpression<? extends Number>) expr;
+			System.out.println(op.getRules().toString());
+			printExpression(op.getLeft(), tabLevel + 1);
+			printExpression(op.getRight(), tabLevel + 1);
+			return;
+		}
+
+		System.out.println(expr);
 	}
 
 	/**
-	 * Extract all variables from a single expression
-	 * @param expression the expression to explore
-	 * @return a set of variables encountered in the provided expression
+	 * Batch mode : evaluates statements read from a file or the standard input
+	 * and writes one record per statement
+	 * @param specimen A specimen to provide the Number class for statements
+	 * @param input the file to read or null (or "-") to read the standard
+	 * input
+	 * @param output the file to write or null to write the standard output
+	 * @param format the format of records ("csv" or "jsonl")
+	 * @param workers the number of threads evaluating statements
+	 * @throws IOException if reading or writing fails
+	 * @throws IllegalArgumentException if format or workers are invalid
+	 * @see BatchEvaluator
 	 */
-	private static <E extends Number> Set<VariableExpression<E>>
-	    extractVariables(Expression<E> expression)
+	private static void runBatch(Number specimen,
+	                             String input,
+	                             String output,
+	                             String format,
+	                             int workers)
+		throws IOException, IllegalArgumentException
 	{
-		Set<VariableExpression<E>> variables = new TreeSet<>();
-
-		if (expression != null)
+		BatchEvaluator<Number> evaluator =
+		    new BatchEvaluator<Number>(specimen,
+		                               BatchEvaluator.Format.valueOf(format.toUpperCase()),
+		                               workers);
+		Reader reader;
+		if (input == null || input.equals("-"))
 		{
-			if (expression instanceof VariableExpression<?>)
-			{
-				variables.add((VariableExpression<E>) expression);
-			}
-
-			if (expression instanceof BinaryExpression<?>)
+			reader = new InputStreamReader(System.in, StandardCharsets.UTF_8);
+		}
+		else
+		{
+			reader = Channels.newReader(FileChannel.open(Paths.get(input),
+			                                             StandardOpenOption.READ),
+			                            StandardCharsets.UTF_8);
+		}
+		if (output == null)
+		{
+			// Unbuffered standard output : records are buffered by the evaluator
+			WritableByteChannel channel =
+			    new FileOutputStream(FileDescriptor.out).getChannel();
+			evaluator.run(reader, channel);
+		}
+		else
+		{
+			try (FileChannel channel = FileChannel.open(Paths.get(output),
+			                                            StandardOpenOption.CREATE,
+			                                            StandardOpenOption.TRUNCATE_EXISTING,
+			                                            StandardOpenOption.WRITE))
 			{
-				BinaryExpression<E> operator =
-				    (BinaryExpression<E>) expression;
-				variables.addAll(extractVariables(operator.getLeft()));
-				variables.addAll(extractVariables(operator.getRight()));
+				evaluator.run(reader, channel);
 			}
 		}
-
-		return variables;
 	}
 
 	/**
-	 * Print expressions in tree form
-	 * @param expr the expression to, print on the console
-	 * @param tabLevel the number of tabulations to prepend.
+	 * Server mode : evaluates formulas sent by clients until killed
+	 * @param specimen A specimen to provide the Number class for formulas
+	 * @param port the loopback port to listen to (0 chooses a free port)
+	 * @throws IOException if the port can't be listened to
+	 * @see EvaluationServer
 	 */
-	private static void printExpression(Expression<? extends Number> expr, int tabLevel)
+	private static void runServer(Number specimen, int port) throws IOException
 	{
-		for (int i = 0; i < tabLevel; i++)
+		try (EvaluationServer<Number> server = new EvaluationServer<Number>(specimen))
 		{
-			System.out.print('\t');
+			InetSocketAddress address =
+			    server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+			System.out.println("Listening on " + address + (server.isVirtual() ? " (virtual threads)" : ""));
+			server.join();
 		}
-
-		if (expr instanceof BinaryExpression<?>)
+		catch (InterruptedException e)
 		{
-			BinaryExpression<? extends Number> op = (BinaryExpression<? extends Number>) expr;
-			System.out.println(op.getRules().toString());
-			printExpression(op.getLeft(), tabLevel + 1);
-			printExpression(op.getRight(), tabLevel + 1);
-			return;
+			Thread.currentThread().interrupt();
 		}
+	}
 
-		System.out.println(expr);
+	/**
+	 * Profiles the evaluation of statements in program order and writes
+	 * the folded stacks of their self times
+	 * @param statements the statements to evaluate
+	 * @param profiler the profiler which parsed the statements
+	 * @param output the folded stacks file to write
+	 * @throws IOException if writing fails
+	 * @see ExpressionProfiler
+	 */
+	private static void runProfile(List<Expression<Number>> statements,
+	                               ExpressionProfiler<Number> profiler,
+	                               String output)
+		throws IOException
+	{
+		EvaluationContext<Number> context = new EvaluationContext<Number>();
+		for (Expression<Number> statement : statements)
+		{
+			try
+			{
+				profiler.evaluate(statement, context);
+			}
+			catch (IllegalStateException | ArithmeticException e)
+			{
+				// Statements which can't be evaluated are not profiled
+			}
+		}
+		try (Writer writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8))
+		{
+			profiler.writeFoldedStacks(writer, ExpressionProfiler.Metric.SELF_NANOS);
+		}
 	}
 
 	/**
 	 * Main program entrey point.
 	 * Parses expressions from argument string
 	 * @param args contains the expressions to parse separated by ";" but can
-	 * start with a "--type {int|float|double}" to indicate the type of numbers
+	 * start with a "--type {int|long|float|double|decimal}" to indicate the type of numbers
 	 * expected in the following expressions. [default is int]
+	 * and "--no-tree" to print expressions without their tree.
+	 * "--batch [file]" reads statements from a file (or the standard input)
+	 * instead and writes a record per statement, with the options
+	 * "--format {csv|jsonl}" [default is csv], "--workers n" [default is 1]
+	 * and "--output file" [default is the standard output].
+	 * "--profile file" also evaluates the expressions with a profiler and
+	 * writes the folded stacks of their nodes' self times to the file.
+	 * "--serve [port]" evaluates formulas sent by clients on a loopback port
+	 * instead (see {@link EvaluationServer}).
 	 */
 	@SuppressWarnings("unchecked")
 	public static void main(String[] args)
@@ -129,7 +187,9 @@ public class Main
 
 		if (args.length == 0)
 		{
-			System.out.println("usage: java application.Main --type {int|float|double} expression1;expression2;...");
+			System.out.println("usage: java application.Main --type {int|long|float|double|decimal} [--no-tree] [--profile file] expression1;expression2;...");
+			System.out.println("       java application.Main --type {int|long|float|double|decimal} --batch [file|-] [--format {csv|jsonl}] [--workers n] [--output file]");
+			System.out.println("       java application.Main --type {int|long|float|double|decimal} --serve [port]");
 			return;
 		}
 
@@ -138,6 +198,15 @@ public class Main
 		 */
 		StringBuilder sb = new StringBuilder();
 		String numTypeString = "int";
+		boolean printTrees = true;
+		boolean batch = false;
+		String input = null;
+		String output = null;
+		String profile = null;
+		String format = "csv";
+		int workers = 1;
+		boolean serve = false;
+		int port = 0;
 		for (int i = 0; i < args.length; i++)
 		{
 			if (args[i].startsWith("--type"))
@@ -150,6 +219,71 @@ public class Main
 				}
 				numTypeString = args[i];
 			}
+			else if (args[i].equals("--no-tree"))
+			{
+				printTrees = false;
+			}
+			else if (args[i].equals("--batch"))
+			{
+				batch = true;
+				if ((i + 1) < args.length && !args[i + 1].startsWith("--"))
+				{
+					input = args[++i];
+				}
+			}
+			else if (args[i].equals("--serve"))
+			{
+				serve = true;
+				if ((i + 1) < args.length && !args[i + 1].startsWith("--"))
+				{
+					try
+					{
+						port = Integer.parseInt(args[++i]);
+					}
+					catch (NumberFormatException e)
+					{
+						System.err.println("invalid argument for --serve : " + args[i]);
+						System.exit(1);
+					}
+				}
+			}
+			else if (args[i].equals("--format")
+			    || args[i].equals("--workers")
+			    || args[i].equals("--output")
+			    || args[i].equals("--profile"))
+			{
+				String option = args[i];
+				i++;
+				if (i >= args.length)
+				{
+					System.err.println("missing argument for " + option);
+					System.exit(1);
+				}
+				if (option.equals("--format"))
+				{
+					format = args[i];
+				}
+				else if (option.equals("--output"))
+				{
+					output = args[i];
+				}
+				else if (option.equals("--profile"))
+				{
+					profile = args[i];
+				}
+				else
+				{
+					try
+					{
+						workers = Integer.parseInt(args[i]);
+					}
+					catch (NumberFormatException e)
+					{
+						System.err.println("invalid argument for --workers : " + args[i]);
+						System.exit(1);
+					}
+				}
+			}
 			else
 			{
 				sb.append(args[i]);
@@ -163,35 +297,105 @@ public class Main
 		ExpressionParser<?> parser = null;
 		List<?> expressionsList = null;
 		List<Expression<Number>> expressions = null;
-		Set<VariableExpression<Number>> variables = null;
+		DependencyGraph<Number> graph = null;
+		Number specimen;
 		numTypeString = numTypeString.toLowerCase();
 		if (numTypeString.contains("double"))
 		{
-			parser = new ExpressionParser<Double>(0.0);
+			specimen = Double.valueOf(0.0);
 		}
 		else if (numTypeString.contains("float"))
 		{
-			parser = new ExpressionParser<Float>(0.0f);
+			specimen = Float.valueOf(0.0f);
+		}
+		else if (numTypeString.contains("decimal"))
+		{
+			specimen = BigDecimal.ZERO;
+		}
+		else if (numTypeString.contains("long"))
+		{
+			specimen = Long.valueOf(0L);
 		}
 		else
 		{
-			parser = new ExpressionParser<Integer>(0);
+			specimen = Integer.valueOf(0);
+		}
+
+		if (serve)
+		{
+			try
+			{
+				runServer(specimen, port);
+			}
+			catch (IOException | IllegalArgumentException e)
+			{
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+			return;
+		}
+		if (batch)
+		{
+			try
+			{
+				runBatch(specimen, input, output, format, workers);
+			}
+			catch (IOException | IllegalArgumentException e)
+			{
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+			return;
 		}
+		parser = new ExpressionParser<Number>(specimen);
+		ExpressionProfiler<Number> profiler =
+		    profile == null ? null : new ExpressionProfiler<Number>();
 
 		/*
 		 * Parse expressions
 		 */
 		try
 		{
-			expressionsList = parser.parse(context);
+			expressionsList = profiler == null
+			    ? parser.parse(context)
+			    : profiler.parse((ExpressionParser<Number>) parser, context);
 			expressions = (List<Expression<Number>>) expressionsList;
 		}
 		catch (ParserException e)
 		{
-			e.printStackTrace();
+			System.err.println(e.getMessage());
+			System.exit(1);
 		}
 
-		variables = extractVariables(expressions);
+		/*
+		 * Profile statements before linking them (which evaluates them)
+		 */
+		if (profiler != null)
+		{
+			try
+			{
+				runProfile(expressions, profiler, profile);
+			}
+			catch (IOException e)
+			{
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+
+		/*
+		 * Link and evaluate statements according to their dependencies
+		 */
+		try
+		{
+			graph = new DependencyGraph<Number>(expressions);
+			graph.evaluate();
+		}
+		catch (IllegalArgumentException | ArithmeticException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
 
 		/*
 		 * Print expressions
@@ -203,28 +407,25 @@ public class Main
 			System.out.print(expr);
 			if (expr.hasValue() && !(expr instanceof AssignmentExpression<?>))
 			{
-				try
-				{
-					System.out.print(" = " + expr.value());
-				}
-				catch (IllegalStateException e)
-				{
-					e.printStackTrace();
-				}
+				System.out.print(" = " + expr.value());
 			}
 			System.out.println(": ");
-			printExpression(expr, 0);
+			if (printTrees)
+			{
+				printExpression(expr, 0);
+			}
 		}
 		/*
 		 * Print variables
 		 */
 		System.out.println("Variables : ");
-		for (VariableExpression<Number> variable : variables)
+		for (String variable : graph.getVariables())
 		{
 			System.out.print(variable);
-			if (variable.hasValue())
+			Optional<Number> value = graph.getValue(variable);
+			if (value.isPresent())
 			{
-				System.out.print(" : " + variable.value());
+				System.out.print(" : " + value.get());
 			}
 			System.out.println();
 		}
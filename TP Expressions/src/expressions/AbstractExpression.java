@@ -1,5 +1,13 @@
 package expressions;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Base abstract class for all expressions
  * @param <E> The type of numbers in this expression
@@ -13,12 +21,49 @@ public abstract class AbstractExpression<E extends Number>
 	 */
 	protected Expression<E> parent;
 
+	/**
+	 * Expressions using this expression as an operand and which need to be
+	 * invalidated when the value of this expression changes.
+	 * This is usually only the {@link #parent} but the same expression
+	 * (typically a variable) can be used as an operand in several expressions
+	 * whereas it can only have one parent. Created when the first dependent
+	 * is added.
+	 * @see #invalidate()
+	 */
+	private List<AbstractExpression<E>> dependents;
+
+	/**
+	 * Cached hash code of this expression (only meaningful when
+	 * {@link #hashed} is true)
+	 * @see #hashCode()
+	 */
+	private int hash;
+
+	/**
+	 * Cached 31<sup>n</sup> where n is the length of {@link #toString()}
+	 * (only meaningful when {@link #hashed} is true) used to compose the hash
+	 * codes of operands into the hash code of an expression without building
+	 * its String representation
+	 * @see #hashScale()
+	 */
+	private int scale;
+
+	/**
+	 * Indicates if {@link #hash} and {@link #scale} are up to date with the
+	 * structure of this expression
+	 */
+	private boolean hashed;
+
 	/**
 	 * Default protected constructor
 	 */
 	protected AbstractExpression()
 	{
 		parent = null; // no parent yet.
+		dependents = null;
+		hash = 0;
+		scale = 1;
+		hashed = false;
 	}
 
 	/**
@@ -64,6 +109,161 @@ public abstract class AbstractExpression<E extends Number>
 	@Override
 	public abstract void setParent(Expression<E> parent) throws IllegalArgumentException;
 
+	/**
+	 * Registers an expression using this expression as an operand
+	 * @param dependent the expression using this expression as an operand
+	 * @implNote an expression using this expression as both operands is
+	 * registered twice
+	 */
+	public void addDependent(AbstractExpression<E> dependent)
+	{
+		if (dependents == null)
+		{
+			dependents = new ArrayList<AbstractExpression<E>>(2);
+		}
+		dependents.add(dependent);
+	}
+
+	/**
+	 * Unregisters an expression which doesn't use this expression as an
+	 * operand anymore
+	 * @param dependent the expression to unregister
+	 */
+	public void removeDependent(AbstractExpression<E> dependent)
+	{
+		if (dependents != null)
+		{
+			for (int i = 0; i < dependents.size(); i++)
+			{
+				if (dependents.get(i) == dependent)
+				{
+					dependents.remove(i);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Expressions using this expression as an operand.
+	 * Expressions shared between several expressions (see
+	 * {@link ExpressionInterner}) have several dependents whereas
+	 * {@link #getParent()} only provides one of them.
+	 * @return an unmodifiable list of the expressions using this expression
+	 * as an operand (an expression using it as both operands appears twice)
+	 */
+	public List<AbstractExpression<E>> getDependents()
+	{
+		if (dependents == null)
+		{
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(dependents);
+	}
+
+	/**
+	 * Checks if this expression is used (directly or through other
+	 * expressions) as an operand of another expression, i.e. if this
+	 * expression is contained in the other expression.
+	 * Contrary to {@link #contains(Expression)} which explores all the
+	 * sub-expressions of the other expression, this method walks up
+	 * {@link #getDependents()} from this expression so it only visits the
+	 * ancestors of this expression : O(depth) in trees.
+	 * @param ancestor the expression to search among ancestors of this
+	 * expression
+	 * @return true if this expression is an operand of ancestor or of one of
+	 * its sub-expressions
+	 */
+	public boolean isOperandOf(AbstractExpression<E> ancestor)
+	{
+		AbstractExpression<E> current = this;
+		// Only needed when expressions are shared (see ExpressionInterner)
+		Deque<AbstractExpression<E>> pending = null;
+		Set<AbstractExpression<E>> visited = null;
+		while (current != null)
+		{
+			AbstractExpression<E> next = null;
+			List<AbstractExpression<E>> users = current.dependents;
+			int count = users == null ? 0 : users.size();
+			for (int i = 0; i < count; i++)
+			{
+				AbstractExpression<E> user = users.get(i);
+				if (user == ancestor)
+				{
+					return true;
+				}
+				if (next == null)
+				{
+					next = user;
+				}
+				else if (user != next)
+				{
+					if (pending == null)
+					{
+						pending = new ArrayDeque<AbstractExpression<E>>();
+						visited = Collections.newSetFromMap(
+						    new IdentityHashMap<AbstractExpression<E>, Boolean>());
+					}
+					if (visited.add(user))
+					{
+						pending.push(user);
+					}
+				}
+			}
+			if (next != null && visited != null && !visited.add(next))
+			{
+				next = null; // already reached through another path
+			}
+			if (next == null && pending != null && !pending.isEmpty())
+			{
+				next = pending.pop();
+			}
+			current = next;
+		}
+		return false;
+	}
+
+	/**
+	 * Notifies this expression that its value might have changed.
+	 * Cached values (if any) are discarded and all expressions using this
+	 * one as an operand are invalidated (so only the ancestors of a modified
+	 * expression will have to be evaluated again).
+	 * @implSpec Default implementation only invalidates dependent expressions
+	 */
+	public void invalidate()
+	{
+		if (dependents != null)
+		{
+			for (int i = 0; i < dependents.size(); i++)
+			{
+				dependents.get(i).invalidate();
+			}
+		}
+	}
+
+	/**
+	 * Notifies this expression that its structure (and therefore its
+	 * {@link #toString()}) might have changed.
+	 * The cached hash code is discarded and all expressions using this one as
+	 * an operand are also notified unless this expression was not hashed yet
+	 * (in which case none of them is since hashing an expression hashes all
+	 * its operands).
+	 */
+	public void invalidateHash()
+	{
+		if (hashed)
+		{
+			hashed = false;
+			if (dependents != null)
+			{
+				for (int i = 0; i < dependents.size(); i++)
+				{
+					dependents.get(i).invalidateHash();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Test containment of another expression
 	 * @param expr the expression to test
@@ -120,16 +320,18 @@ public abstract class AbstractExpression<E extends Number>
 	 * <li>obj is not null</li>
 	 * <li>obj is not self</li>
 	 * <li>obj is indeeed an {@link Expression}</li>
-	 * <li>both expressions have the same type (and Numbers)</li>
-	 * <li>both expressions are written the same way (using
-	 * {@link #toString()})</li>
+	 * <li>both expressions have the same type</li>
+	 * <li>both expressions have the same structure (see
+	 * {@link #sameStructure(AbstractExpression)}) which implies they are
+	 * written the same way (as in {@link #toString()})</li>
 	 * </ul>
 	 * .
 	 * @param obj the object
 	 * @return true if provided object is self or is a non null expression with
-	 * the same type and number as this expression and both expression are
-	 * written (as in {@link #toString()}) the same way
-	 * @see #sameTypes(Expression)
+	 * the same type and structure as this expression
+	 * @implNote Hash codes are compared first (they are cached) so that
+	 * different expressions are usually told apart without exploring their
+	 * operands
 	 */
 	@Override
 	public boolean equals(Object obj)
@@ -143,16 +345,31 @@ public abstract class AbstractExpression<E extends Number>
 		{
 			return true;
 		}
-		if (obj instanceof Expression<?>)
+		if (getClass() != obj.getClass())
 		{
-			Expression<?> expr = (Expression<?>) obj;
-			if (!sameTypes(expr))
-			{
-				return false;
-			}
-			return toString().equals(expr.toString());
+			return false;
 		}
-		return false;
+		AbstractExpression<?> expr = (AbstractExpression<?>) obj;
+		if (hashCode() != expr.hashCode())
+		{
+			return false;
+		}
+		return sameStructure(expr);
+	}
+
+	/**
+	 * Compares the structure of this expression with another expression of
+	 * the same class.
+	 * @param expr the expression to compare (of the same class as this
+	 * expression and with the same hash code)
+	 * @return true if both expressions have the same structure
+	 * @implSpec Default implementation compares {@link #toString()} and
+	 * {@link #sameTypes(Expression)} and should be overridden with an
+	 * implementation which doesn't build Strings.
+	 */
+	protected boolean sameStructure(AbstractExpression<?> expr)
+	{
+		return sameTypes(expr) && toString().equals(expr.toString());
 	}
 
 	/**
@@ -164,13 +381,91 @@ public abstract class AbstractExpression<E extends Number>
 
 	/**
 	 * Hashcode for this expression.
-	 * Since {@link #equals(Object)} is solely based on {@link #toString()}
-	 * comparison, so does this method.
+	 * Since {@link #equals(Object)} implies identical {@link #toString()}
+	 * this method returns the same value as {@code toString().hashCode()} but
+	 * computed by {@link #computeHash()} and cached until
+	 * {@link #invalidateHash()} is called.
 	 * @return the hashcode of this expression
 	 */
 	@Override
 	public int hashCode()
 	{
-		return toString().hashCode();
+		if (!hashed)
+		{
+			computeHash();
+			hashed = true;
+		}
+		return hash;
+	}
+
+	/**
+	 * 31<sup>n</sup> (modulo 2<sup>32</sup>) where n is the length of
+	 * {@link #toString()} which is needed to compute the hash code of a String
+	 * containing this expression's String representation from its hash code
+	 * @return 31<sup>n</sup> where n is the length of {@link #toString()}
+	 * @see #concatHash(int, int, int)
+	 */
+	public int hashScale()
+	{
+		hashCode();
+		return scale;
+	}
+
+	/**
+	 * Computes the hash code and hash scale of this expression and stores them
+	 * with {@link #setHash(int, int)}
+	 * @implSpec Default implementation builds the String representation of
+	 * this expression and should be overridden by expressions able to compose
+	 * it from their parts
+	 */
+	protected void computeHash()
+	{
+		String string = toString();
+		setHash(string.hashCode(), scaleOf(string.length()));
+	}
+
+	/**
+	 * Stores the hash code and hash scale computed by {@link #computeHash()}
+	 * @param hash the hash code of this expression
+	 * @param scale 31<sup>n</sup> where n is the length of {@link #toString()}
+	 */
+	protected final void setHash(int hash, int scale)
+	{
+		this.hash = hash;
+		this.scale = scale;
+	}
+
+	/**
+	 * Computes 31<sup>n</sup> (modulo 2<sup>32</sup>) by squaring
+	 * @param length the length n of a String
+	 * @return 31<sup>n</sup>
+	 */
+	public static int scaleOf(int length)
+	{
+		int result = 1;
+		int base = 31;
+		for (int n = length; n > 0; n >>= 1)
+		{
+			if ((n & 1) != 0)
+			{
+				result *= base;
+			}
+			base *= base;
+		}
+		return result;
+	}
+
+	/**
+	 * Hash code of the concatenation of two Strings computed from their
+	 * hash codes, as {@link String#hashCode()} would compute it
+	 * @param firstHash the hash code of the first String
+	 * @param secondHash the hash code of the second String
+	 * @param secondScale 31<sup>n</sup> where n is the length of the second
+	 * String
+	 * @return the hash code of the concatenation of both Strings
+	 */
+	public static int concatHash(int firstHash, int secondHash, int secondScale)
+	{
+		return (firstHash * secondScale) + secondHash;
 	}
 }
@@ -0,0 +1,131 @@
+package expressions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values of variables used by {@link Expression#value(EvaluationContext)}.
+ * Unlike {@link Expression#value()} which reads and writes values held by
+ * the variables of an expression, evaluating with a context only reads the
+ * expression's structure : values are read from the context and
+ * assignments are written to the context. So a single expression (which is
+ * not modified anymore) can be evaluated concurrently by several threads,
+ * each one using its own context.
+ * Contexts are not thread safe : each thread should use its own context.
+ * @param <E> The type of numbers in variables
+ */
+public class EvaluationContext<E extends Number>
+{
+	/**
+	 * Values of variables by name
+	 */
+	private final Map<String, E> values;
+
+	/**
+	 * Default constructor.
+	 * Builds a context without any variable value
+	 */
+	public EvaluationContext()
+	{
+		values = new HashMap<String, E>();
+	}
+
+	/**
+	 * Valued constructor.
+	 * Builds a context with initial variables values
+	 * @param values the initial values of variables by name (which are
+	 * copied)
+	 * @throws NullPointerException if values or one of its values is null
+	 */
+	public EvaluationContext(Map<String, ? extends E> values)
+		throws NullPointerException
+	{
+		this();
+		for (Map.Entry<String, ? extends E> entry : values.entrySet())
+		{
+			set(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Indicates if a variable has a value in this context
+	 * @param name the name of the variable
+	 * @return true if the variable has a value in this context
+	 */
+	public boolean has(String name)
+	{
+		return values.containsKey(name);
+	}
+
+	/**
+	 * Value of a variable
+	 * @param name the name of the variable
+	 * @return the value of the variable in this context
+	 * @throws IllegalStateException if the variable has no value in this
+	 * context
+	 */
+	public E get(String name) throws IllegalStateException
+	{
+		E value = values.get(name);
+		if (value == null)
+		{
+			throw new IllegalStateException("Variable " + name
+			    + " has no value in this context");
+		}
+		return value;
+	}
+
+	/**
+	 * Sets the value of a variable (typically when evaluating an assignment)
+	 * @param name the name of the variable
+	 * @param value the value to set
+	 * @throws NullPointerException if value is null
+	 */
+	public void set(String name, E value) throws NullPointerException
+	{
+		if (value == null)
+		{
+			throw new NullPointerException("Variable " + name
+			    + " must have a value");
+		}
+		values.put(name, value);
+	}
+
+	/**
+	 * Removes the value of a variable
+	 * @param name the name of the variable
+	 */
+	public void clear(String name)
+	{
+		values.remove(name);
+	}
+
+	/**
+	 * Removes the values of all variables (so that this context can be
+	 * reused for another evaluation)
+	 */
+	public void clear()
+	{
+		values.clear();
+	}
+
+	/**
+	 * Values of variables
+	 * @return an unmodifiable view of the values of variables by name
+	 */
+	public Map<String, E> getValues()
+	{
+		return Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * String representation of this context
+	 * @return a String representation of the values of variables
+	 */
+	@Override
+	public String toString()
+	{
+		return values.toString();
+	}
+}
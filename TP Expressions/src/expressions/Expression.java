@@ -28,6 +28,76 @@ public interface Expression<E extends Number> extends ValueHolder<E>,
 	@Override
 	public abstract E value() throws IllegalStateException;
 
+	/**
+	 * Numeric value of this expression with variables values provided by a
+	 * context.
+	 * This expression is not modified (its variables values are ignored and
+	 * assignments are written to the context), so an expression can be
+	 * evaluated concurrently with distinct contexts.
+	 * @param context the values of variables
+	 * @return the numeric value of this expression in this context
+	 * @throws IllegalStateException if a value can't be evaluated in this
+	 * context (incomplete expression or variable without value in context)
+	 */
+	public abstract E value(EvaluationContext<E> context)
+		throws IllegalStateException;
+
+	/**
+	 * Numeric value of this expression computed with int arithmetic.
+	 * Unlike {@link #value()} sub-expressions are evaluated as primitives so
+	 * no intermediate {@link Number} is created.
+	 * @return the int value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 * @implSpec Default implementation unboxes {@link #value()} which is
+	 * suitable for terminal expressions already holding their value
+	 */
+	public default int evalInt() throws IllegalStateException
+	{
+		return value().intValue();
+	}
+
+	/**
+	 * Numeric value of this expression computed with long arithmetic.
+	 * Unlike {@link #value()} sub-expressions are evaluated as primitives so
+	 * no intermediate {@link Number} is created.
+	 * @return the long value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 * @implSpec Default implementation unboxes {@link #value()} which is
+	 * suitable for terminal expressions already holding their value
+	 */
+	public default long evalLong() throws IllegalStateException
+	{
+		return value().longValue();
+	}
+
+	/**
+	 * Numeric value of this expression computed with float arithmetic.
+	 * Unlike {@link #value()} sub-expressions are evaluated as primitives so
+	 * no intermediate {@link Number} is created.
+	 * @return the float value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 * @implSpec Default implementation unboxes {@link #value()} which is
+	 * suitable for terminal expressions already holding their value
+	 */
+	public default float evalFloat() throws IllegalStateException
+	{
+		return value().floatValue();
+	}
+
+	/**
+	 * Numeric value of this expression computed with double arithmetic.
+	 * Unlike {@link #value()} sub-expressions are evaluated as primitives so
+	 * no intermediate {@link Number} is created.
+	 * @return the double value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 * @implSpec Default implementation unboxes {@link #value()} which is
+	 * suitable for terminal expressions already holding their value
+	 */
+	public default double evalDouble() throws IllegalStateException
+	{
+		return value().doubleValue();
+	}
+
 	/**
 	 * Accessor to parent expression (if any)
 	 * @return a reference to the parent expression or null if there is no
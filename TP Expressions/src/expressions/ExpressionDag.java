@@ -0,0 +1,221 @@
+package expressions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import expressions.binary.BinaryExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Directed acyclic graph of the statements of a program (such as
+ * "a = 1; b = (a + 2) + (a + 2); b + (a + 2)") where structurally identical
+ * sub-expressions are shared (see {@link ExpressionInterner}) so that each of
+ * them is evaluated once per evaluation even if it appears many times.
+ * Binary expressions are evaluated in topological order (operands first),
+ * each of them using the cached values of its operands, so evaluation is
+ * neither recursive nor redundant.
+ * Variables are also shared by name so values assigned by a statement are
+ * directly available to the following statements.
+ * Expression DAGs are not thread safe.
+ * @param <E> The type of numbers in statements
+ */
+public class ExpressionDag<E extends Number>
+{
+	/**
+	 * The shared statements in program order
+	 */
+	private final List<Expression<E>> roots;
+
+	/**
+	 * Shared binary expressions in topological order (each of them once)
+	 */
+	private final List<BinaryExpression<E>> order;
+
+	/**
+	 * Index (in {@link #order}) following the last binary expression first
+	 * needed by each statement
+	 */
+	private final int[] ends;
+
+	/**
+	 * Shared variables by name
+	 */
+	private final SortedMap<String, VariableExpression<E>> variables;
+
+	/**
+	 * Number of distinct expressions in this graph
+	 */
+	private final int nodesCount;
+
+	/**
+	 * Number of expressions in the original statements (without sharing)
+	 */
+	private final int treeSize;
+
+	/**
+	 * Constructor sharing statements with a new {@link ExpressionInterner}
+	 * @param statements the statements of the program (which are not
+	 * modified)
+	 * @throws IllegalArgumentException if one of the statements can't be
+	 * shared
+	 */
+	public ExpressionDag(List<? extends Expression<E>> statements)
+		throws IllegalArgumentException
+	{
+		this(new ExpressionInterner<E>(), statements);
+	}
+
+	/**
+	 * Constructor sharing statements with an existing
+	 * {@link ExpressionInterner} (so that expressions can also be shared with
+	 * other programs)
+	 * @param interner the interner providing shared expressions
+	 * @param statements the statements of the program (which are not
+	 * modified)
+	 * @throws IllegalArgumentException if one of the statements can't be
+	 * shared
+	 */
+	public ExpressionDag(ExpressionInterner<E> interner,
+	                     List<? extends Expression<E>> statements)
+		throws IllegalArgumentException
+	{
+		roots = Collections.unmodifiableList(interner.intern(statements));
+		order = new ArrayList<BinaryExpression<E>>();
+		ends = new int[roots.size()];
+		variables = new TreeMap<String, VariableExpression<E>>();
+		Map<Expression<E>, Boolean> visited = new IdentityHashMap<Expression<E>, Boolean>();
+		for (int i = 0; i < roots.size(); i++)
+		{
+			visit(roots.get(i), visited);
+			ends[i] = order.size();
+		}
+		nodesCount = visited.size();
+		int size = 0;
+		for (Expression<E> statement : statements)
+		{
+			size += sizeOf(statement);
+		}
+		treeSize = size;
+	}
+
+	/**
+	 * Appends the binary expressions of an expression not visited yet to
+	 * {@link #order} (operands first)
+	 * @param expression the expression to visit
+	 * @param visited the expressions already visited
+	 */
+	private void visit(Expression<E> expression, Map<Expression<E>, Boolean> visited)
+	{
+		if (visited.put(expression, Boolean.TRUE) != null)
+		{
+			return;
+		}
+		if (expression instanceof BinaryExpression<E> binary)
+		{
+			visit(binary.getLeft(), visited);
+			visit(binary.getRight(), visited);
+			order.add(binary);
+		}
+		else if (expression instanceof VariableExpression<E> variable)
+		{
+			variables.put(variable.getName(), variable);
+		}
+	}
+
+	/**
+	 * Number of expressions in a tree
+	 * @param expression the root of the tree
+	 * @return the number of expressions in this tree
+	 */
+	private static int sizeOf(Expression<?> expression)
+	{
+		if (expression instanceof BinaryExpression<?> binary)
+		{
+			return 1 + sizeOf(binary.getLeft()) + sizeOf(binary.getRight());
+		}
+		return expression == null ? 0 : 1;
+	}
+
+	/**
+	 * Shared statements
+	 * @return an unmodifiable list of the shared statements in program order
+	 */
+	public List<Expression<E>> getRoots()
+	{
+		return roots;
+	}
+
+	/**
+	 * Number of distinct expressions in this graph
+	 * @return the number of distinct expressions
+	 */
+	public int getNodesCount()
+	{
+		return nodesCount;
+	}
+
+	/**
+	 * Number of expressions in the original statements
+	 * @return the number of expressions without sharing
+	 */
+	public int getTreeSize()
+	{
+		return treeSize;
+	}
+
+	/**
+	 * Shared variable
+	 * @param name the name of the variable
+	 * @return the shared variable with this name or an empty optional if
+	 * there is no such variable in this graph
+	 */
+	public Optional<VariableExpression<E>> getVariable(String name)
+	{
+		return Optional.ofNullable(variables.get(name));
+	}
+
+	/**
+	 * Shared variables
+	 * @return an unmodifiable map of shared variables sorted by name
+	 */
+	public SortedMap<String, VariableExpression<E>> getVariables()
+	{
+		return Collections.unmodifiableSortedMap(variables);
+	}
+
+	/**
+	 * Evaluates all statements in program order.
+	 * Binary expressions needed by a statement are evaluated (in topological
+	 * order) just before this statement so that assignments of previous
+	 * statements are taken into account. Expressions which can't be evaluated
+	 * (because some variables don't have values) are skipped.
+	 * @return the value of each statement in program order or an empty
+	 * optional if a statement can't be evaluated
+	 */
+	public List<Optional<E>> evaluate()
+	{
+		List<Optional<E>> values = new ArrayList<Optional<E>>(roots.size());
+		int start = 0;
+		for (int i = 0; i < roots.size(); i++)
+		{
+			for (int j = start; j < ends[i]; j++)
+			{
+				BinaryExpression<E> binary = order.get(j);
+				if (binary.hasValue())
+				{
+					binary.value();
+				}
+			}
+			start = ends[i];
+			Expression<E> root = roots.get(i);
+			values.add(root.hasValue() ? Optional.of(root.value()) : Optional.empty());
+		}
+		return values;
+	}
+}
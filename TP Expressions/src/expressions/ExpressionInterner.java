@@ -0,0 +1,286 @@
+package expressions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Factory creating each distinct expression only once (hash-consing) so that
+ * structurally identical sub-expressions (such as the many "(a + b)" of a
+ * generated formula) are shared instead of duplicated : expressions built by
+ * an interner form a directed acyclic graph rather than trees.
+ * <ul>
+ * <li>Constants are shared by value</li>
+ * <li>Variables are shared by name (so that all occurrences of a variable in
+ * several statements are the same variable)</li>
+ * <li>Binary expressions are shared by operator and (already shared)
+ * operands</li>
+ * </ul>
+ * Since shared expressions are used by several expressions, their
+ * {@link Expression#getParent()} is only the last expression they have been
+ * added to (or null once they have been removed from it). All the
+ * expressions using them are provided by
+ * {@link AbstractExpression#getDependents()}.
+ * Shared expressions should not be modified (with
+ * {@link BinaryExpression#setLeft(Expression)} or
+ * {@link BinaryExpression#setRight(Expression)}) since modifications would
+ * affect all the expressions using them.
+ * Interners are not thread safe.
+ * @param <E> The type of numbers in expressions
+ * @see ExpressionDag
+ */
+public class ExpressionInterner<E extends Number>
+{
+	/**
+	 * Key identifying a binary expression by its operator and the identities
+	 * of its (already shared) operands
+	 */
+	private static final class Key
+	{
+		/**
+		 * The operator
+		 */
+		private final BinaryOperatorRules rules;
+
+		/**
+		 * The shared left operand
+		 */
+		private final Expression<?> left;
+
+		/**
+		 * The shared right operand
+		 */
+		private final Expression<?> right;
+
+		/**
+		 * Constructor
+		 * @param rules the operator
+		 * @param left the shared left operand
+		 * @param right the shared right operand
+		 */
+		Key(BinaryOperatorRules rules, Expression<?> left, Expression<?> right)
+		{
+			this.rules = rules;
+			this.left = left;
+			this.right = right;
+		}
+
+		/**
+		 * Identity based equality of operands (since operands are shared)
+		 * @param obj the object to compare
+		 * @return true if obj is a key with the same operator and the same
+		 * operands
+		 */
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key) obj;
+			return (rules == other.rules)
+			    && (left == other.left)
+			    && (right == other.right);
+		}
+
+		/**
+		 * Hash code of operator and operands identities
+		 * @return the hash code of this key
+		 */
+		@Override
+		public int hashCode()
+		{
+			int result = rules.hashCode();
+			result = (31 * result) + System.identityHashCode(left);
+			return (31 * result) + System.identityHashCode(right);
+		}
+	}
+
+	/**
+	 * Shared constants by value
+	 */
+	private final Map<E, ConstantExpression<E>> constants;
+
+	/**
+	 * Shared variables by name
+	 */
+	private final Map<String, VariableExpression<E>> variables;
+
+	/**
+	 * Shared binary expressions by operator and operands
+	 */
+	private final Map<Key, BinaryExpression<E>> binaries;
+
+	/**
+	 * Number of requested expressions which were already shared
+	 */
+	private long hits;
+
+	/**
+	 * Default constructor
+	 */
+	public ExpressionInterner()
+	{
+		constants = new HashMap<E, ConstantExpression<E>>();
+		variables = new HashMap<String, VariableExpression<E>>();
+		binaries = new HashMap<Key, BinaryExpression<E>>();
+		hits = 0;
+	}
+
+	/**
+	 * Shared constant
+	 * @param value the value of the constant
+	 * @return the shared constant with this value
+	 * @throws NullPointerException if value is null
+	 */
+	public ConstantExpression<E> constant(E value) throws NullPointerException
+	{
+		ConstantExpression<E> constant = constants.get(value);
+		if (constant == null)
+		{
+			constant = new ConstantExpression<E>(value);
+			constants.put(value, constant);
+		}
+		else
+		{
+			hits++;
+		}
+		return constant;
+	}
+
+	/**
+	 * Shared variable
+	 * @param name the name of the variable
+	 * @return the shared variable with this name (without value when it is
+	 * created)
+	 */
+	public VariableExpression<E> variable(String name)
+	{
+		VariableExpression<E> variable = variables.get(name);
+		if (variable == null)
+		{
+			variable = new VariableExpression<E>(name);
+			variables.put(name, variable);
+		}
+		else
+		{
+			hits++;
+		}
+		return variable;
+	}
+
+	/**
+	 * Shared binary expression
+	 * @param rules the operator of the binary expression
+	 * @param left the left operand (which should already be shared)
+	 * @param right the right operand (which should already be shared)
+	 * @return the shared binary expression with this operator and operands
+	 * @throws UnsupportedOperationException if there is no binary expression
+	 * class implementing this operator
+	 * @see BinaryOperatorRules#newExpression()
+	 */
+	public BinaryExpression<E> binary(BinaryOperatorRules rules,
+	                                  Expression<E> left,
+	                                  Expression<E> right)
+		throws UnsupportedOperationException
+	{
+		Key key = new Key(rules, left, right);
+		BinaryExpression<E> binary = binaries.get(key);
+		if (binary == null)
+		{
+			binary = rules.newExpression();
+			binary.setLeft(left);
+			binary.setRight(right);
+			binaries.put(key, binary);
+		}
+		else
+		{
+			hits++;
+		}
+		return binary;
+	}
+
+	/**
+	 * Shared copy of an expression : each of its sub-expressions is replaced
+	 * by the shared expression with the same structure.
+	 * Values of variables are copied to shared variables which don't have a
+	 * value yet.
+	 * @param expression the expression to share (which is not modified)
+	 * @return the shared expression with the same structure
+	 * @throws IllegalArgumentException if expression is not made of
+	 * {@link ConstantExpression}s, {@link VariableExpression}s and
+	 * {@link BinaryExpression}s with both operands
+	 */
+	public Expression<E> intern(Expression<E> expression)
+		throws IllegalArgumentException
+	{
+		if (expression instanceof ConstantExpression<E> constant)
+		{
+			return constant(constant.value());
+		}
+		if (expression instanceof VariableExpression<E> variable)
+		{
+			VariableExpression<E> shared = variable(variable.getName());
+			if (variable.hasValue() && !shared.hasValue())
+			{
+				shared.setValue(variable.value());
+			}
+			return shared;
+		}
+		if (expression instanceof BinaryExpression<E> binary
+		    && binary.getLeft() != null
+		    && binary.getRight() != null)
+		{
+			Expression<E> left = intern(binary.getLeft());
+			Expression<E> right = intern(binary.getRight());
+			return binary(binary.getRules(), left, right);
+		}
+		throw new IllegalArgumentException("Can't share expression " + expression);
+	}
+
+	/**
+	 * Shared copies of several expressions (such as the statements of a
+	 * program) sharing sub-expressions between them
+	 * @param expressions the expressions to share
+	 * @return a list of shared expressions in the same order
+	 * @throws IllegalArgumentException if one of the expressions can't be
+	 * shared
+	 * @see #intern(Expression)
+	 */
+	public List<Expression<E>> intern(List<? extends Expression<E>> expressions)
+		throws IllegalArgumentException
+	{
+		List<Expression<E>> result = new ArrayList<Expression<E>>(expressions.size());
+		for (Expression<E> expression : expressions)
+		{
+			result.add(intern(expression));
+		}
+		return result;
+	}
+
+	/**
+	 * Number of distinct expressions created by this interner
+	 * @return the number of distinct expressions
+	 */
+	public int size()
+	{
+		return constants.size() + variables.size() + binaries.size();
+	}
+
+	/**
+	 * Number of requested expressions which were already shared (i.e. the
+	 * number of expressions saved by sharing)
+	 * @return the number of requested expressions already shared
+	 */
+	public long getHits()
+	{
+		return hits;
+	}
+}
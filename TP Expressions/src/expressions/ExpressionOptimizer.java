@@ -0,0 +1,437 @@
+package expressions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.terminal.ConstantExpression;
+
+/**
+ * Optimization pass simplifying expressions before they are evaluated many
+ * times :
+ * <ul>
+ * <li>Constant folding : binary expressions with constant operands (such as
+ * "2 + 3") are replaced by their value</li>
+ * <li>Identities : operations which don't change their other operand are
+ * removed when this is exact for the type of numbers : x + 0, x - 0, x * 1,
+ * x / 1, x ^ 1 and 0 * x (for integers only since 0 * x is NaN or -0 for
+ * some floating point values). With floating point numbers only -0 is
+ * neutral for additions and +0 for subtractions.</li>
+ * <li>Reassociation (for integers only since floating point additions are
+ * not associative) : chains of additions such as "x + 2 + y + 3" are
+ * rebuilt as balanced trees with all their constants folded into a single
+ * one, "(x + y) + 5", preserving the order of non constant operands</li>
+ * </ul>
+ * Assignments are never removed (only their right side is optimized) and
+ * operands containing assignments are never discarded.
+ * Expressions are optimized in place so variables remain the same instances
+ * (and values can still be set on them), hence optimized expressions should
+ * be trees and not shared expressions (see {@link ExpressionInterner}).
+ * Optimizers are not thread safe.
+ * @param <E> The type of numbers in expressions
+ */
+public class ExpressionOptimizer<E extends Number>
+{
+	/**
+	 * Indicates if numbers are integers (otherwise floating point numbers)
+	 */
+	private final boolean integral;
+
+	/**
+	 * Total number of expressions removed by this optimizer
+	 */
+	private long removedNodes;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 * @apiNote Caution : the specimen's class must match the type parameter
+	 * E of this optimizer (just like {@link parser.ExpressionParser}).
+	 */
+	public ExpressionOptimizer(Number specimen) throws IllegalArgumentException
+	{
+		Class<? extends Number> numberClass = specimen.getClass();
+		if (numberClass != Integer.class
+		    && numberClass != Float.class
+		    && numberClass != Double.class)
+		{
+			throw new IllegalArgumentException("Unsupported Number Class : "
+			    + numberClass.getSimpleName());
+		}
+		integral = numberClass == Integer.class;
+		removedNodes = 0;
+	}
+
+	/**
+	 * Optimizes an expression
+	 * @param expression the expression to optimize (which might be modified)
+	 * @return the optimized expression (which might be a different expression
+	 * if the root of the provided expression has been simplified)
+	 */
+	public Expression<E> optimize(Expression<E> expression)
+	{
+		int before = sizeOf(expression);
+		Expression<E> result = simplifyTree(expression);
+		removedNodes += before - sizeOf(result);
+		return result;
+	}
+
+	/**
+	 * Optimizes several expressions (such as the statements of a program)
+	 * @param expressions the expressions to optimize (which might be
+	 * modified)
+	 * @return the optimized expressions in the same order
+	 * @see #optimize(Expression)
+	 */
+	public List<Expression<E>> optimize(List<? extends Expression<E>> expressions)
+	{
+		List<Expression<E>> result = new ArrayList<Expression<E>>(expressions.size());
+		for (Expression<E> expression : expressions)
+		{
+			result.add(optimize(expression));
+		}
+		return result;
+	}
+
+	/**
+	 * Total number of expressions removed by {@link #optimize(Expression)}
+	 * since this optimizer was created
+	 * @return the number of removed expressions
+	 */
+	public long getRemovedNodes()
+	{
+		return removedNodes;
+	}
+
+	/**
+	 * Optimizes an expression and its operands (operands first)
+	 * @param expression the expression to optimize
+	 * @return the optimized expression
+	 */
+	private Expression<E> simplifyTree(Expression<E> expression)
+	{
+		if (!(expression instanceof BinaryExpression<E> binary)
+		    || binary.getLeft() == null
+		    || binary.getRight() == null)
+		{
+			return expression;
+		}
+		BinaryOperatorRules rules = binary.getRules();
+		if (integral
+		    && rules == BinaryOperatorRules.ADDITION
+		    && (isAddition(binary.getLeft()) || isAddition(binary.getRight())))
+		{
+			return reassociate(binary);
+		}
+		Expression<E> left = simplifyTree(binary.getLeft());
+		if (left != binary.getLeft())
+		{
+			binary.setLeft(left);
+		}
+		Expression<E> right = simplifyTree(binary.getRight());
+		if (right != binary.getRight())
+		{
+			binary.setRight(right);
+		}
+		if (rules == BinaryOperatorRules.ASSIGNMENT)
+		{
+			return binary;
+		}
+		return simplify(binary);
+	}
+
+	/**
+	 * Applies constant folding and identities to a binary expression whose
+	 * operands are already optimized
+	 * @param binary the binary expression to simplify
+	 * @return the simplified expression
+	 */
+	private Expression<E> simplify(BinaryExpression<E> binary)
+	{
+		Expression<E> left = binary.getLeft();
+		Expression<E> right = binary.getRight();
+		if (left instanceof ConstantExpression<?> && right instanceof ConstantExpression<?>)
+		{
+			E value;
+			try
+			{
+				value = binary.value();
+			}
+			catch (ArithmeticException | UnsupportedOperationException e)
+			{
+				return binary; // such as 1 / 0 with integers : left to evaluation
+			}
+			discard(binary);
+			return new ConstantExpression<E>(value);
+		}
+		switch (binary.getRules())
+		{
+			case ADDITION:
+				if (isNeutralAddend(right))
+				{
+					return replace(binary, left);
+				}
+				if (isNeutralAddend(left))
+				{
+					return replace(binary, right);
+				}
+				break;
+			case SUBTRACTION:
+				if (isNeutralSubtrahend(right))
+				{
+					return replace(binary, left);
+				}
+				break;
+			case MULTIPLICATION:
+				if (isOne(right))
+				{
+					return replace(binary, left);
+				}
+				if (isOne(left))
+				{
+					return replace(binary, right);
+				}
+				if (integral && isZero(left) && !hasAssignment(right))
+				{
+					return replace(binary, left);
+				}
+				if (integral && isZero(right) && !hasAssignment(left))
+				{
+					return replace(binary, right);
+				}
+				break;
+			case DIVISION:
+			case POWER:
+				if (isOne(right))
+				{
+					return replace(binary, left);
+				}
+				break;
+			default:
+				break;
+		}
+		return binary;
+	}
+
+	/**
+	 * Rebuilds a chain of integer additions as a balanced tree of its
+	 * optimized non constant operands (in the same order) followed by the sum
+	 * of its constant operands (if not 0)
+	 * @param chain the top addition of the chain
+	 * @return the rebuilt chain
+	 */
+	private Expression<E> reassociate(BinaryExpression<E> chain)
+	{
+		// Flattens the chain without recursion (chains can be very long)
+		List<Expression<E>> operands = new ArrayList<Expression<E>>();
+		Deque<Expression<E>> pending = new ArrayDeque<Expression<E>>();
+		pending.push(chain);
+		while (!pending.isEmpty())
+		{
+			Expression<E> expression = pending.pop();
+			if (isAddition(expression))
+			{
+				BinaryExpression<E> addition = (BinaryExpression<E>) expression;
+				Expression<E> left = addition.getLeft();
+				Expression<E> right = addition.getRight();
+				discard(addition);
+				pending.push(right);
+				pending.push(left);
+			}
+			else
+			{
+				operands.add(simplifyTree(expression));
+			}
+		}
+
+		List<Expression<E>> terms = new ArrayList<Expression<E>>(operands.size());
+		ConstantExpression<E> sum = null;
+		for (Expression<E> operand : operands)
+		{
+			if (operand instanceof ConstantExpression<E> constant)
+			{
+				sum = (sum == null) ? constant : fold(BinaryOperatorRules.ADDITION, sum, constant);
+			}
+			else
+			{
+				terms.add(operand);
+			}
+		}
+		if (sum != null && (terms.isEmpty() || !isZero(sum)))
+		{
+			terms.add(sum);
+		}
+		return balance(terms, 0, terms.size());
+	}
+
+	/**
+	 * Builds a balanced tree of additions
+	 * @param terms the operands of additions
+	 * @param from index of the first operand
+	 * @param to index following the last operand
+	 * @return a balanced tree of the additions of terms in [from, to[
+	 */
+	private Expression<E> balance(List<Expression<E>> terms, int from, int to)
+	{
+		if (to - from == 1)
+		{
+			return terms.get(from);
+		}
+		int middle = (from + to + 1) / 2;
+		BinaryExpression<E> addition = BinaryOperatorRules.ADDITION.newExpression();
+		addition.setLeft(balance(terms, from, middle));
+		addition.setRight(balance(terms, middle, to));
+		return addition;
+	}
+
+	/**
+	 * Folds an operation on two constants
+	 * @param rules the operation
+	 * @param left the left constant
+	 * @param right the right constant
+	 * @return a new constant containing the result of the operation
+	 */
+	private ConstantExpression<E> fold(BinaryOperatorRules rules,
+	                                   ConstantExpression<E> left,
+	                                   ConstantExpression<E> right)
+	{
+		BinaryExpression<E> binary = rules.newExpression();
+		binary.setLeft(left);
+		binary.setRight(right);
+		ConstantExpression<E> result = new ConstantExpression<E>(binary.value());
+		discard(binary);
+		return result;
+	}
+
+	/**
+	 * Replaces a binary expression by one of its operands
+	 * @param binary the binary expression to remove
+	 * @param operand the operand to keep
+	 * @return the operand to keep
+	 */
+	private Expression<E> replace(BinaryExpression<E> binary, Expression<E> operand)
+	{
+		discard(binary);
+		return operand;
+	}
+
+	/**
+	 * Detaches operands of a removed binary expression so they can be used
+	 * elsewhere (and so changes in operands don't invalidate the removed
+	 * expression anymore)
+	 * @param binary the removed binary expression
+	 */
+	private void discard(BinaryExpression<E> binary)
+	{
+		binary.setLeft(null);
+		binary.setRight(null);
+	}
+
+	/**
+	 * Checks if an expression is an addition with both operands
+	 * @param expression the expression to check
+	 * @return true if expression is a complete addition
+	 */
+	private static boolean isAddition(Expression<?> expression)
+	{
+		return expression instanceof BinaryExpression<?> binary
+		    && binary.getRules() == BinaryOperatorRules.ADDITION
+		    && binary.getLeft() != null
+		    && binary.getRight() != null;
+	}
+
+	/**
+	 * Checks if an expression contains an assignment (which can't be
+	 * discarded)
+	 * @param expression the expression to check
+	 * @return true if expression is or contains an assignment
+	 */
+	private static boolean hasAssignment(Expression<?> expression)
+	{
+		if (expression instanceof BinaryExpression<?> binary)
+		{
+			return binary.getRules() == BinaryOperatorRules.ASSIGNMENT
+			    || hasAssignment(binary.getLeft())
+			    || hasAssignment(binary.getRight());
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if an expression is a constant 0 (of any sign)
+	 * @param expression the expression to check
+	 * @return true if expression is a constant 0
+	 */
+	private static boolean isZero(Expression<?> expression)
+	{
+		return expression instanceof ConstantExpression<?> constant
+		    && constant.value().doubleValue() == 0.0;
+	}
+
+	/**
+	 * Checks if an expression is a constant 1
+	 * @param expression the expression to check
+	 * @return true if expression is a constant 1
+	 */
+	private static boolean isOne(Expression<?> expression)
+	{
+		return expression instanceof ConstantExpression<?> constant
+		    && constant.value().doubleValue() == 1.0;
+	}
+
+	/**
+	 * Checks if an expression is a constant x such that y + x == y for all
+	 * y : 0 for integers but only -0 for floating point numbers (since
+	 * -0 + 0 is +0)
+	 * @param expression the expression to check
+	 * @return true if expression is a neutral constant for additions
+	 */
+	private boolean isNeutralAddend(Expression<?> expression)
+	{
+		return isZero(expression)
+		    && (integral || isNegativeZero(((ConstantExpression<?>) expression).value()));
+	}
+
+	/**
+	 * Checks if an expression is a constant x such that y - x == y for all
+	 * y : 0 for integers but only +0 for floating point numbers (since
+	 * -0 - -0 is +0)
+	 * @param expression the expression to check
+	 * @return true if expression is a neutral constant for subtractions
+	 */
+	private boolean isNeutralSubtrahend(Expression<?> expression)
+	{
+		return isZero(expression)
+		    && (integral || !isNegativeZero(((ConstantExpression<?>) expression).value()));
+	}
+
+	/**
+	 * Checks if a floating point number is -0
+	 * @param value the number to check
+	 * @return true if value is -0
+	 */
+	private static boolean isNegativeZero(Number value)
+	{
+		return Double.doubleToRawLongBits(value.doubleValue())
+		    == Double.doubleToRawLongBits(-0.0);
+	}
+
+	/**
+	 * Number of expressions in a tree
+	 * @param expression the root of the tree
+	 * @return the number of expressions in this tree
+	 */
+	private static int sizeOf(Expression<?> expression)
+	{
+		if (expression instanceof BinaryExpression<?> binary)
+		{
+			return 1 + sizeOf(binary.getLeft()) + sizeOf(binary.getRight());
+		}
+		return expression == null ? 0 : 1;
+	}
+}
@@ -0,0 +1,219 @@
+package expressions.arena;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.binary.BinaryOperatorRules;
+
+/**
+ * Lightweight {@link Expression} view of a node of an
+ * {@link ExpressionArena} : views only hold their arena and node index so
+ * they can be created on demand (and discarded) while the nodes themselves
+ * stay off-heap.
+ * The structure of arena trees is immutable, so views can't be attached to
+ * another parent.
+ * @param <E> The type of numbers in expressions
+ * @see ExpressionArena#get(int)
+ */
+public final class ArenaExpression<E extends Number> implements Expression<E>
+{
+	/**
+	 * The arena holding the node
+	 */
+	private final ExpressionArena<E> arena;
+
+	/**
+	 * The index of the node in the arena
+	 */
+	private final int index;
+
+	/**
+	 * Constructor
+	 * @param arena the arena holding the node
+	 * @param index the (valid) index of the node in the arena
+	 */
+	ArenaExpression(ExpressionArena<E> arena, int index)
+	{
+		this.arena = arena;
+		this.index = index;
+	}
+
+	/**
+	 * Arena accessor
+	 * @return the arena holding the node
+	 */
+	public ExpressionArena<E> getArena()
+	{
+		return arena;
+	}
+
+	/**
+	 * Node accessor
+	 * @return the index of the node in the arena
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Operator accessor
+	 * @return the rules of the operator of this node or null if this node is
+	 * a constant or a variable
+	 */
+	public BinaryOperatorRules getRules()
+	{
+		return arena.rules(index);
+	}
+
+	/**
+	 * Left operand accessor
+	 * @return a view of the left operand or null if this node is not a binary
+	 * operator
+	 */
+	public ArenaExpression<E> getLeft()
+	{
+		int left = arena.left(index);
+		return left < 0 ? null : new ArenaExpression<E>(arena, left);
+	}
+
+	/**
+	 * Right operand accessor
+	 * @return a view of the right operand or null if this node is not a
+	 * binary operator
+	 */
+	public ArenaExpression<E> getRight()
+	{
+		int right = arena.right(index);
+		return right < 0 ? null : new ArenaExpression<E>(arena, right);
+	}
+
+	/**
+	 * Rebuilds an on-heap expression tree from this node
+	 * @return a new expression tree equivalent to this node
+	 * @throws UnsupportedOperationException if one of the operators has no
+	 * corresponding {@link expressions.binary.BinaryExpression} class
+	 * @see ExpressionArena#toExpression(int)
+	 */
+	public Expression<E> toExpression() throws UnsupportedOperationException
+	{
+		return arena.toExpression(index);
+	}
+
+	/**
+	 * Indicates if this node can be evaluated right now
+	 * @return true if all the variables read by this node have a value in
+	 * the arena
+	 */
+	@Override
+	public boolean hasValue()
+	{
+		return arena.hasValue(index);
+	}
+
+	/**
+	 * Numeric value of this node with the variables values of the arena
+	 * @return the numeric value of this node
+	 * @throws IllegalStateException if a variable doesn't have a value
+	 * @see ExpressionArena#value(int)
+	 */
+	@Override
+	public E value() throws IllegalStateException
+	{
+		return arena.value(index);
+	}
+
+	/**
+	 * Numeric value of this node with variables values provided by a context
+	 * @param context the values of variables
+	 * @return the numeric value of this node in this context
+	 * @throws IllegalStateException if a variable doesn't have a value in
+	 * this context
+	 * @see ExpressionArena#value(int, EvaluationContext)
+	 */
+	@Override
+	public E value(EvaluationContext<E> context) throws IllegalStateException
+	{
+		return arena.value(index, context);
+	}
+
+	/**
+	 * Accessor to parent node
+	 * @return a view of the parent node or null if this node is a root
+	 */
+	@Override
+	public Expression<E> getParent()
+	{
+		int parent = arena.parent(index);
+		return parent < 0 ? null : new ArenaExpression<E>(arena, parent);
+	}
+
+	/**
+	 * Parents of arena nodes can't be changed
+	 * @param parent ignored
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void setParent(Expression<E> parent) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("Arena expressions are immutable");
+	}
+
+	/**
+	 * Test containment of another node
+	 * @param expr the expression to test
+	 * @return true if expr is a view of this node or of one of its
+	 * descendants in the same arena
+	 */
+	@Override
+	public boolean contains(Expression<E> expr)
+	{
+		return (expr instanceof ArenaExpression<E> other)
+		    && (other.arena == arena)
+		    && arena.isWithin(other.index, index);
+	}
+
+	/**
+	 * Comparison with another object
+	 * @param obj the object to compare
+	 * @return true if obj is a view of a node (of any arena) with the same
+	 * operators, constants and variables as this node
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof ArenaExpression<?> other))
+		{
+			return false;
+		}
+		if (other.arena == arena && other.index == index)
+		{
+			return true;
+		}
+		return arena.sameStructure(index, other.arena, other.index);
+	}
+
+	/**
+	 * String representation of this node
+	 * @return a String representation of this node
+	 * @see ExpressionArena#toString(int)
+	 */
+	@Override
+	public String toString()
+	{
+		return arena.toString(index);
+	}
+
+	/**
+	 * Hashcode of this node
+	 * @return the hashcode of {@link #toString()}
+	 */
+	@Override
+	public int hashCode()
+	{
+		return toString().hashCode();
+	}
+}
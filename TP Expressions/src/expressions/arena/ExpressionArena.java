@@ -0,0 +1,1101 @@
+package expressions.arena;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Arena storing expression trees off-heap as fixed size nodes in a direct
+ * {@link ByteBuffer} : very large trees (tens of millions of nodes) then
+ * use a few bytes per node instead of one object per node and don't burden
+ * the garbage collector.
+ * Each node of {@value #NODE_SIZE} bytes is identified by its index and
+ * contains
+ * <ul>
+ * <li>its kind : {@link #CONSTANT}, {@link #VARIABLE} or a binary operator
+ * (see {@link #kind(BinaryOperatorRules)})</li>
+ * <li>the index of its parent node (or -1 for roots)</li>
+ * <li>for constants, the value (long or double bits)</li>
+ * <li>for variables, the index of its name in the symbol table</li>
+ * <li>for binary operators, the indexes of the left and right nodes</li>
+ * </ul>
+ * Children are always created before their parents so nodes form trees
+ * (each node has at most one parent) without cycles.
+ * Values of variables are held by the arena (by name) and nodes can be
+ * viewed as regular {@link Expression}s with {@link #get(int)}.
+ * Nodes are evaluated iteratively (with the operators kernels of
+ * {@link BinaryOperatorRules}) so deep trees don't overflow the call stack.
+ * Arenas are not thread safe, except for
+ * {@link #value(int, EvaluationContext)} which can evaluate nodes of an
+ * arena which is no longer modified from several threads with distinct
+ * contexts.
+ * @param <E> The type of numbers in expressions
+ * @see ArenaExpression
+ */
+public class ExpressionArena<E extends Number>
+{
+	/**
+	 * Kind of constant nodes
+	 */
+	public static final int CONSTANT = 0;
+
+	/**
+	 * Kind of variable nodes
+	 */
+	public static final int VARIABLE = 1;
+
+	/**
+	 * Size of a node in bytes
+	 */
+	public static final int NODE_SIZE = 16;
+
+	/**
+	 * Offset of the kind in a node
+	 */
+	private static final int KIND = 0;
+
+	/**
+	 * Offset of the parent index in a node
+	 */
+	private static final int PARENT = 4;
+
+	/**
+	 * Offset of the constant value, the variable symbol index or the left
+	 * node index in a node
+	 */
+	private static final int FIRST = 8;
+
+	/**
+	 * Offset of the right node index in a node
+	 */
+	private static final int SECOND = 12;
+
+	/**
+	 * Maximum number of nodes (so that all nodes fit in a single buffer)
+	 */
+	private static final int MAX_NODES = Integer.MAX_VALUE / NODE_SIZE;
+
+	/**
+	 * Operators rules by ordinal
+	 */
+	private static final BinaryOperatorRules[] RULES = BinaryOperatorRules.values();
+
+	/**
+	 * The type of numbers in expressions
+	 */
+	private final Class<? extends Number> numberClass;
+
+	/**
+	 * Indicates if numbers are integers
+	 */
+	private final boolean integral;
+
+	/**
+	 * The nodes
+	 */
+	private ByteBuffer nodes;
+
+	/**
+	 * Number of nodes
+	 */
+	private int size;
+
+	/**
+	 * Names of variables by symbol index
+	 */
+	private final List<String> symbols;
+
+	/**
+	 * Symbol index of variables by name
+	 */
+	private final Map<String, Integer> symbolIndexes;
+
+	/**
+	 * Values of variables by symbol index
+	 */
+	private double[] values;
+
+	/**
+	 * Indicates if variables have a value by symbol index
+	 */
+	private boolean[] valued;
+
+	/**
+	 * Stacks of iterative traversals (reused by all traversals but
+	 * evaluations in a context which use their own)
+	 */
+	private final Stacks stacks;
+
+	/**
+	 * Stacks used by iterative traversals of nodes
+	 */
+	private static class Stacks
+	{
+		/**
+		 * Nodes to visit (with negative indexes for nodes whose children
+		 * have already been visited)
+		 */
+		private int[] pending = new int[16];
+
+		/**
+		 * Operands stack of integer evaluations
+		 */
+		private long[] longStack = new long[16];
+
+		/**
+		 * Operands stack of floating point evaluations
+		 */
+		private double[] doubleStack = new double[16];
+
+		/**
+		 * Pushes a node on the {@link #pending} stack
+		 * @param top the index where to push
+		 * @param node the node (or negated node) to push
+		 */
+		private void push(int top, int node)
+		{
+			if (top == pending.length)
+			{
+				pending = Arrays.copyOf(pending, top * 2);
+			}
+			pending[top] = node;
+		}
+
+		/**
+		 * Ensures operands stacks can hold one more operand
+		 * @param count the number of operands on the stacks
+		 */
+		private void ensureOperand(int count)
+		{
+			if (count == doubleStack.length)
+			{
+				longStack = Arrays.copyOf(longStack, count * 2);
+				doubleStack = Arrays.copyOf(doubleStack, count * 2);
+			}
+		}
+	}
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @param capacity the initial number of nodes (which grows as needed)
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double} or if capacity is
+	 * invalid
+	 * @apiNote Caution : the specimen's class must match the type parameter
+	 * E of this arena (just like {@link parser.ExpressionParser}).
+	 */
+	public ExpressionArena(Number specimen, int capacity)
+		throws IllegalArgumentException
+	{
+		numberClass = specimen.getClass();
+		if (numberClass != Integer.class
+		    && numberClass != Float.class
+		    && numberClass != Double.class)
+		{
+			throw new IllegalArgumentException("Unsupported Number Class : "
+			    + numberClass.getSimpleName());
+		}
+		if (capacity < 1 || capacity > MAX_NODES)
+		{
+			throw new IllegalArgumentException("Invalid capacity : " + capacity);
+		}
+		integral = numberClass == Integer.class;
+		nodes = ByteBuffer.allocateDirect(capacity * NODE_SIZE)
+		    .order(ByteOrder.nativeOrder());
+		size = 0;
+		symbols = new ArrayList<String>();
+		symbolIndexes = new HashMap<String, Integer>();
+		values = new double[8];
+		valued = new boolean[8];
+		stacks = new Stacks();
+	}
+
+	/**
+	 * Constructor with a default initial capacity
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 */
+	public ExpressionArena(Number specimen) throws IllegalArgumentException
+	{
+		this(specimen, 1024);
+	}
+
+	/**
+	 * Kind of binary operator nodes
+	 * @param rules the operator's rules
+	 * @return the kind of nodes of this operator
+	 */
+	public static int kind(BinaryOperatorRules rules)
+	{
+		return 2 + rules.ordinal();
+	}
+
+	// ------------------------------------------------------------------------
+	// Nodes creation
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a constant node
+	 * @param value the value of the constant
+	 * @return the index of the new node
+	 * @throws NullPointerException if value is null
+	 * @throws IllegalStateException if the arena is full
+	 */
+	public int constant(E value) throws NullPointerException, IllegalStateException
+	{
+		int node = newNode(CONSTANT);
+		if (integral)
+		{
+			nodes.putLong(offset(node) + FIRST, value.longValue());
+		}
+		else
+		{
+			nodes.putDouble(offset(node) + FIRST, value.doubleValue());
+		}
+		return node;
+	}
+
+	/**
+	 * Creates a variable node
+	 * @param name the name of the variable
+	 * @return the index of the new node
+	 * @throws IllegalStateException if the arena is full
+	 */
+	public int variable(String name) throws IllegalStateException
+	{
+		int node = newNode(VARIABLE);
+		nodes.putInt(offset(node) + FIRST, symbolOf(name));
+		return node;
+	}
+
+	/**
+	 * Creates a binary operator node
+	 * @param rules the operator's rules
+	 * @param left the index of the left node
+	 * @param right the index of the right node
+	 * @return the index of the new node
+	 * @throws IllegalArgumentException if left or right are invalid or
+	 * already have a parent, if an assignment is used as an operand or if
+	 * the left node of an assignment is not a variable
+	 * @throws IllegalStateException if the arena is full
+	 */
+	public int binary(BinaryOperatorRules rules, int left, int right)
+		throws IllegalArgumentException, IllegalStateException
+	{
+		checkOperand(left);
+		checkOperand(right);
+		if (left == right)
+		{
+			throw new IllegalArgumentException("Same left and right node " + left);
+		}
+		if (rules == BinaryOperatorRules.ASSIGNMENT && kind(left) != VARIABLE)
+		{
+			throw new IllegalArgumentException("Left side of assignment must be a variable");
+		}
+		int node = newNode(kind(rules));
+		nodes.putInt(offset(node) + FIRST, left);
+		nodes.putInt(offset(node) + SECOND, right);
+		nodes.putInt(offset(left) + PARENT, node);
+		nodes.putInt(offset(right) + PARENT, node);
+		return node;
+	}
+
+	/**
+	 * Copies an expression tree into this arena
+	 * @param expression the expression to copy (which is not modified)
+	 * @return the index of the root node of the copy
+	 * @throws IllegalArgumentException if expression is not made of
+	 * {@link ConstantExpression}s, {@link VariableExpression}s and complete
+	 * {@link BinaryExpression}s (or {@link ArenaExpression}s of this arena)
+	 * @throws IllegalStateException if the arena is full
+	 * @implNote values of variables are not copied
+	 */
+	public int add(Expression<E> expression)
+		throws IllegalArgumentException, IllegalStateException
+	{
+		Deque<Expression<E>> todo = new ArrayDeque<Expression<E>>();
+		Deque<Boolean> expanded = new ArrayDeque<Boolean>();
+		int top = 0;
+		int[] results = new int[16];
+		todo.push(expression);
+		expanded.push(Boolean.FALSE);
+		while (!todo.isEmpty())
+		{
+			Expression<E> current = todo.pop();
+			boolean children = expanded.pop();
+			int node;
+			if (current instanceof ArenaExpression<E> view && view.getArena() == this)
+			{
+				node = copy(view.getIndex());
+			}
+			else if (current instanceof ConstantExpression<E> constant)
+			{
+				node = constant(constant.value());
+			}
+			else if (current instanceof VariableExpression<E> variable)
+			{
+				node = variable(variable.getName());
+			}
+			else if (current instanceof BinaryExpression<E> binary
+			    && binary.getLeft() != null
+			    && binary.getRight() != null)
+			{
+				if (!children)
+				{
+					todo.push(current);
+					expanded.push(Boolean.TRUE);
+					todo.push(binary.getRight());
+					expanded.push(Boolean.FALSE);
+					todo.push(binary.getLeft());
+					expanded.push(Boolean.FALSE);
+					continue;
+				}
+				int right = results[--top];
+				int left = results[--top];
+				node = binary(binary.getRules(), left, right);
+			}
+			else
+			{
+				throw new IllegalArgumentException("Can't copy expression " + current);
+			}
+			if (top == results.length)
+			{
+				results = Arrays.copyOf(results, top * 2);
+			}
+			results[top++] = node;
+		}
+		return results[0];
+	}
+
+	/**
+	 * Copies a sub-tree of this arena
+	 * @param root the index of the root of the sub-tree
+	 * @return the index of the root node of the copy
+	 * @throws IllegalStateException if the arena is full
+	 */
+	private int copy(int root) throws IllegalStateException
+	{
+		int top = 0;
+		int count = 0;
+		stacks.push(top++, root);
+		int[] results = new int[16];
+		while (top > 0)
+		{
+			int node = stacks.pending[--top];
+			if (node >= 0 && isBinary(node))
+			{
+				stacks.push(top++, ~node);
+				stacks.push(top++, right(node));
+				stacks.push(top++, left(node));
+				continue;
+			}
+			int copy;
+			if (node < 0)
+			{
+				node = ~node;
+				int right = results[--count];
+				int left = results[--count];
+				copy = binary(rules(node), left, right);
+			}
+			else
+			{
+				copy = newNode(kind(node));
+				nodes.putLong(offset(copy) + FIRST, nodes.getLong(offset(node) + FIRST));
+			}
+			if (count == results.length)
+			{
+				results = Arrays.copyOf(results, count * 2);
+			}
+			results[count++] = copy;
+		}
+		return results[0];
+	}
+
+	/**
+	 * Checks that a node can become an operand
+	 * @param node the index of the node
+	 * @throws IllegalArgumentException if node is invalid, already has a
+	 * parent or is an assignment
+	 */
+	private void checkOperand(int node) throws IllegalArgumentException
+	{
+		checkIndex(node);
+		if (parent(node) >= 0)
+		{
+			throw new IllegalArgumentException("Node " + node + " already has a parent");
+		}
+		if (kind(node) == kind(BinaryOperatorRules.ASSIGNMENT))
+		{
+			throw new IllegalArgumentException("Assignment " + node + " can't be an operand");
+		}
+	}
+
+	/**
+	 * Allocates a new node without parent
+	 * @param kind the kind of the node
+	 * @return the index of the new node
+	 * @throws IllegalStateException if the arena is full
+	 */
+	private int newNode(int kind) throws IllegalStateException
+	{
+		if (size == nodes.capacity() / NODE_SIZE)
+		{
+			if (size == MAX_NODES)
+			{
+				throw new IllegalStateException("Arena is full");
+			}
+			int capacity = (int) Math.min((long) size * 2, MAX_NODES);
+			ByteBuffer grown = ByteBuffer.allocateDirect(capacity * NODE_SIZE)
+			    .order(ByteOrder.nativeOrder());
+			grown.put(nodes.duplicate().clear());
+			grown.clear();
+			nodes = grown;
+		}
+		int node = size++;
+		nodes.putInt(offset(node) + KIND, kind);
+		nodes.putInt(offset(node) + PARENT, -1);
+		nodes.putLong(offset(node) + FIRST, 0L);
+		return node;
+	}
+
+	/**
+	 * Symbol index of a variable name, created if needed
+	 * @param name the name of the variable
+	 * @return the symbol index of this name
+	 */
+	private int symbolOf(String name)
+	{
+		Integer symbol = symbolIndexes.get(name);
+		if (symbol == null)
+		{
+			symbol = symbols.size();
+			symbols.add(name);
+			symbolIndexes.put(name, symbol);
+			if (symbol == values.length)
+			{
+				values = Arrays.copyOf(values, symbol * 2);
+				valued = Arrays.copyOf(valued, symbol * 2);
+			}
+		}
+		return symbol;
+	}
+
+	// ------------------------------------------------------------------------
+	// Nodes accessors
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Number of nodes
+	 * @return the number of nodes in this arena
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Off-heap memory used by nodes
+	 * @return the number of bytes allocated for nodes
+	 */
+	public long getMemoryUsage()
+	{
+		return nodes.capacity();
+	}
+
+	/**
+	 * The type of numbers in expressions
+	 * @return the type of numbers in expressions of this arena
+	 */
+	public Class<? extends Number> getNumberClass()
+	{
+		return numberClass;
+	}
+
+	/**
+	 * View of a node as an {@link Expression}
+	 * @param node the index of the node
+	 * @return a new lightweight view of this node
+	 * @throws IndexOutOfBoundsException if node is invalid
+	 */
+	public ArenaExpression<E> get(int node) throws IndexOutOfBoundsException
+	{
+		checkIndex(node);
+		return new ArenaExpression<E>(this, node);
+	}
+
+	/**
+	 * Kind of a node
+	 * @param node the index of the node
+	 * @return the kind of the node
+	 * @see #CONSTANT
+	 * @see #VARIABLE
+	 * @see #kind(BinaryOperatorRules)
+	 */
+	public int kind(int node)
+	{
+		return nodes.getInt(offset(node) + KIND);
+	}
+
+	/**
+	 * Indicates if a node is a binary operator
+	 * @param node the index of the node
+	 * @return true if node is a binary operator
+	 */
+	public boolean isBinary(int node)
+	{
+		return kind(node) > VARIABLE;
+	}
+
+	/**
+	 * Operator of a binary node
+	 * @param node the index of the node
+	 * @return the rules of the node's operator or null if node is not a
+	 * binary operator
+	 */
+	public BinaryOperatorRules rules(int node)
+	{
+		int kind = kind(node);
+		return kind > VARIABLE ? RULES[kind - 2] : null;
+	}
+
+	/**
+	 * Parent of a node
+	 * @param node the index of the node
+	 * @return the index of the parent node or -1 for roots
+	 */
+	public int parent(int node)
+	{
+		return nodes.getInt(offset(node) + PARENT);
+	}
+
+	/**
+	 * Left operand of a binary node
+	 * @param node the index of the node
+	 * @return the index of the left node or -1 if node is not a binary
+	 * operator
+	 */
+	public int left(int node)
+	{
+		return isBinary(node) ? nodes.getInt(offset(node) + FIRST) : -1;
+	}
+
+	/**
+	 * Right operand of a binary node
+	 * @param node the index of the node
+	 * @return the index of the right node or -1 if node is not a binary
+	 * operator
+	 */
+	public int right(int node)
+	{
+		return isBinary(node) ? nodes.getInt(offset(node) + SECOND) : -1;
+	}
+
+	/**
+	 * Value of a constant node
+	 * @param node the index of the node
+	 * @return the value of the constant
+	 * @throws IllegalArgumentException if node is not a constant
+	 */
+	public E constantValue(int node) throws IllegalArgumentException
+	{
+		if (kind(node) != CONSTANT)
+		{
+			throw new IllegalArgumentException("Node " + node + " is not a constant");
+		}
+		return integral
+		    ? toNumber(nodes.getLong(offset(node) + FIRST))
+		    : toNumber(nodes.getDouble(offset(node) + FIRST));
+	}
+
+	/**
+	 * Name of a variable node
+	 * @param node the index of the node
+	 * @return the name of the variable
+	 * @throws IllegalArgumentException if node is not a variable
+	 */
+	public String name(int node) throws IllegalArgumentException
+	{
+		if (kind(node) != VARIABLE)
+		{
+			throw new IllegalArgumentException("Node " + node + " is not a variable");
+		}
+		return symbols.get(symbol(node));
+	}
+
+	/**
+	 * Symbol index of a variable node
+	 * @param node the index of the (variable) node
+	 * @return the symbol index of the variable
+	 */
+	private int symbol(int node)
+	{
+		return nodes.getInt(offset(node) + FIRST);
+	}
+
+	/**
+	 * Checks a node index
+	 * @param node the index to check
+	 * @throws IndexOutOfBoundsException if node is not the index of a node
+	 */
+	private void checkIndex(int node) throws IndexOutOfBoundsException
+	{
+		if (node < 0 || node >= size)
+		{
+			throw new IndexOutOfBoundsException("Invalid node " + node
+			    + " for " + size + " nodes");
+		}
+	}
+
+	/**
+	 * Offset of a node in {@link #nodes}
+	 * @param node the index of the node
+	 * @return the offset of the node's first byte
+	 */
+	private static int offset(int node)
+	{
+		return node * NODE_SIZE;
+	}
+
+	// ------------------------------------------------------------------------
+	// Variables values
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sets the value of a variable (used by all the nodes of this variable)
+	 * @param name the name of the variable
+	 * @param value the value to set
+	 * @throws NullPointerException if value is null
+	 */
+	public void setValue(String name, E value) throws NullPointerException
+	{
+		double number = value.doubleValue();
+		int symbol = symbolOf(name);
+		values[symbol] = number;
+		valued[symbol] = true;
+	}
+
+	/**
+	 * Removes the value of a variable
+	 * @param name the name of the variable
+	 */
+	public void clearValue(String name)
+	{
+		Integer symbol = symbolIndexes.get(name);
+		if (symbol != null)
+		{
+			valued[symbol] = false;
+		}
+	}
+
+	/**
+	 * Value of a variable
+	 * @param name the name of the variable
+	 * @return the value of the variable or null if it doesn't have a value
+	 */
+	public E getValue(String name)
+	{
+		Integer symbol = symbolIndexes.get(name);
+		if (symbol == null || !valued[symbol])
+		{
+			return null;
+		}
+		return integral ? toNumber((long) values[symbol]) : toNumber(values[symbol]);
+	}
+
+	// ------------------------------------------------------------------------
+	// Evaluation
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Indicates if a node can be evaluated
+	 * @param node the index of the node
+	 * @return true if all the variables read by this node have a value
+	 * @throws IndexOutOfBoundsException if node is invalid
+	 */
+	public boolean hasValue(int node) throws IndexOutOfBoundsException
+	{
+		checkIndex(node);
+		int top = 0;
+		stacks.push(top++, node);
+		while (top > 0)
+		{
+			int current = stacks.pending[--top];
+			int kind = kind(current);
+			if (kind == VARIABLE)
+			{
+				if (!valued[symbol(current)])
+				{
+					return false;
+				}
+			}
+			else if (kind > VARIABLE)
+			{
+				stacks.push(top++, right(current));
+				if (kind != kind(BinaryOperatorRules.ASSIGNMENT))
+				{
+					stacks.push(top++, left(current));
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates a node with the values of variables held by this arena.
+	 * Assignments set the values of their variables.
+	 * @param node the index of the node
+	 * @return the value of the node
+	 * @throws IllegalStateException if a variable doesn't have a value
+	 * @throws ArithmeticException for integer divisions by zero
+	 * @throws IndexOutOfBoundsException if node is invalid
+	 */
+	public E value(int node)
+		throws IllegalStateException, ArithmeticException, IndexOutOfBoundsException
+	{
+		return evaluate(node, null);
+	}
+
+	/**
+	 * Evaluates a node with the values of variables provided by a context.
+	 * Assignments set the values of their variables in the context.
+	 * Evaluation stacks are allocated for each call so that several threads
+	 * can evaluate nodes of an unmodified arena with distinct contexts.
+	 * @param node the index of the node
+	 * @param context the values of variables
+	 * @return the value of the node
+	 * @throws IllegalStateException if a variable doesn't have a value in the
+	 * context
+	 * @throws ArithmeticException for integer divisions by zero
+	 * @throws IndexOutOfBoundsException if node is invalid
+	 */
+	public E value(int node, EvaluationContext<E> context)
+		throws IllegalStateException, ArithmeticException, IndexOutOfBoundsException
+	{
+		return evaluate(node, context);
+	}
+
+	/**
+	 * Iterative evaluation of a node
+	 * @param node the index of the node
+	 * @param context the values of variables or null to use the values held
+	 * by this arena
+	 * @return the value of the node
+	 * @throws IllegalStateException if a variable doesn't have a value
+	 * @throws ArithmeticException for integer divisions by zero
+	 */
+	private E evaluate(int node, EvaluationContext<E> context)
+		throws IllegalStateException, ArithmeticException
+	{
+		checkIndex(node);
+		// Evaluations in a context may run concurrently
+		Stacks stacks = context != null ? new Stacks() : this.stacks;
+		boolean roundToFloat = numberClass == Float.class;
+		int assignment = kind(BinaryOperatorRules.ASSIGNMENT);
+		int top = 0;
+		int count = 0;
+		stacks.push(top++, node);
+		while (top > 0)
+		{
+			int current = stacks.pending[--top];
+			if (current >= 0)
+			{
+				int kind = kind(current);
+				if (kind > VARIABLE)
+				{
+					stacks.push(top++, ~current);
+					stacks.push(top++, right(current));
+					if (kind != assignment)
+					{
+						stacks.push(top++, left(current));
+					}
+					continue;
+				}
+				stacks.ensureOperand(count);
+				if (kind == CONSTANT)
+				{
+					stacks.longStack[count] = nodes.getLong(offset(current) + FIRST);
+					stacks.doubleStack[count] = nodes.getDouble(offset(current) + FIRST);
+				}
+				else
+				{
+					double value = read(symbol(current), context);
+					stacks.longStack[count] = (long) value;
+					stacks.doubleStack[count] = value;
+				}
+				count++;
+			}
+			else
+			{
+				current = ~current;
+				int kind = kind(current);
+				if (kind == assignment)
+				{
+					// The assigned value stays on top of the stack
+					write(symbol(left(current)),
+					      integral ? toNumber(stacks.longStack[count - 1])
+					          : toNumber(stacks.doubleStack[count - 1]),
+					      context);
+					continue;
+				}
+				BinaryOperatorRules rules = RULES[kind - 2];
+				count--;
+				if (integral)
+				{
+					stacks.longStack[count - 1] =
+					    (int) rules.applyAsLong(stacks.longStack[count - 1],
+					                            stacks.longStack[count]);
+				}
+				else
+				{
+					double value = rules.applyAsDouble(stacks.doubleStack[count - 1],
+					                                   stacks.doubleStack[count]);
+					stacks.doubleStack[count - 1] = roundToFloat ? (float) value : value;
+				}
+			}
+		}
+		return integral ? toNumber(stacks.longStack[0]) : toNumber(stacks.doubleStack[0]);
+	}
+
+	/**
+	 * Reads the value of a variable
+	 * @param symbol the symbol index of the variable
+	 * @param context the values of variables or null to use the values held
+	 * by this arena
+	 * @return the value of the variable
+	 * @throws IllegalStateException if the variable doesn't have a value
+	 */
+	private double read(int symbol, EvaluationContext<E> context)
+		throws IllegalStateException
+	{
+		if (context != null)
+		{
+			return context.get(symbols.get(symbol)).doubleValue();
+		}
+		if (!valued[symbol])
+		{
+			throw new IllegalStateException("Variable " + symbols.get(symbol)
+			    + " has no value");
+		}
+		return values[symbol];
+	}
+
+	/**
+	 * Writes the value of a variable
+	 * @param symbol the symbol index of the variable
+	 * @param value the value to write
+	 * @param context the values of variables or null to use the values held
+	 * by this arena
+	 */
+	private void write(int symbol, E value, EvaluationContext<E> context)
+	{
+		if (context != null)
+		{
+			context.set(symbols.get(symbol), value);
+		}
+		else
+		{
+			values[symbol] = value.doubleValue();
+			valued[symbol] = true;
+		}
+	}
+
+	/**
+	 * Converts an integer to the type of numbers of this arena
+	 * @param value the value to convert
+	 * @return the converted value
+	 */
+	@SuppressWarnings("unchecked")
+	private E toNumber(long value)
+	{
+		return integral ? (E) Integer.valueOf((int) value) : toNumber((double) value);
+	}
+
+	/**
+	 * Converts a floating point number to the type of numbers of this arena
+	 * @param value the value to convert
+	 * @return the converted value
+	 */
+	@SuppressWarnings("unchecked")
+	private E toNumber(double value)
+	{
+		if (integral)
+		{
+			return (E) Integer.valueOf((int) value);
+		}
+		if (numberClass == Float.class)
+		{
+			return (E) Float.valueOf((float) value);
+		}
+		return (E) Double.valueOf(value);
+	}
+
+	// ------------------------------------------------------------------------
+	// Conversions
+	// ------------------------------------------------------------------------
+
+	/**
+	 * String representation of a node, in the same format as
+	 * {@link BinaryExpression#toString()}
+	 * @param node the index of the node
+	 * @return a String representation of the node
+	 * @throws IndexOutOfBoundsException if node is invalid
+	 */
+	public String toString(int node) throws IndexOutOfBoundsException
+	{
+		checkIndex(node);
+		StringBuilder sb = new StringBuilder();
+		int top = 0;
+		stacks.push(top++, node);
+		while (top > 0)
+		{
+			int current = stacks.pending[--top];
+			if (current < 0)
+			{
+				sb.append(' ');
+				sb.append(RULES[kind(~current) - 2]);
+				sb.append(' ');
+			}
+			else if (isBinary(current))
+			{
+				stacks.push(top++, right(current));
+				stacks.push(top++, ~current);
+				stacks.push(top++, left(current));
+			}
+			else if (kind(current) == CONSTANT)
+			{
+				sb.append(constantValue(current));
+			}
+			else
+			{
+				sb.append(symbols.get(symbol(current)));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Rebuilds an on-heap {@link Expression} tree from a node
+	 * @param node the index of the node
+	 * @return a new expression tree (whose variables have the values held by
+	 * this arena)
+	 * @throws IndexOutOfBoundsException if node is invalid
+	 * @throws UnsupportedOperationException if one of the operators has no
+	 * corresponding {@link BinaryExpression} class
+	 */
+	public Expression<E> toExpression(int node)
+		throws IndexOutOfBoundsException, UnsupportedOperationException
+	{
+		checkIndex(node);
+		Deque<Expression<E>> results = new ArrayDeque<Expression<E>>();
+		int top = 0;
+		stacks.push(top++, node);
+		while (top > 0)
+		{
+			int current = stacks.pending[--top];
+			if (current >= 0 && isBinary(current))
+			{
+				stacks.push(top++, ~current);
+				stacks.push(top++, right(current));
+				stacks.push(top++, left(current));
+			}
+			else if (current < 0)
+			{
+				Expression<E> right = results.pop();
+				Expression<E> left = results.pop();
+				BinaryExpression<E> binop = rules(~current).newExpression();
+				binop.setTrusted(true); // operands are built first
+				binop.setLeft(left);
+				binop.setRight(right);
+				binop.setTrusted(false);
+				results.push(binop);
+			}
+			else if (kind(current) == CONSTANT)
+			{
+				results.push(new ConstantExpression<E>(constantValue(current)));
+			}
+			else
+			{
+				String name = symbols.get(symbol(current));
+				results.push(new VariableExpression<E>(name, getValue(name)));
+			}
+		}
+		return results.pop();
+	}
+
+	/**
+	 * Indicates if a node is a descendant of another node
+	 * @param node the index of the node
+	 * @param ancestor the index of the potential ancestor
+	 * @return true if node is ancestor or one of its descendants
+	 */
+	boolean isWithin(int node, int ancestor)
+	{
+		for (int current = node; current >= 0; current = parent(current))
+		{
+			if (current == ancestor)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compares the structure of two nodes
+	 * @param node the index of the first node
+	 * @param other the arena of the second node
+	 * @param otherNode the index of the second node
+	 * @return true if both nodes have the same structure (operators,
+	 * constants and variables names)
+	 */
+	boolean sameStructure(int node, ExpressionArena<?> other, int otherNode)
+	{
+		Deque<int[]> todo = new ArrayDeque<int[]>();
+		todo.push(new int[] {node, otherNode});
+		while (!todo.isEmpty())
+		{
+			int[] pair = todo.pop();
+			int kind = kind(pair[0]);
+			if (kind != other.kind(pair[1]))
+			{
+				return false;
+			}
+			if (kind == CONSTANT)
+			{
+				if (!constantValue(pair[0]).equals(other.constantValue(pair[1])))
+				{
+					return false;
+				}
+			}
+			else if (kind == VARIABLE)
+			{
+				if (!name(pair[0]).equals(other.name(pair[1])))
+				{
+					return false;
+				}
+			}
+			else
+			{
+				todo.push(new int[] {left(pair[0]), other.left(pair[1])});
+				todo.push(new int[] {right(pair[0]), other.right(pair[1])});
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,5 @@
+/**
+ * Package containing off-heap storage of {@link expressions.Expression}
+ * trees and their lightweight {@link expressions.Expression} views
+ */
+package expressions.arena;
@@ -34,17 +34,27 @@ public class AdditionExpression<E extends Number> extends BinaryExpression<E>
 	 * @return the actual value resulting from this binary expression
 	 * or throws an exception if the operation can't be performed
 	 * @throws UnsupportedOperationException if the type E of the operands
-	 * is not one of {@link Integer}, {@link Float} or {@link Double}
+	 * is not one of {@link Integer}, {@link Float}, {@link Double},
+	 * {@link Long} or {@link java.math.BigDecimal}
+	 * @throws ArithmeticException if an exact addition overflows a
+	 * {@link Long}
 	 * @implSpec it is assumed only value1 is tested to check for either
 	 * {@link Integer}, {@link Float} or {@link Double}.
+	 * {@link Long} and {@link java.math.BigDecimal} operands are added by
+	 * {@link #operateExact(Number, Number)}.
 	 * @see Number#intValue()
 	 * @see Number#floatValue()
 	 * @see Number#doubleValue()
 	 */
 	@SuppressWarnings("unchecked")
 	@Override
-	protected E operate(E value1, E value2) throws UnsupportedOperationException
+	protected E operate(E value1, E value2)
+		throws UnsupportedOperationException, ArithmeticException
 	{
+		if (isExact(value1) || isExact(value2))
+		{
+			return operateExact(value1, value2);
+		}
 		if (value1 instanceof Integer)
 		{
 			// DONE 500 replace with correct implementation
@@ -96,4 +106,52 @@ public class AdditionExpression<E extends Number> extends BinaryExpression<E>
 		throw new UnsupportedOperationException("Unknown Number type "
 		    + value1.getClass().getSimpleName());
 	}
+
+	/**
+	 * Operate the concrete addition of int operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return value1 + value2
+	 */
+	@Override
+	protected int operateInt(int value1, int value2)
+	{
+		return value1 + value2;
+	}
+
+	/**
+	 * Operate the concrete addition of long operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return value1 + value2
+	 */
+	@Override
+	protected long operateLong(long value1, long value2)
+	{
+		return value1 + value2;
+	}
+
+	/**
+	 * Operate the concrete addition of float operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return value1 + value2
+	 */
+	@Override
+	protected float operateFloat(float value1, float value2)
+	{
+		return value1 + value2;
+	}
+
+	/**
+	 * Operate the concrete addition of double operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return value1 + value2
+	 */
+	@Override
+	protected double operateDouble(double value1, double value2)
+	{
+		return value1 + value2;
+	}
 }
@@ -1,5 +1,6 @@
 package expressions.binary;
 
+import expressions.EvaluationContext;
 import expressions.Expression;
 import expressions.terminal.TerminalExpression;
 import expressions.terminal.VariableExpression;
@@ -67,6 +68,79 @@ public class AssignmentExpression<E extends Number> extends BinaryExpression<E>
 		
 	}
 
+	/**
+	 * Numeric value of this expression in a context.
+	 * The value of the right side is assigned to the left side variable in
+	 * the context (the left side variable itself is not modified).
+	 * @param context the values of variables
+	 * @return the assigned value
+	 * @throws IllegalStateException if a value can't be evaluated in this
+	 * context
+	 */
+	@Override
+	public E value(EvaluationContext<E> context) throws IllegalStateException
+	{
+		if (!(left instanceof VariableExpression<E> variable) || right == null)
+		{
+			throw new IllegalStateException("Assignment is incomplete");
+		}
+		E value = right.value(context);
+		context.set(variable.getName(), value);
+		return value;
+	}
+
+	/**
+	 * Numeric value of this expression as a int.
+	 * Since the assigned value needs to be stored in the left side variable
+	 * this is the same as {@link #value()}.
+	 * @return the int value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public int evalInt() throws IllegalStateException
+	{
+		return value().intValue();
+	}
+
+	/**
+	 * Numeric value of this expression as a long.
+	 * Since the assigned value needs to be stored in the left side variable
+	 * this is the same as {@link #value()}.
+	 * @return the long value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public long evalLong() throws IllegalStateException
+	{
+		return value().longValue();
+	}
+
+	/**
+	 * Numeric value of this expression as a float.
+	 * Since the assigned value needs to be stored in the left side variable
+	 * this is the same as {@link #value()}.
+	 * @return the float value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public float evalFloat() throws IllegalStateException
+	{
+		return value().floatValue();
+	}
+
+	/**
+	 * Numeric value of this expression as a double.
+	 * Since the assigned value needs to be stored in the left side variable
+	 * this is the same as {@link #value()}.
+	 * @return the double value of this expression
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public double evalDouble() throws IllegalStateException
+	{
+		return value().doubleValue();
+	}
+
 	/**
 	 * Indicate if this assignment has a value.
 	 * An assignement has a value when both sides are non null and the right
@@ -98,6 +172,54 @@ public class AssignmentExpression<E extends Number> extends BinaryExpression<E>
 		return value2;
 	}
 
+	/**
+	 * Operate the concrete assignment of int operands
+	 * @param value1 first operand
+	 * @param value2 second operand
+	 * @return the value of the second operand
+	 */
+	@Override
+	protected int operateInt(int value1, int value2)
+	{
+		return value2;
+	}
+
+	/**
+	 * Operate the concrete assignment of long operands
+	 * @param value1 first operand
+	 * @param value2 second operand
+	 * @return the value of the second operand
+	 */
+	@Override
+	protected long operateLong(long value1, long value2)
+	{
+		return value2;
+	}
+
+	/**
+	 * Operate the concrete assignment of float operands
+	 * @param value1 first operand
+	 * @param value2 second operand
+	 * @return the value of the second operand
+	 */
+	@Override
+	protected float operateFloat(float value1, float value2)
+	{
+		return value2;
+	}
+
+	/**
+	 * Operate the concrete assignment of double operands
+	 * @param value1 first operand
+	 * @param value2 second operand
+	 * @return the value of the second operand
+	 */
+	@Override
+	protected double operateDouble(double value1, double value2)
+	{
+		return value2;
+	}
+
 	/**
 	 * Set new parent to expression.
 	 * @param parent The parent to set
@@ -1,6 +1,11 @@
 package expressions.binary;
 
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
 import expressions.AbstractExpression;
+import expressions.EvaluationContext;
 import expressions.Expression;
 import expressions.terminal.TerminalExpression;
 
@@ -16,6 +21,17 @@ import expressions.terminal.TerminalExpression;
  * @implNote Caution: due to the way binary expression will be parsed
  * we need to support left and right null expressions during construction.
  * And be able to set left and right expressions later.
+ * @implNote The last computed value is cached so that evaluating again an
+ * unchanged expression doesn't evaluate its operands again. The cache is
+ * invalidated (see {@link #invalidate()}) by modified variables and replaced
+ * operands so only the path from a modified expression to the root is
+ * evaluated again. The cache is not synchronized : {@link #value()} must
+ * only be called by one thread at a time on a tree, trees shared between
+ * threads are evaluated with {@link #value(EvaluationContext)} which
+ * neither reads nor writes the cache.
+ * @implNote The hash code is composed from the cached hash codes of operands
+ * and equality compares operands recursively so that binary expressions can
+ * be used as keys in hash maps without building their String representation.
  */
 public abstract class BinaryExpression<E extends Number> extends AbstractExpression<E>
 {
@@ -38,6 +54,44 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 	 */
 	protected final BinaryOperatorRules rules;
 
+	/**
+	 * Indicates if operands set on this expression are trusted not to contain
+	 * it, so that checking it is not contained in its operands is skipped
+	 * when they are set
+	 * @see #setTrusted(boolean)
+	 */
+	private boolean trusted;
+
+	/**
+	 * Last value computed by {@link #value()} (only meaningful when
+	 * {@link #valid} is true)
+	 */
+	private E cachedValue;
+
+	/**
+	 * Indicates if {@link #cachedValue} is up to date with operands values
+	 */
+	private boolean valid;
+
+	/**
+	 * Indicates if cache hits and misses are counted (disabled by default so
+	 * that evaluations don't contend on the shared counters)
+	 * @see #setCacheStatistics(boolean)
+	 */
+	private static volatile boolean cacheStatistics = false;
+
+	/**
+	 * Number of {@link #value()} calls answered by the cached value
+	 * (shared by all binary expressions)
+	 */
+	private static final LongAdder cacheHits = new LongAdder();
+
+	/**
+	 * Number of {@link #value()} calls which needed to operate on operands
+	 * (shared by all binary expressions)
+	 */
+	private static final LongAdder cacheMisses = new LongAdder();
+
 	/**
 	 * Valued constructor (to be used by subclasses)
 	 * @param left left part of this binary expression
@@ -55,6 +109,11 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		this.rules = rules;
 		this.left = left;
 		this.right = right;
+		attach(left);
+		attach(right);
+		trusted = false;
+		cachedValue = null;
+		valid = false;
 	}
 
 	/**
@@ -99,6 +158,7 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		// Detach existing left expression if it exists
 		if (this.left != null)
 			this.left.setParent(null);
+		detach(this.left);
 		
 		// Set the new left expression field
 		this.left = left;
@@ -108,6 +168,9 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		{
 			left.setParent(this);  // Set this as the parent directly
 		}
+		attach(left);
+		invalidate();
+		invalidateHash();
 	}
 
 	/**
@@ -124,6 +187,7 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		// Detach existing right expression if it exists
 		if (this.right != null)
 			this.right.setParent(null);
+		detach(this.right);
 		
 		// Set the new right expression field
 		this.right = right;
@@ -133,6 +197,60 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		{
 			right.setParent(this);  // Set this as the parent directly
 		}
+		attach(right);
+		invalidate();
+		invalidateHash();
+	}
+
+	/**
+	 * Registers this expression as a dependent of a new operand so that
+	 * changes in this operand invalidate this expression
+	 * @param operand the new operand (can be null)
+	 */
+	private void attach(Expression<E> operand)
+	{
+		if (operand instanceof AbstractExpression<E> expression)
+		{
+			expression.addDependent(this);
+		}
+	}
+
+	/**
+	 * Unregisters this expression as a dependent of a replaced operand
+	 * @param operand the replaced operand (can be null)
+	 */
+	private void detach(Expression<E> operand)
+	{
+		if (operand instanceof AbstractExpression<E> expression)
+		{
+			expression.removeDependent(this);
+		}
+	}
+
+	/**
+	 * Sets the trusted builder mode of this expression.
+	 * When an expression is trusted, operands set with
+	 * {@link #setLeft(Expression)} or {@link #setRight(Expression)} don't
+	 * check that this expression is not one of their sub-expressions (which
+	 * would create a cycle). Builders creating expressions bottom-up (such as
+	 * parsers) can use this mode while they set operands of the new
+	 * expressions they create since they can never contain them. This mode
+	 * should be reset once the expression is built.
+	 * @param trusted true to skip cycle checks on operands of this expression
+	 */
+	public void setTrusted(boolean trusted)
+	{
+		this.trusted = trusted;
+	}
+
+	/**
+	 * Indicate if this expression is in trusted builder mode
+	 * @return true if cycle checks on operands of this expression are skipped
+	 * @see #setTrusted(boolean)
+	 */
+	public boolean isTrusted()
+	{
+		return trusted;
 	}
 
 	/**
@@ -150,10 +268,26 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 	 * {@link #operate(Number, Number)}
 	 * @throws IllegalStateException if a value can't be evaluated right now
 	 * @see #operate(Number, Number)
+	 * @implNote the value is computed only if operands changed since the last
+	 * evaluation, otherwise the cached value is returned.
+	 * @implNote the cache is not synchronized so this method must not be
+	 * called concurrently on the same tree
 	 */
 	@Override
 	public E value() throws IllegalStateException
 	{
+		if (valid)
+		{
+			if (cacheStatistics)
+			{
+				cacheHits.increment();
+			}
+			return cachedValue;
+		}
+		if (cacheStatistics)
+		{
+			cacheMisses.increment();
+		}
 		// DONE 403 Replace with correct implementation
 		if (left == null || right == null) {
 			throw new IllegalStateException("Left or right expression is null");
@@ -166,7 +300,97 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		}
 		E leftValue = left.value();
 		E rightValue = right.value();
-		return operate(leftValue, rightValue);
+		cachedValue = operate(leftValue, rightValue);
+		valid = true;
+		return cachedValue;
+	}
+
+	/**
+	 * Numeric value of this expression in a context.
+	 * Neither the cached value nor the values held by variables are used so
+	 * operands are always evaluated.
+	 * @param context the values of variables
+	 * @return the numeric value of this expression in the context as
+	 * computed by {@link #operate(Number, Number)}
+	 * @throws IllegalStateException if a value can't be evaluated in this
+	 * context
+	 */
+	@Override
+	public E value(EvaluationContext<E> context) throws IllegalStateException
+	{
+		if (left == null || right == null)
+		{
+			throw new IllegalStateException("Left or right expression is null");
+		}
+		return operate(left.value(context), right.value(context));
+	}
+
+	/**
+	 * Notifies this expression that its operands values might have changed.
+	 * The cached value is discarded and expressions using this one are also
+	 * invalidated unless this expression was already invalidated (in which
+	 * case they already are).
+	 */
+	@Override
+	public void invalidate()
+	{
+		if (valid)
+		{
+			valid = false;
+			cachedValue = null;
+			super.invalidate();
+		}
+	}
+
+	/**
+	 * Enables or disables counting cache hits and misses. Counters are reset
+	 * in both cases.
+	 * @param enabled true to count cache hits and misses of
+	 * {@link #value()} calls
+	 */
+	public static void setCacheStatistics(boolean enabled)
+	{
+		cacheStatistics = enabled;
+		resetCacheStatistics();
+	}
+
+	/**
+	 * Indicates if cache hits and misses are counted
+	 * @return true if cache hits and misses are counted
+	 * @see #setCacheStatistics(boolean)
+	 */
+	public static boolean isCacheStatistics()
+	{
+		return cacheStatistics;
+	}
+
+	/**
+	 * Number of {@link #value()} calls answered by cached values since
+	 * statistics were enabled or last {@link #resetCacheStatistics()}
+	 * @return the number of cache hits
+	 */
+	public static long getCacheHits()
+	{
+		return cacheHits.sum();
+	}
+
+	/**
+	 * Number of {@link #value()} calls which had to evaluate operands since
+	 * statistics were enabled or last {@link #resetCacheStatistics()}
+	 * @return the number of cache misses
+	 */
+	public static long getCacheMisses()
+	{
+		return cacheMisses.sum();
+	}
+
+	/**
+	 * Reset cache hits and misses counters
+	 */
+	public static void resetCacheStatistics()
+	{
+		cacheHits.reset();
+		cacheMisses.reset();
 	}
 
 	/**
@@ -179,6 +403,10 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 	public boolean hasValue()
 	{
 		// DONE 404 Replace with correct implementation
+		if (valid)
+		{
+			return true;
+		}
 		return left != null && right != null && left.hasValue() && right.hasValue();
 	}
 
@@ -189,13 +417,252 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 	 * @return the actual value resulting from this binary expression
 	 * or throws an exception if the operation can't be performed
 	 * @throws UnsupportedOperationException if the type E of the operands
-	 * is not one of {@link Integer}, {@link Float} or {@link Double}
+	 * is not one of {@link Integer}, {@link Float}, {@link Double},
+	 * {@link Long} or {@link BigDecimal}
+	 * @throws ArithmeticException if an exact operation fails (see
+	 * {@link #operateExact(Number, Number)})
 	 * @implSpec it is assumed only value1 is tested to check for either
-	 * {@link Integer}, {@link Float} or {@link Double}.
+	 * {@link Integer}, {@link Float} or {@link Double}, {@link Long} and
+	 * {@link BigDecimal} operands should be operated by
+	 * {@link #operateExact(Number, Number)}.
 	 */
 	protected abstract E operate(E value1, E value2)
 		throws UnsupportedOperationException;
 
+	/**
+	 * Applies the operator of this expression to operands values computed
+	 * elsewhere (such as by evaluators instrumenting operands evaluation)
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the value computed by {@link #operate(Number, Number)}
+	 * @throws UnsupportedOperationException if the type E of the operands
+	 * is not supported
+	 * @throws ArithmeticException if an exact operation fails
+	 * @implNote neither the cached value nor the operands are used, and an
+	 * assignment doesn't assign anything : it only returns value2.
+	 */
+	public final E apply(E value1, E value2)
+		throws UnsupportedOperationException, ArithmeticException
+	{
+		return operate(value1, value2);
+	}
+
+	/**
+	 * Numeric value of this expression computed with int arithmetic without
+	 * creating any intermediate {@link Number}
+	 * @return the int value of this expression as computed by
+	 * {@link #operateInt(int, int)}
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public int evalInt() throws IllegalStateException
+	{
+		if (left == null || right == null)
+		{
+			throw new IllegalStateException("Left or right expression is null");
+		}
+		return operateInt(left.evalInt(), right.evalInt());
+	}
+
+	/**
+	 * Numeric value of this expression computed with long arithmetic without
+	 * creating any intermediate {@link Number}
+	 * @return the long value of this expression as computed by
+	 * {@link #operateLong(long, long)}
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public long evalLong() throws IllegalStateException
+	{
+		if (left == null || right == null)
+		{
+			throw new IllegalStateException("Left or right expression is null");
+		}
+		return operateLong(left.evalLong(), right.evalLong());
+	}
+
+	/**
+	 * Numeric value of this expression computed with float arithmetic without
+	 * creating any intermediate {@link Number}
+	 * @return the float value of this expression as computed by
+	 * {@link #operateFloat(float, float)}
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public float evalFloat() throws IllegalStateException
+	{
+		if (left == null || right == null)
+		{
+			throw new IllegalStateException("Left or right expression is null");
+		}
+		return operateFloat(left.evalFloat(), right.evalFloat());
+	}
+
+	/**
+	 * Numeric value of this expression computed with double arithmetic without
+	 * creating any intermediate {@link Number}
+	 * @return the double value of this expression as computed by
+	 * {@link #operateDouble(double, double)}
+	 * @throws IllegalStateException if a value can't be evaluated right now
+	 */
+	@Override
+	public double evalDouble() throws IllegalStateException
+	{
+		if (left == null || right == null)
+		{
+			throw new IllegalStateException("Left or right expression is null");
+		}
+		return operateDouble(left.evalDouble(), right.evalDouble());
+	}
+
+	/**
+	 * Operate the concrete operation performed by this expression on int
+	 * operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the int value resulting from this binary expression
+	 * @see #evalInt()
+	 * @implSpec Default implementation applies the
+	 * {@link BinaryOperatorRules#applyAsLong} kernel of {@link #rules}
+	 */
+	protected int operateInt(int value1, int value2)
+	{
+		return (int) rules.applyAsLong(value1, value2);
+	}
+
+	/**
+	 * Operate the concrete operation performed by this expression on long
+	 * operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the long value resulting from this binary expression
+	 * @see #evalLong()
+	 * @implSpec Default implementation applies the
+	 * {@link BinaryOperatorRules#applyAsLong} kernel of {@link #rules}
+	 */
+	protected long operateLong(long value1, long value2)
+	{
+		return rules.applyAsLong(value1, value2);
+	}
+
+	/**
+	 * Operate the concrete operation performed by this expression on float
+	 * operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the float value resulting from this binary expression
+	 * @see #evalFloat()
+	 * @implSpec Default implementation applies the
+	 * {@link BinaryOperatorRules#applyAsDouble} kernel of {@link #rules}
+	 */
+	protected float operateFloat(float value1, float value2)
+	{
+		return (float) rules.applyAsDouble(value1, value2);
+	}
+
+	/**
+	 * Operate the concrete operation performed by this expression on double
+	 * operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the double value resulting from this binary expression
+	 * @see #evalDouble()
+	 * @implSpec Default implementation applies the
+	 * {@link BinaryOperatorRules#applyAsDouble} kernel of {@link #rules}
+	 */
+	protected double operateDouble(double value1, double value2)
+	{
+		return rules.applyAsDouble(value1, value2);
+	}
+
+	/**
+	 * Indicates if a value needs exact arithmetic
+	 * @param value the value to examine
+	 * @return true if value is a {@link Long} or a {@link BigDecimal}
+	 * @see #operateExact(Number, Number)
+	 */
+	protected static boolean isExact(Number value)
+	{
+		return (value instanceof Long) || (value instanceof BigDecimal);
+	}
+
+	/**
+	 * Operate the exact operation performed by this expression when one of
+	 * the operands is a {@link Long} or a {@link BigDecimal} :
+	 * <ul>
+	 * <li>{@link Long} (or {@link Integer}) operands produce a {@link Long}
+	 * with {@link BinaryOperatorRules#applyExact(long, long)}</li>
+	 * <li>otherwise operands produce a {@link BigDecimal}. Integral decimal
+	 * operands fitting in a long are first operated with
+	 * {@link BinaryOperatorRules#applyExact(long, long)} and only fall back
+	 * to {@link BinaryOperatorRules#applyAsDecimal(BigDecimal, BigDecimal)}
+	 * when this long operation overflows (or for divisions which may not
+	 * have an integral result)</li>
+	 * </ul>
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the exact value resulting from this binary expression
+	 * @throws ArithmeticException if a long operation overflows, for
+	 * divisions by zero or invalid powers
+	 */
+	@SuppressWarnings("unchecked")
+	protected E operateExact(E value1, E value2) throws ArithmeticException
+	{
+		if (!(value1 instanceof BigDecimal)
+		    && !(value2 instanceof BigDecimal)
+		    && !(value1 instanceof Float || value1 instanceof Double)
+		    && !(value2 instanceof Float || value2 instanceof Double))
+		{
+			return (E) Long.valueOf(rules.applyExact(value1.longValue(),
+			                                         value2.longValue()));
+		}
+		BigDecimal decimal1 = toDecimal(value1);
+		BigDecimal decimal2 = toDecimal(value2);
+		if (rules != BinaryOperatorRules.DIVISION
+		    && isLong(decimal1)
+		    && isLong(decimal2))
+		{
+			try
+			{
+				return (E) BigDecimal.valueOf(rules.applyExact(decimal1.longValue(),
+				                                               decimal2.longValue()));
+			}
+			catch (ArithmeticException e)
+			{
+				// Overflow (or negative power) : falls back to decimals
+			}
+		}
+		return (E) rules.applyAsDecimal(decimal1, decimal2);
+	}
+
+	/**
+	 * Converts a value to a decimal
+	 * @param value the value to convert
+	 * @return the value as a {@link BigDecimal}
+	 */
+	private static BigDecimal toDecimal(Number value)
+	{
+		if (value instanceof BigDecimal decimal)
+		{
+			return decimal;
+		}
+		if (value instanceof Float || value instanceof Double)
+		{
+			return BigDecimal.valueOf(value.doubleValue());
+		}
+		return BigDecimal.valueOf(value.longValue());
+	}
+
+	/**
+	 * Indicates if a decimal is an integer fitting in a long
+	 * @param value the decimal to examine
+	 * @return true if value has no fractional digits and at most 18 digits
+	 */
+	private static boolean isLong(BigDecimal value)
+	{
+		return value.scale() == 0 && value.precision() <= 18;
+	}
+
 	/**
 	 * Set new parent to expression.
 	 * @param parent The parent to set
@@ -204,6 +671,8 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 	 * children.
 	 * @throws IllegalArgumentException if the provided new parent is contained
 	 * in this expression (which includes the case where the proposed parent is self)
+	 * @implNote checking the new parent is not contained in this expression
+	 * costs O(depth of parent) (or nothing when parent is trusted)
 	 */
 	@Override
 	public void setParent(Expression<E> parent) throws IllegalArgumentException
@@ -215,7 +684,7 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 			throw new IllegalArgumentException("A TerminalExpression cannot have children");
 
 		// Check if parent is this expression or contained within this expression
-		if (parent != null && (parent == this || contains(parent)))
+		if (parent != null && (parent == this || isInSubtree(parent)))
 			throw new IllegalArgumentException("Parent cannot be contained in this expression");
 		
 		// Set the new parent
@@ -223,6 +692,31 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		
 	}
 
+	/**
+	 * Checks if a proposed parent is one of the sub-expressions of this
+	 * expression
+	 * @param parent the proposed parent (non null)
+	 * @return true if parent is contained in this expression
+	 * @implNote the ancestors of the parent are searched for this expression
+	 * (see {@link AbstractExpression#isOperandOf(AbstractExpression)}) rather
+	 * than searching this expression for the parent, so building an
+	 * expression bottom-up is linear instead of quadratic. The search is
+	 * skipped when the parent is in trusted builder mode.
+	 * @see #setTrusted(boolean)
+	 */
+	private boolean isInSubtree(Expression<E> parent)
+	{
+		if (parent instanceof BinaryExpression<E> binary && binary.trusted)
+		{
+			return false;
+		}
+		if (parent instanceof AbstractExpression<E> expression)
+		{
+			return expression.isOperandOf(this);
+		}
+		return contains(parent);
+	}
+
 	/**
 	 * Test containment of another expression
 	 * @param expr the expression to test
@@ -278,6 +772,69 @@ public abstract class BinaryExpression<E extends Number> extends AbstractExpress
 		return sb.toString();
 	}
 
+	/**
+	 * Computes the hash code of this expression (i.e. the hash code of
+	 * {@link #toString()}) from the hash codes of its operands and operator
+	 */
+	@Override
+	protected void computeHash()
+	{
+		String operator = " " + rules + " ";
+		int hash = operandHash(left);
+		int scale = operandScale(left);
+		hash = concatHash(hash, operator.hashCode(), scaleOf(operator.length()));
+		scale *= scaleOf(operator.length());
+		hash = concatHash(hash, operandHash(right), operandScale(right));
+		scale *= operandScale(right);
+		setHash(hash, scale);
+	}
+
+	/**
+	 * Hash code of an operand as it appears in {@link #toString()}
+	 * @param operand the operand (can be null)
+	 * @return the hash code of the operand's String representation
+	 */
+	private static int operandHash(Expression<?> operand)
+	{
+		if (operand instanceof AbstractExpression<?> expression)
+		{
+			return expression.hashCode();
+		}
+		return String.valueOf(operand).hashCode();
+	}
+
+	/**
+	 * Hash scale of an operand as it appears in {@link #toString()}
+	 * @param operand the operand (can be null)
+	 * @return 31<sup>n</sup> where n is the length of the operand's String
+	 * representation
+	 * @see AbstractExpression#hashScale()
+	 */
+	private static int operandScale(Expression<?> operand)
+	{
+		if (operand instanceof AbstractExpression<?> expression)
+		{
+			return expression.hashScale();
+		}
+		return scaleOf(String.valueOf(operand).length());
+	}
+
+	/**
+	 * Compares operator and operands of this expression with the ones of
+	 * another binary expression
+	 * @param expr the other binary expression
+	 * @return true if both expressions have the same operator and equal
+	 * operands
+	 */
+	@Override
+	protected boolean sameStructure(AbstractExpression<?> expr)
+	{
+		BinaryExpression<?> other = (BinaryExpression<?>) expr;
+		return (rules == other.rules)
+		    && Objects.equals(left, other.left)
+		    && Objects.equals(right, other.right);
+	}
+
 	/**
 	 * Method to determine if an operand has operators with lower priority
 	 * than the current operator
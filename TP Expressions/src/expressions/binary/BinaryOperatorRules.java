@@ -1,5 +1,12 @@
 package expressions.binary;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Supplier;
+
 /**
  * Binary Operator Rule enum.
  * Defines various constants that can be used to obtain rules applicable to
@@ -14,10 +21,28 @@ package expressions.binary;
  * 			<li>Power: "^": priority 3</li>
  * 		</ul>
  * 	</li>
+ * 	<li>The associativity of binary operations with
+ * 	{@link #associativity()} (assignments and powers are right associative :
+ * 	"2 ^ 3 ^ 2" is "2 ^ (3 ^ 2)")</li>
  * 	<li>The possibility for an operator to be used with a single operand
- * 	(such as "+2" or "-a") with </li>
- * 	<li>The string prepresentation of the operator with {@link #toString()}</li>
+ * 	(such as "+2" or "-a") with {@link #hasUnary()}</li>
+ * 	<li>The string prepresentation of the operator with {@link #toString()}
+ * 	and its character with {@link #symbol()}</li>
+ * 	<li>The primitive operation performed by the operator with
+ * 	{@link #applyAsLong(long, long)} and
+ * 	{@link #applyAsDouble(double, double)} and the exact operation performed
+ * 	on {@link Long} and {@link BigDecimal} operands with
+ * 	{@link #applyExact(long, long)} and
+ * 	{@link #applyAsDecimal(BigDecimal, BigDecimal)}</li>
  * </ul>
+ * All these rules are stored in each constant so adding an operator only
+ * requires adding a constant (with the constructor of its expression class
+ * used by {@link #newExpression()}) : every evaluation engine (expression
+ * trees, arenas, {@link expressions.program.StackMachine},
+ * {@link expressions.program.ColumnEvaluator} and compiled expressions)
+ * applies these kernels, and the opcode of an operator in programs is
+ * derived from its declaration order (see
+ * {@link expressions.program.Opcodes}).
  * @author davidroussel
  */
 public enum BinaryOperatorRules
@@ -25,101 +50,398 @@ public enum BinaryOperatorRules
 	/**
 	 * Assignment expression rule
 	 */
-	ASSIGNMENT,
+	ASSIGNMENT('=', 0, Associativity.RIGHT, false,
+	           (a, b) -> b,
+	           (a, b) -> b,
+	           (a, b) -> b,
+	           (a, b) -> b,
+	           AssignmentExpression::new),
 	/**
 	 * Addition expression rule
 	 */
-	ADDITION,
+	ADDITION('+', 1, Associativity.LEFT, true,
+	         (a, b) -> a + b,
+	         (a, b) -> a + b,
+	         Math::addExact,
+	         BigDecimal::add,
+	         AdditionExpression::new),
 	/**
 	 * Subtraction expression rule
 	 */
-	SUBTRACTION,
+	SUBTRACTION('-', 1, Associativity.LEFT, true,
+	            (a, b) -> a - b,
+	            (a, b) -> a - b,
+	            Math::subtractExact,
+	            BigDecimal::subtract,
+	            null),
 	/**
 	 * Multiplication expression rule
 	 */
-	MULTIPLICATION,
+	MULTIPLICATION('*', 2, Associativity.LEFT, false,
+	               (a, b) -> a * b,
+	               (a, b) -> a * b,
+	               Math::multiplyExact,
+	               BigDecimal::multiply,
+	               null),
 	/**
 	 * Division expression rule
 	 */
-	DIVISION,
+	DIVISION('/', 2, Associativity.LEFT, false,
+	         (a, b) -> a / b,
+	         (a, b) -> a / b,
+	         BinaryOperatorRules::divideExact,
+	         (a, b) -> a.divide(b, MathContext.DECIMAL128),
+	         null),
+	/**
+	 * Power expression rule (integral powers are computed with doubles and
+	 * truncated to long, then int results wrap around like other int
+	 * operations)
+	 */
+	POWER('^', 3, Associativity.RIGHT, false,
+	      (a, b) -> (long) Math.pow(a, b),
+	      Math::pow,
+	      BinaryOperatorRules::powExact,
+	      BinaryOperatorRules::powDecimal,
+	      null);
+
+	/**
+	 * Associativity of operators : the order in which a sequence of
+	 * operators with the same priority is evaluated
+	 */
+	public enum Associativity
+	{
+		/**
+		 * Left associative operators : "a - b - c" is "(a - b) - c"
+		 */
+		LEFT,
+		/**
+		 * Right associative operators : "a ^ b ^ c" is "a ^ (b ^ c)"
+		 */
+		RIGHT
+	}
+
+	/**
+	 * Operators rules indexed by their (ASCII) symbol
+	 */
+	private static final BinaryOperatorRules[] BY_SYMBOL = new BinaryOperatorRules[128];
+
+	static
+	{
+		for (BinaryOperatorRules rules : values())
+		{
+			BY_SYMBOL[rules.symbol] = rules;
+		}
+	}
+
+	/**
+	 * The character representing this operator
+	 */
+	private final char symbol;
+
+	/**
+	 * The string representing this operator
+	 */
+	private final String string;
+
+	/**
+	 * The priority of this operator
+	 */
+	private final int priority;
+
+	/**
+	 * The associativity of this operator
+	 */
+	private final Associativity associativity;
+
+	/**
+	 * Indicates if this operator can have only one operand
+	 */
+	private final boolean unary;
+
+	/**
+	 * The operation performed by this operator on integral operands
+	 */
+	private final LongBinaryOperator longKernel;
+
+	/**
+	 * The operation performed by this operator on floating point operands
+	 */
+	private final DoubleBinaryOperator doubleKernel;
+
+	/**
+	 * The operation performed by this operator on long operands, throwing
+	 * an {@link ArithmeticException} when the result overflows
+	 */
+	private final LongBinaryOperator exactKernel;
+
+	/**
+	 * The operation performed by this operator on decimal operands
+	 */
+	private final BinaryOperator<BigDecimal> decimalKernel;
+
 	/**
-	 * Power expression rule
+	 * The factory of binary expressions implementing this operator or null
+	 * if there is no such class yet
 	 */
-	POWER;
+	private final Supplier<BinaryExpression<? extends Number>> factory;
+
+	/**
+	 * Constructor
+	 * @param symbol the character representing this operator
+	 * @param priority the priority of this operator
+	 * @param associativity the associativity of this operator
+	 * @param unary true if this operator can have only one operand
+	 * @param longKernel the operation on integral operands
+	 * @param doubleKernel the operation on floating point operands
+	 * @param exactKernel the operation on long operands, throwing an
+	 * {@link ArithmeticException} on overflow
+	 * @param decimalKernel the operation on decimal operands
+	 * @param factory the factory of binary expressions implementing this
+	 * operator or null if there is no such class yet
+	 */
+	private BinaryOperatorRules(char symbol,
+	                            int priority,
+	                            Associativity associativity,
+	                            boolean unary,
+	                            LongBinaryOperator longKernel,
+	                            DoubleBinaryOperator doubleKernel,
+	                            LongBinaryOperator exactKernel,
+	                            BinaryOperator<BigDecimal> decimalKernel,
+	                            Supplier<BinaryExpression<? extends Number>> factory)
+	{
+		this.symbol = symbol;
+		this.string = String.valueOf(symbol);
+		this.priority = priority;
+		this.associativity = associativity;
+		this.unary = unary;
+		this.longKernel = longKernel;
+		this.doubleKernel = doubleKernel;
+		this.exactKernel = exactKernel;
+		this.decimalKernel = decimalKernel;
+		this.factory = factory;
+	}
+
+	/**
+	 * Rules of the operator represented by a character
+	 * @param symbol the character to examine
+	 * @return the rules of the operator represented by this character or
+	 * null if symbol is not an operator
+	 */
+	public static BinaryOperatorRules fromSymbol(char symbol)
+	{
+		return symbol < BY_SYMBOL.length ? BY_SYMBOL[symbol] : null;
+	}
 
 	/**
 	 * String representation of this binary expression type
 	 * @return a String representing this operator
-	 * @throws AssertionError for unexpected enum value
 	 */
 	@Override
-	public String toString() throws AssertionError
+	public String toString()
 	{
-		switch (this)
-		{
-			case ASSIGNMENT:
-				return new String("=");
-			case ADDITION:
-				return new String("+");
-			case SUBTRACTION:
-				return new String("-");
-			case MULTIPLICATION:
-				return new String("*");
-			case DIVISION:
-				return new String("/");
-			case POWER:
-				return new String("^");
-			default:
-				throw new AssertionError("Unexpected value: " + this);
-		}
+		return string;
+	}
+
+	/**
+	 * Character representing this operator
+	 * @return the character representing this operator
+	 */
+	public char symbol()
+	{
+		return symbol;
 	}
 
 	/**
 	 * Priority of this type of expression
 	 * @return the priority of this type of expression
-	 * @throws AssertionError for unexpected enum value
 	 */
-	public int priority() throws AssertionError
+	public int priority()
 	{
-		switch (this)
-		{
-			case ASSIGNMENT:
-				return 0;
-			case ADDITION:
-			case SUBTRACTION:
-				return 1;
-			case MULTIPLICATION:
-			case DIVISION:
-				return 2;
-			case POWER:
-				return 3;
-			default:
-				throw new AssertionError("Unexpected value: " + this);
-		}
+		return priority;
 	}
 
+	/**
+	 * Associativity of this type of expression
+	 * @return the associativity of this type of expression
+	 */
+	public Associativity associativity()
+	{
+		return associativity;
+	}
 
 	/**
 	 * Indicate if the current operator can have only one operand
 	 * (such as "-2" or "+a")
 	 * @return true if the operator can have only one operand, false otherwise
-	 * @throws AssertionError for unexpected enum value
 	 */
-	public boolean hasUnary() throws AssertionError
+	public boolean hasUnary()
+	{
+		return unary;
+	}
+
+	/**
+	 * Indicates if an operator preceding this one (with no parenthesis in
+	 * between) should be applied first, e.g. "*" before "+" in "a * b + c" or
+	 * "-" before "-" in "a - b - c" but not "^" before "^" in "a ^ b ^ c".
+	 * @param previous the rules of the preceding operator
+	 * @return true if the preceding operator should be applied before this one
+	 */
+	public boolean isPrecededBy(BinaryOperatorRules previous)
+	{
+		return (previous.priority > priority)
+		    || ((previous.priority == priority)
+		        && (associativity == Associativity.LEFT));
+	}
+
+	/**
+	 * Operation performed by this operator on integral operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the resulting value
+	 * @throws ArithmeticException for integral divisions by zero
+	 */
+	public long applyAsLong(long value1, long value2) throws ArithmeticException
 	{
-		switch (this)
+		return longKernel.applyAsLong(value1, value2);
+	}
+
+	/**
+	 * Operation performed by this operator on floating point operands
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the resulting value
+	 */
+	public double applyAsDouble(double value1, double value2)
+	{
+		return doubleKernel.applyAsDouble(value1, value2);
+	}
+
+	/**
+	 * Exact operation performed by this operator on long operands
+	 * (divisions truncate their result like int divisions)
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the resulting value
+	 * @throws ArithmeticException if the result overflows a long, for
+	 * divisions by zero and for negative powers of integers other than 1 and
+	 * -1
+	 */
+	public long applyExact(long value1, long value2) throws ArithmeticException
+	{
+		return exactKernel.applyAsLong(value1, value2);
+	}
+
+	/**
+	 * Operation performed by this operator on decimal operands.
+	 * Divisions and negative powers (which may not have a finite decimal
+	 * expansion) are rounded to {@link MathContext#DECIMAL128}, other
+	 * operations are exact.
+	 * @param value1 first operand's value
+	 * @param value2 second operand's value
+	 * @return the resulting value
+	 * @throws ArithmeticException for divisions by zero and for powers whose
+	 * exponent is not an int
+	 */
+	public BigDecimal applyAsDecimal(BigDecimal value1, BigDecimal value2)
+		throws ArithmeticException
+	{
+		return decimalKernel.apply(value1, value2);
+	}
+
+	/**
+	 * Long division checking for overflow
+	 * @param dividend the dividend
+	 * @param divisor the divisor
+	 * @return dividend / divisor
+	 * @throws ArithmeticException if divisor is zero or for
+	 * {@link Long#MIN_VALUE} / -1
+	 */
+	private static long divideExact(long dividend, long divisor)
+		throws ArithmeticException
+	{
+		if (dividend == Long.MIN_VALUE && divisor == -1)
+		{
+			throw new ArithmeticException("long overflow");
+		}
+		return dividend / divisor;
+	}
+
+	/**
+	 * Long power (by squaring) checking for overflow
+	 * @param base the base
+	 * @param exponent the exponent
+	 * @return base<sup>exponent</sup>
+	 * @throws ArithmeticException if the result overflows or if exponent is
+	 * negative and base is not 1 or -1
+	 */
+	private static long powExact(long base, long exponent)
+		throws ArithmeticException
+	{
+		if (exponent < 0)
+		{
+			if (base == 1 || base == -1)
+			{
+				return (exponent % 2 == 0) ? 1 : base;
+			}
+			throw new ArithmeticException("Negative exponent " + exponent);
+		}
+		long result = 1;
+		while (exponent > 0)
+		{
+			if ((exponent & 1) != 0)
+			{
+				result = Math.multiplyExact(result, base);
+			}
+			exponent >>= 1;
+			if (exponent > 0)
+			{
+				base = Math.multiplyExact(base, base);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Decimal power
+	 * @param base the base
+	 * @param exponent the exponent
+	 * @return base<sup>exponent</sup> (exact for positive exponents)
+	 * @throws ArithmeticException if exponent is not an int
+	 */
+	private static BigDecimal powDecimal(BigDecimal base, BigDecimal exponent)
+		throws ArithmeticException
+	{
+		int n = exponent.intValueExact();
+		return n >= 0 ? base.pow(n) : base.pow(n, MathContext.DECIMAL128);
+	}
+
+	/**
+	 * Creates a new binary expression (without operands) following this rule
+	 * @param <E> The type of numbers in the new expression
+	 * @return a new binary expression without operands
+	 * @throws UnsupportedOperationException if there is no binary expression
+	 * class implementing this rule yet
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Number> BinaryExpression<E> newExpression()
+		throws UnsupportedOperationException
+	{
+		if (factory == null)
 		{
-			case ASSIGNMENT:
-			case MULTIPLICATION:
-			case DIVISION:
-			case POWER:
-				return false;
-			case ADDITION:
-			case SUBTRACTION:
-				return true;
-			default:
-				throw new AssertionError("Unexpected value: " + this);
+			throw new UnsupportedOperationException("No expression available for operator "
+			    + this);
 		}
+		return (BinaryExpression<E>) factory.get();
+	}
+
+	/**
+	 * Indicates if there is a binary expression class implementing this rule
+	 * @return true if {@link #newExpression()} can create expressions
+	 * following this rule
+	 */
+	public boolean hasExpression()
+	{
+		return factory != null;
 	}
 
 	/*
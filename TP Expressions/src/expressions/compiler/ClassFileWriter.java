@@ -0,0 +1,378 @@
+package expressions.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal class file writer used by {@link ExpressionCompiler}.
+ * Only supports what is needed for generated expressions : a constant pool
+ * with numbers, classes and methods references and methods without branches
+ * (hence without stack map frames) nor exception handlers.
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">
+ * JVMS chapter 4 : The class File Format</a>
+ */
+class ClassFileWriter
+{
+	/**
+	 * Class file version for Java 17
+	 */
+	private static final int MAJOR_VERSION = 61;
+
+	/**
+	 * Constant pool tags
+	 */
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	/**
+	 * Constant pool content
+	 */
+	private final ByteArrayOutputStream poolBytes;
+
+	/**
+	 * Output stream to write into {@link #poolBytes}
+	 */
+	private final DataOutputStream pool;
+
+	/**
+	 * Index of already written constant pool entries (to avoid duplicates)
+	 */
+	private final Map<String, Integer> poolIndexes;
+
+	/**
+	 * Next free index in the constant pool (index 0 is unused)
+	 */
+	private int poolCount;
+
+	/**
+	 * Methods content
+	 */
+	private final ByteArrayOutputStream methodsBytes;
+
+	/**
+	 * Output stream to write into {@link #methodsBytes}
+	 */
+	private final DataOutputStream methods;
+
+	/**
+	 * Number of methods written so far
+	 */
+	private int methodsCount;
+
+	/**
+	 * Default constructor
+	 */
+	ClassFileWriter()
+	{
+		poolBytes = new ByteArrayOutputStream();
+		pool = new DataOutputStream(poolBytes);
+		poolIndexes = new HashMap<String, Integer>();
+		poolCount = 1;
+		methodsBytes = new ByteArrayOutputStream();
+		methods = new DataOutputStream(methodsBytes);
+		methodsCount = 0;
+	}
+
+	/**
+	 * Index of an UTF8 entry in the constant pool (created if needed)
+	 * @param value the string value
+	 * @return the index of this entry
+	 */
+	int utf8(String value)
+	{
+		String key = "U" + value;
+		Integer index = poolIndexes.get(key);
+		if (index == null)
+		{
+			try
+			{
+				pool.writeByte(CONSTANT_UTF8);
+				pool.writeUTF(value);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			index = register(key, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Index of a class entry in the constant pool (created if needed)
+	 * @param internalName the internal name of the class (e.g. java/lang/Math)
+	 * @return the index of this entry
+	 */
+	int classRef(String internalName)
+	{
+		String key = "C" + internalName;
+		Integer index = poolIndexes.get(key);
+		if (index == null)
+		{
+			int nameIndex = utf8(internalName);
+			write(CONSTANT_CLASS, nameIndex);
+			index = register(key, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Index of a method reference entry in the constant pool (created if
+	 * needed)
+	 * @param owner the internal name of the class declaring the method
+	 * @param name the name of the method
+	 * @param descriptor the descriptor of the method (e.g. (DD)D)
+	 * @return the index of this entry
+	 */
+	int methodRef(String owner, String name, String descriptor)
+	{
+		String key = "M" + owner + '.' + name + descriptor;
+		Integer index = poolIndexes.get(key);
+		if (index == null)
+		{
+			int classIndex = classRef(owner);
+			int nameIndex = utf8(name);
+			int descriptorIndex = utf8(descriptor);
+			write(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+			register("N" + name + descriptor, 1);
+			write(CONSTANT_METHODREF, classIndex, poolCount - 1);
+			index = register(key, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Index of a field reference entry in the constant pool (created if
+	 * needed)
+	 * @param owner the internal name of the class declaring the field
+	 * @param name the name of the field
+	 * @param descriptor the descriptor of the field (e.g. I)
+	 * @return the index of this entry
+	 */
+	int fieldRef(String owner, String name, String descriptor)
+	{
+		String key = "F" + owner + '.' + name + ':' + descriptor;
+		Integer index = poolIndexes.get(key);
+		if (index == null)
+		{
+			int classIndex = classRef(owner);
+			int nameIndex = utf8(name);
+			int descriptorIndex = utf8(descriptor);
+			write(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+			register("N" + name + ':' + descriptor, 1);
+			write(CONSTANT_FIELDREF, classIndex, poolCount - 1);
+			index = register(key, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Index of an int constant in the constant pool (created if needed)
+	 * @param value the int value
+	 * @return the index of this entry
+	 */
+	int intConstant(int value)
+	{
+		String key = "I" + value;
+		Integer index = poolIndexes.get(key);
+		if (index == null)
+		{
+			try
+			{
+				pool.writeByte(CONSTANT_INTEGER);
+				pool.writeInt(value);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			index = register(key, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Index of a float constant in the constant pool (created if needed)
+	 * @param value the float value
+	 * @return the index of this entry
+	 */
+	int floatConstant(float value)
+	{
+		int bits = Float.floatToRawIntBits(value);
+		String key = "F" + bits;
+		Integer index = poolIndexes.get(key);
+		if (index == null)
+		{
+			try
+			{
+				pool.writeByte(CONSTANT_FLOAT);
+				pool.writeInt(bits);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			index = register(key, 1);
+		}
+		return index;
+	}
+
+	/**
+	 * Index of a double constant in the constant pool (created if needed)
+	 * @param value the double value
+	 * @return the index of this entry
+	 * @implNote double entries use two slots of the constant pool
+	 */
+	int doubleConstant(double value)
+	{
+		long bits = Double.doubleToRawLongBits(value);
+		String key = "D" + bits;
+		Integer index = poolIndexes.get(key);
+		if (index == null)
+		{
+			try
+			{
+				pool.writeByte(CONSTANT_DOUBLE);
+				pool.writeLong(bits);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			index = register(key, 2);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds a method with a single "Code" attribute
+	 * @param access the access flags of the method
+	 * @param name the name of the method
+	 * @param descriptor the descriptor of the method
+	 * @param maxStack the maximum depth of the operand stack
+	 * @param maxLocals the number of local variables slots
+	 * @param code the bytecode of the method
+	 */
+	void addMethod(int access,
+	               String name,
+	               String descriptor,
+	               int maxStack,
+	               int maxLocals,
+	               byte[] code)
+	{
+		int nameIndex = utf8(name);
+		int descriptorIndex = utf8(descriptor);
+		int codeIndex = utf8("Code");
+		try
+		{
+			methods.writeShort(access);
+			methods.writeShort(nameIndex);
+			methods.writeShort(descriptorIndex);
+			methods.writeShort(1); // attributes count
+			methods.writeShort(codeIndex);
+			methods.writeInt(12 + code.length); // attribute length
+			methods.writeShort(maxStack);
+			methods.writeShort(maxLocals);
+			methods.writeInt(code.length);
+			methods.write(code);
+			methods.writeShort(0); // exception table length
+			methods.writeShort(0); // code attributes count
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		methodsCount++;
+	}
+
+	/**
+	 * Assemble the class file
+	 * @param access the access flags of the class
+	 * @param thisName the internal name of the class
+	 * @param superName the internal name of the super class
+	 * @return the bytes of the class file
+	 */
+	byte[] toByteArray(int access, String thisName, String superName)
+	{
+		int thisIndex = classRef(thisName);
+		int superIndex = classRef(superName);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+		    poolBytes.size() + methodsBytes.size() + 32);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0); // minor version
+			out.writeShort(MAJOR_VERSION);
+			out.writeShort(poolCount);
+			pool.flush();
+			poolBytes.writeTo(out);
+			out.writeShort(access);
+			out.writeShort(thisIndex);
+			out.writeShort(superIndex);
+			out.writeShort(0); // interfaces count
+			out.writeShort(0); // fields count
+			out.writeShort(methodsCount);
+			methods.flush();
+			methodsBytes.writeTo(out);
+			out.writeShort(0); // class attributes count
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a constant pool entry composed of a tag and 16 bits indexes
+	 * @param tag the tag of the entry
+	 * @param indexes the indexes following the tag
+	 */
+	private void write(int tag, int... indexes)
+	{
+		try
+		{
+			pool.writeByte(tag);
+			for (int index : indexes)
+			{
+				pool.writeShort(index);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Registers the last written entry in the constant pool
+	 * @param key the key of this entry in {@link #poolIndexes}
+	 * @param slots the number of slots used by this entry
+	 * @return the index of this entry
+	 * @throws IllegalArgumentException if the constant pool is full (the
+	 * compiled expression is too large)
+	 */
+	private int register(String key, int slots) throws IllegalArgumentException
+	{
+		int index = poolCount;
+		poolCount += slots;
+		if (poolCount > 0xFFFF)
+		{
+			throw new IllegalArgumentException("Constant pool is full");
+		}
+		poolIndexes.put(key, index);
+		return index;
+	}
+}
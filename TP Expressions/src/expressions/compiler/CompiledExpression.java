@@ -0,0 +1,100 @@
+package expressions.compiler;
+
+/**
+ * Base class for all expressions compiled by {@link ExpressionCompiler}.
+ * A compiled expression does not hold any value : variables values are read
+ * from (and assignments written to) a frame of doubles provided at each
+ * evaluation where each variable has its own slot.
+ * Concrete subclasses are generated at runtime as hidden classes.
+ * @see ExpressionCompiler#compile(expressions.Expression)
+ */
+public abstract class CompiledExpression
+{
+	/**
+	 * Names of the variables used in this expression indexed by their slot
+	 * in the frames provided to {@link #evaluate(double[])}
+	 */
+	private final String[] variables;
+
+	/**
+	 * String representation of the source expression
+	 */
+	private final String source;
+
+	/**
+	 * Constructor (to be used by generated subclasses)
+	 * @param variables the names of the variables indexed by slot
+	 * @param source the string representation of the compiled expression
+	 */
+	protected CompiledExpression(String[] variables, String source)
+	{
+		this.variables = variables;
+		this.source = source;
+	}
+
+	/**
+	 * Evaluate this expression
+	 * @param frame the values of the variables indexed by slot (see
+	 * {@link #slotOf(String)}). Assignments store their value in the frame.
+	 * @return the numeric value of this expression
+	 * @throws ArrayIndexOutOfBoundsException if the frame is smaller than
+	 * {@link #getVariablesCount()}
+	 * @throws ArithmeticException if an integer division by zero occurs
+	 */
+	public abstract double evaluate(double[] frame);
+
+	/**
+	 * Number of variables (and hence of slots) used by this expression
+	 * @return the minimum length of the frames used to evaluate this expression
+	 */
+	public int getVariablesCount()
+	{
+		return variables.length;
+	}
+
+	/**
+	 * Names of the variables used in this expression
+	 * @return a copy of the variables names indexed by slot
+	 */
+	public String[] getVariables()
+	{
+		return variables.clone();
+	}
+
+	/**
+	 * Slot of a variable in evaluation frames
+	 * @param name the name of the variable to search
+	 * @return the index of the variable in frames or -1 if this expression
+	 * does not use such a variable
+	 */
+	public int slotOf(String name)
+	{
+		for (int i = 0; i < variables.length; i++)
+		{
+			if (variables[i].equals(name))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Creates a new frame suitable to evaluate this expression
+	 * @return a new array of {@link #getVariablesCount()} zeros
+	 */
+	public double[] newFrame()
+	{
+		return new double[variables.length];
+	}
+
+	/**
+	 * String representation of this compiled expression
+	 * @return the string representation of the source expression
+	 */
+	@Override
+	public String toString()
+	{
+		return source;
+	}
+}
@@ -0,0 +1,712 @@
+package expressions.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressions.Expression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Compiler turning {@link Expression} trees (such as the ones produced by
+ * {@link parser.ExpressionParser#parse(String)}) into {@link CompiledExpression}s.
+ * Each expression is compiled into a hidden class whose
+ * {@link CompiledExpression#evaluate(double[])} method evaluates the whole
+ * tree with primitive arithmetic (no boxing, no virtual calls per node).
+ * <ul>
+ * <li>Variables are read from the frame provided to
+ * {@link CompiledExpression#evaluate(double[])}, their current values in the
+ * tree are ignored</li>
+ * <li>Assignments store the assigned value into the frame</li>
+ * <li>Computations are performed with the primitive type corresponding to
+ * the number type of the compiler (int, float or double) so that integer
+ * expressions keep integer semantics (e.g. 7 / 2 = 3)</li>
+ * </ul>
+ * @param <E> The type of numbers in compiled expressions
+ */
+public class ExpressionCompiler<E extends Number>
+{
+	/**
+	 * Internal name of the generated classes (hidden classes must be defined
+	 * in the package of the lookup class)
+	 */
+	private static final String GENERATED_NAME =
+	    "expressions/compiler/GeneratedExpression";
+
+	/**
+	 * Internal name of {@link CompiledExpression}
+	 */
+	private static final String SUPER_NAME =
+	    "expressions/compiler/CompiledExpression";
+
+	/**
+	 * Descriptor of the constructor of the generated classes
+	 */
+	private static final String CONSTRUCTOR_DESCRIPTOR =
+	    "([Ljava/lang/String;Ljava/lang/String;)V";
+
+	/**
+	 * Maximum size of a method's bytecode
+	 */
+	private static final int MAX_CODE_LENGTH = 0xFFFF;
+
+	/**
+	 * Opcodes used in generated code
+	 */
+	private static final int ICONST_0 = 0x03;
+	private static final int FCONST_0 = 0x0b;
+	private static final int DCONST_0 = 0x0e;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int LDC = 0x12;
+	private static final int LDC_W = 0x13;
+	private static final int LDC2_W = 0x14;
+	private static final int ALOAD_0 = 0x2a;
+	private static final int ALOAD_1 = 0x2b;
+	private static final int ALOAD_2 = 0x2c;
+	private static final int DLOAD_2 = 0x28;
+	private static final int DALOAD = 0x31;
+	private static final int DSTORE_2 = 0x49;
+	private static final int DASTORE = 0x52;
+	private static final int IADD = 0x60;
+	private static final int ISUB = 0x64;
+	private static final int IMUL = 0x68;
+	private static final int IDIV = 0x6c;
+	private static final int I2L = 0x85;
+	private static final int I2D = 0x87;
+	private static final int L2I = 0x88;
+	private static final int F2D = 0x8d;
+	private static final int D2I = 0x8e;
+	private static final int D2F = 0x90;
+	private static final int DRETURN = 0xaf;
+	private static final int RETURN = 0xb1;
+	private static final int GETSTATIC = 0xb2;
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESPECIAL = 0xb7;
+
+	/**
+	 * Internal name of {@link BinaryOperatorRules}
+	 */
+	private static final String RULES_NAME = "expressions/binary/BinaryOperatorRules";
+
+	/**
+	 * Primitive type used in generated code : int, float or double.
+	 * Arithmetic opcodes of these types are contiguous (e.g. IADD, LADD,
+	 * FADD, DADD) so {@link #opcodeOffset} is added to int opcodes.
+	 */
+	private final char primitive;
+
+	/**
+	 * Offset to add to int arithmetic opcodes to get the {@link #primitive}
+	 * type opcodes
+	 */
+	private final int opcodeOffset;
+
+	/**
+	 * Number of operand stack slots used by a {@link #primitive} value
+	 */
+	private final int primitiveSize;
+
+	/**
+	 * Lookup used to define hidden classes
+	 */
+	private final MethodHandles.Lookup lookup;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 * @apiNote Caution : the specimen's class must match the type parameter
+	 * E of this compiler (just like {@link parser.ExpressionParser}).
+	 */
+	public ExpressionCompiler(Number specimen) throws IllegalArgumentException
+	{
+		Class<? extends Number> numberClass = specimen.getClass();
+		if (numberClass == Integer.class)
+		{
+			primitive = 'I';
+			opcodeOffset = 0;
+			primitiveSize = 1;
+		}
+		else if (numberClass == Float.class)
+		{
+			primitive = 'F';
+			opcodeOffset = 2;
+			primitiveSize = 1;
+		}
+		else if (numberClass == Double.class)
+		{
+			primitive = 'D';
+			opcodeOffset = 3;
+			primitiveSize = 2;
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unsupported Number Class : "
+			    + numberClass.getSimpleName());
+		}
+		lookup = MethodHandles.lookup();
+	}
+
+	/**
+	 * Compile a single expression
+	 * @param expression the expression to compile
+	 * @return a new compiled expression whose variables slots are numbered
+	 * in order of first occurrence in the expression
+	 * @throws IllegalArgumentException if the expression is null, incomplete
+	 * (missing operands) or contains unsupported kinds of expressions
+	 */
+	public CompiledExpression compile(Expression<E> expression)
+		throws IllegalArgumentException
+	{
+		return compile(expression, new LinkedHashMap<String, Integer>());
+	}
+
+	/**
+	 * Compile multiple expressions (typically the statements of a program)
+	 * sharing the same variables slots so a single frame can be used to
+	 * evaluate all of them in sequence.
+	 * @param expressions the expressions to compile
+	 * @return a list of compiled expressions (in the same order as the
+	 * provided expressions) sharing the same variables slots
+	 * @throws IllegalArgumentException if one of the expressions is null,
+	 * incomplete or contains unsupported kinds of expressions
+	 */
+	public List<CompiledExpression> compile(List<Expression<E>> expressions)
+		throws IllegalArgumentException
+	{
+		Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+		for (Expression<E> expression : expressions)
+		{
+			collectVariables(expression, slots);
+		}
+		List<CompiledExpression> compiled =
+		    new ArrayList<CompiledExpression>(expressions.size());
+		for (Expression<E> expression : expressions)
+		{
+			compiled.add(compile(expression, slots));
+		}
+		return compiled;
+	}
+
+	/**
+	 * Compile a single expression using (and completing) variables slots
+	 * @param expression the expression to compile
+	 * @param slots the variables slots by name
+	 * @return a new compiled expression
+	 * @throws IllegalArgumentException if the expression can't be compiled
+	 */
+	private CompiledExpression compile(Expression<E> expression,
+	                                   Map<String, Integer> slots)
+		throws IllegalArgumentException
+	{
+		if (expression == null)
+		{
+			throw new IllegalArgumentException("Can't compile null expression");
+		}
+		collectVariables(expression, slots);
+
+		ClassFileWriter writer = new ClassFileWriter();
+
+		/*
+		 * Constructor : calls super(variables, source)
+		 */
+		ByteArrayOutputStream constructor = new ByteArrayOutputStream();
+		constructor.write(ALOAD_0);
+		constructor.write(ALOAD_1);
+		constructor.write(ALOAD_2);
+		constructor.write(INVOKESPECIAL);
+		writeShort(constructor,
+		           writer.methodRef(SUPER_NAME, "<init>", CONSTRUCTOR_DESCRIPTOR));
+		constructor.write(RETURN);
+		writer.addMethod(Modifier.PUBLIC,
+		                 "<init>",
+		                 CONSTRUCTOR_DESCRIPTOR,
+		                 3,
+		                 3,
+		                 constructor.toByteArray());
+
+		/*
+		 * evaluate(double[] frame)
+		 * locals : 0 = this, 1 = frame, 2-3 = assigned value
+		 */
+		CodeEmitter code = new CodeEmitter(writer, slots);
+		code.emit(expression);
+		code.toDouble();
+		code.write(DRETURN);
+		byte[] bytecode = code.toByteArray();
+		if (bytecode.length > MAX_CODE_LENGTH)
+		{
+			throw new IllegalArgumentException("Expression is too large to be compiled");
+		}
+		writer.addMethod(Modifier.PUBLIC | Modifier.FINAL,
+		                 "evaluate",
+		                 "([D)D",
+		                 code.maxStack,
+		                 4,
+		                 bytecode);
+
+		byte[] classFile = writer.toByteArray(Modifier.PUBLIC
+		    | Modifier.FINAL | 0x0020, // ACC_SUPER
+		                                      GENERATED_NAME,
+		                                      SUPER_NAME);
+
+		String[] variables = slots.keySet().toArray(new String[slots.size()]);
+		try
+		{
+			MethodHandles.Lookup hidden =
+			    lookup.defineHiddenClass(classFile, true);
+			MethodHandle newInstance = hidden.findConstructor(hidden.lookupClass(),
+			    MethodType.methodType(void.class, String[].class, String.class));
+			return (CompiledExpression) newInstance.invoke(variables,
+			                                               expression.toString());
+		}
+		catch (RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable t)
+		{
+			throw new IllegalStateException("Can't instanciate compiled expression", t);
+		}
+	}
+
+	/**
+	 * Assign a slot to each variable of an expression which doesn't have one
+	 * yet
+	 * @param expression the expression to explore
+	 * @param slots the variables slots to complete
+	 */
+	private static <E extends Number> void
+	    collectVariables(Expression<E> expression, Map<String, Integer> slots)
+	{
+		if (expression instanceof VariableExpression<?>)
+		{
+			String name = ((VariableExpression<E>) expression).getName();
+			if (!slots.containsKey(name))
+			{
+				slots.put(name, slots.size());
+			}
+		}
+		else if (expression instanceof BinaryExpression<?>)
+		{
+			BinaryExpression<E> binop = (BinaryExpression<E>) expression;
+			collectVariables(binop.getLeft(), slots);
+			collectVariables(binop.getRight(), slots);
+		}
+	}
+
+	/**
+	 * Writes a 16 bits value in big endian order
+	 * @param out the output to write to
+	 * @param value the value to write
+	 */
+	private static void writeShort(ByteArrayOutputStream out, int value)
+	{
+		out.write((value >> 8) & 0xFF);
+		out.write(value & 0xFF);
+	}
+
+	/**
+	 * Bytecode emitter for the evaluate method keeping track of the operand
+	 * stack depth
+	 */
+	private class CodeEmitter
+	{
+		/**
+		 * The class file writer providing constant pool entries
+		 */
+		private final ClassFileWriter writer;
+
+		/**
+		 * The variables slots by name
+		 */
+		private final Map<String, Integer> slots;
+
+		/**
+		 * The emitted bytecode
+		 */
+		private final ByteArrayOutputStream code;
+
+		/**
+		 * Current operand stack depth
+		 */
+		private int stack;
+
+		/**
+		 * Maximum operand stack depth
+		 */
+		private int maxStack;
+
+		/**
+		 * Constructor
+		 * @param writer the class file writer providing constant pool entries
+		 * @param slots the variables slots by name
+		 */
+		CodeEmitter(ClassFileWriter writer, Map<String, Integer> slots)
+		{
+			this.writer = writer;
+			this.slots = slots;
+			code = new ByteArrayOutputStream();
+			stack = 0;
+			maxStack = 0;
+		}
+
+		/**
+		 * Emit the code evaluating an expression and leaving its value
+		 * (as a {@link #primitive}) on the operand stack
+		 * @param expression the expression to emit
+		 * @throws IllegalArgumentException if the expression can't be compiled
+		 */
+		void emit(Expression<E> expression) throws IllegalArgumentException
+		{
+			if (expression == null)
+			{
+				throw new IllegalArgumentException("Can't compile incomplete expression");
+			}
+			if (expression instanceof ConstantExpression<?>)
+			{
+				pushConstant(expression.value());
+			}
+			else if (expression instanceof VariableExpression<?>)
+			{
+				loadVariable(((VariableExpression<E>) expression).getName());
+			}
+			else if (expression instanceof AssignmentExpression<?>)
+			{
+				AssignmentExpression<E> assignment =
+				    (AssignmentExpression<E>) expression;
+				if (!(assignment.getLeft() instanceof VariableExpression<?>))
+				{
+					throw new IllegalArgumentException("Can't compile incomplete expression");
+				}
+				String name =
+				    ((VariableExpression<E>) assignment.getLeft()).getName();
+				emit(assignment.getRight());
+				toDouble();
+				write(DSTORE_2);
+				pop(2);
+				write(ALOAD_1);
+				push(1);
+				pushInt(slots.get(name));
+				write(DLOAD_2);
+				push(2);
+				write(DASTORE);
+				pop(4);
+				write(DLOAD_2);
+				push(2);
+				fromDouble();
+			}
+			else if (expression instanceof BinaryExpression<?>)
+			{
+				BinaryExpression<E> binop = (BinaryExpression<E>) expression;
+				emitOperation(binop);
+			}
+			else
+			{
+				throw new IllegalArgumentException("Unsupported expression type : "
+				    + expression.getClass().getSimpleName());
+			}
+		}
+
+		/**
+		 * Emit a binary operation
+		 * @param binop the binary expression to emit
+		 * @throws IllegalArgumentException if the operation can't be compiled
+		 */
+		private void emitOperation(BinaryExpression<E> binop)
+			throws IllegalArgumentException
+		{
+			// Basic operations are single opcodes computing the same values as their kernels
+			switch (binop.getRules())
+			{
+				case ADDITION:
+					emitArithmetic(binop, IADD);
+					break;
+				case SUBTRACTION:
+					emitArithmetic(binop, ISUB);
+					break;
+				case MULTIPLICATION:
+					emitArithmetic(binop, IMUL);
+					break;
+				case DIVISION:
+					emitArithmetic(binop, IDIV);
+					break;
+				default:
+					emitKernel(binop);
+					break;
+			}
+		}
+
+		/**
+		 * Emit a binary operation calling the kernel of its operator
+		 * ({@link BinaryOperatorRules#applyAsLong(long, long)} for int
+		 * code, {@link BinaryOperatorRules#applyAsDouble(double, double)}
+		 * otherwise) so compiled code computes the same values as trees
+		 * @param binop the binary expression to emit
+		 * @throws IllegalArgumentException if an operand can't be compiled
+		 */
+		private void emitKernel(BinaryExpression<E> binop)
+			throws IllegalArgumentException
+		{
+			String descriptor = "L" + RULES_NAME + ";";
+			write(GETSTATIC);
+			writeShort(code, writer.fieldRef(RULES_NAME, binop.getRules().name(), descriptor));
+			push(1);
+			emit(binop.getLeft());
+			toKernelOperand();
+			emit(binop.getRight());
+			toKernelOperand();
+			write(INVOKEVIRTUAL);
+			if (primitive == 'I')
+			{
+				writeShort(code, writer.methodRef(RULES_NAME, "applyAsLong", "(JJ)J"));
+				pop(5);
+				push(2);
+				write(L2I);
+				pop(2);
+				push(1);
+			}
+			else
+			{
+				writeShort(code, writer.methodRef(RULES_NAME, "applyAsDouble", "(DD)D"));
+				pop(5);
+				push(2);
+				fromDouble();
+			}
+		}
+
+		/**
+		 * Convert the {@link #primitive} value on top of the stack to the
+		 * operand type of the kernels : long for int code, double otherwise
+		 */
+		private void toKernelOperand()
+		{
+			if (primitive == 'I')
+			{
+				write(I2L);
+				pop(1);
+				push(2);
+			}
+			else
+			{
+				toDouble();
+			}
+		}
+
+		/**
+		 * Emit a binary arithmetic operation
+		 * @param binop the binary expression to emit
+		 * @param intOpcode the int version of the arithmetic opcode
+		 * @throws IllegalArgumentException if an operand can't be compiled
+		 */
+		private void emitArithmetic(BinaryExpression<E> binop, int intOpcode)
+			throws IllegalArgumentException
+		{
+			emit(binop.getLeft());
+			emit(binop.getRight());
+			write(intOpcode + opcodeOffset);
+			pop(primitiveSize);
+		}
+
+		/**
+		 * Push a constant value as a {@link #primitive}
+		 * @param value the value to push
+		 */
+		private void pushConstant(Number value)
+		{
+			switch (primitive)
+			{
+				case 'I':
+					pushInt(value.intValue());
+					break;
+				case 'F':
+				{
+					float f = value.floatValue();
+					if ((f == 0.0f || f == 1.0f || f == 2.0f)
+					    && Float.floatToRawIntBits(f) != Float.floatToRawIntBits(-0.0f))
+					{
+						write(FCONST_0 + (int) f);
+					}
+					else
+					{
+						loadConstant(writer.floatConstant(f));
+					}
+					push(1);
+					break;
+				}
+				default:
+				{
+					double d = value.doubleValue();
+					if ((d == 0.0 || d == 1.0)
+					    && Double.doubleToRawLongBits(d) != Double.doubleToRawLongBits(-0.0))
+					{
+						write(DCONST_0 + (int) d);
+					}
+					else
+					{
+						write(LDC2_W);
+						writeShort(code, writer.doubleConstant(d));
+					}
+					push(2);
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Push an int constant using the shortest instruction
+		 * @param value the value to push
+		 */
+		private void pushInt(int value)
+		{
+			if (value >= -1 && value <= 5)
+			{
+				write(ICONST_0 + value);
+			}
+			else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			{
+				write(BIPUSH);
+				write(value & 0xFF);
+			}
+			else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			{
+				write(SIPUSH);
+				writeShort(code, value);
+			}
+			else
+			{
+				loadConstant(writer.intConstant(value));
+			}
+			push(1);
+		}
+
+		/**
+		 * Load a single slot constant from the constant pool
+		 * @param index the index of the constant in the constant pool
+		 */
+		private void loadConstant(int index)
+		{
+			if (index <= 0xFF)
+			{
+				write(LDC);
+				write(index);
+			}
+			else
+			{
+				write(LDC_W);
+				writeShort(code, index);
+			}
+		}
+
+		/**
+		 * Load a variable from the frame and convert it to {@link #primitive}
+		 * @param name the name of the variable
+		 */
+		private void loadVariable(String name)
+		{
+			write(ALOAD_1);
+			push(1);
+			pushInt(slots.get(name));
+			write(DALOAD);
+			pop(2);
+			push(2);
+			fromDouble();
+		}
+
+		/**
+		 * Convert the {@link #primitive} value on top of the stack to a double
+		 */
+		void toDouble()
+		{
+			switch (primitive)
+			{
+				case 'I':
+					write(I2D);
+					pop(1);
+					push(2);
+					break;
+				case 'F':
+					write(F2D);
+					pop(1);
+					push(2);
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * Convert the double value on top of the stack to a {@link #primitive}
+		 */
+		private void fromDouble()
+		{
+			switch (primitive)
+			{
+				case 'I':
+					write(D2I);
+					pop(2);
+					push(1);
+					break;
+				case 'F':
+					write(D2F);
+					pop(2);
+					push(1);
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * Writes an opcode or single byte operand
+		 * @param value the byte to write
+		 */
+		void write(int value)
+		{
+			code.write(value);
+		}
+
+		/**
+		 * Account for values pushed on the operand stack
+		 * @param size the number of slots pushed
+		 */
+		private void push(int size)
+		{
+			stack += size;
+			if (stack > maxStack)
+			{
+				maxStack = stack;
+			}
+		}
+
+		/**
+		 * Account for values popped from the operand stack
+		 * @param size the number of slots popped
+		 */
+		private void pop(int size)
+		{
+			stack -= size;
+		}
+
+		/**
+		 * The emitted bytecode
+		 * @return a copy of the emitted bytecode
+		 */
+		byte[] toByteArray()
+		{
+			return code.toByteArray();
+		}
+	}
+}
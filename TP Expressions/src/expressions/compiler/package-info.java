@@ -0,0 +1,5 @@
+/**
+ * Package containing the compiler turning {@link expressions.Expression}
+ * trees into JVM bytecode evaluated over a primitive variables frame
+ */
+package expressions.compiler;
@@ -0,0 +1,36 @@
+package expressions.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded when a statement is evaluated by
+ * {@link ExpressionProfiler#evaluate(expressions.Expression, expressions.EvaluationContext)}
+ */
+@Name("expressions.Evaluate")
+@Label("Evaluate")
+@Category("Expressions")
+@Description("Evaluation of a statement")
+public class EvaluateEvent extends Event
+{
+	/**
+	 * The evaluated statement
+	 */
+	@Label("Expression")
+	String expression;
+
+	/**
+	 * Number of evaluated binary expressions
+	 */
+	@Label("Nodes")
+	int nodes;
+
+	/**
+	 * Indicates if the statement produced a value
+	 */
+	@Label("Succeeded")
+	boolean succeeded;
+}
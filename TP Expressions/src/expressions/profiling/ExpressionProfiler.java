@@ -0,0 +1,482 @@
+package expressions.profiling;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.terminal.VariableExpression;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Instrumented evaluator of expressions recording, for each
+ * {@link BinaryExpression} node, its evaluations count, its cumulative
+ * evaluation time and an estimate of the memory it allocated, so the
+ * sub-expressions responsible for a slow evaluation can be found.
+ * Nodes are identified by their path : the {@link BinaryExpression#toString()}
+ * of the node and of all its ancestors from the evaluated statement, which
+ * is the frame stack of folded stacks files
+ * (see {@link #writeFoldedStacks(Writer, Metric)}) used by flame graph
+ * tools. Evaluation of terminal expressions is accounted to their parent
+ * node.
+ * Parsing and evaluating through a profiler also records
+ * {@link ParseEvent} and {@link EvaluateEvent} JFR events when they are
+ * enabled in a running flight recording.
+ * Profiling is opt-in : expressions are evaluated with the same semantics
+ * as {@link Expression#value(EvaluationContext)} but by this class, so the
+ * usual evaluation paths are not instrumented at all.
+ * Profilers are not thread safe : each thread should use its own profiler.
+ * @param <E> The type of numbers in profiled expressions
+ * @implNote allocations are estimated with the allocated bytes counter of
+ * the current thread, when the JVM supports it (see
+ * {@link #isAllocationSupported()}), which includes the allocations of the
+ * instrumentation itself.
+ */
+public class ExpressionProfiler<E extends Number>
+{
+	/**
+	 * Values exported in folded stacks
+	 */
+	public enum Metric
+	{
+		/**
+		 * Number of evaluations of each node
+		 */
+		COUNT,
+		/**
+		 * Nanoseconds spent in each node excluding its binary operands
+		 */
+		SELF_NANOS,
+		/**
+		 * Bytes allocated in each node excluding its binary operands
+		 */
+		ALLOCATED_BYTES;
+	}
+
+	/**
+	 * Profile of a node of evaluated expressions
+	 */
+	public static class NodeProfile
+	{
+		/**
+		 * The path of the node : frames separated by ';'
+		 */
+		private final String path;
+
+		/**
+		 * Number of evaluations
+		 */
+		private long count;
+
+		/**
+		 * Cumulative nanoseconds including operands evaluations
+		 */
+		private long totalNanos;
+
+		/**
+		 * Cumulative nanoseconds excluding binary operands evaluations
+		 */
+		private long selfNanos;
+
+		/**
+		 * Cumulative allocated bytes including operands evaluations
+		 */
+		private long totalBytes;
+
+		/**
+		 * Cumulative allocated bytes excluding binary operands evaluations
+		 */
+		private long selfBytes;
+
+		/**
+		 * Constructor
+		 * @param path the path of the node
+		 */
+		private NodeProfile(String path)
+		{
+			this.path = path;
+			count = 0;
+			totalNanos = 0;
+			selfNanos = 0;
+			totalBytes = 0;
+			selfBytes = 0;
+		}
+
+		/**
+		 * Path accessor
+		 * @return the string representations of the statement and of the
+		 * nodes leading to this node separated by ';'
+		 */
+		public String getPath()
+		{
+			return path;
+		}
+
+		/**
+		 * Evaluations count accessor
+		 * @return the number of (successful) evaluations of the node
+		 */
+		public long getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * Cumulative time accessor
+		 * @return the nanoseconds spent evaluating the node and its operands
+		 */
+		public long getTotalNanos()
+		{
+			return totalNanos;
+		}
+
+		/**
+		 * Self time accessor
+		 * @return the nanoseconds spent evaluating the node excluding the
+		 * evaluation of its binary operands
+		 */
+		public long getSelfNanos()
+		{
+			return selfNanos;
+		}
+
+		/**
+		 * Cumulative allocations accessor
+		 * @return the estimated bytes allocated evaluating the node and its
+		 * operands (or 0 if allocations are not supported)
+		 */
+		public long getTotalAllocatedBytes()
+		{
+			return totalBytes;
+		}
+
+		/**
+		 * Self allocations accessor
+		 * @return the estimated bytes allocated evaluating the node excluding
+		 * the evaluation of its binary operands (or 0 if allocations are not
+		 * supported)
+		 */
+		public long getAllocatedBytes()
+		{
+			return selfBytes;
+		}
+
+		/**
+		 * Value of a metric
+		 * @param metric the metric
+		 * @return the value of the metric for this node
+		 */
+		private long get(Metric metric)
+		{
+			switch (metric)
+			{
+				case COUNT:
+					return count;
+				case SELF_NANOS:
+					return selfNanos;
+				default:
+					return selfBytes;
+			}
+		}
+
+		/**
+		 * String representation of this profile
+		 * @return the path followed by the counters of this profile
+		 */
+		@Override
+		public String toString()
+		{
+			return path + " : count=" + count + ", total=" + totalNanos
+			    + "ns, self=" + selfNanos + "ns, allocated=" + selfBytes + "B";
+		}
+	}
+
+	/**
+	 * Thread allocation counters (or null when the JVM doesn't support them)
+	 */
+	private static final com.sun.management.ThreadMXBean allocations = allocationCounters();
+
+	/**
+	 * Profiles of evaluated nodes
+	 */
+	private final Map<Expression<E>, NodeProfile> profiles;
+
+	/**
+	 * Profiles of evaluated nodes in order of first evaluation
+	 */
+	private final List<NodeProfile> ordered;
+
+	/**
+	 * Nanoseconds spent by the last node evaluated by
+	 * {@link #evaluate(Expression, EvaluationContext, NodeProfile)} (0 for
+	 * terminal expressions)
+	 */
+	private long lastNanos;
+
+	/**
+	 * Bytes allocated by the last node evaluated by
+	 * {@link #evaluate(Expression, EvaluationContext, NodeProfile)} (0 for
+	 * terminal expressions)
+	 */
+	private long lastBytes;
+
+	/**
+	 * Number of binary expressions evaluated by the current statement
+	 */
+	private int nodes;
+
+	/**
+	 * Default constructor.
+	 * Builds a profiler without any profile
+	 */
+	public ExpressionProfiler()
+	{
+		profiles = new IdentityHashMap<Expression<E>, NodeProfile>();
+		ordered = new ArrayList<NodeProfile>();
+		lastNanos = 0;
+		lastBytes = 0;
+		nodes = 0;
+	}
+
+	/**
+	 * Thread allocation counters
+	 * @return the thread allocation counters of the JVM or null if they are
+	 * not supported
+	 */
+	private static com.sun.management.ThreadMXBean allocationCounters()
+	{
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+		    && bean.isThreadAllocatedMemorySupported())
+		{
+			try
+			{
+				bean.setThreadAllocatedMemoryEnabled(true);
+				return bean;
+			}
+			catch (UnsupportedOperationException | SecurityException e)
+			{
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Indicates if allocations can be estimated
+	 * @return true if the JVM counts allocated bytes per thread
+	 */
+	public static boolean isAllocationSupported()
+	{
+		return allocations != null;
+	}
+
+	/**
+	 * Bytes allocated by the current thread
+	 * @return the bytes allocated by the current thread since its start or
+	 * 0 if allocations are not supported
+	 */
+	private static long allocatedBytes()
+	{
+		return allocations == null ? 0 : allocations.getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Parses a program while recording a {@link ParseEvent}
+	 * @param parser the parser to use
+	 * @param program the program to parse
+	 * @return the parsed statements
+	 * @throws ParserException if parsing fails
+	 * @see ExpressionParser#parse(CharSequence)
+	 */
+	public List<Expression<E>> parse(ExpressionParser<E> parser, CharSequence program)
+		throws ParserException
+	{
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		List<Expression<E>> statements = null;
+		try
+		{
+			statements = parser.parse(program);
+			return statements;
+		}
+		finally
+		{
+			event.end();
+			if (event.shouldCommit())
+			{
+				event.characters = program.length();
+				event.statements = statements == null ? -1 : statements.size();
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Evaluates a statement in a context while recording the profiles of
+	 * its nodes and an {@link EvaluateEvent}
+	 * @param expression the statement to evaluate
+	 * @param context the values of variables (assignments are written to
+	 * the context)
+	 * @return the value of the statement
+	 * @throws IllegalStateException if a value can't be evaluated in this
+	 * context
+	 * @throws ArithmeticException if an operation fails
+	 * @see Expression#value(EvaluationContext)
+	 */
+	public E evaluate(Expression<E> expression, EvaluationContext<E> context)
+		throws IllegalStateException, ArithmeticException
+	{
+		EvaluateEvent event = new EvaluateEvent();
+		event.begin();
+		nodes = 0;
+		boolean succeeded = false;
+		try
+		{
+			E value = evaluate(expression, context, null);
+			succeeded = true;
+			return value;
+		}
+		finally
+		{
+			event.end();
+			if (event.shouldCommit())
+			{
+				event.expression = expression.toString();
+				event.nodes = nodes;
+				event.succeeded = succeeded;
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Evaluates a node and records its profile (when it is a binary
+	 * expression) and sets {@link #lastNanos} and {@link #lastBytes}
+	 * @param expression the node to evaluate
+	 * @param context the values of variables
+	 * @param parent the profile of the parent node (or null for a statement)
+	 * @return the value of the node
+	 * @throws IllegalStateException if a value can't be evaluated in this
+	 * context
+	 * @throws ArithmeticException if an operation fails
+	 */
+	private E evaluate(Expression<E> expression, EvaluationContext<E> context, NodeProfile parent)
+		throws IllegalStateException, ArithmeticException
+	{
+		if (!(expression instanceof BinaryExpression<E> binary))
+		{
+			if (expression == null)
+			{
+				throw new IllegalStateException("Left or right expression is null");
+			}
+			lastNanos = 0;
+			lastBytes = 0;
+			return expression.value(context);
+		}
+		NodeProfile profile = profiles.get(binary);
+		if (profile == null)
+		{
+			String frame = binary.toString();
+			profile = new NodeProfile(parent == null ? frame : parent.path + ';' + frame);
+			profiles.put(binary, profile);
+			ordered.add(profile);
+		}
+		nodes++;
+		long startBytes = allocatedBytes();
+		long start = System.nanoTime();
+		long childrenNanos = 0;
+		long childrenBytes = 0;
+		E value;
+		if (binary instanceof AssignmentExpression<E>)
+		{
+			if (!(binary.getLeft() instanceof VariableExpression<E> variable))
+			{
+				throw new IllegalStateException("Assignment is incomplete");
+			}
+			value = evaluate(binary.getRight(), context, profile);
+			childrenNanos += lastNanos;
+			childrenBytes += lastBytes;
+			context.set(variable.getName(), value);
+		}
+		else
+		{
+			E leftValue = evaluate(binary.getLeft(), context, profile);
+			childrenNanos += lastNanos;
+			childrenBytes += lastBytes;
+			E rightValue = evaluate(binary.getRight(), context, profile);
+			childrenNanos += lastNanos;
+			childrenBytes += lastBytes;
+			value = binary.apply(leftValue, rightValue);
+		}
+		lastNanos = System.nanoTime() - start;
+		lastBytes = allocatedBytes() - startBytes;
+		profile.count++;
+		profile.totalNanos += lastNanos;
+		profile.selfNanos += Math.max(0, lastNanos - childrenNanos);
+		profile.totalBytes += lastBytes;
+		profile.selfBytes += Math.max(0, lastBytes - childrenBytes);
+		return value;
+	}
+
+	/**
+	 * Profiles of evaluated nodes
+	 * @return the profiles of the evaluated binary expressions in order of
+	 * first evaluation
+	 */
+	public List<NodeProfile> getProfiles()
+	{
+		return Collections.unmodifiableList(ordered);
+	}
+
+	/**
+	 * Discards all profiles
+	 */
+	public void reset()
+	{
+		profiles.clear();
+		ordered.clear();
+	}
+
+	/**
+	 * Writes profiles as folded stacks : one line per path with the frames
+	 * separated by ';' followed by a space and the value of the metric for
+	 * this path (profiles of nodes with the same path are merged and nodes
+	 * which were never successfully evaluated are skipped).
+	 * This is the input format of flame graph tools (such as
+	 * flamegraph.pl or speedscope) which sum the values of a frame's
+	 * descendants into its width.
+	 * @param writer the writer of the folded stacks (which is not closed)
+	 * @param metric the metric to write
+	 * @throws IOException if writing fails
+	 */
+	public void writeFoldedStacks(Writer writer, Metric metric) throws IOException
+	{
+		Map<String, Long> stacks = new LinkedHashMap<String, Long>();
+		for (NodeProfile profile : ordered)
+		{
+			if (profile.count == 0)
+			{
+				continue; // only failed evaluations
+			}
+			stacks.merge(profile.path, profile.get(metric), Long::sum);
+		}
+		for (Map.Entry<String, Long> stack : stacks.entrySet())
+		{
+			writer.write(stack.getKey());
+			writer.write(' ');
+			writer.write(Long.toString(stack.getValue()));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+}
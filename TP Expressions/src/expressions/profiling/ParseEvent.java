@@ -0,0 +1,30 @@
+package expressions.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded when a program is parsed by
+ * {@link ExpressionProfiler#parse(parser.ExpressionParser, CharSequence)}
+ */
+@Name("expressions.Parse")
+@Label("Parse")
+@Category("Expressions")
+@Description("Parsing of a program into expressions")
+public class ParseEvent extends Event
+{
+	/**
+	 * Number of parsed characters
+	 */
+	@Label("Characters")
+	int characters;
+
+	/**
+	 * Number of parsed statements (or -1 if parsing failed)
+	 */
+	@Label("Statements")
+	int statements;
+}
@@ -0,0 +1,6 @@
+/**
+ * Package containing opt-in instrumented evaluation of
+ * {@link expressions.Expression} trees : per node profiles exported as
+ * folded stacks and JFR events for parse and evaluate phases
+ */
+package expressions.profiling;
@@ -0,0 +1,442 @@
+package expressions.program;
+
+import java.util.Map;
+
+import expressions.Expression;
+import expressions.binary.BinaryOperatorRules;
+
+/**
+ * Evaluator of a single expression over columns of variables values
+ * (e.g. "y = a * x ^ 2 + b" for every row of a table).
+ * Instead of evaluating the whole expression once per row, each instruction
+ * of the expression's {@link Program} is applied to a whole block of rows
+ * with a simple counted loop (which the JIT can unroll and vectorize) so
+ * that the cost of dispatching instructions is paid once per block instead
+ * of once per row. Rows are processed by blocks of {@link #blockSize} rows
+ * so the operand stack of columns stays in cache.
+ * Instructions compute the same values as {@link StackMachine} : the four
+ * basic operations have dedicated loops and other operators apply their
+ * {@link BinaryOperatorRules} kernel to each row.
+ * Column evaluators are not thread safe : each thread should use its own
+ * evaluator.
+ * @param <E> The type of numbers in evaluated expressions
+ */
+public class ColumnEvaluator<E extends Number>
+{
+	/**
+	 * Default number of rows processed at once
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	/**
+	 * Builder used to lower expressions into programs
+	 */
+	private final ProgramBuilder<E> builder;
+
+	/**
+	 * Number of rows processed at once
+	 */
+	private final int blockSize;
+
+	/**
+	 * Operand stack of columns for integer programs
+	 */
+	private long[][] longStack;
+
+	/**
+	 * Operand stack of columns for floating point programs
+	 */
+	private double[][] doubleStack;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 */
+	public ColumnEvaluator(Number specimen) throws IllegalArgumentException
+	{
+		this(specimen, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Constructor with block size
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @param blockSize the number of rows processed at once
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double} or if block size is
+	 * not positive
+	 */
+	public ColumnEvaluator(Number specimen, int blockSize)
+		throws IllegalArgumentException
+	{
+		if (blockSize <= 0)
+		{
+			throw new IllegalArgumentException("Invalid block size : " + blockSize);
+		}
+		builder = new ProgramBuilder<E>(specimen);
+		this.blockSize = blockSize;
+		longStack = new long[0][];
+		doubleStack = new double[0][];
+	}
+
+	/**
+	 * Evaluate an expression for each row of columns
+	 * @param expression the expression to evaluate
+	 * @param columns the columns of values of each variable of the expression
+	 * by variable name
+	 * @param out the column receiving the value of the expression for each
+	 * row
+	 * @throws IllegalArgumentException if the expression can't be lowered
+	 * into a {@link Program}, if a variable's column is missing or shorter
+	 * than out
+	 * @see #evaluateColumns(Program, Map, double[])
+	 */
+	public void evaluateColumns(Expression<E> expression,
+	                            Map<String, double[]> columns,
+	                            double[] out)
+		throws IllegalArgumentException
+	{
+		evaluateColumns(builder.build(expression), columns, out);
+	}
+
+	/**
+	 * Evaluate a program for each row of columns
+	 * @param program the program to evaluate (whose number type should match
+	 * this evaluator's one)
+	 * @param columns the columns of values of each variable of the program by
+	 * variable name. Assignments store their values in the assigned variable's
+	 * column if there is one.
+	 * @param out the column receiving the value of the program for each row
+	 * @throws IllegalArgumentException if a variable's column is missing or
+	 * shorter than out
+	 * @throws ArithmeticException if an integer division by zero occurs
+	 */
+	public void evaluateColumns(Program program,
+	                            Map<String, double[]> columns,
+	                            double[] out)
+		throws IllegalArgumentException
+	{
+		int rows = out.length;
+		double[][] frame = new double[program.variables.length][];
+		for (int slot = 0; slot < frame.length; slot++)
+		{
+			frame[slot] = columns.get(program.variables[slot]);
+			if (frame[slot] == null && !isAssigned(program, slot))
+			{
+				throw new IllegalArgumentException("Missing column for variable "
+				    + program.variables[slot]);
+			}
+			if (frame[slot] != null && frame[slot].length < rows)
+			{
+				throw new IllegalArgumentException("Column " + program.variables[slot]
+				    + " is shorter than output column");
+			}
+		}
+		ensureCapacity(program);
+		for (int start = 0; start < rows; start += blockSize)
+		{
+			int length = Math.min(blockSize, rows - start);
+			if (program.isIntegral())
+			{
+				evaluateIntegralBlock(program, frame, out, start, length);
+			}
+			else
+			{
+				evaluateFloatingPointBlock(program,
+				                           frame,
+				                           out,
+				                           start,
+				                           length,
+				                           program.numberClass == Float.class);
+			}
+		}
+	}
+
+	/**
+	 * Indicate if a variable is assigned by a program
+	 * @param program the program to search
+	 * @param slot the slot of the variable
+	 * @return true if the program contains a {@link Opcodes#STORE} into this
+	 * slot
+	 */
+	private static boolean isAssigned(Program program, int slot)
+	{
+		byte[] code = program.code;
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			if (code[pc] == Opcodes.STORE && program.operand(pc) == slot)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Ensures the operand stacks of columns are large enough for a program
+	 * @param program the program to evaluate
+	 */
+	private void ensureCapacity(Program program)
+	{
+		if (program.isIntegral())
+		{
+			if (longStack.length < program.maxStack)
+			{
+				longStack = new long[program.maxStack][blockSize];
+			}
+		}
+		else if (doubleStack.length < program.maxStack)
+		{
+			doubleStack = new double[program.maxStack][blockSize];
+		}
+	}
+
+	/**
+	 * Evaluate an {@link Integer} program over a block of rows
+	 * @param program the program to evaluate
+	 * @param frame the columns of variables by slot
+	 * @param out the output column
+	 * @param start the first row of the block
+	 * @param length the number of rows in the block
+	 */
+	private void evaluateIntegralBlock(Program program,
+	                                   double[][] frame,
+	                                   double[] out,
+	                                   int start,
+	                                   int length)
+	{
+		final byte[] code = program.code;
+		int top = -1;
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			byte opcode = code[pc];
+			switch (opcode)
+			{
+				case Opcodes.PUSH:
+				{
+					long[] result = longStack[++top];
+					long constant = program.longConstants[program.operand(pc)];
+					for (int i = 0; i < length; i++)
+					{
+						result[i] = constant;
+					}
+					break;
+				}
+				case Opcodes.LOAD:
+				{
+					long[] result = longStack[++top];
+					double[] column = frame[program.operand(pc)];
+					for (int i = 0; i < length; i++)
+					{
+						result[i] = (int) column[start + i];
+					}
+					break;
+				}
+				case Opcodes.STORE:
+				{
+					long[] value = longStack[top];
+					double[] column = frame[program.operand(pc)];
+					if (column != null)
+					{
+						for (int i = 0; i < length; i++)
+						{
+							column[start + i] = value[i];
+						}
+					}
+					break;
+				}
+				default:
+				{
+					long[] right = longStack[top--];
+					long[] left = longStack[top];
+					applyIntegral(opcode, left, right, length);
+					break;
+				}
+			}
+		}
+		long[] result = longStack[top];
+		for (int i = 0; i < length; i++)
+		{
+			out[start + i] = result[i];
+		}
+	}
+
+	/**
+	 * Applies an integer arithmetic operation to a block of rows
+	 * @param opcode the arithmetic opcode
+	 * @param left the left operands column, which receives the results
+	 * @param right the right operands column
+	 * @param length the number of rows in the block
+	 */
+	private static void applyIntegral(byte opcode,
+	                                  long[] left,
+	                                  long[] right,
+	                                  int length)
+	{
+		switch (opcode)
+		{
+			case Opcodes.ADD:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] = (int) (left[i] + right[i]);
+				}
+				break;
+			case Opcodes.SUB:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] = (int) (left[i] - right[i]);
+				}
+				break;
+			case Opcodes.MUL:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] = (int) (left[i] * right[i]);
+				}
+				break;
+			case Opcodes.DIV:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] = (int) (left[i] / right[i]);
+				}
+				break;
+			default:
+			{
+				BinaryOperatorRules rules = StackMachine.operator(opcode);
+				for (int i = 0; i < length; i++)
+				{
+					left[i] = (int) rules.applyAsLong(left[i], right[i]);
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Evaluate a {@link Float} or {@link Double} program over a block of rows
+	 * @param program the program to evaluate
+	 * @param frame the columns of variables by slot
+	 * @param out the output column
+	 * @param start the first row of the block
+	 * @param length the number of rows in the block
+	 * @param roundToFloat true to round intermediate results to float
+	 */
+	private void evaluateFloatingPointBlock(Program program,
+	                                        double[][] frame,
+	                                        double[] out,
+	                                        int start,
+	                                        int length,
+	                                        boolean roundToFloat)
+	{
+		final byte[] code = program.code;
+		int top = -1;
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			byte opcode = code[pc];
+			switch (opcode)
+			{
+				case Opcodes.PUSH:
+				{
+					double[] result = doubleStack[++top];
+					double constant = program.doubleConstants[program.operand(pc)];
+					for (int i = 0; i < length; i++)
+					{
+						result[i] = constant;
+					}
+					break;
+				}
+				case Opcodes.LOAD:
+				{
+					double[] result = doubleStack[++top];
+					double[] column = frame[program.operand(pc)];
+					if (roundToFloat)
+					{
+						for (int i = 0; i < length; i++)
+						{
+							result[i] = (float) column[start + i];
+						}
+					}
+					else
+					{
+						System.arraycopy(column, start, result, 0, length);
+					}
+					break;
+				}
+				case Opcodes.STORE:
+				{
+					double[] column = frame[program.operand(pc)];
+					if (column != null)
+					{
+						System.arraycopy(doubleStack[top], 0, column, start, length);
+					}
+					break;
+				}
+				default:
+				{
+					double[] right = doubleStack[top--];
+					double[] left = doubleStack[top];
+					applyFloatingPoint(opcode, left, right, length);
+					if (roundToFloat)
+					{
+						for (int i = 0; i < length; i++)
+						{
+							left[i] = (float) left[i];
+						}
+					}
+					break;
+				}
+			}
+		}
+		System.arraycopy(doubleStack[top], 0, out, start, length);
+	}
+
+	/**
+	 * Applies a floating point arithmetic operation to a block of rows
+	 * @param opcode the arithmetic opcode
+	 * @param left the left operands column, which receives the results
+	 * @param right the right operands column
+	 * @param length the number of rows in the block
+	 */
+	private static void applyFloatingPoint(byte opcode,
+	                                       double[] left,
+	                                       double[] right,
+	                                       int length)
+	{
+		switch (opcode)
+		{
+			case Opcodes.ADD:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] += right[i];
+				}
+				break;
+			case Opcodes.SUB:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] -= right[i];
+				}
+				break;
+			case Opcodes.MUL:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] *= right[i];
+				}
+				break;
+			case Opcodes.DIV:
+				for (int i = 0; i < length; i++)
+				{
+					left[i] /= right[i];
+				}
+				break;
+			default:
+			{
+				BinaryOperatorRules rules = StackMachine.operator(opcode);
+				for (int i = 0; i < length; i++)
+				{
+					left[i] = rules.applyAsDouble(left[i], right[i]);
+				}
+				break;
+			}
+		}
+	}
+}
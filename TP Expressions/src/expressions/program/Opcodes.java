@@ -0,0 +1,196 @@
+package expressions.program;
+
+import expressions.binary.BinaryOperatorRules;
+
+/**
+ * Opcodes of {@link Program}s.
+ * Instructions are stored in postfix order : operands are pushed on the
+ * operand stack before the operators consuming them.
+ * Instructions with an operand ({@link #PUSH}, {@link #LOAD} and
+ * {@link #STORE}) are followed by an unsigned 16 bits big endian index.
+ * Arithmetic opcodes are derived from {@link BinaryOperatorRules} : each
+ * operator but the assignment gets the next opcode after {@link #STORE} in
+ * declaration order (so {@link #ADD} to {@link #POW} are the opcodes of
+ * the current operators) and its operation is the operator's kernel.
+ */
+public final class Opcodes
+{
+	/**
+	 * Push a constant from the constant pool : PUSH index
+	 */
+	public static final byte PUSH = 0;
+
+	/**
+	 * Push a variable from the frame : LOAD slot
+	 */
+	public static final byte LOAD = 1;
+
+	/**
+	 * Store the top of the stack into the frame (without popping it) :
+	 * STORE slot
+	 */
+	public static final byte STORE = 2;
+
+	/**
+	 * Pop two operands and push their sum
+	 */
+	public static final byte ADD = 3;
+
+	/**
+	 * Pop two operands and push their difference
+	 */
+	public static final byte SUB = 4;
+
+	/**
+	 * Pop two operands and push their product
+	 */
+	public static final byte MUL = 5;
+
+	/**
+	 * Pop two operands and push their quotient
+	 */
+	public static final byte DIV = 6;
+
+	/**
+	 * Pop two operands and push the first one raised to the power of the
+	 * second one
+	 */
+	public static final byte POW = 7;
+
+	/**
+	 * Maximum value of instructions operands
+	 */
+	public static final int MAX_OPERAND = 0xFFFF;
+
+	/**
+	 * Mnemonics of the opcodes which are not arithmetic opcodes
+	 */
+	private static final String[] MNEMONICS = new String[] {
+		"PUSH", "LOAD", "STORE"
+	};
+
+	/**
+	 * Arithmetic operators rules indexed by (opcode - {@link #ADD})
+	 */
+	private static final BinaryOperatorRules[] OPERATORS;
+
+	/**
+	 * Arithmetic opcodes indexed by operators rules ordinal (-1 for the
+	 * assignment)
+	 */
+	private static final byte[] OPCODES;
+
+	static
+	{
+		BinaryOperatorRules[] rules = BinaryOperatorRules.values();
+		OPERATORS = new BinaryOperatorRules[rules.length - 1];
+		OPCODES = new byte[rules.length];
+		int count = 0;
+		for (BinaryOperatorRules rule : rules)
+		{
+			if (rule == BinaryOperatorRules.ASSIGNMENT)
+			{
+				OPCODES[rule.ordinal()] = -1;
+				continue;
+			}
+			OPERATORS[count] = rule;
+			OPCODES[rule.ordinal()] = (byte) (ADD + count);
+			count++;
+		}
+	}
+
+	/**
+	 * Private constructor to prevent instanciation
+	 */
+	private Opcodes()
+	{
+	}
+
+	/**
+	 * Size of an instruction
+	 * @param opcode the opcode of the instruction
+	 * @return the number of bytes used by this instruction and its operand
+	 */
+	public static int size(byte opcode)
+	{
+		return opcode <= STORE ? 3 : 1;
+	}
+
+	/**
+	 * Indicates if an opcode is known
+	 * @param opcode the opcode
+	 * @return true if the opcode is {@link #PUSH}, {@link #LOAD},
+	 * {@link #STORE} or an arithmetic opcode
+	 */
+	public static boolean isValid(byte opcode)
+	{
+		return opcode >= 0 && opcode < ADD + OPERATORS.length;
+	}
+
+	/**
+	 * Indicates if an opcode is an arithmetic opcode
+	 * @param opcode the opcode
+	 * @return true if the opcode pops two operands and pushes the result of
+	 * a binary operator
+	 */
+	public static boolean isArithmetic(byte opcode)
+	{
+		return opcode >= ADD && opcode < ADD + OPERATORS.length;
+	}
+
+	/**
+	 * Mnemonic of an opcode
+	 * @param opcode the opcode
+	 * @return the mnemonic of this opcode (the first three letters of the
+	 * operator's name for arithmetic opcodes, e.g. "ADD" or "POW")
+	 * @throws IllegalArgumentException if the opcode is unknown
+	 */
+	public static String mnemonic(byte opcode) throws IllegalArgumentException
+	{
+		if (!isValid(opcode))
+		{
+			throw new IllegalArgumentException("Unknown opcode : " + opcode);
+		}
+		if (opcode < ADD)
+		{
+			return MNEMONICS[opcode];
+		}
+		return OPERATORS[opcode - ADD].name().substring(0, 3);
+	}
+
+	/**
+	 * Opcode of a binary operator
+	 * @param rules the binary operator rules
+	 * @return the opcode of the corresponding operation
+	 * @throws IllegalArgumentException if the operator is not an arithmetic
+	 * operator (e.g. assignment)
+	 */
+	public static byte of(BinaryOperatorRules rules) throws IllegalArgumentException
+	{
+		byte opcode = OPCODES[rules.ordinal()];
+		if (opcode < 0)
+		{
+			throw new IllegalArgumentException("Not an arithmetic operator : "
+			    + rules.name());
+		}
+		return opcode;
+	}
+
+	/**
+	 * Binary operator of an arithmetic opcode
+	 * @param opcode the arithmetic opcode
+	 * @return the rules of the corresponding binary operator
+	 * @throws IllegalArgumentException if the opcode is not an arithmetic
+	 * opcode
+	 */
+	public static BinaryOperatorRules rulesOf(byte opcode)
+		throws IllegalArgumentException
+	{
+		if (!isArithmetic(opcode))
+		{
+			throw new IllegalArgumentException("Not an arithmetic opcode : "
+			    + opcode);
+		}
+		return OPERATORS[opcode - ADD];
+	}
+}
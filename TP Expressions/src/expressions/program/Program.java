@@ -0,0 +1,410 @@
+package expressions.program;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+import expressions.Expression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Immutable flattened representation of an {@link Expression} tree.
+ * A program is composed of
+ * <ul>
+ * <li>a postfix sequence of instructions (see {@link Opcodes})</li>
+ * <li>a constant pool : {@link #longConstants} for {@link Integer} programs
+ * and {@link #doubleConstants} for {@link Float} and {@link Double}
+ * programs</li>
+ * <li>a variables table giving the name of each slot of the frames used to
+ * evaluate the program</li>
+ * </ul>
+ * Programs are built with {@link ProgramBuilder} and evaluated with a
+ * {@link StackMachine}. Since programs don't hold any value they can be
+ * shared between threads.
+ */
+public final class Program
+{
+	/**
+	 * The type of numbers in this program
+	 */
+	final Class<? extends Number> numberClass;
+
+	/**
+	 * Postfix instructions
+	 */
+	final byte[] code;
+
+	/**
+	 * Constant pool of {@link Integer} programs
+	 */
+	final long[] longConstants;
+
+	/**
+	 * Constant pool of {@link Float} and {@link Double} programs
+	 */
+	final double[] doubleConstants;
+
+	/**
+	 * Names of the variables indexed by slot
+	 */
+	final String[] variables;
+
+	/**
+	 * Maximum depth of the operand stack needed to evaluate this program
+	 */
+	final int maxStack;
+
+	/**
+	 * Constructor (to be used by {@link ProgramBuilder})
+	 * @param numberClass the type of numbers in this program
+	 * @param code the postfix instructions
+	 * @param longConstants the constant pool of integer programs
+	 * @param doubleConstants the constant pool of floating point programs
+	 * @param variables the names of the variables indexed by slot
+	 * @param maxStack the maximum depth of the operand stack
+	 */
+	Program(Class<? extends Number> numberClass,
+	        byte[] code,
+	        long[] longConstants,
+	        double[] doubleConstants,
+	        String[] variables,
+	        int maxStack)
+	{
+		this.numberClass = numberClass;
+		this.code = code;
+		this.longConstants = longConstants;
+		this.doubleConstants = doubleConstants;
+		this.variables = variables;
+		this.maxStack = maxStack;
+	}
+
+	/**
+	 * Number type accessor
+	 * @return the type of numbers in this program
+	 */
+	public Class<? extends Number> getNumberClass()
+	{
+		return numberClass;
+	}
+
+	/**
+	 * Indicate if this program uses integer arithmetic
+	 * @return true if this program uses integer arithmetic and its constant
+	 * pool is {@link #longConstants}
+	 */
+	public boolean isIntegral()
+	{
+		return numberClass == Integer.class;
+	}
+
+	/**
+	 * Instructions accessor
+	 * @return a copy of the postfix instructions of this program
+	 */
+	public byte[] getCode()
+	{
+		return code.clone();
+	}
+
+	/**
+	 * Maximum operand stack depth accessor
+	 * @return the maximum depth of the operand stack needed to evaluate this
+	 * program
+	 */
+	public int getMaxStack()
+	{
+		return maxStack;
+	}
+
+	/**
+	 * Number of variables (and hence of slots) used by this program
+	 * @return the minimum length of the frames used to evaluate this program
+	 */
+	public int getVariablesCount()
+	{
+		return variables.length;
+	}
+
+	/**
+	 * Names of the variables used in this program
+	 * @return a copy of the variables names indexed by slot
+	 */
+	public String[] getVariables()
+	{
+		return variables.clone();
+	}
+
+	/**
+	 * Slot of a variable in evaluation frames
+	 * @param name the name of the variable to search
+	 * @return the index of the variable in frames or -1 if this program
+	 * does not use such a variable
+	 */
+	public int slotOf(String name)
+	{
+		for (int i = 0; i < variables.length; i++)
+		{
+			if (variables[i].equals(name))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Names of the variables assigned by this program
+	 * @return a new array of the names of the variables stored by
+	 * {@link Opcodes#STORE} instructions (each name once, in order of first
+	 * assignment)
+	 */
+	public String[] getAssignedVariables()
+	{
+		List<String> assigned = new ArrayList<String>();
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			if (code[pc] == Opcodes.STORE)
+			{
+				String name = variables[operand(pc)];
+				if (!assigned.contains(name))
+				{
+					assigned.add(name);
+				}
+			}
+		}
+		return assigned.toArray(new String[assigned.size()]);
+	}
+
+	/**
+	 * Names of the variables read by this program before it assigns them
+	 * @return a new array of the names of the variables loaded by
+	 * {@link Opcodes#LOAD} instructions before any {@link Opcodes#STORE}
+	 * into them (each name once, in order of first load) : the slots of
+	 * these variables must be set in frames before evaluating this program
+	 */
+	public String[] getInputVariables()
+	{
+		List<String> inputs = new ArrayList<String>();
+		List<String> assigned = new ArrayList<String>();
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			if (code[pc] == Opcodes.LOAD)
+			{
+				String name = variables[operand(pc)];
+				if (!assigned.contains(name) && !inputs.contains(name))
+				{
+					inputs.add(name);
+				}
+			}
+			else if (code[pc] == Opcodes.STORE)
+			{
+				assigned.add(variables[operand(pc)]);
+			}
+		}
+		return inputs.toArray(new String[inputs.size()]);
+	}
+
+	/**
+	 * Creates a new frame suitable to evaluate this program
+	 * @return a new array of {@link #getVariablesCount()} zeros
+	 */
+	public double[] newFrame()
+	{
+		return new double[variables.length];
+	}
+
+	/**
+	 * Rebuilds an {@link Expression} tree from this program
+	 * @param <E> the type of numbers in the expression, which must match
+	 * {@link #getNumberClass()}
+	 * @return a new expression tree equivalent to this program (variables
+	 * don't have values)
+	 * @throws UnsupportedOperationException if one of the operators of this
+	 * program has no corresponding {@link BinaryExpression} class
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends Number> Expression<E> toExpression()
+		throws UnsupportedOperationException
+	{
+		Deque<Expression<E>> stack = new ArrayDeque<Expression<E>>(maxStack);
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			byte opcode = code[pc];
+			switch (opcode)
+			{
+				case Opcodes.PUSH:
+					stack.push(new ConstantExpression<E>((E) constant(operand(pc))));
+					break;
+				case Opcodes.LOAD:
+					stack.push(new VariableExpression<E>(variables[operand(pc)]));
+					break;
+				case Opcodes.STORE:
+				{
+					VariableExpression<E> variable =
+					    new VariableExpression<E>(variables[operand(pc)]);
+					stack.push(new AssignmentExpression<E>(variable, stack.pop()));
+					break;
+				}
+				default:
+				{
+					Expression<E> right = stack.pop();
+					Expression<E> left = stack.pop();
+					BinaryExpression<E> binop =
+					    Opcodes.rulesOf(opcode).<E>newExpression();
+					binop.setTrusted(true); // operands are built first
+					binop.setLeft(left);
+					binop.setRight(right);
+					binop.setTrusted(false);
+					stack.push(binop);
+					break;
+				}
+			}
+		}
+		return stack.pop();
+	}
+
+	/**
+	 * Human readable listing of this program's instructions
+	 * @return one line per instruction with its offset, mnemonic and operand
+	 */
+	public String disassemble()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			byte opcode = code[pc];
+			sb.append(pc);
+			sb.append('\t');
+			sb.append(Opcodes.mnemonic(opcode));
+			switch (opcode)
+			{
+				case Opcodes.PUSH:
+					sb.append(' ');
+					sb.append(constant(operand(pc)));
+					break;
+				case Opcodes.LOAD:
+				case Opcodes.STORE:
+					sb.append(' ');
+					sb.append(variables[operand(pc)]);
+					break;
+				default:
+					break;
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * String representation of this program
+	 * @return the string representation of the equivalent expression, or an
+	 * infix rendering of the instructions (with parentheses where needed)
+	 * when one of the operators has no {@link BinaryExpression} class
+	 * @see #toExpression()
+	 */
+	@Override
+	public String toString()
+	{
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			if (Opcodes.isArithmetic(code[pc])
+			    && !Opcodes.rulesOf(code[pc]).hasExpression())
+			{
+				return toInfix();
+			}
+		}
+		return toExpression().toString();
+	}
+
+	/**
+	 * Infix rendering of the instructions which doesn't need expression
+	 * classes
+	 * @return the infix representation of this program with parentheses
+	 * around operands which would otherwise be applied in another order
+	 */
+	private String toInfix()
+	{
+		Deque<String> strings = new ArrayDeque<String>(maxStack);
+		// Operator of each string on the stack (null for terminals)
+		Deque<Optional<BinaryOperatorRules>> operators =
+		    new ArrayDeque<Optional<BinaryOperatorRules>>(maxStack);
+		for (int pc = 0; pc < code.length; pc += Opcodes.size(code[pc]))
+		{
+			byte opcode = code[pc];
+			switch (opcode)
+			{
+				case Opcodes.PUSH:
+					strings.push(String.valueOf(constant(operand(pc))));
+					operators.push(Optional.empty());
+					break;
+				case Opcodes.LOAD:
+					strings.push(variables[operand(pc)]);
+					operators.push(Optional.empty());
+					break;
+				case Opcodes.STORE:
+					operators.pop();
+					strings.push(variables[operand(pc)] + " "
+					    + BinaryOperatorRules.ASSIGNMENT + " " + strings.pop());
+					operators.push(Optional.of(BinaryOperatorRules.ASSIGNMENT));
+					break;
+				default:
+				{
+					BinaryOperatorRules rules = Opcodes.rulesOf(opcode);
+					String right = strings.pop();
+					Optional<BinaryOperatorRules> rightRules = operators.pop();
+					String left = strings.pop();
+					Optional<BinaryOperatorRules> leftRules = operators.pop();
+					if (leftRules.isPresent() && !rules.isPrecededBy(leftRules.get()))
+					{
+						left = "(" + left + ")";
+					}
+					if (rightRules.isPresent() && rightRules.get().isPrecededBy(rules))
+					{
+						right = "(" + right + ")";
+					}
+					strings.push(left + " " + rules + " " + right);
+					operators.push(Optional.of(rules));
+					break;
+				}
+			}
+		}
+		return strings.pop();
+	}
+
+	/**
+	 * Operand of an instruction
+	 * @param pc the offset of the instruction
+	 * @return the unsigned 16 bits operand following the opcode
+	 */
+	int operand(int pc)
+	{
+		return ((code[pc + 1] & 0xFF) << 8) | (code[pc + 2] & 0xFF);
+	}
+
+	/**
+	 * Boxed constant from the constant pool
+	 * @param index the index of the constant
+	 * @return the constant as an instance of {@link #numberClass}
+	 */
+	private Number constant(int index)
+	{
+		if (numberClass == Integer.class)
+		{
+			return Integer.valueOf((int) longConstants[index]);
+		}
+		else if (numberClass == Float.class)
+		{
+			return Float.valueOf((float) doubleConstants[index]);
+		}
+		else
+		{
+			return Double.valueOf(doubleConstants[index]);
+		}
+	}
+}
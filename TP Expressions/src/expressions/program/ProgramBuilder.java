@@ -0,0 +1,371 @@
+package expressions.program;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressions.Expression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.SymbolTable;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Builder lowering {@link Expression} trees into {@link Program}s.
+ * Variables values held by the trees are ignored : variables are read from
+ * the frames provided when evaluating the programs.
+ * @param <E> The type of numbers in lowered expressions
+ */
+public class ProgramBuilder<E extends Number>
+{
+	/**
+	 * The type of numbers in lowered expressions
+	 */
+	private final Class<? extends Number> numberClass;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 * @apiNote Caution : the specimen's class must match the type parameter
+	 * E of this builder (just like {@link parser.ExpressionParser}).
+	 */
+	public ProgramBuilder(Number specimen) throws IllegalArgumentException
+	{
+		numberClass = specimen.getClass();
+		if (numberClass != Integer.class
+		    && numberClass != Float.class
+		    && numberClass != Double.class)
+		{
+			throw new IllegalArgumentException("Unsupported Number Class : "
+			    + numberClass.getSimpleName());
+		}
+	}
+
+	/**
+	 * Lowers a single expression
+	 * @param expression the expression to lower
+	 * @return a new program whose variables slots are numbered in order of
+	 * first occurrence in the expression
+	 * @throws IllegalArgumentException if the expression is null, incomplete
+	 * (missing operands), contains unsupported kinds of expressions or is too
+	 * large
+	 */
+	public Program build(Expression<E> expression) throws IllegalArgumentException
+	{
+		return build(expression, new LinkedHashMap<String, Integer>());
+	}
+
+	/**
+	 * Lowers multiple expressions (typically the statements of a program)
+	 * sharing the same variables slots so a single frame can be used to
+	 * evaluate all of them in sequence.
+	 * @param expressions the expressions to lower
+	 * @return a list of programs (in the same order as the provided
+	 * expressions) sharing the same variables slots
+	 * @throws IllegalArgumentException if one of the expressions can't be
+	 * lowered
+	 */
+	public List<Program> build(List<Expression<E>> expressions)
+		throws IllegalArgumentException
+	{
+		return build(expressions, new LinkedHashMap<String, Integer>());
+	}
+
+	/**
+	 * Lowers multiple expressions whose variables slots are the slots of a
+	 * symbol table so that frames created by the table can be used to
+	 * evaluate the programs (and loaded from or stored to the table's
+	 * variables).
+	 * Variables of the expressions missing from the table are added to it.
+	 * @param expressions the expressions to lower (typically parsed with
+	 * {@link parser.ExpressionParser#parse(CharSequence, SymbolTable)})
+	 * @param symbols the symbol table providing the variables slots
+	 * @return a list of programs (in the same order as the provided
+	 * expressions) whose variables slots are the table's slots
+	 * @throws IllegalArgumentException if one of the expressions can't be
+	 * lowered
+	 */
+	public List<Program> build(List<Expression<E>> expressions,
+	                           SymbolTable<E> symbols)
+		throws IllegalArgumentException
+	{
+		Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+		for (String name : symbols.getNames())
+		{
+			slots.put(name, slots.size());
+		}
+		List<Program> programs = build(expressions, slots);
+		// New variables are appended to both in the same order
+		for (String name : slots.keySet())
+		{
+			symbols.variable(name);
+		}
+		return programs;
+	}
+
+	/**
+	 * Lowers multiple expressions using (and completing) variables slots
+	 * @param expressions the expressions to lower
+	 * @param slots the variables slots by name
+	 * @return a list of programs (in the same order as the provided
+	 * expressions) sharing the same variables slots
+	 * @throws IllegalArgumentException if one of the expressions can't be
+	 * lowered
+	 */
+	private List<Program> build(List<Expression<E>> expressions,
+	                            Map<String, Integer> slots)
+		throws IllegalArgumentException
+	{
+		for (Expression<E> expression : expressions)
+		{
+			collectVariables(expression, slots);
+		}
+		List<Program> programs = new ArrayList<Program>(expressions.size());
+		for (Expression<E> expression : expressions)
+		{
+			programs.add(build(expression, slots));
+		}
+		return programs;
+	}
+
+	/**
+	 * Lowers a single expression using (and completing) variables slots
+	 * @param expression the expression to lower
+	 * @param slots the variables slots by name
+	 * @return a new program
+	 * @throws IllegalArgumentException if the expression can't be lowered
+	 */
+	private Program build(Expression<E> expression, Map<String, Integer> slots)
+		throws IllegalArgumentException
+	{
+		if (expression == null)
+		{
+			throw new IllegalArgumentException("Can't lower null expression");
+		}
+		collectVariables(expression, slots);
+		if (slots.size() > Opcodes.MAX_OPERAND + 1)
+		{
+			throw new IllegalArgumentException("Too many variables");
+		}
+		Emitter emitter = new Emitter(slots);
+		emitter.emit(expression);
+		String[] variables = slots.keySet().toArray(new String[slots.size()]);
+		return emitter.toProgram(variables);
+	}
+
+	/**
+	 * Assign a slot to each variable of an expression which doesn't have one
+	 * yet
+	 * @param expression the expression to explore
+	 * @param slots the variables slots to complete
+	 */
+	private static <E extends Number> void
+	    collectVariables(Expression<E> expression, Map<String, Integer> slots)
+	{
+		if (expression instanceof VariableExpression<?>)
+		{
+			String name = ((VariableExpression<E>) expression).getName();
+			if (!slots.containsKey(name))
+			{
+				slots.put(name, slots.size());
+			}
+		}
+		else if (expression instanceof BinaryExpression<?>)
+		{
+			BinaryExpression<E> binop = (BinaryExpression<E>) expression;
+			collectVariables(binop.getLeft(), slots);
+			collectVariables(binop.getRight(), slots);
+		}
+	}
+
+	/**
+	 * Postfix instructions emitter keeping track of the constant pool and of
+	 * the operand stack depth
+	 */
+	private class Emitter
+	{
+		/**
+		 * The variables slots by name
+		 */
+		private final Map<String, Integer> slots;
+
+		/**
+		 * The emitted instructions
+		 */
+		private final ByteArrayOutputStream code;
+
+		/**
+		 * Index of constants in the constant pool by their bits
+		 */
+		private final Map<Long, Integer> constantIndexes;
+
+		/**
+		 * Constant pool (as raw bits for floating point programs)
+		 */
+		private long[] constants;
+
+		/**
+		 * Current operand stack depth
+		 */
+		private int stack;
+
+		/**
+		 * Maximum operand stack depth
+		 */
+		private int maxStack;
+
+		/**
+		 * Constructor
+		 * @param slots the variables slots by name
+		 */
+		Emitter(Map<String, Integer> slots)
+		{
+			this.slots = slots;
+			code = new ByteArrayOutputStream();
+			constantIndexes = new HashMap<Long, Integer>();
+			constants = new long[8];
+			stack = 0;
+			maxStack = 0;
+		}
+
+		/**
+		 * Emit the instructions evaluating an expression
+		 * @param expression the expression to emit
+		 * @throws IllegalArgumentException if the expression can't be lowered
+		 */
+		void emit(Expression<E> expression) throws IllegalArgumentException
+		{
+			if (expression == null)
+			{
+				throw new IllegalArgumentException("Can't lower incomplete expression");
+			}
+			if (expression instanceof ConstantExpression<?>)
+			{
+				write(Opcodes.PUSH, constant(expression.value()));
+				push();
+			}
+			else if (expression instanceof VariableExpression<?>)
+			{
+				String name = ((VariableExpression<E>) expression).getName();
+				write(Opcodes.LOAD, slots.get(name));
+				push();
+			}
+			else if (expression instanceof AssignmentExpression<?>)
+			{
+				AssignmentExpression<E> assignment =
+				    (AssignmentExpression<E>) expression;
+				if (!(assignment.getLeft() instanceof VariableExpression<?>))
+				{
+					throw new IllegalArgumentException("Can't lower incomplete expression");
+				}
+				String name =
+				    ((VariableExpression<E>) assignment.getLeft()).getName();
+				emit(assignment.getRight());
+				write(Opcodes.STORE, slots.get(name));
+			}
+			else if (expression instanceof BinaryExpression<?>)
+			{
+				BinaryExpression<E> binop = (BinaryExpression<E>) expression;
+				emit(binop.getLeft());
+				emit(binop.getRight());
+				code.write(Opcodes.of(binop.getRules()));
+				stack--;
+			}
+			else
+			{
+				throw new IllegalArgumentException("Unsupported expression type : "
+				    + expression.getClass().getSimpleName());
+			}
+		}
+
+		/**
+		 * Index of a constant in the constant pool (added if needed)
+		 * @param value the value of the constant
+		 * @return the index of the constant in the constant pool
+		 * @throws IllegalArgumentException if the constant pool is full
+		 */
+		private int constant(Number value) throws IllegalArgumentException
+		{
+			long bits = numberClass == Integer.class
+			    ? value.longValue()
+			    : Double.doubleToRawLongBits(value.doubleValue());
+			Integer index = constantIndexes.get(bits);
+			if (index == null)
+			{
+				index = constantIndexes.size();
+				if (index > Opcodes.MAX_OPERAND)
+				{
+					throw new IllegalArgumentException("Too many constants");
+				}
+				if (index == constants.length)
+				{
+					constants = Arrays.copyOf(constants, 2 * constants.length);
+				}
+				constants[index] = bits;
+				constantIndexes.put(bits, index);
+			}
+			return index;
+		}
+
+		/**
+		 * Writes an instruction with an operand
+		 * @param opcode the opcode of the instruction
+		 * @param operand the unsigned 16 bits operand
+		 */
+		private void write(byte opcode, int operand)
+		{
+			code.write(opcode);
+			code.write((operand >> 8) & 0xFF);
+			code.write(operand & 0xFF);
+		}
+
+		/**
+		 * Account for a value pushed on the operand stack
+		 */
+		private void push()
+		{
+			stack++;
+			if (stack > maxStack)
+			{
+				maxStack = stack;
+			}
+		}
+
+		/**
+		 * Assemble the program
+		 * @param variables the names of the variables indexed by slot
+		 * @return a new program
+		 */
+		Program toProgram(String[] variables)
+		{
+			int count = constantIndexes.size();
+			long[] longConstants = new long[0];
+			double[] doubleConstants = new double[0];
+			if (numberClass == Integer.class)
+			{
+				longConstants = Arrays.copyOf(constants, count);
+			}
+			else
+			{
+				doubleConstants = new double[count];
+				for (int i = 0; i < count; i++)
+				{
+					doubleConstants[i] = Double.longBitsToDouble(constants[i]);
+				}
+			}
+			return new Program(numberClass,
+			                   code.toByteArray(),
+			                   longConstants,
+			                   doubleConstants,
+			                   variables,
+			                   maxStack);
+		}
+	}
+}
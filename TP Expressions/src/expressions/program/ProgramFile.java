@@ -0,0 +1,365 @@
+package expressions.program;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader of {@link Program}s written by {@link ProgramWriter} working in
+ * place over a (typically memory-mapped) {@link ByteBuffer} : opening a file
+ * only reads its header and symbol table, each program is decoded only when
+ * it is requested with {@link #get(int)}, so a file of a million programs
+ * can be opened without creating a million programs.
+ * <p>
+ * The big endian format (version {@value #VERSION}) is
+ * <pre>
+ * int    magic ("EXPR")
+ * short  version
+ * byte   number type (0 : Integer, 1 : Float, 2 : Double)
+ * byte   reserved (0)
+ * int    symbols count
+ * symbols : short UTF-8 length, UTF-8 bytes of the variable name
+ * int    programs count
+ * int    offset of each program record from the start of the file
+ * program records :
+ *   int  max stack
+ *   int  variables count, int symbol index of each variable slot
+ *   int  constants count, long value (or double bits) of each constant
+ *   int  code length, code bytes (see {@link Opcodes})
+ * </pre>
+ * Reading concurrently from several threads is safe since only absolute
+ * reads are used. Records are verified when they are decoded so that a
+ * corrupted file can't produce a program reading outside of its constant
+ * pool, its frame or its operand stack.
+ * @see ProgramWriter
+ */
+public class ProgramFile
+{
+	/**
+	 * Magic number of program files ("EXPR")
+	 */
+	static final int MAGIC = 0x45585052;
+
+	/**
+	 * Version of the format
+	 */
+	static final short VERSION = 1;
+
+	/**
+	 * Size of the header preceding the symbol table
+	 */
+	static final int HEADER_SIZE = 8;
+
+	/**
+	 * Number classes indexed by their type in the header
+	 */
+	private static final Class<?>[] NUMBER_CLASSES = {
+		Integer.class, Float.class, Double.class
+	};
+
+	/**
+	 * The bytes of the file
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * The type of numbers in the programs of this file
+	 */
+	private final Class<? extends Number> numberClass;
+
+	/**
+	 * Names of variables shared by all the programs of this file
+	 */
+	private final String[] symbols;
+
+	/**
+	 * Number of programs in this file
+	 */
+	private final int count;
+
+	/**
+	 * Position of the offsets of program records
+	 */
+	private final int offsets;
+
+	/**
+	 * Constructor reading the header and symbol table of a program file
+	 * @param buffer the bytes of the file (from index 0 to its limit, which
+	 * are not modified). They are read in big endian order whatever the
+	 * order of this buffer.
+	 * @throws IllegalArgumentException if the bytes are not a program file
+	 * with a supported version
+	 */
+	@SuppressWarnings("unchecked")
+	public ProgramFile(ByteBuffer buffer) throws IllegalArgumentException
+	{
+		this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		try
+		{
+			if (this.buffer.getInt(0) != MAGIC)
+			{
+				throw new IllegalArgumentException("Not a program file");
+			}
+			short version = this.buffer.getShort(4);
+			if (version != VERSION)
+			{
+				throw new IllegalArgumentException("Unsupported version : " + version);
+			}
+			int type = this.buffer.get(6);
+			if (type < 0 || type >= NUMBER_CLASSES.length)
+			{
+				throw new IllegalArgumentException("Unknown number type : " + type);
+			}
+			numberClass = (Class<? extends Number>) NUMBER_CLASSES[type];
+			int symbolsCount = this.buffer.getInt(HEADER_SIZE);
+			if (symbolsCount < 0 || symbolsCount > (this.buffer.limit() - HEADER_SIZE - 4) / 2)
+			{
+				throw new IllegalArgumentException("Truncated program file");
+			}
+			symbols = new String[symbolsCount];
+			int position = HEADER_SIZE + 4;
+			for (int i = 0; i < symbols.length; i++)
+			{
+				byte[] name = new byte[this.buffer.getShort(position) & 0xFFFF];
+				this.buffer.get(position + 2, name);
+				symbols[i] = new String(name, StandardCharsets.UTF_8);
+				position += 2 + name.length;
+			}
+			count = this.buffer.getInt(position);
+			offsets = position + 4;
+			if (count < 0 || (long) offsets + (4L * count) > this.buffer.limit())
+			{
+				throw new IllegalArgumentException("Truncated program file");
+			}
+		}
+		catch (IndexOutOfBoundsException | NegativeArraySizeException e)
+		{
+			throw new IllegalArgumentException("Truncated program file", e);
+		}
+	}
+
+	/**
+	 * Opens a program file by mapping it in memory
+	 * @param file the path of the file
+	 * @return the program file reading the mapped file
+	 * @throws IOException if the file can't be opened or mapped
+	 * @throws IllegalArgumentException if the file is not a program file with
+	 * a supported version
+	 */
+	public static ProgramFile open(Path file) throws IOException, IllegalArgumentException
+	{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			// The mapping stays valid once the channel is closed
+			return new ProgramFile(channel.map(FileChannel.MapMode.READ_ONLY,
+			                                   0,
+			                                   channel.size()));
+		}
+	}
+
+	/**
+	 * Type of a number class in the header
+	 * @param numberClass the number class
+	 * @return the type of this number class or -1 if it is not supported
+	 */
+	static int typeOf(Class<?> numberClass)
+	{
+		for (int type = 0; type < NUMBER_CLASSES.length; type++)
+		{
+			if (NUMBER_CLASSES[type] == numberClass)
+			{
+				return type;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Number type accessor
+	 * @return the type of numbers in the programs of this file
+	 */
+	public Class<? extends Number> getNumberClass()
+	{
+		return numberClass;
+	}
+
+	/**
+	 * Number of programs
+	 * @return the number of programs in this file
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Names of variables
+	 * @return a copy of the names of the variables of all programs
+	 */
+	public String[] getSymbols()
+	{
+		return symbols.clone();
+	}
+
+	/**
+	 * Decodes a program
+	 * @param index the index of the program in this file
+	 * @return a new program decoded from its record
+	 * @throws IndexOutOfBoundsException if index is invalid
+	 * @throws IllegalArgumentException if the record is corrupted
+	 */
+	public Program get(int index) throws IndexOutOfBoundsException, IllegalArgumentException
+	{
+		if (index < 0 || index >= count)
+		{
+			throw new IndexOutOfBoundsException("Invalid program index " + index
+			    + " for " + count + " programs");
+		}
+		try
+		{
+			int position = buffer.getInt(offsets + (4 * index));
+			int maxStack = buffer.getInt(position);
+			int variablesCount = buffer.getInt(position + 4);
+			if (maxStack < 1 || variablesCount < 0 || variablesCount > Opcodes.MAX_OPERAND + 1)
+			{
+				throw new IllegalArgumentException("Corrupted program " + index
+				    + " : max stack " + maxStack + ", " + variablesCount + " variables");
+			}
+			String[] variables = new String[variablesCount];
+			position += 8;
+			for (int i = 0; i < variables.length; i++)
+			{
+				int symbol = buffer.getInt(position);
+				if (symbol < 0 || symbol >= symbols.length)
+				{
+					throw new IllegalArgumentException("Corrupted program " + index
+					    + " : unknown symbol " + symbol);
+				}
+				variables[i] = symbols[symbol];
+				position += 4;
+			}
+			int constants = buffer.getInt(position);
+			if (constants < 0 || constants > Opcodes.MAX_OPERAND + 1)
+			{
+				throw new IllegalArgumentException("Corrupted program " + index
+				    + " : " + constants + " constants");
+			}
+			position += 4;
+			long[] longConstants = new long[numberClass == Integer.class ? constants : 0];
+			double[] doubleConstants = new double[numberClass == Integer.class ? 0 : constants];
+			for (int i = 0; i < constants; i++)
+			{
+				long bits = buffer.getLong(position);
+				if (longConstants.length > 0)
+				{
+					longConstants[i] = bits;
+				}
+				else
+				{
+					doubleConstants[i] = Double.longBitsToDouble(bits);
+				}
+				position += 8;
+			}
+			int codeLength = buffer.getInt(position);
+			if (codeLength < 0 || codeLength > buffer.limit() - position - 4)
+			{
+				throw new IllegalArgumentException("Corrupted program " + index
+				    + " : code length " + codeLength);
+			}
+			byte[] code = new byte[codeLength];
+			buffer.get(position + 4, code);
+			verify(index, code, constants, variables.length, maxStack);
+			return new Program(numberClass,
+			                   code,
+			                   longConstants,
+			                   doubleConstants,
+			                   variables,
+			                   maxStack);
+		}
+		catch (IndexOutOfBoundsException | NegativeArraySizeException e)
+		{
+			throw new IllegalArgumentException("Corrupted program " + index, e);
+		}
+	}
+
+	/**
+	 * Verifies the instructions of a program record : opcodes must be known,
+	 * operands must index the constant pool or the frame, and the operand
+	 * stack must neither underflow nor exceed the max stack of the record
+	 * and must hold a single value at the end
+	 * @param index the index of the program in this file
+	 * @param code the instructions of the program
+	 * @param constants the size of the constant pool
+	 * @param slots the number of variable slots
+	 * @param maxStack the max stack of the record
+	 * @throws IllegalArgumentException if the instructions are invalid
+	 */
+	private static void verify(int index, byte[] code, int constants, int slots, int maxStack)
+		throws IllegalArgumentException
+	{
+		if (maxStack > code.length)
+		{
+			throw new IllegalArgumentException("Corrupted program " + index
+			    + " : max stack " + maxStack + " for " + code.length + " bytes of code");
+		}
+		int depth = 0;
+		int pc = 0;
+		while (pc < code.length)
+		{
+			byte opcode = code[pc];
+			if (!Opcodes.isValid(opcode))
+			{
+				throw new IllegalArgumentException("Corrupted program " + index
+				    + " : unknown opcode " + opcode + " at " + pc);
+			}
+			if (pc + Opcodes.size(opcode) > code.length)
+			{
+				throw new IllegalArgumentException("Corrupted program " + index
+				    + " : truncated instruction at " + pc);
+			}
+			if (Opcodes.isArithmetic(opcode))
+			{
+				if (depth < 2)
+				{
+					throw new IllegalArgumentException("Corrupted program " + index
+					    + " : stack underflow at " + pc);
+				}
+				depth--;
+			}
+			else
+			{
+				int operand = ((code[pc + 1] & 0xFF) << 8) | (code[pc + 2] & 0xFF);
+				int bound = opcode == Opcodes.PUSH ? constants : slots;
+				if (operand >= bound)
+				{
+					throw new IllegalArgumentException("Corrupted program " + index
+					    + " : invalid " + Opcodes.mnemonic(opcode) + " operand " + operand
+					    + " at " + pc);
+				}
+				if (opcode == Opcodes.STORE)
+				{
+					if (depth < 1)
+					{
+						throw new IllegalArgumentException("Corrupted program " + index
+						    + " : stack underflow at " + pc);
+					}
+				}
+				else if (++depth > maxStack)
+				{
+					throw new IllegalArgumentException("Corrupted program " + index
+					    + " : stack deeper than " + maxStack + " at " + pc);
+				}
+			}
+			pc += Opcodes.size(opcode);
+		}
+		if (depth != 1)
+		{
+			throw new IllegalArgumentException("Corrupted program " + index
+			    + " : " + depth + " values left on the stack");
+		}
+	}
+}
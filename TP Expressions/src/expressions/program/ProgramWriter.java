@@ -0,0 +1,234 @@
+package expressions.program;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer of {@link Program}s into the binary format read by
+ * {@link ProgramFile}, so that programs can be reloaded without parsing
+ * them again.
+ * The (big endian) format is described in {@link ProgramFile}. Variables
+ * names of all the programs are stored once in a shared symbol table.
+ * @see ProgramFile
+ */
+public class ProgramWriter
+{
+	/**
+	 * Maximum length of a variable name in bytes (stored as an unsigned
+	 * short)
+	 */
+	public static final int MAX_NAME_LENGTH = 0xFFFF;
+
+	/**
+	 * The type of numbers in written programs
+	 */
+	private final Class<? extends Number> numberClass;
+
+	/**
+	 * The programs to write
+	 */
+	private final List<Program> programs;
+
+	/**
+	 * Symbol index of each variable name of the programs to write
+	 */
+	private final Map<String, Integer> symbols;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class of programs
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 */
+	public ProgramWriter(Number specimen) throws IllegalArgumentException
+	{
+		numberClass = specimen.getClass();
+		if (ProgramFile.typeOf(numberClass) < 0)
+		{
+			throw new IllegalArgumentException("Unsupported Number Class : "
+			    + numberClass.getSimpleName());
+		}
+		programs = new ArrayList<Program>();
+		symbols = new LinkedHashMap<String, Integer>();
+	}
+
+	/**
+	 * Adds a program to write
+	 * @param program the program to add
+	 * @throws IllegalArgumentException if the program's number class is not
+	 * the number class of this writer or if one of its variables names is
+	 * longer than {@value #MAX_NAME_LENGTH} bytes in UTF-8
+	 */
+	public void add(Program program) throws IllegalArgumentException
+	{
+		if (program.numberClass != numberClass)
+		{
+			throw new IllegalArgumentException("Unexpected "
+			    + program.numberClass.getSimpleName() + " program");
+		}
+		for (String name : program.variables)
+		{
+			if (!symbols.containsKey(name)
+			    && name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH)
+			{
+				throw new IllegalArgumentException("Variable name longer than "
+				    + MAX_NAME_LENGTH + " bytes : " + name.substring(0, 16) + "...");
+			}
+		}
+		for (String name : program.variables)
+		{
+			if (!symbols.containsKey(name))
+			{
+				symbols.put(name, symbols.size());
+			}
+		}
+		programs.add(program);
+	}
+
+	/**
+	 * Adds programs to write
+	 * @param programs the programs to add
+	 * @throws IllegalArgumentException if one of the programs' number class
+	 * is not the number class of this writer or if one of their variables
+	 * names is too long
+	 */
+	public void addAll(List<Program> programs) throws IllegalArgumentException
+	{
+		for (Program program : programs)
+		{
+			add(program);
+		}
+	}
+
+	/**
+	 * Number of programs to write
+	 * @return the number of programs added to this writer
+	 */
+	public int size()
+	{
+		return programs.size();
+	}
+
+	/**
+	 * Writes the added programs into a file
+	 * @param file the path of the file to create (or replace)
+	 * @throws IOException if writing fails
+	 */
+	public void write(Path file) throws IOException
+	{
+		try (OutputStream output = Files.newOutputStream(file))
+		{
+			write(output);
+		}
+	}
+
+	/**
+	 * Writes the added programs into a stream (which is not closed)
+	 * @param output the stream to write to
+	 * @throws IOException if writing fails
+	 * @throws IllegalStateException if the resulting file would be larger
+	 * than 2 GB (which can't be mapped at once)
+	 */
+	public void write(OutputStream output) throws IOException, IllegalStateException
+	{
+		byte[][] names = new byte[symbols.size()][];
+		long offset = ProgramFile.HEADER_SIZE + 4;
+		int i = 0;
+		for (String name : symbols.keySet())
+		{
+			names[i] = name.getBytes(StandardCharsets.UTF_8);
+			offset += 2 + names[i].length;
+			i++;
+		}
+		offset += 4 + (4L * programs.size());
+		int[] offsets = new int[programs.size()];
+		for (int p = 0; p < offsets.length; p++)
+		{
+			offsets[p] = (int) offset;
+			offset += recordSize(programs.get(p));
+		}
+		if (offset > Integer.MAX_VALUE)
+		{
+			throw new IllegalStateException("Too many programs");
+		}
+
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+		data.writeInt(ProgramFile.MAGIC);
+		data.writeShort(ProgramFile.VERSION);
+		data.writeByte(ProgramFile.typeOf(numberClass));
+		data.writeByte(0);
+		data.writeInt(names.length);
+		for (byte[] name : names)
+		{
+			data.writeShort(name.length);
+			data.write(name);
+		}
+		data.writeInt(programs.size());
+		for (int programOffset : offsets)
+		{
+			data.writeInt(programOffset);
+		}
+		for (Program program : programs)
+		{
+			writeRecord(data, program);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Size of the record of a program
+	 * @param program the program
+	 * @return the number of bytes written by
+	 * {@link #writeRecord(DataOutputStream, Program)}
+	 */
+	private static long recordSize(Program program)
+	{
+		int constants = program.longConstants.length + program.doubleConstants.length;
+		return 16L + (4L * program.variables.length) + (8L * constants)
+		    + program.code.length;
+	}
+
+	/**
+	 * Writes the record of a program
+	 * @param data the stream to write to
+	 * @param program the program to write
+	 * @throws IOException if writing fails
+	 */
+	private void writeRecord(DataOutputStream data, Program program)
+		throws IOException
+	{
+		data.writeInt(program.maxStack);
+		data.writeInt(program.variables.length);
+		for (String name : program.variables)
+		{
+			data.writeInt(symbols.get(name));
+		}
+		if (program.isIntegral())
+		{
+			data.writeInt(program.longConstants.length);
+			for (long constant : program.longConstants)
+			{
+				data.writeLong(constant);
+			}
+		}
+		else
+		{
+			data.writeInt(program.doubleConstants.length);
+			for (double constant : program.doubleConstants)
+			{
+				data.writeLong(Double.doubleToRawLongBits(constant));
+			}
+		}
+		data.writeInt(program.code.length);
+		data.write(program.code);
+	}
+}
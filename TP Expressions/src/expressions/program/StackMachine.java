@@ -0,0 +1,218 @@
+package expressions.program;
+
+import expressions.binary.BinaryOperatorRules;
+
+/**
+ * Stack machine evaluating {@link Program}s.
+ * The operand stack is preallocated and reused across evaluations so that
+ * evaluating a program does not allocate anything.
+ * Each thread should use its own stack machine since they are not thread safe
+ * (whereas {@link Program}s can be shared).
+ * Arithmetic instructions apply the kernels of their operators
+ * ({@link BinaryOperatorRules#applyAsLong(long, long)} and
+ * {@link BinaryOperatorRules#applyAsDouble(double, double)}) so programs
+ * compute the same values as expression trees. Additions, subtractions,
+ * multiplications and divisions, whose kernels are single JVM operations,
+ * are inlined.
+ */
+public class StackMachine
+{
+	/**
+	 * Operand stack of integer programs
+	 */
+	private long[] longStack;
+
+	/**
+	 * Operand stack of floating point programs
+	 */
+	private double[] doubleStack;
+
+	/**
+	 * Default constructor
+	 */
+	public StackMachine()
+	{
+		this(16);
+	}
+
+	/**
+	 * Constructor with initial operand stack capacity
+	 * @param capacity the initial capacity of the operand stack (grown when
+	 * evaluating programs needing a deeper stack)
+	 */
+	public StackMachine(int capacity)
+	{
+		longStack = new long[capacity];
+		doubleStack = new double[capacity];
+	}
+
+	/**
+	 * Evaluate a program
+	 * @param program the program to evaluate
+	 * @param frame the values of the variables indexed by slot (see
+	 * {@link Program#slotOf(String)}). Assignments store their value in the
+	 * frame.
+	 * @return the value of the program
+	 * @throws ArrayIndexOutOfBoundsException if the frame is smaller than
+	 * {@link Program#getVariablesCount()}
+	 * @throws ArithmeticException if an integer division by zero occurs
+	 */
+	public double evaluate(Program program, double[] frame)
+	{
+		if (program.isIntegral())
+		{
+			return evaluateIntegral(program, frame);
+		}
+		return evaluateFloatingPoint(program,
+		                             frame,
+		                             program.numberClass == Float.class);
+	}
+
+	/**
+	 * Evaluate an {@link Integer} program
+	 * @param program the program to evaluate
+	 * @param frame the values of the variables indexed by slot
+	 * @return the value of the program
+	 */
+	private double evaluateIntegral(Program program, double[] frame)
+	{
+		if (longStack.length < program.maxStack)
+		{
+			longStack = new long[program.maxStack];
+		}
+		final long[] stack = longStack;
+		final byte[] code = program.code;
+		final long[] constants = program.longConstants;
+		int top = -1;
+		int pc = 0;
+		while (pc < code.length)
+		{
+			switch (code[pc])
+			{
+				case Opcodes.PUSH:
+					stack[++top] = constants[program.operand(pc)];
+					pc += 3;
+					break;
+				case Opcodes.LOAD:
+					stack[++top] = (int) frame[program.operand(pc)];
+					pc += 3;
+					break;
+				case Opcodes.STORE:
+					frame[program.operand(pc)] = stack[top];
+					pc += 3;
+					break;
+				case Opcodes.ADD:
+					top--;
+					stack[top] = (int) (stack[top] + stack[top + 1]);
+					pc++;
+					break;
+				case Opcodes.SUB:
+					top--;
+					stack[top] = (int) (stack[top] - stack[top + 1]);
+					pc++;
+					break;
+				case Opcodes.MUL:
+					top--;
+					stack[top] = (int) (stack[top] * stack[top + 1]);
+					pc++;
+					break;
+				case Opcodes.DIV:
+					top--;
+					stack[top] = (int) (stack[top] / stack[top + 1]);
+					pc++;
+					break;
+				default:
+					top--;
+					stack[top] = (int) operator(code[pc]).applyAsLong(stack[top], stack[top + 1]);
+					pc++;
+					break;
+			}
+		}
+		return stack[top];
+	}
+
+	/**
+	 * Evaluate a {@link Float} or {@link Double} program
+	 * @param program the program to evaluate
+	 * @param frame the values of the variables indexed by slot
+	 * @param roundToFloat true to round intermediate results to float
+	 * (which gives the same results as float arithmetic)
+	 * @return the value of the program
+	 */
+	private double evaluateFloatingPoint(Program program,
+	                                     double[] frame,
+	                                     boolean roundToFloat)
+	{
+		if (doubleStack.length < program.maxStack)
+		{
+			doubleStack = new double[program.maxStack];
+		}
+		final double[] stack = doubleStack;
+		final byte[] code = program.code;
+		final double[] constants = program.doubleConstants;
+		int top = -1;
+		int pc = 0;
+		while (pc < code.length)
+		{
+			byte opcode = code[pc];
+			switch (opcode)
+			{
+				case Opcodes.PUSH:
+					stack[++top] = constants[program.operand(pc)];
+					pc += 3;
+					continue;
+				case Opcodes.LOAD:
+					stack[++top] = roundToFloat
+					    ? (float) frame[program.operand(pc)]
+					    : frame[program.operand(pc)];
+					pc += 3;
+					continue;
+				case Opcodes.STORE:
+					frame[program.operand(pc)] = stack[top];
+					pc += 3;
+					continue;
+				case Opcodes.ADD:
+					top--;
+					stack[top] = stack[top] + stack[top + 1];
+					break;
+				case Opcodes.SUB:
+					top--;
+					stack[top] = stack[top] - stack[top + 1];
+					break;
+				case Opcodes.MUL:
+					top--;
+					stack[top] = stack[top] * stack[top + 1];
+					break;
+				case Opcodes.DIV:
+					top--;
+					stack[top] = stack[top] / stack[top + 1];
+					break;
+				default:
+					top--;
+					stack[top] = operator(opcode).applyAsDouble(stack[top], stack[top + 1]);
+					break;
+			}
+			if (roundToFloat)
+			{
+				stack[top] = (float) stack[top];
+			}
+			pc++;
+		}
+		return stack[top];
+	}
+
+	/**
+	 * Operator of an arithmetic instruction
+	 * @param opcode the opcode of the instruction
+	 * @return the rules of the operator applied by this instruction
+	 * @throws IllegalStateException if the opcode is not an arithmetic opcode
+	 */
+	static BinaryOperatorRules operator(byte opcode) throws IllegalStateException
+	{
+		if (!Opcodes.isArithmetic(opcode))
+		{
+			throw new IllegalStateException("Unknown opcode : " + opcode);
+		}
+		return Opcodes.rulesOf(opcode);
+	}
+}
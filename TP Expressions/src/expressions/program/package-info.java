@@ -0,0 +1,5 @@
+/**
+ * Package containing flattened postfix representations of
+ * {@link expressions.Expression}s and the stack machine evaluating them
+ */
+package expressions.program;
@@ -0,0 +1,381 @@
+package expressions.statements;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+import expressions.Expression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Spreadsheet-like dependency graph between the statements of a program such
+ * as "a = 1; b = a + 2; c = b + a".
+ * Each assigned variable is linked to the statements reading it so that
+ * values computed by an assignment are propagated to all the occurrences of
+ * this variable in the other statements. Statements are kept in topological
+ * order (an assignment always comes before the statements reading its
+ * variable) so that when an input variable changes only the statements
+ * depending on it are evaluated again, each of them once.
+ * As in a spreadsheet, the order of statements in the program doesn't
+ * matter but a variable can only be assigned once and circular dependencies
+ * (such as "a = b + 1; b = a") are rejected when the graph is built.
+ * Dependency graphs are not thread safe.
+ * @param <E> The type of numbers in statements
+ */
+public class DependencyGraph<E extends Number>
+{
+	/**
+	 * Statements in topological order
+	 */
+	private final List<Statement<E>> statements;
+
+	/**
+	 * Index (in {@link #statements}) of the statement assigning each variable
+	 * by variable name
+	 */
+	private final Map<String, Integer> writers;
+
+	/**
+	 * Indices (in {@link #statements}) of the statements reading each
+	 * variable by variable name
+	 */
+	private final Map<String, List<Integer>> readers;
+
+	/**
+	 * Current values of variables (inputs or assigned) by variable name
+	 */
+	private final Map<String, E> values;
+
+	/**
+	 * Statements (indices in {@link #statements}) to evaluate during next
+	 * {@link #evaluate()}
+	 */
+	private final BitSet dirty;
+
+	/**
+	 * Constructor
+	 * @param expressions the statements of the program (in any order)
+	 * @throws IllegalArgumentException if a statement is null, if a variable
+	 * is assigned by several statements or if statements depend on each other
+	 * circularly
+	 * @implNote Input variables (which are read but not assigned) with a value
+	 * in some statement provide this value to all their occurrences.
+	 */
+	public DependencyGraph(List<? extends Expression<E>> expressions)
+		throws IllegalArgumentException
+	{
+		List<Statement<E>> program = new ArrayList<Statement<E>>(expressions.size());
+		Map<String, Integer> programWriters = new HashMap<String, Integer>();
+		for (Expression<E> expression : expressions)
+		{
+			Statement<E> statement = new Statement<E>(expression, program.size());
+			if (statement.isAssignment())
+			{
+				Integer previous =
+				    programWriters.putIfAbsent(statement.getWrittenVariable(),
+				                               statement.getIndex());
+				if (previous != null)
+				{
+					throw new IllegalArgumentException("Variable "
+					    + statement.getWrittenVariable()
+					    + " is assigned more than once : " + program.get(previous)
+					    + " and " + statement);
+				}
+			}
+			program.add(statement);
+		}
+
+		statements = sort(program, programWriters);
+		writers = new HashMap<String, Integer>();
+		readers = new HashMap<String, List<Integer>>();
+		values = new HashMap<String, E>();
+		dirty = new BitSet(statements.size());
+		for (int i = 0; i < statements.size(); i++)
+		{
+			Statement<E> statement = statements.get(i);
+			if (statement.isAssignment())
+			{
+				writers.put(statement.getWrittenVariable(), i);
+			}
+			for (String name : statement.getReadVariables())
+			{
+				readers.computeIfAbsent(name, (String n) -> new ArrayList<Integer>()).add(i);
+			}
+		}
+		for (Map.Entry<String, List<Integer>> entry : readers.entrySet())
+		{
+			String name = entry.getKey();
+			if (writers.containsKey(name))
+			{
+				// Assigned variables get their values from their assignment
+				update(name, null);
+			}
+			else
+			{
+				// Merge input values found in statements
+				for (int i : entry.getValue())
+				{
+					for (VariableExpression<E> occurrence : statements.get(i).occurrencesOf(name))
+					{
+						if (!values.containsKey(name) && occurrence.hasValue())
+						{
+							values.put(name, occurrence.value());
+						}
+					}
+				}
+				update(name, values.get(name));
+			}
+		}
+		dirty.set(0, statements.size());
+	}
+
+	/**
+	 * Sorts statements in topological order using Kahn's algorithm.
+	 * Statements which don't depend on each other keep their program order.
+	 * @param program the statements in program order
+	 * @param programWriters index (in program) of the statement assigning
+	 * each variable
+	 * @return a new list containing statements in topological order
+	 * @throws IllegalArgumentException if some statements depend on each other
+	 * circularly
+	 */
+	private static <E extends Number> List<Statement<E>>
+	    sort(List<Statement<E>> program, Map<String, Integer> programWriters)
+		throws IllegalArgumentException
+	{
+		int size = program.size();
+		int[] pending = new int[size];
+		List<List<Integer>> successors = new ArrayList<List<Integer>>(size);
+		for (int i = 0; i < size; i++)
+		{
+			successors.add(new ArrayList<Integer>());
+		}
+		for (Statement<E> statement : program)
+		{
+			for (String name : statement.getReadVariables())
+			{
+				Integer writer = programWriters.get(name);
+				if (writer != null)
+				{
+					successors.get(writer).add(statement.getIndex());
+					pending[statement.getIndex()]++;
+				}
+			}
+		}
+
+		PriorityQueue<Integer> ready = new PriorityQueue<Integer>();
+		for (int i = 0; i < size; i++)
+		{
+			if (pending[i] == 0)
+			{
+				ready.add(i);
+			}
+		}
+		List<Statement<E>> sorted = new ArrayList<Statement<E>>(size);
+		while (!ready.isEmpty())
+		{
+			int i = ready.poll();
+			sorted.add(program.get(i));
+			for (int successor : successors.get(i))
+			{
+				if (--pending[successor] == 0)
+				{
+					ready.add(successor);
+				}
+			}
+		}
+
+		if (sorted.size() < size)
+		{
+			StringBuilder sb = new StringBuilder("Circular dependency between statements :");
+			for (int i = 0; i < size; i++)
+			{
+				if (pending[i] > 0)
+				{
+					sb.append(" ");
+					sb.append(program.get(i));
+					sb.append(";");
+				}
+			}
+			throw new IllegalArgumentException(sb.toString());
+		}
+		return sorted;
+	}
+
+	/**
+	 * Statements accessor
+	 * @return an unmodifiable list of statements in evaluation (topological)
+	 * order
+	 */
+	public List<Statement<E>> getStatements()
+	{
+		return Collections.unmodifiableList(statements);
+	}
+
+	/**
+	 * Names of input variables
+	 * @return the sorted names of the variables read but not assigned by
+	 * statements
+	 */
+	public Set<String> getInputs()
+	{
+		Set<String> inputs = new TreeSet<String>(readers.keySet());
+		inputs.removeAll(writers.keySet());
+		return inputs;
+	}
+
+	/**
+	 * Names of all variables
+	 * @return the sorted names of all the variables read or assigned by
+	 * statements
+	 */
+	public Set<String> getVariables()
+	{
+		Set<String> variables = new TreeSet<String>(readers.keySet());
+		variables.addAll(writers.keySet());
+		return variables;
+	}
+
+	/**
+	 * Current value of a variable
+	 * @param name the name of the variable
+	 * @return the current value of this variable or an empty value if this
+	 * variable has no value (yet)
+	 */
+	public Optional<E> getValue(String name)
+	{
+		return Optional.ofNullable(values.get(name));
+	}
+
+	/**
+	 * Statements reading a variable
+	 * @param name the name of the variable
+	 * @return the statements directly reading this variable (in topological
+	 * order)
+	 */
+	public List<Statement<E>> getReaders(String name)
+	{
+		List<Integer> indices = readers.get(name);
+		if (indices == null)
+		{
+			return Collections.emptyList();
+		}
+		List<Statement<E>> result = new ArrayList<Statement<E>>(indices.size());
+		for (int i : indices)
+		{
+			result.add(statements.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the value of an input variable.
+	 * Statements depending on this input will be evaluated again during next
+	 * {@link #evaluate()}
+	 * @param name the name of the input variable
+	 * @param value the value to set (or null to clear the value)
+	 * @throws IllegalArgumentException if this variable is not an input
+	 * variable of this graph
+	 */
+	public void setInput(String name, E value) throws IllegalArgumentException
+	{
+		if (writers.containsKey(name))
+		{
+			throw new IllegalArgumentException("Variable " + name
+			    + " is assigned by " + statements.get(writers.get(name)));
+		}
+		if (!readers.containsKey(name))
+		{
+			throw new IllegalArgumentException("Unknown variable " + name);
+		}
+		propagate(name, value);
+	}
+
+	/**
+	 * Evaluates statements whose inputs changed since the last evaluation (or
+	 * all statements on first evaluation) in topological order.
+	 * Statements which can't be evaluated (because some of their variables
+	 * don't have values) clear the value of the variable they assign.
+	 * @return the number of evaluated statements
+	 * @throws ArithmeticException if an integer division by zero occurs
+	 */
+	public int evaluate()
+	{
+		int count = 0;
+		for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1))
+		{
+			dirty.clear(i);
+			count++;
+			Statement<E> statement = statements.get(i);
+			Expression<E> expression = statement.getExpression();
+			E value = expression.hasValue() ? expression.value() : null;
+			if (statement.isAssignment())
+			{
+				// readers come after i in topological order
+				propagate(statement.getWrittenVariable(), value);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Propagates a variable's value to all its occurrences and marks the
+	 * statements reading it as dirty if this value changed
+	 * @param name the name of the variable
+	 * @param value the new value of this variable (or null to clear it)
+	 */
+	private void propagate(String name, E value)
+	{
+		if (Objects.equals(values.get(name), value))
+		{
+			return;
+		}
+		if (value == null)
+		{
+			values.remove(name);
+		}
+		else
+		{
+			values.put(name, value);
+		}
+		update(name, value);
+	}
+
+	/**
+	 * Sets a variable's value to all its occurrences and marks the statements
+	 * reading it as dirty
+	 * @param name the name of the variable
+	 * @param value the value of this variable (or null to clear it)
+	 */
+	private void update(String name, E value)
+	{
+		List<Integer> indices = readers.get(name);
+		if (indices == null)
+		{
+			return;
+		}
+		for (int i : indices)
+		{
+			for (VariableExpression<E> occurrence : statements.get(i).occurrencesOf(name))
+			{
+				if (value == null)
+				{
+					occurrence.clearValue();
+				}
+				else
+				{
+					occurrence.setValue(value);
+				}
+			}
+			dirty.set(i);
+		}
+	}
+}
@@ -0,0 +1,427 @@
+package expressions.statements;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import expressions.Expression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Evaluator of the statements of a program (such as "a = 1; b = x + 2;
+ * c = a + b") running independent statements concurrently.
+ * Contrary to {@link DependencyGraph}, statements are evaluated with the
+ * usual sequential semantics: a statement reads the value assigned by the
+ * last preceding assignment of a variable (or the input value if there is
+ * none) and a variable can be assigned several times. The read and write
+ * sets of each statement are used to order statements:
+ * <ul>
+ * <li>read after write : a statement runs after the last preceding
+ * assignment of each variable it reads</li>
+ * <li>write after read : an assignment runs after the preceding statements
+ * reading the variable it assigns</li>
+ * <li>write after write : an assignment runs after the preceding assignment
+ * of the same variable</li>
+ * </ul>
+ * Statements whose predecessors are all evaluated are submitted to a
+ * {@link ForkJoinPool}. Chains of dependent statements are evaluated by the
+ * same task to avoid paying a task submission per statement.
+ * @param <E> The type of numbers in statements
+ * @implNote Statements must not share expressions other than
+ * {@link VariableExpression}s since expressions are not thread safe.
+ */
+public class ParallelEvaluator<E extends Number>
+{
+	/**
+	 * The pool running statements
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor using the {@link ForkJoinPool#commonPool()}
+	 */
+	public ParallelEvaluator()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor
+	 * @param pool the pool to run statements on
+	 * @throws IllegalArgumentException if pool is null
+	 */
+	public ParallelEvaluator(ForkJoinPool pool) throws IllegalArgumentException
+	{
+		if (pool == null)
+		{
+			throw new IllegalArgumentException("Null pool");
+		}
+		this.pool = pool;
+	}
+
+	/**
+	 * Evaluates all statements of a program
+	 * @param expressions the statements of the program in program order
+	 * @return the final values of the variables of this program by name
+	 * (variables without values are omitted)
+	 * @throws IllegalArgumentException if a statement is null
+	 * @throws ArithmeticException if an integer division by zero occurs
+	 * @see #evaluate(List, Map)
+	 */
+	public SortedMap<String, E> evaluate(List<? extends Expression<E>> expressions)
+		throws IllegalArgumentException
+	{
+		return evaluate(expressions, new HashMap<String, E>());
+	}
+
+	/**
+	 * Evaluates all statements of a program
+	 * @param expressions the statements of the program in program order
+	 * @param inputs values of input variables by name. Input variables
+	 * missing from this map take the first value found in their occurrences
+	 * (if any)
+	 * @return the final values of the variables of this program by name
+	 * (variables without values are omitted)
+	 * @throws IllegalArgumentException if a statement is null
+	 * @throws ArithmeticException if an integer division by zero occurs in
+	 * any statement (other statements are still evaluated)
+	 */
+	public SortedMap<String, E> evaluate(List<? extends Expression<E>> expressions,
+	                                     Map<String, ? extends E> inputs)
+		throws IllegalArgumentException
+	{
+		Schedule<E> schedule = new Schedule<E>(expressions, inputs);
+		if (schedule.size() > 0)
+		{
+			// Collect ready statements before starting any of them : started
+			// statements release successors which must not be started twice
+			List<Integer> ready = new ArrayList<Integer>();
+			for (int i = 0; i < schedule.size(); i++)
+			{
+				if (schedule.pending.get(i) == 0)
+				{
+					ready.add(i);
+				}
+			}
+			for (int i : ready)
+			{
+				pool.execute(new StatementTask<E>(schedule, i));
+			}
+			try
+			{
+				schedule.done.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted evaluation", e);
+			}
+		}
+		Throwable failure = schedule.failure.get();
+		if (failure instanceof RuntimeException runtime)
+		{
+			throw runtime;
+		}
+		if (failure instanceof Error error)
+		{
+			throw error;
+		}
+		if (failure != null)
+		{
+			throw new IllegalStateException("Failed evaluation", failure);
+		}
+		return schedule.finalValues();
+	}
+
+	/**
+	 * Statements of a program with their dependencies and evaluation state
+	 * @param <E> The type of numbers in statements
+	 */
+	private static final class Schedule<E extends Number>
+	{
+		/**
+		 * Statements in program order
+		 */
+		final List<Statement<E>> statements;
+
+		/**
+		 * Statements to run after each statement
+		 */
+		final List<List<Integer>> successors;
+
+		/**
+		 * Number of statements to run before each statement
+		 */
+		final AtomicIntegerArray pending;
+
+		/**
+		 * For each statement, the statement assigning each variable it reads
+		 * (missing for input variables)
+		 */
+		final List<Map<String, Integer>> sources;
+
+		/**
+		 * Input values by variable name
+		 */
+		final Map<String, E> inputs;
+
+		/**
+		 * Value computed by each statement (null if it couldn't be
+		 * evaluated). Written before the successors are released
+		 */
+		final Object[] results;
+
+		/**
+		 * Last assignment of each variable
+		 */
+		final Map<String, Integer> lastWriters;
+
+		/**
+		 * Counts down evaluated statements
+		 */
+		final CountDownLatch done;
+
+		/**
+		 * First failure encountered while evaluating a statement (rethrown
+		 * by {@link ParallelEvaluator#evaluate(List, Map)} once all
+		 * statements are done)
+		 */
+		final AtomicReference<Throwable> failure;
+
+		/**
+		 * Constructor building the read and write sets of statements
+		 * @param expressions the statements in program order
+		 * @param inputValues values of input variables
+		 * @throws IllegalArgumentException if a statement is null
+		 */
+		Schedule(List<? extends Expression<E>> expressions,
+		         Map<String, ? extends E> inputValues)
+			throws IllegalArgumentException
+		{
+			int size = expressions.size();
+			statements = new ArrayList<Statement<E>>(size);
+			successors = new ArrayList<List<Integer>>(size);
+			sources = new ArrayList<Map<String, Integer>>(size);
+			pending = new AtomicIntegerArray(size);
+			inputs = new HashMap<String, E>(inputValues);
+			results = new Object[size];
+			lastWriters = new HashMap<String, Integer>();
+			done = new CountDownLatch(size);
+			failure = new AtomicReference<Throwable>();
+
+			Map<String, List<Integer>> readersSinceWrite = new HashMap<String, List<Integer>>();
+			for (Expression<E> expression : expressions)
+			{
+				int i = statements.size();
+				Statement<E> statement = new Statement<E>(expression, i);
+				statements.add(statement);
+				successors.add(new ArrayList<Integer>(2));
+				Map<String, Integer> statementSources = new HashMap<String, Integer>();
+				for (String name : statement.getReadVariables())
+				{
+					Integer writer = lastWriters.get(name);
+					if (writer != null)
+					{
+						link(writer, i); // read after write
+						statementSources.put(name, writer);
+					}
+					else if (!inputs.containsKey(name))
+					{
+						for (VariableExpression<E> occurrence : statement.occurrencesOf(name))
+						{
+							if (occurrence.hasValue())
+							{
+								inputs.put(name, occurrence.value());
+								break;
+							}
+						}
+					}
+					readersSinceWrite.computeIfAbsent(name, (String n) -> new ArrayList<Integer>()).add(i);
+				}
+				sources.add(statementSources);
+				if (statement.isAssignment())
+				{
+					String name = statement.getWrittenVariable();
+					List<Integer> readers = readersSinceWrite.remove(name);
+					if (readers != null)
+					{
+						for (int reader : readers)
+						{
+							if (reader != i)
+							{
+								link(reader, i); // write after read
+							}
+						}
+					}
+					Integer writer = lastWriters.put(name, i);
+					if (writer != null && !statementSources.containsValue(writer))
+					{
+						link(writer, i); // write after write
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds an ordering constraint between two statements
+		 * @param before the statement to run first
+		 * @param after the statement to run after
+		 */
+		private void link(int before, int after)
+		{
+			successors.get(before).add(after);
+			pending.incrementAndGet(after);
+		}
+
+		/**
+		 * Number of statements
+		 * @return the number of statements
+		 */
+		int size()
+		{
+			return statements.size();
+		}
+
+		/**
+		 * Evaluates a single statement once all its predecessors are evaluated.
+		 * Any failure (including errors) is recorded instead of being thrown
+		 * so that the statement is always counted as done.
+		 * @param i the index of the statement
+		 */
+		@SuppressWarnings("unchecked")
+		void run(int i)
+		{
+			try
+			{
+				Statement<E> statement = statements.get(i);
+				Map<String, Integer> statementSources = sources.get(i);
+				for (String name : statement.getReadVariables())
+				{
+					Integer source = statementSources.get(name);
+					E value = source != null ? (E) results[source] : inputs.get(name);
+					for (VariableExpression<E> occurrence : statement.occurrencesOf(name))
+					{
+						if (value == null)
+						{
+							occurrence.clearValue();
+						}
+						else
+						{
+							occurrence.setValue(value);
+						}
+					}
+				}
+				Expression<E> expression = statement.getExpression();
+				results[i] = expression.hasValue() ? expression.value() : null;
+			}
+			catch (Throwable e)
+			{
+				failure.compareAndSet(null, e);
+				results[i] = null;
+			}
+		}
+
+		/**
+		 * Final values of variables
+		 * @return the values of input variables updated with the values of
+		 * the last assignment of each variable
+		 */
+		@SuppressWarnings("unchecked")
+		SortedMap<String, E> finalValues()
+		{
+			SortedMap<String, E> values = new TreeMap<String, E>(inputs);
+			for (Map.Entry<String, Integer> entry : lastWriters.entrySet())
+			{
+				E value = (E) results[entry.getValue()];
+				if (value == null)
+				{
+					values.remove(entry.getKey());
+				}
+				else
+				{
+					values.put(entry.getKey(), value);
+				}
+			}
+			return values;
+		}
+	}
+
+	/**
+	 * Task evaluating a statement then releasing its successors.
+	 * The last released successor is evaluated by the same task while others
+	 * are forked.
+	 * @param <E> The type of numbers in statements
+	 */
+	private static final class StatementTask<E extends Number> extends RecursiveAction
+	{
+		/**
+		 * Serial version UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The program being evaluated
+		 */
+		private final Schedule<E> schedule;
+
+		/**
+		 * Index of the first statement to evaluate
+		 */
+		private final int first;
+
+		/**
+		 * Constructor
+		 * @param schedule the program being evaluated
+		 * @param first index of the first statement to evaluate
+		 */
+		StatementTask(Schedule<E> schedule, int first)
+		{
+			this.schedule = schedule;
+			this.first = first;
+		}
+
+		/**
+		 * Evaluates statements until no successor is ready.
+		 * Successors are released and the statement is counted as done even
+		 * if its evaluation fails so that
+		 * {@link ParallelEvaluator#evaluate(List, Map)} never waits forever.
+		 */
+		@Override
+		protected void compute()
+		{
+			int current = first;
+			while (current >= 0)
+			{
+				int next = -1;
+				try
+				{
+					schedule.run(current);
+				}
+				finally
+				{
+					schedule.done.countDown();
+					for (int successor : schedule.successors.get(current))
+					{
+						if (schedule.pending.decrementAndGet(successor) == 0)
+						{
+							if (next >= 0)
+							{
+								new StatementTask<E>(schedule, next).fork();
+							}
+							next = successor;
+						}
+					}
+				}
+				current = next;
+			}
+		}
+	}
+}
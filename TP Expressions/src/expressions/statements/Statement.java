@@ -0,0 +1,175 @@
+package expressions.statements;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import expressions.Expression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * A single statement of a program (such as "b = a + 2" in "a = 1; b = a + 2")
+ * along with the name of the variable it writes (if any) and the names of the
+ * variables it reads.
+ * Since parsed expressions don't share {@link VariableExpression}s, the
+ * variables read by a statement are identified by their names and all their
+ * occurrences in the statement are kept so that values computed by other
+ * statements can be propagated to them.
+ * @param <E> The type of numbers in this statement
+ */
+public class Statement<E extends Number>
+{
+	/**
+	 * The expression of this statement
+	 */
+	private final Expression<E> expression;
+
+	/**
+	 * Index of this statement in its program
+	 */
+	private final int index;
+
+	/**
+	 * Name of the variable assigned by this statement or null if this
+	 * statement is not an assignment
+	 */
+	private final String written;
+
+	/**
+	 * Occurrences of each variable read by this statement by variable name
+	 * (in order of appearance)
+	 */
+	private final Map<String, List<VariableExpression<E>>> reads;
+
+	/**
+	 * Constructor
+	 * @param expression the expression of this statement
+	 * @param index the index of this statement in its program
+	 * @throws IllegalArgumentException if expression is null
+	 */
+	public Statement(Expression<E> expression, int index)
+		throws IllegalArgumentException
+	{
+		if (expression == null)
+		{
+			throw new IllegalArgumentException("Null statement #" + index);
+		}
+		this.expression = expression;
+		this.index = index;
+		reads = new LinkedHashMap<String, List<VariableExpression<E>>>();
+		if (expression instanceof AssignmentExpression<E> assignment
+		    && assignment.getLeft() instanceof VariableExpression<E> variable)
+		{
+			written = variable.getName();
+			collectReads(assignment.getRight());
+		}
+		else
+		{
+			written = null;
+			collectReads(expression);
+		}
+	}
+
+	/**
+	 * Collects variables occurrences read in an expression
+	 * @param expr the expression to explore
+	 */
+	private void collectReads(Expression<E> expr)
+	{
+		if (expr instanceof VariableExpression<E> variable)
+		{
+			reads.computeIfAbsent(variable.getName(),
+			                      (String name) -> new ArrayList<VariableExpression<E>>())
+			    .add(variable);
+		}
+		else if (expr instanceof BinaryExpression<E> binary)
+		{
+			collectReads(binary.getLeft());
+			collectReads(binary.getRight());
+		}
+	}
+
+	/**
+	 * Expression accessor
+	 * @return the expression of this statement
+	 */
+	public Expression<E> getExpression()
+	{
+		return expression;
+	}
+
+	/**
+	 * Index accessor
+	 * @return the index of this statement in its program
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Indicate if this statement assigns a variable
+	 * @return true if this statement is an assignment
+	 */
+	public boolean isAssignment()
+	{
+		return written != null;
+	}
+
+	/**
+	 * Name of the assigned variable
+	 * @return the name of the variable assigned by this statement or null if
+	 * this statement is not an assignment
+	 */
+	public String getWrittenVariable()
+	{
+		return written;
+	}
+
+	/**
+	 * Names of the variables read by this statement
+	 * @return an unmodifiable set of the names of the variables read by this
+	 * statement
+	 */
+	public Set<String> getReadVariables()
+	{
+		return Collections.unmodifiableSet(reads.keySet());
+	}
+
+	/**
+	 * Indicate if this statement reads a variable
+	 * @param name the name of the variable
+	 * @return true if this statement reads this variable
+	 */
+	public boolean reads(String name)
+	{
+		return reads.containsKey(name);
+	}
+
+	/**
+	 * Occurrences of a variable read by this statement
+	 * @param name the name of the variable
+	 * @return the occurrences of this variable in this statement (empty if
+	 * this statement doesn't read this variable)
+	 */
+	List<VariableExpression<E>> occurrencesOf(String name)
+	{
+		List<VariableExpression<E>> occurrences = reads.get(name);
+		return occurrences != null ? occurrences : Collections.emptyList();
+	}
+
+	/**
+	 * String representation of this statement
+	 * @return the string representation of this statement's expression
+	 */
+	@Override
+	public String toString()
+	{
+		return expression.toString();
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Package containing programs made of several statements (typically
+ * {@link expressions.binary.AssignmentExpression}s) considered together in
+ * order to evaluate them according to their dependencies
+ */
+package expressions.statements;
@@ -2,6 +2,8 @@ package expressions.terminal;
 
 import java.util.Optional;
 
+import expressions.AbstractExpression;
+
 /**
  * Constant expression.
  * Constant expressions can always be evaluated since they are created directly
@@ -53,4 +55,16 @@ public class ConstantExpression<E extends Number> extends TerminalExpression<E>
 		return value.orElseThrow().toString(); // because return value.toString(); is BAD if value is Optional
 
 	}
+
+	/**
+	 * Compares the value of this constant with the value of another constant
+	 * @param expr the other constant
+	 * @return true if both constants have equal values (which implies values
+	 * of the same type)
+	 */
+	@Override
+	protected boolean sameStructure(AbstractExpression<?> expr)
+	{
+		return value.equals(((ConstantExpression<?>) expr).value);
+	}
 }
@@ -0,0 +1,235 @@
+package expressions.terminal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressions.program.Program;
+
+/**
+ * Table of the variables of a program : each variable name is mapped to a
+ * single {@link VariableExpression} shared by all the occurrences of this
+ * name and to a slot index (in order of first occurrence).
+ * Since all occurrences are the same object, values assigned by a statement
+ * are directly read by the following statements and a frame (an array of
+ * doubles indexed by slot, see {@link expressions.program.Program}) can be
+ * loaded from or stored to the variables without looking up names.
+ * Symbol tables are not thread safe.
+ * @param <E> The type of numbers in variables
+ * @see parser.ExpressionParser#parse(CharSequence, SymbolTable)
+ */
+public class SymbolTable<E extends Number>
+{
+	/**
+	 * The type of numbers in variables
+	 */
+	private final Class<? extends Number> numberClass;
+
+	/**
+	 * Slot index of each variable by name
+	 */
+	private final Map<String, Integer> slots;
+
+	/**
+	 * Shared variables by slot index
+	 */
+	private final List<VariableExpression<E>> variables;
+
+	/**
+	 * Slots filled by the last {@link #load(double[])} (variables which had
+	 * a value)
+	 */
+	private final BitSet loaded;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for variables
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 * @apiNote Caution : the specimen's class must match the type parameter
+	 * E of this table (just like {@link parser.ExpressionParser}).
+	 */
+	public SymbolTable(Number specimen) throws IllegalArgumentException
+	{
+		numberClass = specimen.getClass();
+		if (numberClass != Integer.class
+		    && numberClass != Float.class
+		    && numberClass != Double.class)
+		{
+			throw new IllegalArgumentException("Unsupported Number Class : "
+			    + numberClass.getSimpleName());
+		}
+		slots = new HashMap<String, Integer>();
+		variables = new ArrayList<VariableExpression<E>>();
+		loaded = new BitSet();
+	}
+
+	/**
+	 * Shared variable with a name, created (in the next slot) if this name
+	 * is not in the table yet
+	 * @param name the name of the variable
+	 * @return the shared variable with this name
+	 */
+	public VariableExpression<E> variable(String name)
+	{
+		Integer slot = slots.get(name);
+		if (slot != null)
+		{
+			return variables.get(slot);
+		}
+		VariableExpression<E> variable = new VariableExpression<E>(name);
+		slots.put(name, variables.size());
+		variables.add(variable);
+		return variable;
+	}
+
+	/**
+	 * Shared variable in a slot
+	 * @param slot the slot index
+	 * @return the shared variable in this slot
+	 * @throws IndexOutOfBoundsException if slot is invalid
+	 */
+	public VariableExpression<E> get(int slot) throws IndexOutOfBoundsException
+	{
+		return variables.get(slot);
+	}
+
+	/**
+	 * Slot of a variable
+	 * @param name the name of the variable
+	 * @return the slot index of this variable or -1 if there is no such
+	 * variable in this table
+	 */
+	public int slotOf(String name)
+	{
+		Integer slot = slots.get(name);
+		return slot != null ? slot : -1;
+	}
+
+	/**
+	 * Number of variables
+	 * @return the number of variables (and slots) in this table
+	 */
+	public int size()
+	{
+		return variables.size();
+	}
+
+	/**
+	 * Names of variables
+	 * @return a new list of the variables names in slot order
+	 */
+	public List<String> getNames()
+	{
+		List<String> names = new ArrayList<String>(variables.size());
+		for (VariableExpression<E> variable : variables)
+		{
+			names.add(variable.getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Shared variables
+	 * @return an unmodifiable list of the variables in slot order
+	 */
+	public List<VariableExpression<E>> getVariables()
+	{
+		return Collections.unmodifiableList(variables);
+	}
+
+	/**
+	 * Creates a new frame with a slot for each variable of this table
+	 * @return a new array of {@link #size()} zeros
+	 */
+	public double[] newFrame()
+	{
+		return new double[variables.size()];
+	}
+
+	/**
+	 * Copies the values of variables into a frame.
+	 * Slots of variables without value are left unchanged.
+	 * @param frame the frame to fill (with at least {@link #size()} slots)
+	 * @throws IndexOutOfBoundsException if frame is too small
+	 */
+	public void load(double[] frame) throws IndexOutOfBoundsException
+	{
+		loaded.clear();
+		for (int slot = 0; slot < variables.size(); slot++)
+		{
+			VariableExpression<E> variable = variables.get(slot);
+			if (variable.hasValue())
+			{
+				frame[slot] = variable.value().doubleValue();
+				loaded.set(slot);
+			}
+		}
+	}
+
+	/**
+	 * Copies the values of a frame into the variables which were loaded by
+	 * the last {@link #load(double[])}.
+	 * Variables without value are left unchanged since their slots don't
+	 * hold a meaningful value.
+	 * @param frame the frame to read (with at least {@link #size()} slots)
+	 * @throws IndexOutOfBoundsException if frame is too small
+	 * @see #store(double[], List)
+	 */
+	public void store(double[] frame) throws IndexOutOfBoundsException
+	{
+		store(frame, List.of());
+	}
+
+	/**
+	 * Copies the values of a frame into the variables which were loaded by
+	 * the last {@link #load(double[])} or assigned by programs evaluated with
+	 * this frame. Other variables are left unchanged.
+	 * @param frame the frame to read (with at least {@link #size()} slots)
+	 * @param programs the programs evaluated with this frame (built with
+	 * this table's slots)
+	 * @throws IndexOutOfBoundsException if frame is too small
+	 * @see Program#getAssignedVariables()
+	 */
+	public void store(double[] frame, List<Program> programs) throws IndexOutOfBoundsException
+	{
+		BitSet written = (BitSet) loaded.clone();
+		for (Program program : programs)
+		{
+			for (String name : program.getAssignedVariables())
+			{
+				Integer slot = slots.get(name);
+				if (slot != null)
+				{
+					written.set(slot);
+				}
+			}
+		}
+		for (int slot = written.nextSetBit(0); slot >= 0; slot = written.nextSetBit(slot + 1))
+		{
+			variables.get(slot).setValue(fromDouble(frame[slot]));
+		}
+	}
+
+	/**
+	 * Converts a frame value to the type of numbers of this table
+	 * @param value the value to convert
+	 * @return the converted value
+	 */
+	@SuppressWarnings("unchecked")
+	private E fromDouble(double value)
+	{
+		if (numberClass == Integer.class)
+		{
+			return (E) Integer.valueOf((int) value);
+		}
+		else if (numberClass == Float.class)
+		{
+			return (E) Float.valueOf((float) value);
+		}
+		return (E) Double.valueOf(value);
+	}
+}
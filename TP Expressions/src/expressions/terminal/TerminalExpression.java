@@ -3,6 +3,7 @@ package expressions.terminal;
 import java.util.Optional;
 
 import expressions.AbstractExpression;
+import expressions.EvaluationContext;
 import expressions.Expression;
 
 /**
@@ -59,6 +60,18 @@ public abstract class TerminalExpression<E extends Number> extends AbstractExpre
 		return value.get();
 	}
 
+	/**
+	 * Numeric value of this expression in a context
+	 * @param context the values of variables (unused by constants)
+	 * @return the numeric value of this expression
+	 * @throws IllegalStateException if this expression doesn't have a value
+	 */
+	@Override
+	public E value(EvaluationContext<E> context) throws IllegalStateException
+	{
+		return value();
+	}
+
 	/**
 	 * Indicate if this expression can be evaluated right now to procude a value
 	 * @return true if expression can produce a value
@@ -1,8 +1,12 @@
 package expressions.terminal;
 
 import java.lang.StackWalker.Option;
+import java.util.Objects;
 import java.util.Optional;
 
+import expressions.AbstractExpression;
+import expressions.EvaluationContext;
+
 /**
  * Variable expression.
  * a Variable expression is (like {@link ConstantExpression}) a numerical
@@ -65,6 +69,20 @@ public class VariableExpression<E extends Number> extends TerminalExpression<E>
 		return name;
 	}
 
+	/**
+	 * Value of this variable in a context
+	 * @param context the values of variables
+	 * @return the value of this variable in the context (the value held by
+	 * this variable is ignored)
+	 * @throws IllegalStateException if this variable has no value in the
+	 * context
+	 */
+	@Override
+	public E value(EvaluationContext<E> context) throws IllegalStateException
+	{
+		return context.get(name);
+	}
+
 	/**
 	 * Merge value with another variable or constant
 	 * @param term the terminal expression to take value from.
@@ -78,7 +96,7 @@ public class VariableExpression<E extends Number> extends TerminalExpression<E>
 		// Only set value if the terminal expression has a value
 		if (term != null && term.hasValue()) {
 			E termValue = term.value();
-			value = Optional.of(termValue);
+			setValue(termValue);
 			return true;
 		}
 		return false;
@@ -89,6 +107,8 @@ public class VariableExpression<E extends Number> extends TerminalExpression<E>
 	 * @param value the value to set to this variable
 	 * @throws NullPointerException if we try to set a null value
 	 * @see Optional#of(Object)
+	 * @implNote expressions using this variable are invalidated only if the
+	 * value actually changes
 	 */
 	@Override
 	public void setValue(E value) throws NullPointerException
@@ -96,7 +116,10 @@ public class VariableExpression<E extends Number> extends TerminalExpression<E>
 		// DONE 302 Replace with correct implementation
 		if (value == null)
 			throw new NullPointerException("Variable expression must have a value");
+		if (this.value.isPresent() && this.value.get().equals(value))
+			return;
 		this.value = Optional.of(value);
+		invalidate();
 	}
 
 	/**
@@ -105,7 +128,11 @@ public class VariableExpression<E extends Number> extends TerminalExpression<E>
 	@Override
 	public void clearValue()
 	{
-		value = Optional.empty();
+		if (value.isPresent())
+		{
+			value = Optional.empty();
+			invalidate();
+		}
 	}
 
 	/**
@@ -118,4 +145,28 @@ public class VariableExpression<E extends Number> extends TerminalExpression<E>
 		// DONE 303 Replace with correct implementation
 		return name;
 	}
+
+	/**
+	 * Computes the hash code of this variable from its name without building
+	 * any String
+	 */
+	@Override
+	protected void computeHash()
+	{
+		String string = String.valueOf(name);
+		setHash(string.hashCode(), scaleOf(string.length()));
+	}
+
+	/**
+	 * Compares the name of this variable with the name of another variable
+	 * @param expr the other variable
+	 * @return true if both variables have the same name and, when both have
+	 * values, values of the same type
+	 */
+	@Override
+	protected boolean sameStructure(AbstractExpression<?> expr)
+	{
+		return Objects.equals(name, ((VariableExpression<?>) expr).name)
+		    && sameTypes(expr);
+	}
 }
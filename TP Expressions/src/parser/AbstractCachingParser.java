@@ -0,0 +1,283 @@
+package parser;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressions.Expression;
+import parser.exceptions.ParserException;
+
+/**
+ * Parser keeping the results of the most recently parsed sources so that
+ * parsing the same source again costs a single lookup.
+ * Parsed statements are cached in a form which can be shared by any number
+ * of threads (defined by subclasses, see {@link #compile(List)}), since
+ * expression trees hold the values of their variables.
+ * The cache is bounded both in number of entries and in weight (number of
+ * characters of sources plus the weight of each compiled statement, see
+ * {@link #weigh(Object)}) and evicts least recently used entries first.
+ * Caching parsers are thread safe.
+ * @param <E> The type of numbers in parsed expressions
+ * @param <C> The type of cached statements
+ * @see CachingExpressionParser
+ * @see CachingTreeParser
+ */
+public abstract class AbstractCachingParser<E extends Number, C>
+{
+	/**
+	 * Default maximum number of cached sources
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+	/**
+	 * Default maximum total weight of cached sources
+	 */
+	public static final long DEFAULT_MAX_WEIGHT = 1L << 20;
+
+	/**
+	 * A cached entry : the statements compiled from a source and its weight
+	 * @param <C> The type of cached statements
+	 */
+	private static final class Entry<C>
+	{
+		/**
+		 * The statements compiled from a source
+		 */
+		final List<C> statements;
+
+		/**
+		 * The weight of this entry
+		 */
+		final long weight;
+
+		/**
+		 * Constructor
+		 * @param statements the statements compiled from a source
+		 * @param weight the weight of this entry
+		 */
+		Entry(List<C> statements, long weight)
+		{
+			this.statements = statements;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Parser used by each thread (since parsers are not thread safe)
+	 */
+	private final ThreadLocal<ExpressionParser<E>> parsers;
+
+	/**
+	 * Cached entries by source in access order (least recently used first)
+	 */
+	private final LinkedHashMap<String, Entry<C>> cache;
+
+	/**
+	 * Maximum number of cached sources
+	 */
+	private final int maxEntries;
+
+	/**
+	 * Maximum total weight of cached sources
+	 */
+	private final long maxWeight;
+
+	/**
+	 * Current total weight of cached sources
+	 */
+	private long weight;
+
+	/**
+	 * Number of sources found in cache
+	 */
+	private long hits;
+
+	/**
+	 * Number of sources which had to be parsed
+	 */
+	private long misses;
+
+	/**
+	 * Number of evicted entries
+	 */
+	private long evictions;
+
+	/**
+	 * Constructor (to be used by subclasses)
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @param maxEntries maximum number of cached sources
+	 * @param maxWeight maximum total weight of cached sources
+	 * @throws IllegalArgumentException if the specimen's class is not
+	 * supported by {@link ExpressionParser} or if bounds are not positive
+	 */
+	protected AbstractCachingParser(Number specimen, int maxEntries, long maxWeight)
+		throws IllegalArgumentException
+	{
+		if (maxEntries <= 0 || maxWeight <= 0)
+		{
+			throw new IllegalArgumentException("Invalid cache bounds : "
+			    + maxEntries + " entries, " + maxWeight + " weight");
+		}
+		new ExpressionParser<E>(specimen); // checks the specimen
+		parsers = ThreadLocal.withInitial(() -> new ExpressionParser<E>(specimen));
+		cache = new LinkedHashMap<String, Entry<C>>(16, 0.75f, true);
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		weight = 0;
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * Compiles parsed statements into their cached form
+	 * @param statements the statements parsed from a source
+	 * @return an unmodifiable list of compiled statements (one per statement)
+	 * which can be shared by several threads
+	 * @throws IllegalArgumentException if a statement can't be compiled
+	 */
+	protected abstract List<C> compile(List<Expression<E>> statements)
+		throws IllegalArgumentException;
+
+	/**
+	 * Weight of a compiled statement
+	 * @param statement the compiled statement
+	 * @return the weight of this statement in the cache
+	 */
+	protected abstract long weigh(C statement);
+
+	/**
+	 * Parse multiple statements (e.g. "a = 2; a * x + 1") into compiled
+	 * statements
+	 * @param source the statements to parse
+	 * @return an unmodifiable list of compiled statements (one per statement)
+	 * @throws ParserException if the source can't be parsed (errors are not
+	 * cached)
+	 * @throws IllegalArgumentException if a statement can't be compiled
+	 */
+	public List<C> parse(String source)
+		throws ParserException, IllegalArgumentException
+	{
+		synchronized (cache)
+		{
+			Entry<C> entry = cache.get(source);
+			if (entry != null)
+			{
+				hits++;
+				return entry.statements;
+			}
+			misses++;
+		}
+
+		// Parse outside of the lock so misses don't serialize threads
+		List<C> statements = compile(parsers.get().parse(source));
+		long entryWeight = source.length();
+		for (C statement : statements)
+		{
+			entryWeight += weigh(statement);
+		}
+
+		synchronized (cache)
+		{
+			if (entryWeight <= maxWeight)
+			{
+				Entry<C> previous = cache.put(source, new Entry<C>(statements, entryWeight));
+				weight += entryWeight;
+				if (previous != null)
+				{
+					// Parsed concurrently by another thread
+					weight -= previous.weight;
+				}
+				evict();
+			}
+		}
+		return statements;
+	}
+
+	/**
+	 * Evicts least recently used entries until bounds are respected
+	 */
+	private void evict()
+	{
+		Iterator<Map.Entry<String, Entry<C>>> iterator = cache.entrySet().iterator();
+		while ((cache.size() > maxEntries || weight > maxWeight) && iterator.hasNext())
+		{
+			weight -= iterator.next().getValue().weight;
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Number of cached sources
+	 * @return the number of cached sources
+	 */
+	public int size()
+	{
+		synchronized (cache)
+		{
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Total weight of cached sources
+	 * @return the total weight of cached sources
+	 */
+	public long getWeight()
+	{
+		synchronized (cache)
+		{
+			return weight;
+		}
+	}
+
+	/**
+	 * Number of sources found in cache
+	 * @return the number of cache hits
+	 */
+	public long getHits()
+	{
+		synchronized (cache)
+		{
+			return hits;
+		}
+	}
+
+	/**
+	 * Number of sources which had to be parsed
+	 * @return the number of cache misses
+	 */
+	public long getMisses()
+	{
+		synchronized (cache)
+		{
+			return misses;
+		}
+	}
+
+	/**
+	 * Number of entries evicted to respect bounds
+	 * @return the number of evictions
+	 */
+	public long getEvictions()
+	{
+		synchronized (cache)
+		{
+			return evictions;
+		}
+	}
+
+	/**
+	 * Removes all cached sources
+	 */
+	public void clear()
+	{
+		synchronized (cache)
+		{
+			cache.clear();
+			weight = 0;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only {@link CharSequence} view of single byte characters
+ * (ISO-8859-1, which includes ASCII) stored in a {@link ByteBuffer} such as
+ * a memory-mapped file.
+ * Characters are decoded on the fly by {@link #charAt(int)} and sub
+ * sequences are views sharing the same buffer so the content is never
+ * copied (except by {@link #toString()}).
+ */
+final class ByteCharSequence implements CharSequence
+{
+	/**
+	 * The bytes containing characters
+	 */
+	private final ByteBuffer bytes;
+
+	/**
+	 * Index of the first character in {@link #bytes}
+	 */
+	private final int offset;
+
+	/**
+	 * Number of characters
+	 */
+	private final int length;
+
+	/**
+	 * Constructor of a view of all the remaining bytes of a buffer
+	 * @param bytes the bytes containing characters
+	 */
+	ByteCharSequence(ByteBuffer bytes)
+	{
+		this(bytes, bytes.position(), bytes.remaining());
+	}
+
+	/**
+	 * Constructor of a view of a part of a buffer
+	 * @param bytes the bytes containing characters
+	 * @param offset index of the first character in bytes
+	 * @param length number of characters
+	 */
+	private ByteCharSequence(ByteBuffer bytes, int offset, int length)
+	{
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Number of characters
+	 * @return the number of characters in this sequence
+	 */
+	@Override
+	public int length()
+	{
+		return length;
+	}
+
+	/**
+	 * Character at index
+	 * @param index the index of the character
+	 * @return the character decoded from the byte at this index
+	 * @throws IndexOutOfBoundsException if index is invalid
+	 */
+	@Override
+	public char charAt(int index) throws IndexOutOfBoundsException
+	{
+		if (index < 0 || index >= length)
+		{
+			throw new IndexOutOfBoundsException(index);
+		}
+		return (char) (bytes.get(offset + index) & 0xFF);
+	}
+
+	/**
+	 * View of a part of this sequence
+	 * @param start index of the first character
+	 * @param end index following the last character
+	 * @return a new view sharing the same bytes
+	 * @throws IndexOutOfBoundsException if start or end are invalid
+	 */
+	@Override
+	public CharSequence subSequence(int start, int end)
+		throws IndexOutOfBoundsException
+	{
+		if (start < 0 || end > length || start > end)
+		{
+			throw new IndexOutOfBoundsException("Invalid bounds [" + start
+			    + ", " + end + "[ for length " + length);
+		}
+		return new ByteCharSequence(bytes, offset + start, end - start);
+	}
+
+	/**
+	 * String containing the characters of this sequence
+	 * @return a new String containing a copy of the characters of this
+	 * sequence
+	 */
+	@Override
+	public String toString()
+	{
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++)
+		{
+			chars[i] = (char) (bytes.get(offset + i) & 0xFF);
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,82 @@
+package parser;
+
+import java.util.Collections;
+import java.util.List;
+
+import expressions.Expression;
+import expressions.program.Program;
+import expressions.program.ProgramBuilder;
+import expressions.program.StackMachine;
+
+/**
+ * Caching parser keeping parsed statements as immutable {@link Program}s
+ * rather than expression trees since trees hold the values of their
+ * variables : a cached program can be shared by any number of threads, each
+ * of them binding variables in its own frame (see {@link Program#newFrame()}
+ * and {@link Program#slotOf(String)}) and evaluating with its own
+ * {@link StackMachine}.
+ * The weight of a program is the number of bytes of its code.
+ * @param <E> The type of numbers in parsed expressions
+ * @see CachingTreeParser
+ */
+public class CachingExpressionParser<E extends Number> extends AbstractCachingParser<E, Program>
+{
+	/**
+	 * Builder lowering parsed expressions into programs
+	 */
+	private final ProgramBuilder<E> builder;
+
+	/**
+	 * Constructor with default bounds
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double}
+	 */
+	public CachingExpressionParser(Number specimen) throws IllegalArgumentException
+	{
+		this(specimen, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @param maxEntries maximum number of cached sources
+	 * @param maxWeight maximum total weight of cached sources
+	 * @throws IllegalArgumentException if the specimen's class is not one of
+	 * {@link Integer}, {@link Float} or {@link Double} or if bounds are not
+	 * positive
+	 */
+	public CachingExpressionParser(Number specimen, int maxEntries, long maxWeight)
+		throws IllegalArgumentException
+	{
+		super(specimen, maxEntries, maxWeight);
+		builder = new ProgramBuilder<E>(specimen);
+	}
+
+	/**
+	 * Lowers parsed statements into programs sharing the same variables
+	 * slots (so a single frame can be used to evaluate all of them in
+	 * sequence)
+	 * @param statements the statements parsed from a source
+	 * @return an unmodifiable list of programs (one per statement)
+	 * @throws IllegalArgumentException if a statement can't be lowered into
+	 * a {@link Program}
+	 */
+	@Override
+	protected List<Program> compile(List<Expression<E>> statements)
+		throws IllegalArgumentException
+	{
+		return Collections.unmodifiableList(builder.build(statements));
+	}
+
+	/**
+	 * Weight of a program
+	 * @param program the program
+	 * @return the number of bytes of the program's code
+	 */
+	@Override
+	protected long weigh(Program program)
+	{
+		return program.getCode().length;
+	}
+}
@@ -0,0 +1,90 @@
+package parser;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.binary.BinaryExpression;
+
+/**
+ * Caching parser keeping parsed statements as expression trees, for the
+ * types of numbers which can't be lowered into programs (such as
+ * {@link Long} or {@link java.math.BigDecimal}).
+ * Cached trees are shared by all threads so they must only be evaluated
+ * with {@link Expression#value(EvaluationContext)}, each thread binding
+ * variables in its own context : the values held by the variables of cached
+ * trees are never read nor written.
+ * The weight of a tree is its number of nodes.
+ * @param <E> The type of numbers in parsed expressions
+ * @see CachingExpressionParser
+ */
+public class CachingTreeParser<E extends Number> extends AbstractCachingParser<E, Expression<E>>
+{
+	/**
+	 * Constructor with default bounds
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @throws IllegalArgumentException if the specimen's class is not
+	 * supported by {@link ExpressionParser}
+	 */
+	public CachingTreeParser(Number specimen) throws IllegalArgumentException
+	{
+		this(specimen, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @param maxEntries maximum number of cached sources
+	 * @param maxWeight maximum total weight of cached sources
+	 * @throws IllegalArgumentException if the specimen's class is not
+	 * supported by {@link ExpressionParser} or if bounds are not positive
+	 */
+	public CachingTreeParser(Number specimen, int maxEntries, long maxWeight)
+		throws IllegalArgumentException
+	{
+		super(specimen, maxEntries, maxWeight);
+	}
+
+	/**
+	 * Keeps parsed statements as they are
+	 * @param statements the statements parsed from a source
+	 * @return an unmodifiable copy of the statements
+	 */
+	@Override
+	protected List<Expression<E>> compile(List<Expression<E>> statements)
+	{
+		return List.copyOf(statements);
+	}
+
+	/**
+	 * Weight of a tree
+	 * @param statement the root of the tree
+	 * @return the number of nodes of the tree
+	 */
+	@Override
+	protected long weigh(Expression<E> statement)
+	{
+		long nodes = 0;
+		Deque<Expression<E>> pending = new ArrayDeque<Expression<E>>();
+		pending.push(statement);
+		while (!pending.isEmpty())
+		{
+			Expression<E> current = pending.pop();
+			nodes++;
+			if (current instanceof BinaryExpression<E> binop)
+			{
+				if (binop.getLeft() != null)
+				{
+					pending.push(binop.getLeft());
+				}
+				if (binop.getRight() != null)
+				{
+					pending.push(binop.getRight());
+				}
+			}
+		}
+		return nodes;
+	}
+}
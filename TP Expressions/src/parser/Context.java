@@ -13,9 +13,25 @@ import expressions.binary.BinaryExpression;
 public class Context<E extends Number>
 {
 	/**
-	 * The context String to interpret
+	 * The characters containing the context to interpret
 	 */
-	private String context;
+	private CharSequence source;
+
+	/**
+	 * Index of the first character of this context in {@link #source}
+	 */
+	private int start;
+
+	/**
+	 * Index following the last character of this context in {@link #source}
+	 */
+	private int end;
+
+	/**
+	 * Indicates if an assignment operator has already been encountered in
+	 * this context
+	 */
+	private boolean assignment;
 
 	/**
 	 * The operands stack associated with this context
@@ -33,7 +49,24 @@ public class Context<E extends Number>
 	 */
 	public Context(String context)
 	{
-		this.context = context;
+		this(context, 0);
+		end = context.length();
+	}
+
+	/**
+	 * Constructor from the start of a context within characters (which
+	 * doesn't copy these characters).
+	 * The end of this context is unknown until {@link #setEnd(int)} is
+	 * called and extends to the end of source until then.
+	 * @param source the characters containing the context to interpret
+	 * @param start index of the first character of this context in source
+	 */
+	public Context(CharSequence source, int start)
+	{
+		this.source = source;
+		this.start = start;
+		end = -1;
+		assignment = false;
 		operands = new Stack<Expression<E>>();
 		operators = new Stack<BinaryExpression<E>>();
 	}
@@ -107,7 +140,43 @@ public class Context<E extends Number>
 	 */
 	public String getContext()
 	{
-		return context;
+		return source.subSequence(start, end >= 0 ? end : source.length()).toString();
+	}
+
+	/**
+	 * Start accessor
+	 * @return the index of the first character of this context in its source
+	 */
+	public int getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * End setter
+	 * @param end index following the last character of this context in its
+	 * source
+	 */
+	public void setEnd(int end)
+	{
+		this.end = end;
+	}
+
+	/**
+	 * Indicate if an assignment operator has been encountered in this context
+	 * @return true if an assignment operator has been encountered
+	 */
+	public boolean hasAssignment()
+	{
+		return assignment;
+	}
+
+	/**
+	 * Records an assignment operator has been encountered in this context
+	 */
+	public void setAssignment()
+	{
+		assignment = true;
 	}
 
 	/**
@@ -160,6 +229,6 @@ public class Context<E extends Number>
 //		}
 //
 //		return tokens;
-		return context.toCharArray();
+		return getContext().toCharArray();
 	}
 }
@@ -0,0 +1,181 @@
+package parser;
+
+/**
+ * Result of the validation of a program by {@link ExpressionValidator} :
+ * either {@link #VALID} or the kind of the first error found with its
+ * position.
+ * Diagnostics are immutable.
+ */
+public final class Diagnostic
+{
+	/**
+	 * Kinds of errors (each one corresponding to the
+	 * {@link parser.exceptions.ParserException} thrown by
+	 * {@link ExpressionParser} for the same error)
+	 */
+	public enum Code
+	{
+		/**
+		 * No error
+		 */
+		NONE("No error"),
+		/**
+		 * Character which can't start any token or unbalanced closing
+		 * parenthesis
+		 * @see parser.exceptions.UnknownTokenException
+		 */
+		UNKNOWN_TOKEN("Unknown token"),
+		/**
+		 * Number which can't be converted (such as "1.2.3" or an integer
+		 * overflow)
+		 * @see parser.exceptions.IndirectParserException
+		 */
+		INVALID_NUMBER("Invalid number"),
+		/**
+		 * Operator without binary expression class
+		 * @see parser.exceptions.IndirectParserException
+		 */
+		UNSUPPORTED_OPERATOR("Unsupported operator"),
+		/**
+		 * Several assignments in the same context
+		 * @see parser.exceptions.MultipleAssignmentsException
+		 */
+		MULTIPLE_ASSIGNMENTS("Multiple assignments"),
+		/**
+		 * Operator or parenthesis without operand or empty statement
+		 * @see parser.exceptions.MissingRightOperandException
+		 */
+		MISSING_RIGHT_OPERAND("Missing right operand"),
+		/**
+		 * Operator without left operand which can't be unary (such as "* 2")
+		 * @see parser.exceptions.UnsupportedUnaryOperatorException
+		 */
+		UNSUPPORTED_UNARY_OPERATOR("Unsupported unary operator"),
+		/**
+		 * Assignment to something else than a variable, assignment of a
+		 * variable to itself or assignment used as an operand
+		 * @see parser.exceptions.IllegalAssignmentException
+		 */
+		ILLEGAL_ASSIGNMENT("Illegal assignment"),
+		/**
+		 * Operands without operator in between (such as "a b")
+		 * @see parser.exceptions.IllegalPostParsingStateException
+		 */
+		MISSING_OPERATOR("Missing operator"),
+		/**
+		 * Unbalanced opening parenthesis
+		 * @see parser.exceptions.UnfinishedSubContextException
+		 */
+		UNFINISHED_SUB_CONTEXT("Unfinished sub-context");
+
+		/**
+		 * Description of this kind of error
+		 */
+		private final String description;
+
+		/**
+		 * Constructor
+		 * @param description the description of this kind of error
+		 */
+		private Code(String description)
+		{
+			this.description = description;
+		}
+
+		/**
+		 * Description of this kind of error
+		 * @return the description of this kind of error
+		 */
+		public String getDescription()
+		{
+			return description;
+		}
+	}
+
+	/**
+	 * Shared diagnostic of valid programs
+	 */
+	public static final Diagnostic VALID = new Diagnostic(Code.NONE, -1, -1);
+
+	/**
+	 * The kind of error
+	 */
+	private final Code code;
+
+	/**
+	 * Index of the character where the error was found
+	 */
+	private final int position;
+
+	/**
+	 * Index of the statement (among statements separated by ";") where the
+	 * error was found
+	 */
+	private final int statement;
+
+	/**
+	 * Constructor
+	 * @param code the kind of error
+	 * @param position index of the character where the error was found
+	 * @param statement index of the statement where the error was found
+	 */
+	Diagnostic(Code code, int position, int statement)
+	{
+		this.code = code;
+		this.position = position;
+		this.statement = statement;
+	}
+
+	/**
+	 * Indicates if the validated program is valid
+	 * @return true if there is no error
+	 */
+	public boolean isValid()
+	{
+		return code == Code.NONE;
+	}
+
+	/**
+	 * Kind of error
+	 * @return the kind of error ({@link Code#NONE} for valid programs)
+	 */
+	public Code getCode()
+	{
+		return code;
+	}
+
+	/**
+	 * Position of the error
+	 * @return the index of the character where the error was found or -1 for
+	 * valid programs
+	 */
+	public int getPosition()
+	{
+		return position;
+	}
+
+	/**
+	 * Statement of the error
+	 * @return the index of the statement where the error was found or -1 for
+	 * valid programs
+	 */
+	public int getStatement()
+	{
+		return statement;
+	}
+
+	/**
+	 * String representation of this diagnostic
+	 * @return a String representation of the kind and position of the error
+	 */
+	@Override
+	public String toString()
+	{
+		if (isValid())
+		{
+			return code.getDescription();
+		}
+		return code.getDescription() + " at " + position + " (statement "
+		    + statement + ")";
+	}
+}
@@ -1,14 +1,31 @@
 package parser;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Stack;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import expressions.Expression;
-import expressions.binary.AdditionExpression;
 import expressions.binary.AssignmentExpression;
 import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
 import expressions.terminal.ConstantExpression;
+import expressions.terminal.SymbolTable;
 import expressions.terminal.VariableExpression;
 import parser.exceptions.IllegalAssignmentException;
 import parser.exceptions.IllegalPostParsingStateException;
@@ -59,6 +76,18 @@ public class ExpressionParser<E extends Number>
 	 */
 	private Class<? extends Number> numberClass;
 
+	/**
+	 * The tokenizer reading characters to parse
+	 */
+	private final Lexer lexer;
+
+	/**
+	 * The symbol table providing shared variables during
+	 * {@link #parse(CharSequence, SymbolTable)} or null when each occurrence
+	 * of a variable is a distinct {@link VariableExpression}
+	 */
+	private SymbolTable<E> symbols;
+
 	/**
 	 * Constructor
 	 * @param specimen A specimen to provide the Number class for expressions
@@ -70,197 +99,140 @@ public class ExpressionParser<E extends Number>
 	{
 		numberClass = specimen.getClass();
 		contexts = new Stack<Context<E>>();
+		lexer = new Lexer(specimen);
+		symbols = null;
 	}
 
 	/**
-	 * Determine if a character is a digit
-	 * @param c the character to examine
-	 * @return true if character c is a digit
-	 */
-	private boolean isDigit(char c)
-	{
-		boolean result = (c >= '0') && (c <= '9');
-		// Adds decimal point for floating points numbers
-		if (numberClass != Integer.class)
-		{
-			result |= (c == '.');
-		}
-
-		return result;
-	}
-
-	/**
-	 * Determine if a character is a letter
-	 * @param c the character to examine
-	 * @return true if character c is a letter or underscore
-	 */
-	private boolean isLetter(char c)
-	{
-		return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'))
-		    || (c == '_');
-	}
-
-	/**
-	 * Determine if a character is an operator among (=, +, -, *, /, ^)
-	 * @param c the character to examine
-	 * @return true if character c is an operator
-	 */
-	private boolean isOperator(char c)
-	{
-		return (c == '=') || (c == '+') || (c == '-') || (c == '*')
-		    || (c == '/') || (c == '^');
-	}
-
-	/**
-	 * Utility method to parse Number in context string
-	 * @param context the context to interpret number from
+	 * Creates a number of the {@link #numberClass} from the current
+	 * {@link Lexer.Token#NUMBER} token of the {@link #lexer}
 	 * @return the resulting number (instance of one of the subclasses of
 	 * {@link Number} depending on the {@link #numberClass}).
 	 */
 	@SuppressWarnings("unchecked")
-	private E parseNumber(String context)
+	private E newNumber()
 	{
 		if (numberClass == Integer.class)
 		{
-			return (E) Integer.valueOf(context);
+			return (E) Integer.valueOf((int) lexer.longValue());
+		}
+		else if (numberClass == Long.class)
+		{
+			return (E) Long.valueOf(lexer.longValue());
+		}
+		else if (numberClass == BigDecimal.class)
+		{
+			return (E) lexer.decimalValue();
 		}
 		else if (numberClass == Float.class)
 		{
-			return (E) Float.valueOf(context);
+			return (E) Float.valueOf((float) lexer.doubleValue());
 		}
 		else
 		{
-			return (E) Double.valueOf(context);
+			return (E) Double.valueOf(lexer.doubleValue());
 		}
 	}
 
 	/**
-	 * Parse a constant value from tokens and push it to operands stack
-	 * @param tokens the char array to parse
-	 * @param start the index where we start parsing tokens
-	 * @return the index in tokens where we stopped parsing constant - 1
-	 * @post The resulting {@link ConstantExpression} has been pushed to
-	 * {@link Context#getOperandsStack()} stack.
+	 * Pushes an operand to the operands stack of the current context
+	 * @param operand the operand to push
 	 * @throws MissingContextException when {@link #currentContext} is null
 	 */
-	private int parseConstant(char[] tokens, int start)
+	private void pushOperand(Expression<E> operand)
 		throws MissingContextException
 	{
-		int i = start;
-		StringBuilder sb = new StringBuilder();
-		while ((i < tokens.length) && isDigit(tokens[i]))
-		{
-			sb.append(tokens[i++]);
-		}
-		if (currentContext != null)
-		{
-			currentContext.getOperandsStack()
-			    .push(new ConstantExpression<E>(parseNumber(sb.toString())));
-		}
-		else
+		if (currentContext == null)
 		{
 			throw new MissingContextException();
 		}
-		return i-1; // -1 because we will increment i in the for loop
+		currentContext.getOperandsStack().push(operand);
 	}
 
 	/**
-	 * Parse a variable value from tokens
-	 * @param tokens the char array to parse
-	 * @param start the index where we start parsing tokens
-	 * @return the index in tokens where we stopped parsing variable - 1
-	 * @post The resulting {@link VariableExpression} has been pushed to
-	 * {@link Context#getOperandsStack()} stack.
-	 * @throws MissingContextException when {@link #currentContext} is null
+	 * Pushes a new binary operator following the rules of the current
+	 * {@link Lexer.Token#OPERATOR} token of the {@link #lexer} to the
+	 * operators stack of the current context, after having applied the
+	 * preceding operators which should be applied first (see
+	 * {@link BinaryOperatorRules#isPrecededBy(BinaryOperatorRules)}).
+	 * @throws ParserException when parsing irregularities occur
+	 * @throws MultipleAssignmentsException if the current context already
+	 * contains an assignment
+	 * @throws IndirectParserException if there is no expression class for
+	 * this operator yet
 	 */
-	private int parseVariable(char[] tokens, int start)
-		throws MissingContextException
+	private void parseOperator() throws ParserException
 	{
-		int i = start;
-		StringBuilder sb = new StringBuilder();
-		while ((i < tokens.length) && isLetter(tokens[i]))
+		if (currentContext == null)
 		{
-			sb.append(tokens[i++]);
+			throw new MissingContextException();
 		}
-		if (currentContext != null)
+		BinaryOperatorRules rules = lexer.operator();
+		if (rules == BinaryOperatorRules.ASSIGNMENT)
 		{
-			currentContext.getOperandsStack()
-			    .push(new VariableExpression<E>(sb.toString()));
+			if (currentContext.hasAssignment())
+			{
+				throw new MultipleAssignmentsException();
+			}
+			currentContext.setAssignment();
 		}
-		else
+		BinaryExpression<E> binop = null;
+		try
 		{
-			throw new MissingContextException();
+			binop = rules.newExpression();
+		}
+		catch (UnsupportedOperationException e)
+		{
+			throw new IndirectParserException(e);
+		}
+		// Operands are built before their operator so they can't contain it
+		binop.setTrusted(true);
+		Stack<BinaryExpression<E>> operators = currentContext.getOperatorsStack();
+		// While operators contains greater precedence operators (or same
+		// precedence operators for left associative operators).
+		// Pop operator top from operators stack and
+		// Pop 2 top operands from operands stack and apply them to operator
+		// Then push the composed operator to operands stack
+		while (!operators.empty()
+		    && rules.isPrecededBy(operators.peek().getRules()))
+		{
+			popOperatorAndPush2Operands();
 		}
-		return i-1; // -1 because we will increment i in the for loop
+		operators.push(binop);
 	}
 
 	/**
-	 * Parse a complete sub-context enclosed in parenthesis starting at "start"
-	 * using chars in tokens and push the resulting expression into operands
-	 * stack.
-	 * @param tokens the char array to parse
-	 * @param start the index where we start parsing sub-context
-	 * @return the index in tokens where we stopped parsing the sub-context
-	 * (at the matching closing brace)
-	 * @throws ParserException just like {@link #parse(String)} since it is used
-	 * to parse the sub-context
-	 * @throws UnfinishedSubContextException when no matching ")" has been found
-	 * @throws MissingContextException if the current context is null
-	 * @post the sub-context resulting expression have been pushed to
-	 * {@link Context#getOperandsStack()}
-	 * @implNote Nested sub contexts (such as "(a + (b - 36))") must be
-	 * considered
+	 * Starts a sub-context enclosed in parenthesis: the current context is
+	 * pushed to {@link #contexts} and a new context starting after the
+	 * opening brace becomes the current context.
+	 * @param source the characters being parsed
+	 * @param start the index following the opening brace
 	 */
-	private int parseSubContext(char[] tokens, int start) throws ParserException
+	private void openSubContext(CharSequence source, int start)
 	{
-		if (tokens[start] == '(')
-		{
-			int end = tokens.length - 1;
-			/*
-			 * Search matching closing brace
-			 */
-			int braceCount = 0;
-			for (int i = start; i < tokens.length; i++)
-			{
-				if (tokens[i] == '(')
-				{
-					braceCount++;
-				}
-				if (tokens[i] == ')')
-				{
-					braceCount--;
-				}
-				if (braceCount == 0)
-				{
-					end = i;
-					break;
-				}
-			}
-			/*
-			 * Build sub-context between matching braces
-			 */
-			String subContext = String.copyValueOf(tokens,
-			                                       (start  + 1),
-			                                       (end - start - 1));
-			if (braceCount == 0) // We found a matching brace : subContext is ok
-			{
-				Expression<E> expression = parseSingleContext(subContext);
-				if (currentContext != null)
-				{
-					currentContext.getOperandsStack().push(expression);
-				}
-				else
-				{
-					throw new MissingContextException();
-				}
-				return end; // right at matching ")"
-			}
-			else
-			{
-				throw new UnfinishedSubContextException(subContext);
-			}
+		contexts.push(currentContext);
+		currentContext = new Context<E>(source, start);
+	}
+
+	/**
+	 * Ends a sub-context at its closing brace: the resulting expression of
+	 * the sub-context is pushed to the operands of the enclosing context
+	 * which becomes the current context again.
+	 * @param end the index of the closing brace
+	 * @throws ParserException if the sub-context can't produce a single
+	 * expression
+	 * @throws UnknownTokenException if there is no sub-context to close
+	 */
+	private void closeSubContext(int end) throws ParserException
+	{
+		if (contexts.isEmpty())
+		{
+			throw new UnknownTokenException(')');
 		}
-		return start;
+		currentContext.setEnd(end);
+		Expression<E> expression = reduceContext();
+		currentContext = contexts.pop();
+		pushOperand(expression);
 	}
 
 	/**
@@ -330,6 +302,7 @@ public class ExpressionParser<E extends Number>
 				}
 			}
 			// Success
+			operator.setTrusted(false);
 			operands.push(operator);
 		}
 		catch (IllegalStateException | IllegalArgumentException e)
@@ -364,7 +337,8 @@ public class ExpressionParser<E extends Number>
 	 * @throws TrailingLeftOperandException if after popping a right operand
 	 * from operands stack there are still operands left in operands stack
 	 * @throws UnsupportedNumberClassException if the number class is not one of
-	 * {@link Integer}, or {@link Float} or {@link Double} preventing us to
+	 * {@link Integer}, {@link Long}, {@link Float}, {@link Double} or
+	 * {@link BigDecimal} preventing us to
 	 * instanciate a 0 constant to turn "-2" into "0 - 2" for instance.
 	 */
 	@SuppressWarnings("unchecked") // Cause we might have to cast things into ConstantExpression<E>
@@ -425,6 +399,16 @@ public class ExpressionParser<E extends Number>
 				zero = (ConstantExpression<E>) ConstantExpression
 				    .getConstant(Double.valueOf(0));
 			}
+			else if (numberClass == Long.class)
+			{
+				zero = (ConstantExpression<E>) ConstantExpression
+				    .getConstant(Long.valueOf(0));
+			}
+			else if (numberClass == BigDecimal.class)
+			{
+				zero = (ConstantExpression<E>) ConstantExpression
+				    .getConstant(BigDecimal.ZERO);
+			}
 			else
 			{
 				// Revert to initial state
@@ -436,6 +420,7 @@ public class ExpressionParser<E extends Number>
 
 			// Success
 			operator.setLeft(zero);
+			operator.setTrusted(false);
 			operands.push(operator);
 		}
 	}
@@ -444,27 +429,29 @@ public class ExpressionParser<E extends Number>
 	 * Pops an operator from operators stack, then pops 2 operands from operands
 	 * stack, apply these operands on operator and push the operator on the
 	 * operands stack.
-	 * If popping 2 operands from operands stack fails by missing a left operand
-	 * then try to pop only 1 operand to build a (simulated) unary operator
-	 * (such as -a, -2, +b or +3).
+	 * If there is a single operand in operands stack (i.e. popping 2 operands
+	 * would fail by missing a left operand) then only 1 operand is popped to
+	 * build a (simulated) unary operator (such as -a, -2, +b or +3).
 	 * @throws ParserException Whenever some part of this operation fails
 	 * @see #popBinaryOperatorAndPush2Operands()
 	 * @see #popUnaryOperatorAndPush2Operands()
+	 * @implNote the number of operands is checked beforehand rather than
+	 * catching a {@link MissingLeftOperandException} so that no exception is
+	 * created for valid unary operators
 	 */
 	private void popOperatorAndPush2Operands() throws ParserException
 	{
 		try
 		{
-			popBinaryOperatorAndPush2Operands();
-		}
-		catch (MissingLeftOperandException e)
-		{
-			/*
-			 * If there is a missing left operand then
-			 * we'll try to parse the operator as unary
-			 * (such as -a, -2, +b or +3)
-			 */
-			popUnaryOperatorAndPush2Operands();
+			if ((currentContext != null)
+			    && (currentContext.getOperandsStack().size() == 1))
+			{
+				popUnaryOperatorAndPush2Operands();
+			}
+			else
+			{
+				popBinaryOperatorAndPush2Operands();
+			}
 		}
 		catch (IllegalStateException e)
 		{
@@ -546,25 +533,64 @@ public class ExpressionParser<E extends Number>
 	 * @return a list of expressions corresponding to each part o the context
 	 * @throws ParserException One of the various sub-classes of
 	 * {@link ParserException} if there was a non recoverable parser error.
+	 * @see #parse(CharSequence)
 	 */
 	public List<Expression<E>> parse(String context) throws ParserException
+	{
+		return parse((CharSequence) context);
+	}
+
+	/**
+	 * Parse multiple infix expressions from characters
+	 * (e.g. "100 * b + 12 / 14; b = 13") into a list of
+	 * {@link Expression}.
+	 * Characters are read once by the {@link #lexer} without being copied,
+	 * including within parenthesis, so parsing is linear in the number of
+	 * characters.
+	 * @param context the characters to interpret
+	 * @return a list of expressions corresponding to each part o the context
+	 * @throws ParserException One of the various sub-classes of
+	 * {@link ParserException} if there was a non recoverable parser error.
+	 * @implNote Just like splitting context around ";", trailing empty
+	 * statements are ignored but other empty statements are invalid.
+	 */
+	public List<Expression<E>> parse(CharSequence context) throws ParserException
 	{
 		List<Expression<E>> expressionList = new ArrayList<>();
-		String[] subContexts = context.split(";");
+		lexer.reset(context);
+		int emptyStatements = 0;
 
-		for (int s = 0; s < subContexts.length; s++)
+		try
 		{
-			try
+			do
 			{
-				Expression<E> expression = parseSingleContext(subContexts[s]);
-				expressionList.add(expression);
+				int start = lexer.position();
+				Expression<E> expression = parseStatement(context);
+				if (expression == null && lexer.tokenStart() == start)
+				{
+					emptyStatements++;
+				}
+				else
+				{
+					if (expression == null || emptyStatements > 0)
+					{
+						throw new MissingRightOperandException();
+					}
+					expressionList.add(expression);
+				}
 			}
-			catch (ParserException pe)
+			while (lexer.token() == Lexer.Token.SEPARATOR);
+
+			if (context.length() == 0)
 			{
-				clearContexts();
-				throw pe;
+				throw new MissingRightOperandException();
 			}
 		}
+		catch (ParserException pe)
+		{
+			clearContexts();
+			throw pe;
+		}
 
 		if (!contexts.isEmpty())
 		{
@@ -575,118 +601,215 @@ public class ExpressionParser<E extends Number>
 	}
 
 	/**
-	 * Parse an infix expression string (e.g. "100 * b + 12 / 14")
-	 * into an {@link Expression}
-	 * @param content the context string to interpret
-	 * @return a single expression corresponding to the context
+	 * Parse multiple infix expressions from characters
+	 * (e.g. "a = 2; b = a + 3") into a list of {@link Expression} where all
+	 * the occurrences of a variable are the same {@link VariableExpression}
+	 * provided by a symbol table : values assigned by a statement are
+	 * directly used by the following statements (and by later parses with
+	 * the same table).
+	 * @param context the characters to interpret
+	 * @param symbols the symbol table providing (and collecting) variables
+	 * @return a list of expressions corresponding to each part o the context
 	 * @throws ParserException One of the various sub-classes of
 	 * {@link ParserException} if there was a non recoverable parser error.
-	 * @see #isDigit(char)
-	 * @see #isLetter(char)
-	 * @see #isOperator(char)
-	 * @see #parseConstant(char[], int)
-	 * @see #parseVariable(char[], int)
-	 * @see #popOperatorAndPush2Operands()
+	 * Variables encountered before the error remain in the symbol table.
+	 * @see #parse(CharSequence)
+	 * @implNote Shared variables have several dependents and are therefore
+	 * not suitable for statements evaluated concurrently (such as with
+	 * {@link expressions.statements.ParallelEvaluator}).
 	 */
-	private Expression<E> parseSingleContext(String content)
+	public List<Expression<E>> parse(CharSequence context, SymbolTable<E> symbols)
 		throws ParserException
 	{
-		if (currentContext != null)
+		this.symbols = symbols;
+		try
 		{
-			contexts.push(currentContext);
+			return parse(context);
 		}
-		currentContext = new Context<E>(content);
-		char[] tokens = currentContext.getTokens();
-		Stack<BinaryExpression<E>> operators = currentContext.getOperatorsStack();
-		Stack<Expression<E>> operands = currentContext.getOperandsStack();
-		Expression<E> expression = null;
-		boolean assignmentFound = false;
+		finally
+		{
+			this.symbols = null;
+		}
+	}
+
+	/**
+	 * Parse statements one at a time from a reader.
+	 * Only the statement being parsed is held in memory so this is suitable
+	 * for huge programs. Statements are parsed lazily while the resulting
+	 * stream is consumed, so this parser should not be used for anything else
+	 * in the meantime.
+	 * @param reader the reader providing the program's characters
+	 * @return a sequential stream of statements. Closing this stream closes
+	 * the reader. Reading errors are thrown as {@link UncheckedIOException}s
+	 * and parsing errors as {@link IllegalArgumentException}s caused by a
+	 * {@link ParserException}.
+	 * @see StatementReader
+	 */
+	public Stream<Expression<E>> parse(Reader reader)
+	{
+		return stream(new StatementReader<E>(this,
+		                                     reader,
+		                                     StatementReader.DEFAULT_BUFFER_SIZE));
+	}
+
+	/**
+	 * Parse statements one at a time from a channel
+	 * @param channel the channel providing the program's bytes
+	 * @param charset the charset used to decode bytes
+	 * @return a sequential stream of statements. Closing this stream closes
+	 * the channel.
+	 * @see #parse(Reader)
+	 */
+	public Stream<Expression<E>> parse(ReadableByteChannel channel, Charset charset)
+	{
+		return parse(Channels.newReader(channel, charset));
+	}
 
-		for (int i = 0; i < tokens.length; i++)
+	/**
+	 * Parse statements one at a time from a memory-mapped file.
+	 * The file is read in place by the {@link #lexer} without decoding or
+	 * copying it into the heap, hence it must be encoded with single byte
+	 * characters (ASCII or ISO-8859-1).
+	 * Files too large to be mapped at once are read through a channel
+	 * instead.
+	 * @param file the path of the file containing the program
+	 * @return a sequential stream of statements
+	 * @throws IOException if the file can't be opened or mapped
+	 * @see #parse(Reader)
+	 */
+	public Stream<Expression<E>> parseMapped(Path file) throws IOException
+	{
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		if (channel.size() > Integer.MAX_VALUE)
 		{
-			// Current token is space ==> skip
-			if (tokens[i] == ' ')
-			{
-				continue;
-			}
-			// Current token is a number ==> parse constant and push it to operands
-			if (isDigit(tokens[i]))
-			{
-				// TODO 700 parse constant and push it to operands
-				// i = parse...
-				continue;
-			}
-			// Current token is a variable name ==> parse variable and push it to operands
-			if (isLetter(tokens[i]))
-			{
-				// TODO 701 parse variable and push it to operands
-				// i = parse...
-				continue;
-			}
-			// Current token is an operator ==> parse operator and push it to operators
-			if (isOperator(tokens[i]))
+			return parse(channel, StandardCharsets.ISO_8859_1);
+		}
+		MappedByteBuffer bytes;
+		try
+		{
+			// The mapping stays valid once the channel is closed
+			bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			channel.close();
+		}
+		return stream(new StatementReader<E>(this, new ByteCharSequence(bytes)));
+	}
+
+	/**
+	 * Stream of the statements of a statement reader
+	 * @param <E> The type of numbers in parsed expressions
+	 * @param statements the statements reader
+	 * @return a sequential stream of statements closing the statement reader
+	 * when closed
+	 */
+	private static <E extends Number> Stream<Expression<E>>
+	    stream(StatementReader<E> statements)
+	{
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(statements,
+		                                                                Spliterator.ORDERED
+		                                                                    | Spliterator.NONNULL),
+		                            false)
+		    .onClose(() -> {
+			    try
+			    {
+				    statements.close();
+			    }
+			    catch (IOException e)
+			    {
+				    throw new UncheckedIOException(e);
+			    }
+		    });
+	}
+
+	/**
+	 * Parse a single infix expression (e.g. "100 * b + 12 / 14") from the
+	 * current position of the {@link #lexer} up to the next ";" or the end
+	 * of characters.
+	 * Sub-contexts enclosed in parenthesis are parsed in place with their
+	 * own {@link Context} pushed on {@link #contexts}.
+	 * @param source the characters being parsed
+	 * @return a single expression corresponding to the statement or null if
+	 * the statement doesn't contain any token
+	 * @throws ParserException One of the various sub-classes of
+	 * {@link ParserException} if there was a non recoverable parser error.
+	 * @see #parseOperator()
+	 * @see #popOperatorAndPush2Operands()
+	 */
+	private Expression<E> parseStatement(CharSequence source)
+		throws ParserException
+	{
+		currentContext = new Context<E>(source, lexer.position());
+		boolean empty = true;
+
+		try
+		{
+			for (Lexer.Token token = lexer.next();
+			     (token != Lexer.Token.END) && (token != Lexer.Token.SEPARATOR);
+			     token = lexer.next())
 			{
-				BinaryExpression<E> binop = null;
-				switch (tokens[i])
+				empty = false;
+				switch (token)
 				{
-					case '=':
-						if (!assignmentFound)
-						{
-							binop = new AssignmentExpression<E>();
-							assignmentFound = true;
-						}
-						else
-						{
-							throw new MultipleAssignmentsException();
-						}
-						break;
-					case '+':
-						binop = new AdditionExpression<E>();
+					case NUMBER:
+						pushOperand(new ConstantExpression<E>(newNumber()));
 						break;
-					case '-':
-					case '–': // Caution there are several -
-						// TODO 702 Uncomment when SubtractionExpression is ready
-						// binop = new SubtractionExpression<E>();
+					case IDENTIFIER:
+						pushOperand(symbols != null
+						    ? symbols.variable(lexer.tokenText())
+						    : new VariableExpression<E>(lexer.tokenText()));
 						break;
-					case '*':
-						// TODO 703 uncomment when MultiplicationExpression is ready
-						// binop = new MultiplicationExpression<E>();
+					case OPERATOR:
+						parseOperator();
 						break;
-					case '/':
-						// TODO 704 uncomment when DivisionExpression is ready
-						// binop = new DivisionExpression<E>();
+					case OPEN:
+						openSubContext(source, lexer.tokenEnd());
 						break;
-					case '^':
-						// TODO 705 uncomment when PowerExpression is ready
-						// binop = new PowerExpression<E>();
+					case CLOSE:
+						closeSubContext(lexer.tokenStart());
 						break;
+					default:
+						// If we reached that point something went wrong
+						throw new UnknownTokenException(lexer.tokenChar());
 				}
-				// While operators contains same or greater precedence operators.
-				// Pop operator top from operators stack and
-				// Pop 2 top operands from operands stack and apply them to operator
-				// Then push the composed operator to operands stack
-				while (!operators.empty() && (operators.peek().getRules()
-				    .priority() >= binop.getRules().priority()))
-				{
-					popOperatorAndPush2Operands();
-				}
-
-				// TODO 706 Push newly created binop to operators.
-				// ...
-				continue;
-			}
-
-			// Current token is an opening brace ==> parse sub-context and push it to operands
-			if (tokens[i] == '(')
-			{
-				// TODO 707 parse sub-context and push it to operands
-				// i = parse...
-				continue;
 			}
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IndirectParserException(e);
+		}
 
-			// If we reached that point something went wrong
-			throw new UnknownTokenException(tokens[i]);
+		if (!contexts.isEmpty())
+		{
+			// Outermost unfinished sub-context
+			Context<E> unfinished = contexts.size() > 1 ? contexts.get(1) : currentContext;
+			throw new UnfinishedSubContextException(lexer.text(unfinished.getStart(),
+			                                                   lexer.tokenStart()));
 		}
+		currentContext.setEnd(lexer.tokenStart());
+		if (empty)
+		{
+			currentContext = null;
+			return null;
+		}
+
+		Expression<E> expression = reduceContext();
+		currentContext = null;
+		return expression;
+	}
+
+	/**
+	 * Reduces the current context into a single expression once all its tokens
+	 * have been read
+	 * @return the single expression resulting from the current context
+	 * @throws ParserException One of the various sub-classes of
+	 * {@link ParserException} if there was a non recoverable parser error.
+	 */
+	private Expression<E> reduceContext() throws ParserException
+	{
+		Stack<BinaryExpression<E>> operators = currentContext.getOperatorsStack();
+		Stack<Expression<E>> operands = currentContext.getOperandsStack();
 
 		// Pops all remaining operators from operators stack and
 		// push assembled operators to operands stack
@@ -707,17 +830,6 @@ public class ExpressionParser<E extends Number>
 		{
 			throw new IllegalPostParsingStateException();
 		}
-		expression = operands.pop();
-
-		if (contexts.isEmpty())
-		{
-			currentContext = null;
-		}
-		else
-		{
-			currentContext = contexts.pop();
-		}
-
-		return expression;
+		return operands.pop();
 	}
 }
@@ -0,0 +1,550 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import expressions.binary.BinaryOperatorRules;
+
+/**
+ * Validator checking programs (e.g. "a = 2; b = a + 3") with the same rules
+ * as {@link ExpressionParser#parse(CharSequence)} without building any
+ * expression nor throwing any exception : errors are reported as
+ * {@link Diagnostic}s with their kind and position.
+ * This is suitable for checking large batches of formulas (many of which
+ * may be invalid) since invalid formulas cost no more than valid ones.
+ * Operands are only described by their kind and their characters range in
+ * stacks of ints reused from one validation to the next.
+ * Validators are not thread safe.
+ * @see Diagnostic
+ */
+public class ExpressionValidator
+{
+	/**
+	 * Kind of operands : constants
+	 */
+	private static final int CONSTANT = 0;
+
+	/**
+	 * Kind of operands : variables
+	 */
+	private static final int VARIABLE = 1;
+
+	/**
+	 * Kind of operands : binary expressions other than assignments
+	 */
+	private static final int BINARY = 2;
+
+	/**
+	 * Kind of operands : assignments
+	 */
+	private static final int ASSIGNMENT = 3;
+
+	/**
+	 * Operators rules by ordinal
+	 */
+	private static final BinaryOperatorRules[] RULES = BinaryOperatorRules.values();
+
+	/**
+	 * The tokenizer reading characters to validate
+	 */
+	private final Lexer lexer;
+
+	/**
+	 * The tokenizer searching variables within assigned operands
+	 */
+	private final Lexer scanner;
+
+	/**
+	 * The characters being validated
+	 */
+	private CharSequence source;
+
+	/**
+	 * Kinds of operands of all contexts
+	 */
+	private int[] operandKinds;
+
+	/**
+	 * Index of the first character of operands of all contexts
+	 */
+	private int[] operandStarts;
+
+	/**
+	 * Index following the last character of operands of all contexts
+	 */
+	private int[] operandEnds;
+
+	/**
+	 * Index of the first character of the variable name of variable
+	 * operands of all contexts (excluding enclosing parenthesis)
+	 */
+	private int[] nameStarts;
+
+	/**
+	 * Index following the last character of the variable name of variable
+	 * operands of all contexts (excluding enclosing parenthesis)
+	 */
+	private int[] nameEnds;
+
+	/**
+	 * Number of operands of all contexts
+	 */
+	private int operands;
+
+	/**
+	 * Rules ordinals of operators of all contexts
+	 */
+	private int[] operatorRules;
+
+	/**
+	 * Index of operators characters of all contexts
+	 */
+	private int[] operatorPositions;
+
+	/**
+	 * Number of operators of all contexts
+	 */
+	private int operators;
+
+	/**
+	 * Number of operands of enclosing contexts for each context
+	 */
+	private int[] operandBases;
+
+	/**
+	 * Number of operators of enclosing contexts for each context
+	 */
+	private int[] operatorBases;
+
+	/**
+	 * Index of the opening parenthesis of each context (or of the
+	 * statement's start)
+	 */
+	private int[] contextStarts;
+
+	/**
+	 * Indicates if each context contains an assignment
+	 */
+	private boolean[] assignments;
+
+	/**
+	 * Number of contexts (the statement's context and sub-contexts enclosed
+	 * in parenthesis)
+	 */
+	private int contexts;
+
+	/**
+	 * The kind of the first error found (or {@link Diagnostic.Code#NONE})
+	 */
+	private Diagnostic.Code error;
+
+	/**
+	 * Position of the first error found
+	 */
+	private int errorPosition;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for numbers
+	 * (which determines if numbers may have a decimal point)
+	 */
+	public ExpressionValidator(Number specimen)
+	{
+		lexer = new Lexer(specimen);
+		scanner = new Lexer(specimen);
+		operandKinds = new int[16];
+		operandStarts = new int[16];
+		operandEnds = new int[16];
+		nameStarts = new int[16];
+		nameEnds = new int[16];
+		operatorRules = new int[16];
+		operatorPositions = new int[16];
+		operandBases = new int[4];
+		operatorBases = new int[4];
+		contextStarts = new int[4];
+		assignments = new boolean[4];
+	}
+
+	/**
+	 * Validates a program
+	 * @param source the characters of the program
+	 * @return {@link Diagnostic#VALID} if
+	 * {@link ExpressionParser#parse(CharSequence)} would succeed, or a
+	 * diagnostic of the first error found otherwise
+	 */
+	public Diagnostic validate(CharSequence source)
+	{
+		this.source = source;
+		lexer.reset(source);
+		error = Diagnostic.Code.NONE;
+		int statement = 0;
+		int emptyStatements = 0;
+		do
+		{
+			int start = lexer.position();
+			int tokens = validateStatement();
+			if (error != Diagnostic.Code.NONE)
+			{
+				return new Diagnostic(error, errorPosition, statement);
+			}
+			if (tokens == 0 && lexer.tokenStart() == start)
+			{
+				emptyStatements++;
+			}
+			else if (tokens == 0 || emptyStatements > 0)
+			{
+				return new Diagnostic(Diagnostic.Code.MISSING_RIGHT_OPERAND,
+				                      lexer.tokenStart(),
+				                      statement);
+			}
+			statement++;
+		}
+		while (lexer.token() == Lexer.Token.SEPARATOR);
+
+		if (source.length() == 0)
+		{
+			return new Diagnostic(Diagnostic.Code.MISSING_RIGHT_OPERAND, 0, 0);
+		}
+		return Diagnostic.VALID;
+	}
+
+	/**
+	 * Checks if a program is valid
+	 * @param source the characters of the program
+	 * @return true if {@link ExpressionParser#parse(CharSequence)} would
+	 * succeed
+	 */
+	public boolean isValid(CharSequence source)
+	{
+		return validate(source).isValid();
+	}
+
+	/**
+	 * Validates a batch of programs
+	 * @param sources the characters of the programs
+	 * @return the diagnostics of the programs in the same order
+	 * @see #validate(CharSequence)
+	 */
+	public List<Diagnostic> validateAll(Collection<? extends CharSequence> sources)
+	{
+		List<Diagnostic> diagnostics = new ArrayList<Diagnostic>(sources.size());
+		for (CharSequence source : sources)
+		{
+			diagnostics.add(validate(source));
+		}
+		return diagnostics;
+	}
+
+	/**
+	 * Validates a single statement from the current position of the
+	 * {@link #lexer} up to the next ";" or the end of characters
+	 * @return the number of tokens of the statement (where 0 indicates an
+	 * empty statement). {@link #error} is set if the statement is invalid
+	 */
+	private int validateStatement()
+	{
+		operands = 0;
+		operators = 0;
+		contexts = 0;
+		openContext(lexer.position());
+		int tokens = 0;
+		for (Lexer.Token token = lexer.scan();
+		     (token != Lexer.Token.END) && (token != Lexer.Token.SEPARATOR);
+		     token = lexer.scan())
+		{
+			tokens++;
+			boolean valid = true;
+			switch (token)
+			{
+				case NUMBER:
+					if (lexer.isValidNumber())
+					{
+						pushOperand(CONSTANT, lexer.tokenStart(), lexer.tokenEnd());
+					}
+					else
+					{
+						valid = fail(Diagnostic.Code.INVALID_NUMBER, lexer.tokenStart());
+					}
+					break;
+				case IDENTIFIER:
+					pushOperand(VARIABLE, lexer.tokenStart(), lexer.tokenEnd());
+					break;
+				case OPERATOR:
+					valid = pushOperator(lexer.operator(), lexer.tokenStart());
+					break;
+				case OPEN:
+					openContext(lexer.tokenStart());
+					break;
+				case CLOSE:
+					valid = closeContext();
+					break;
+				default:
+					valid = fail(Diagnostic.Code.UNKNOWN_TOKEN, lexer.tokenStart());
+			}
+			if (!valid)
+			{
+				return tokens;
+			}
+		}
+		if (contexts > 1)
+		{
+			fail(Diagnostic.Code.UNFINISHED_SUB_CONTEXT, contextStarts[1]);
+			return tokens;
+		}
+		if (tokens > 0)
+		{
+			reduceContext();
+		}
+		return tokens;
+	}
+
+	/**
+	 * Records an error
+	 * @param code the kind of error
+	 * @param position the index of the character where the error was found
+	 * @return false (so that errors can be recorded within conditions)
+	 */
+	private boolean fail(Diagnostic.Code code, int position)
+	{
+		error = code;
+		errorPosition = position;
+		return false;
+	}
+
+	/**
+	 * Pushes an operand on the operands stack
+	 * @param kind the kind of operand
+	 * @param start index of the first character of the operand
+	 * @param end index following the last character of the operand
+	 */
+	private void pushOperand(int kind, int start, int end)
+	{
+		if (operands == operandKinds.length)
+		{
+			operandKinds = Arrays.copyOf(operandKinds, operands * 2);
+			operandStarts = Arrays.copyOf(operandStarts, operands * 2);
+			operandEnds = Arrays.copyOf(operandEnds, operands * 2);
+			nameStarts = Arrays.copyOf(nameStarts, operands * 2);
+			nameEnds = Arrays.copyOf(nameEnds, operands * 2);
+		}
+		operandKinds[operands] = kind;
+		operandStarts[operands] = start;
+		operandEnds[operands] = end;
+		nameStarts[operands] = start;
+		nameEnds[operands] = end;
+		operands++;
+	}
+
+	/**
+	 * Pushes an operator on the operators stack of the current context after
+	 * having applied the preceding operators which should be applied first
+	 * @param rules the rules of the operator
+	 * @param position the index of the operator's character
+	 * @return true unless an error has been found
+	 */
+	private boolean pushOperator(BinaryOperatorRules rules, int position)
+	{
+		int context = contexts - 1;
+		if (rules == BinaryOperatorRules.ASSIGNMENT)
+		{
+			if (assignments[context])
+			{
+				return fail(Diagnostic.Code.MULTIPLE_ASSIGNMENTS, position);
+			}
+			assignments[context] = true;
+		}
+		if (!rules.hasExpression())
+		{
+			return fail(Diagnostic.Code.UNSUPPORTED_OPERATOR, position);
+		}
+		while (operators > operatorBases[context]
+		    && rules.isPrecededBy(RULES[operatorRules[operators - 1]]))
+		{
+			if (!applyOperator(context))
+			{
+				return false;
+			}
+		}
+		if (operators == operatorRules.length)
+		{
+			operatorRules = Arrays.copyOf(operatorRules, operators * 2);
+			operatorPositions = Arrays.copyOf(operatorPositions, operators * 2);
+		}
+		operatorRules[operators] = rules.ordinal();
+		operatorPositions[operators] = position;
+		operators++;
+		return true;
+	}
+
+	/**
+	 * Applies the operator on top of the operators stack of a context to
+	 * its operands (a single operand for unary operators such as "-a")
+	 * @param context the index of the context
+	 * @return true unless an error has been found
+	 */
+	private boolean applyOperator(int context)
+	{
+		operators--;
+		BinaryOperatorRules rules = RULES[operatorRules[operators]];
+		int position = operatorPositions[operators];
+		int available = operands - operandBases[context];
+		if (available == 0)
+		{
+			return fail(Diagnostic.Code.MISSING_RIGHT_OPERAND, position);
+		}
+		int right = --operands;
+		if (operandKinds[right] == ASSIGNMENT)
+		{
+			return fail(Diagnostic.Code.ILLEGAL_ASSIGNMENT, operandStarts[right]);
+		}
+		if (available == 1)
+		{
+			if (!rules.hasUnary())
+			{
+				return fail(Diagnostic.Code.UNSUPPORTED_UNARY_OPERATOR, position);
+			}
+			pushOperand(BINARY, position, operandEnds[right]);
+			return true;
+		}
+		int left = --operands;
+		if (rules == BinaryOperatorRules.ASSIGNMENT)
+		{
+			if (operandKinds[left] != VARIABLE)
+			{
+				return fail(Diagnostic.Code.ILLEGAL_ASSIGNMENT, operandStarts[left]);
+			}
+			if (containsVariable(operandStarts[right], operandEnds[right],
+			                     nameStarts[left], nameEnds[left]))
+			{
+				return fail(Diagnostic.Code.ILLEGAL_ASSIGNMENT, position);
+			}
+			pushOperand(ASSIGNMENT, operandStarts[left], operandEnds[right]);
+			return true;
+		}
+		if (operandKinds[left] == ASSIGNMENT)
+		{
+			return fail(Diagnostic.Code.ILLEGAL_ASSIGNMENT, operandStarts[left]);
+		}
+		pushOperand(BINARY, operandStarts[left], operandEnds[right]);
+		return true;
+	}
+
+	/**
+	 * Starts a new context
+	 * @param start index of the opening parenthesis (or of the statement)
+	 */
+	private void openContext(int start)
+	{
+		if (contexts == operandBases.length)
+		{
+			operandBases = Arrays.copyOf(operandBases, contexts * 2);
+			operatorBases = Arrays.copyOf(operatorBases, contexts * 2);
+			contextStarts = Arrays.copyOf(contextStarts, contexts * 2);
+			assignments = Arrays.copyOf(assignments, contexts * 2);
+		}
+		operandBases[contexts] = operands;
+		operatorBases[contexts] = operators;
+		contextStarts[contexts] = start;
+		assignments[contexts] = false;
+		contexts++;
+	}
+
+	/**
+	 * Ends a sub-context at its closing parenthesis : its single resulting
+	 * operand becomes an operand of the enclosing context (including the
+	 * parenthesis, whereas the name of a variable operand doesn't)
+	 * @return true unless an error has been found
+	 */
+	private boolean closeContext()
+	{
+		if (contexts == 1)
+		{
+			return fail(Diagnostic.Code.UNKNOWN_TOKEN, lexer.tokenStart());
+		}
+		if (!reduceContext())
+		{
+			return false;
+		}
+		contexts--;
+		operandStarts[operands - 1] = contextStarts[contexts];
+		operandEnds[operands - 1] = lexer.tokenEnd();
+		return true;
+	}
+
+	/**
+	 * Applies all the remaining operators of the current context which
+	 * should then contain a single operand
+	 * @return true unless an error has been found
+	 */
+	private boolean reduceContext()
+	{
+		int context = contexts - 1;
+		while (operators > operatorBases[context])
+		{
+			if (!applyOperator(context))
+			{
+				return false;
+			}
+		}
+		int count = operands - operandBases[context];
+		if (count == 0)
+		{
+			return fail(Diagnostic.Code.MISSING_RIGHT_OPERAND, lexer.tokenStart());
+		}
+		if (count > 1)
+		{
+			return fail(Diagnostic.Code.MISSING_OPERATOR,
+			            operandStarts[operandBases[context] + 1]);
+		}
+		return true;
+	}
+
+	/**
+	 * Searches a variable name within the characters of an operand
+	 * @param start index of the first character of the operand
+	 * @param end index following the last character of the operand
+	 * @param nameStart index of the first character of the variable's name
+	 * @param nameEnd index following the last character of the variable's
+	 * name
+	 * @return true if the operand contains a variable with this name
+	 */
+	private boolean containsVariable(int start, int end, int nameStart, int nameEnd)
+	{
+		int length = nameEnd - nameStart;
+		scanner.reset(source, start, end);
+		for (Lexer.Token token = scanner.scan();
+		     token != Lexer.Token.END;
+		     token = scanner.scan())
+		{
+			if (token == Lexer.Token.IDENTIFIER
+			    && scanner.tokenEnd() - scanner.tokenStart() == length
+			    && regionMatches(source, scanner.tokenStart(), nameStart, length))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compares two regions of characters
+	 * @param source the characters
+	 * @param first index of the first region
+	 * @param second index of the second region
+	 * @param length length of both regions
+	 * @return true if both regions contain the same characters
+	 */
+	private static boolean regionMatches(CharSequence source, int first, int second, int length)
+	{
+		for (int i = 0; i < length; i++)
+		{
+			if (source.charAt(first + i) != source.charAt(second + i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,649 @@
+package parser;
+
+import java.math.BigDecimal;
+
+import expressions.binary.BinaryOperatorRules;
+
+/**
+ * Single pass tokenizer of expressions (such as "a = 2 * (b + 3.5); a ^ 2")
+ * walking the original {@link CharSequence} with offsets.
+ * Tokens are not objects : {@link #next()} only updates the current token's
+ * kind, bounds and value so that tokenizing doesn't allocate anything
+ * (except when reading numbers too long for the fast path, see
+ * {@link #parseFloatingPoint(int, int)}, and {@link BigDecimal} numbers).
+ * Numbers are converted directly into primitive values with the same
+ * results as {@link Integer#valueOf(String)}, {@link Long#valueOf(String)},
+ * {@link Float#valueOf(String)} or {@link Double#valueOf(String)}, or into
+ * exact {@link BigDecimal}s.
+ * Lexers are not thread safe.
+ */
+public class Lexer
+{
+	/**
+	 * Kinds of tokens
+	 */
+	public enum Token
+	{
+		/**
+		 * Numeric constant such as "12" or "3.5"
+		 */
+		NUMBER,
+		/**
+		 * Variable name such as "a" or "pi"
+		 */
+		IDENTIFIER,
+		/**
+		 * Binary operator such as "+" or "="
+		 */
+		OPERATOR,
+		/**
+		 * Opening parenthesis
+		 */
+		OPEN,
+		/**
+		 * Closing parenthesis
+		 */
+		CLOSE,
+		/**
+		 * Statements separator ";"
+		 */
+		SEPARATOR,
+		/**
+		 * Character which can't start any other token
+		 */
+		UNKNOWN,
+		/**
+		 * End of input
+		 */
+		END
+	}
+
+	/**
+	 * Exact powers of ten as doubles
+	 */
+	private static final double[] DOUBLE_POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Exact powers of ten as floats
+	 */
+	private static final float[] FLOAT_POWERS_OF_TEN = {
+		1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+
+	/**
+	 * Largest mantissa (2^53) exactly representable as a double
+	 */
+	private static final long MAX_DOUBLE_MANTISSA = 1L << 53;
+
+	/**
+	 * Largest mantissa (2^24) exactly representable as a float
+	 */
+	private static final long MAX_FLOAT_MANTISSA = 1L << 24;
+
+	/**
+	 * Indicates if numbers are integers (hence "." is not part of numbers)
+	 */
+	private final boolean integral;
+
+	/**
+	 * Largest integer number ({@link Integer#MAX_VALUE} or
+	 * {@link Long#MAX_VALUE})
+	 */
+	private final long maxInteger;
+
+	/**
+	 * Indicates if numbers are exact decimals
+	 */
+	private final boolean decimal;
+
+	/**
+	 * Indicates if floating point numbers are floats rather than doubles
+	 */
+	private final boolean singlePrecision;
+
+	/**
+	 * The characters to tokenize
+	 */
+	private CharSequence input;
+
+	/**
+	 * Index of the next character to read in {@link #input}
+	 */
+	private int position;
+
+	/**
+	 * Index (exclusive) where tokenizing stops in {@link #input}
+	 */
+	private int limit;
+
+	/**
+	 * Kind of the current token
+	 */
+	private Token token;
+
+	/**
+	 * Index of the first character of the current token
+	 */
+	private int tokenStart;
+
+	/**
+	 * Index following the last character of the current token
+	 */
+	private int tokenEnd;
+
+	/**
+	 * Value of the current {@link Token#NUMBER} token when numbers are
+	 * integers
+	 */
+	private long longValue;
+
+	/**
+	 * Value of the current {@link Token#NUMBER} token when numbers are
+	 * floating point numbers
+	 */
+	private double doubleValue;
+
+	/**
+	 * Value of the current {@link Token#NUMBER} token when numbers are
+	 * decimals
+	 */
+	private BigDecimal decimalValue;
+
+	/**
+	 * Rules of the current {@link Token#OPERATOR} token
+	 */
+	private BinaryOperatorRules operator;
+
+	/**
+	 * Constructor
+	 * @param specimen A specimen to provide the Number class for numbers:
+	 * {@link Integer} and {@link Long} numbers are made of digits only
+	 * whereas other numbers may also contain a decimal point
+	 */
+	public Lexer(Number specimen)
+	{
+		integral = (specimen instanceof Integer) || (specimen instanceof Long);
+		maxInteger = specimen instanceof Long ? Long.MAX_VALUE : Integer.MAX_VALUE;
+		decimal = specimen instanceof BigDecimal;
+		singlePrecision = specimen instanceof Float;
+		reset("");
+	}
+
+	/**
+	 * Starts tokenizing new characters
+	 * @param input the characters to tokenize
+	 */
+	public void reset(CharSequence input)
+	{
+		reset(input, 0, input.length());
+	}
+
+	/**
+	 * Starts tokenizing a part of new characters
+	 * @param input the characters to tokenize
+	 * @param start index of the first character to tokenize
+	 * @param end index (exclusive) where tokenizing stops
+	 * @throws IndexOutOfBoundsException if start or end are invalid
+	 */
+	public void reset(CharSequence input, int start, int end)
+		throws IndexOutOfBoundsException
+	{
+		if (start < 0 || end > input.length() || start > end)
+		{
+			throw new IndexOutOfBoundsException("Invalid bounds [" + start
+			    + ", " + end + "[ for length " + input.length());
+		}
+		this.input = input;
+		position = start;
+		limit = end;
+		token = null;
+		tokenStart = start;
+		tokenEnd = start;
+	}
+
+	/**
+	 * Determine if a character is a digit
+	 * @param c the character to examine
+	 * @return true if character c is a digit (or a decimal point for floating
+	 * point numbers)
+	 */
+	private boolean isDigit(char c)
+	{
+		return ((c >= '0') && (c <= '9')) || (!integral && (c == '.'));
+	}
+
+	/**
+	 * Determine if a character is a letter
+	 * @param c the character to examine
+	 * @return true if character c is a letter or underscore
+	 */
+	private static boolean isLetter(char c)
+	{
+		return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'))
+		    || (c == '_');
+	}
+
+	/**
+	 * Determine if a character is a blank between tokens
+	 * @param c the character to examine
+	 * @return true if character c is a space, a tabulation or a line break
+	 */
+	private static boolean isBlank(char c)
+	{
+		return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\r');
+	}
+
+	/**
+	 * Rules of operator characters among (=, +, -, *, /, ^)
+	 * @param c the character to examine
+	 * @return the rules of the operator represented by this character or null
+	 * if c is not an operator
+	 */
+	private static BinaryOperatorRules operatorOf(char c)
+	{
+		if (c == '–') // Caution there are several -
+		{
+			return BinaryOperatorRules.SUBTRACTION;
+		}
+		return BinaryOperatorRules.fromSymbol(c);
+	}
+
+	/**
+	 * Reads the next token
+	 * @return the kind of the token read
+	 * @throws NumberFormatException if a number can't be converted (such as
+	 * "1.2.3" or an integer overflow)
+	 */
+	public Token next() throws NumberFormatException
+	{
+		return next(true);
+	}
+
+	/**
+	 * Reads the next token without converting numbers, so that no exception
+	 * is ever thrown : {@link #longValue()} and {@link #doubleValue()} are
+	 * meaningless for {@link Token#NUMBER} tokens read this way.
+	 * @return the kind of the token read
+	 * @see #isValidNumber()
+	 */
+	public Token scan()
+	{
+		return next(false);
+	}
+
+	/**
+	 * Reads the next token
+	 * @param convert true to convert numbers to their values
+	 * @return the kind of the token read
+	 * @throws NumberFormatException if a number can't be converted
+	 */
+	private Token next(boolean convert) throws NumberFormatException
+	{
+		while (position < limit && isBlank(input.charAt(position)))
+		{
+			position++;
+		}
+		tokenStart = position;
+		if (position >= limit)
+		{
+			tokenEnd = position;
+			return token = Token.END;
+		}
+		char c = input.charAt(position++);
+		if (isDigit(c))
+		{
+			while (position < limit && isDigit(input.charAt(position)))
+			{
+				position++;
+			}
+			if (convert && integral)
+			{
+				longValue = parseInteger(tokenStart, position);
+			}
+			else if (convert && decimal)
+			{
+				decimalValue = parseDecimal(tokenStart, position);
+			}
+			else if (convert)
+			{
+				doubleValue = parseFloatingPoint(tokenStart, position);
+			}
+			token = Token.NUMBER;
+		}
+		else if (isLetter(c))
+		{
+			while (position < limit && isLetter(input.charAt(position)))
+			{
+				position++;
+			}
+			token = Token.IDENTIFIER;
+		}
+		else if ((operator = operatorOf(c)) != null)
+		{
+			token = Token.OPERATOR;
+		}
+		else if (c == '(')
+		{
+			token = Token.OPEN;
+		}
+		else if (c == ')')
+		{
+			token = Token.CLOSE;
+		}
+		else if (c == ';')
+		{
+			token = Token.SEPARATOR;
+		}
+		else
+		{
+			token = Token.UNKNOWN;
+		}
+		tokenEnd = position;
+		return token;
+	}
+
+	/**
+	 * Checks that the current {@link Token#NUMBER} token can be converted
+	 * without converting it
+	 * @return true if the current number token can be converted by
+	 * {@link #next()} (i.e. an int or a long which doesn't overflow or a
+	 * floating point or decimal number with digits and at most one decimal
+	 * point)
+	 */
+	public boolean isValidNumber()
+	{
+		if (integral)
+		{
+			long value = 0;
+			for (int i = tokenStart; i < tokenEnd; i++)
+			{
+				int digit = input.charAt(i) - '0';
+				if (value > (maxInteger - digit) / 10)
+				{
+					return false;
+				}
+				value = (value * 10) + digit;
+			}
+			return true;
+		}
+		int points = 0;
+		for (int i = tokenStart; i < tokenEnd; i++)
+		{
+			if (input.charAt(i) == '.')
+			{
+				points++;
+			}
+		}
+		return (points <= 1) && (tokenEnd - tokenStart > points);
+	}
+
+	/**
+	 * Converts digits into an int (or long) value
+	 * @param start index of the first digit
+	 * @param end index following the last digit
+	 * @return the int (or long) value of these digits
+	 * @throws NumberFormatException if the value overflows an int (or a long)
+	 */
+	private long parseInteger(int start, int end) throws NumberFormatException
+	{
+		long value = 0;
+		for (int i = start; i < end; i++)
+		{
+			int digit = input.charAt(i) - '0';
+			if (value > (maxInteger - digit) / 10)
+			{
+				throw new NumberFormatException("For input string: \""
+				    + input.subSequence(start, end) + "\"");
+			}
+			value = (value * 10) + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Converts digits with an optional decimal point into an exact decimal
+	 * value.
+	 * Numbers with at most 18 digits are built from their unscaled long value
+	 * without going through a String.
+	 * @param start index of the first character
+	 * @param end index following the last character
+	 * @return the exact value of these characters
+	 * @throws NumberFormatException if the characters contain several decimal
+	 * points or no digits
+	 */
+	private BigDecimal parseDecimal(int start, int end)
+		throws NumberFormatException
+	{
+		long unscaled = 0;
+		int scale = 0;
+		int digits = 0;
+		boolean point = false;
+		for (int i = start; i < end; i++)
+		{
+			char c = input.charAt(i);
+			if (c == '.')
+			{
+				if (point)
+				{
+					throw new NumberFormatException("multiple points");
+				}
+				point = true;
+				continue;
+			}
+			if (digits < 18)
+			{
+				unscaled = (unscaled * 10) + (c - '0');
+			}
+			digits++;
+			if (point)
+			{
+				scale++;
+			}
+		}
+		if (digits == 0)
+		{
+			throw new NumberFormatException("For input string: \""
+			    + input.subSequence(start, end) + "\"");
+		}
+		if (digits <= 18)
+		{
+			return BigDecimal.valueOf(unscaled, scale);
+		}
+		return new BigDecimal(input.subSequence(start, end).toString());
+	}
+
+	/**
+	 * Converts digits with an optional decimal point into a floating point
+	 * value.
+	 * Short numbers (whose digits fit in an exactly representable mantissa
+	 * with less than 23 decimals for doubles or 11 for floats) are converted
+	 * by a single correctly rounded division of exact values, longer numbers
+	 * fall back to {@link Double#parseDouble(String)} or
+	 * {@link Float#parseFloat(String)}.
+	 * @param start index of the first character
+	 * @param end index following the last character
+	 * @return the value of these characters (rounded to float precision for
+	 * floats)
+	 * @throws NumberFormatException if the characters contain several decimal
+	 * points or no digits
+	 */
+	private double parseFloatingPoint(int start, int end)
+		throws NumberFormatException
+	{
+		long mantissa = 0;
+		int decimals = 0;
+		int digits = 0;
+		boolean point = false;
+		boolean exact = true;
+		for (int i = start; i < end; i++)
+		{
+			char c = input.charAt(i);
+			if (c == '.')
+			{
+				if (point)
+				{
+					throw new NumberFormatException("multiple points");
+				}
+				point = true;
+				continue;
+			}
+			digits++;
+			if (mantissa < MAX_DOUBLE_MANTISSA)
+			{
+				mantissa = (mantissa * 10) + (c - '0');
+				if (point)
+				{
+					decimals++;
+				}
+			}
+			else
+			{
+				exact = false;
+			}
+		}
+		if (digits == 0)
+		{
+			throw new NumberFormatException("For input string: \""
+			    + input.subSequence(start, end) + "\"");
+		}
+		if (singlePrecision)
+		{
+			if (exact && mantissa <= MAX_FLOAT_MANTISSA
+			    && decimals < FLOAT_POWERS_OF_TEN.length)
+			{
+				return (float) mantissa / FLOAT_POWERS_OF_TEN[decimals];
+			}
+			return Float.parseFloat(input.subSequence(start, end).toString());
+		}
+		if (exact && mantissa <= MAX_DOUBLE_MANTISSA
+		    && decimals < DOUBLE_POWERS_OF_TEN.length)
+		{
+			return mantissa / DOUBLE_POWERS_OF_TEN[decimals];
+		}
+		return Double.parseDouble(input.subSequence(start, end).toString());
+	}
+
+	/**
+	 * Kind of the current token
+	 * @return the kind of the last token read by {@link #next()} or null if
+	 * no token has been read yet
+	 */
+	public Token token()
+	{
+		return token;
+	}
+
+	/**
+	 * Start of the current token
+	 * @return the index of the first character of the current token
+	 */
+	public int tokenStart()
+	{
+		return tokenStart;
+	}
+
+	/**
+	 * End of the current token
+	 * @return the index following the last character of the current token
+	 */
+	public int tokenEnd()
+	{
+		return tokenEnd;
+	}
+
+	/**
+	 * First character of the current token
+	 * @return the first character of the current token
+	 * @throws IllegalStateException if current token is {@link Token#END}
+	 */
+	public char tokenChar() throws IllegalStateException
+	{
+		if (tokenStart >= tokenEnd)
+		{
+			throw new IllegalStateException("No current token");
+		}
+		return input.charAt(tokenStart);
+	}
+
+	/**
+	 * Characters of the current token
+	 * @return a new String containing the characters of the current token
+	 * (typically to name a variable)
+	 */
+	public String tokenText()
+	{
+		return input.subSequence(tokenStart, tokenEnd).toString();
+	}
+
+	/**
+	 * Characters of the input between two indices
+	 * @param start index of the first character
+	 * @param end index following the last character
+	 * @return a new String containing the characters between these indices
+	 */
+	public String text(int start, int end)
+	{
+		return input.subSequence(start, end).toString();
+	}
+
+	/**
+	 * Index of the next character to read
+	 * @return the index of the next character to read
+	 */
+	public int position()
+	{
+		return position;
+	}
+
+	/**
+	 * Index where tokenizing stops
+	 * @return the index (exclusive) where tokenizing stops
+	 */
+	public int limit()
+	{
+		return limit;
+	}
+
+	/**
+	 * Value of the current {@link Token#NUMBER} token when numbers are
+	 * integers
+	 * @return the value of the current integer number
+	 */
+	public long longValue()
+	{
+		return longValue;
+	}
+
+	/**
+	 * Value of the current {@link Token#NUMBER} token when numbers are
+	 * floating point numbers
+	 * @return the value of the current floating point number (already rounded
+	 * to float precision when numbers are floats)
+	 */
+	public double doubleValue()
+	{
+		return doubleValue;
+	}
+
+	/**
+	 * Value of the current {@link Token#NUMBER} token when numbers are
+	 * decimals
+	 * @return the exact value of the current decimal number
+	 */
+	public BigDecimal decimalValue()
+	{
+		return decimalValue;
+	}
+
+	/**
+	 * Rules of the current {@link Token#OPERATOR} token
+	 * @return the rules of the current operator
+	 */
+	public BinaryOperatorRules operator()
+	{
+		return operator;
+	}
+}
@@ -0,0 +1,336 @@
+package parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import expressions.Expression;
+import parser.exceptions.ParserException;
+
+/**
+ * Iterator over the statements (separated by ";") of a program read from a
+ * {@link Reader} or from characters already available (such as a
+ * memory-mapped file) which parses one statement at a time.
+ * When reading from a {@link Reader} only the current statement is buffered
+ * (along with a fixed size read buffer) so huge programs can be parsed
+ * without holding them in memory.
+ * Contrary to {@link ExpressionParser#parse(CharSequence)}, blank statements
+ * (such as the line break after the last ";" of a file) are ignored.
+ * Statement readers use their {@link ExpressionParser} so this parser should
+ * not be used for anything else until the reader is exhausted or closed.
+ * @param <E> The type of numbers in parsed expressions
+ * @see ExpressionParser#parse(Reader)
+ */
+public class StatementReader<E extends Number>
+	implements Iterator<Expression<E>>, Closeable
+{
+	/**
+	 * Default size of the read buffer
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * The parser used to parse each statement
+	 */
+	private final ExpressionParser<E> parser;
+
+	/**
+	 * The reader providing characters or null when characters are provided
+	 * by {@link #source}
+	 */
+	private final Reader reader;
+
+	/**
+	 * The characters read from {@link #reader} but not yet consumed
+	 */
+	private final char[] buffer;
+
+	/**
+	 * Index of the next character to consume in {@link #buffer}
+	 */
+	private int bufferPosition;
+
+	/**
+	 * Number of characters available in {@link #buffer}
+	 */
+	private int bufferLength;
+
+	/**
+	 * The characters of the current statement when reading from
+	 * {@link #reader}
+	 */
+	private final StringBuilder statement;
+
+	/**
+	 * All the characters of the program when there is no {@link #reader}
+	 */
+	private final CharSequence source;
+
+	/**
+	 * Index of the next character to consume in {@link #source}
+	 */
+	private int sourcePosition;
+
+	/**
+	 * Indicates if all characters have been consumed
+	 */
+	private boolean exhausted;
+
+	/**
+	 * The next statement already parsed by {@link #hasNext()} (if any)
+	 */
+	private Expression<E> next;
+
+	/**
+	 * Number of statements read so far (including blank statements)
+	 */
+	private int statements;
+
+	/**
+	 * Constructor reading characters from a reader
+	 * @param parser the parser to parse each statement
+	 * @param reader the reader providing characters
+	 * @param bufferSize the size of the read buffer
+	 * @throws IllegalArgumentException if buffer size is not positive
+	 */
+	public StatementReader(ExpressionParser<E> parser, Reader reader, int bufferSize)
+		throws IllegalArgumentException
+	{
+		if (bufferSize <= 0)
+		{
+			throw new IllegalArgumentException("Invalid buffer size : " + bufferSize);
+		}
+		this.parser = parser;
+		this.reader = reader;
+		buffer = new char[bufferSize];
+		bufferPosition = 0;
+		bufferLength = 0;
+		statement = new StringBuilder();
+		source = null;
+		sourcePosition = 0;
+		exhausted = false;
+		next = null;
+		statements = 0;
+	}
+
+	/**
+	 * Constructor reading statements from characters which are already
+	 * available.
+	 * Each statement is parsed from a sub sequence of source so nothing is
+	 * copied if source's sub sequences are views.
+	 * @param parser the parser to parse each statement
+	 * @param source the characters of the program
+	 */
+	public StatementReader(ExpressionParser<E> parser, CharSequence source)
+	{
+		this.parser = parser;
+		this.source = source;
+		reader = null;
+		buffer = null;
+		statement = null;
+		sourcePosition = 0;
+		exhausted = false;
+		next = null;
+		statements = 0;
+	}
+
+	/**
+	 * Determine if a character is a blank between tokens
+	 * @param c the character to examine
+	 * @return true if character c is a space, a tabulation or a line break
+	 */
+	private static boolean isBlank(char c)
+	{
+		return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\r');
+	}
+
+	/**
+	 * Reads the characters of the next statement into {@link #statement}
+	 * @return true if the statement contains non blank characters
+	 * @throws IOException if reading fails
+	 */
+	private boolean readStatement() throws IOException
+	{
+		statement.setLength(0);
+		boolean blank = true;
+		while (true)
+		{
+			if (bufferPosition >= bufferLength)
+			{
+				bufferLength = reader.read(buffer, 0, buffer.length);
+				bufferPosition = 0;
+				if (bufferLength < 0)
+				{
+					bufferLength = 0;
+					exhausted = true;
+					return !blank;
+				}
+			}
+			int start = bufferPosition;
+			while (bufferPosition < bufferLength)
+			{
+				char c = buffer[bufferPosition];
+				if (c == ';')
+				{
+					statement.append(buffer, start, bufferPosition - start);
+					bufferPosition++;
+					return !blank;
+				}
+				blank &= isBlank(c);
+				bufferPosition++;
+			}
+			statement.append(buffer, start, bufferPosition - start);
+		}
+	}
+
+	/**
+	 * Delimits the characters of the next statement in {@link #source}
+	 * @return the characters of the next statement or null if this statement
+	 * is blank
+	 */
+	private CharSequence nextSourceStatement()
+	{
+		int start = sourcePosition;
+		int length = source.length();
+		boolean blank = true;
+		while (sourcePosition < length)
+		{
+			char c = source.charAt(sourcePosition);
+			if (c == ';')
+			{
+				break;
+			}
+			blank &= isBlank(c);
+			sourcePosition++;
+		}
+		CharSequence result = blank ? null : source.subSequence(start, sourcePosition);
+		if (sourcePosition < length)
+		{
+			sourcePosition++; // skips ";"
+		}
+		else
+		{
+			exhausted = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the next non blank statement
+	 * @return the next statement or null if there are no more statements
+	 * @throws ParserException if the next statement is invalid
+	 * @throws IOException if reading fails
+	 */
+	public Expression<E> nextStatement() throws ParserException, IOException
+	{
+		if (next != null)
+		{
+			Expression<E> result = next;
+			next = null;
+			return result;
+		}
+		while (!exhausted)
+		{
+			CharSequence characters = null;
+			if (reader != null)
+			{
+				if (readStatement())
+				{
+					characters = statement;
+				}
+			}
+			else
+			{
+				characters = nextSourceStatement();
+			}
+			statements++;
+			if (characters != null)
+			{
+				List<Expression<E>> expressions = parser.parse(characters);
+				if (!expressions.isEmpty())
+				{
+					return expressions.get(0);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Number of statements read so far
+	 * @return the number of statements read so far (including blank ones)
+	 */
+	public int getStatementsCount()
+	{
+		return statements;
+	}
+
+	/**
+	 * Indicate if there are more statements
+	 * @return true if there is a next statement
+	 * @throws UncheckedIOException if reading fails
+	 * @throws IllegalArgumentException if the next statement is invalid (with
+	 * the {@link ParserException} as cause)
+	 */
+	@Override
+	public boolean hasNext() throws UncheckedIOException, IllegalArgumentException
+	{
+		if (next == null)
+		{
+			try
+			{
+				next = nextStatement();
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			catch (ParserException e)
+			{
+				throw new IllegalArgumentException("Invalid statement #"
+				    + statements + " : " + e.getMessage(), e);
+			}
+		}
+		return next != null;
+	}
+
+	/**
+	 * Next statement
+	 * @return the next statement
+	 * @throws NoSuchElementException if there are no more statements
+	 * @throws UncheckedIOException if reading fails
+	 * @throws IllegalArgumentException if the next statement is invalid (with
+	 * the {@link ParserException} as cause)
+	 */
+	@Override
+	public Expression<E> next()
+		throws NoSuchElementException, UncheckedIOException, IllegalArgumentException
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+		Expression<E> result = next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * Closes the underlying reader (if any)
+	 * @throws IOException if closing fails
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		exhausted = true;
+		next = null;
+		if (reader != null)
+		{
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import application.BatchEvaluator;
+
+/**
+ * Test class for {@link BatchEvaluator}
+ */
+public class BatchEvaluatorTest
+{
+	/**
+	 * Runs a batch evaluator on a program
+	 * @param evaluator the evaluator to run
+	 * @param program the program to evaluate
+	 * @return the written records
+	 * @throws IOException if evaluation fails
+	 */
+	private static String run(BatchEvaluator<?> evaluator, String program)
+		throws IOException
+	{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		evaluator.run(new StringReader(program), Channels.newChannel(output));
+		return output.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Test CSV records of valid and invalid statements
+	 * @throws IOException if evaluation fails
+	 */
+	@Test
+	@DisplayName("run(Reader, WritableByteChannel) CSV")
+	final void testCsv() throws IOException
+	{
+		String testName = "run(Reader, WritableByteChannel) CSV";
+		System.out.println(testName);
+
+		BatchEvaluator<Double> evaluator =
+		    new BatchEvaluator<Double>(0.0, BatchEvaluator.Format.CSV, 1);
+		String records = run(evaluator, "a = 2 + 3;\na + 1; b + 1;\n* 2;\n");
+		String expected = BatchEvaluator.CSV_HEADER + "\n"
+		    + "1,a = 2.0 + 3.0,5.0,\n"
+		    + "2,a + 1.0,6.0,\n"
+		    + "3,b + 1.0,,Variable b has no value in this context\n";
+		assertEquals(expected, records.substring(0, expected.length()), testName + " unexpected records");
+		assertEquals(4, evaluator.getStatementsCount(), testName + " unexpected statements count");
+		assertEquals(2, evaluator.getErrorsCount(), testName + " unexpected errors count");
+		assertEquals(5.0, evaluator.getContext().get("a"), testName + " unexpected variable value");
+	}
+
+	/**
+	 * Test that several workers write the same JSONL records as a single one
+	 * @throws IOException if evaluation fails
+	 */
+	@Test
+	@DisplayName("run(Reader, WritableByteChannel) JSONL workers")
+	final void testWorkers() throws IOException
+	{
+		String testName = "run(Reader, WritableByteChannel) JSONL workers";
+		System.out.println(testName);
+
+		StringBuilder program = new StringBuilder("a = 1;");
+		for (int i = 0; i < 5000; i++)
+		{
+			program.append(i % 100 == 0 ? "c = a + " + i + ";" : "c + " + i + ";");
+		}
+		program.append("b + 1");
+		String sequential = run(new BatchEvaluator<Integer>(0, BatchEvaluator.Format.JSONL, 1),
+		                        program.toString());
+		String parallel = run(new BatchEvaluator<Integer>(0, BatchEvaluator.Format.JSONL, 4),
+		                      program.toString());
+		assertEquals(sequential, parallel, testName + " unexpected parallel records");
+		String[] lines = sequential.split("\n");
+		assertEquals(5002, lines.length, testName + " unexpected records count");
+		assertEquals("{\"statement\":3,\"expression\":\"c + 1\",\"value\":2}", lines[2],
+		             testName + " unexpected record");
+		assertEquals("{\"statement\":5002,\"expression\":\"b + 1\",\"error\":\"Variable b has no value in this context\"}",
+		             lines[5001],
+		             testName + " unexpected error record");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new BatchEvaluator<Integer>(0, BatchEvaluator.Format.CSV, 0),
+		             testName + " unexpected success without workers");
+	}
+}
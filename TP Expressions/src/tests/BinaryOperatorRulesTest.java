@@ -0,0 +1,173 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.arena.ExpressionArena;
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.binary.BinaryOperatorRules.Associativity;
+import expressions.compiler.ExpressionCompiler;
+import expressions.program.ColumnEvaluator;
+import expressions.program.Opcodes;
+import expressions.program.Program;
+import expressions.program.ProgramBuilder;
+import expressions.program.StackMachine;
+import expressions.terminal.ConstantExpression;
+
+/**
+ * Test class for {@link BinaryOperatorRules} table
+ */
+public class BinaryOperatorRulesTest
+{
+	/**
+	 * Test method for {@link BinaryOperatorRules#fromSymbol(char)}
+	 */
+	@Test
+	@DisplayName("fromSymbol(char)")
+	final void testFromSymbol()
+	{
+		String testName = "fromSymbol(char)";
+		System.out.println(testName);
+
+		for (BinaryOperatorRules rules : BinaryOperatorRules.values())
+		{
+			assertSame(rules,
+			           BinaryOperatorRules.fromSymbol(rules.symbol()),
+			           testName + " unexpected rules for " + rules);
+			assertEquals(String.valueOf(rules.symbol()),
+			             rules.toString(),
+			             testName + " unexpected string for " + rules);
+			assertSame(rules.toString(), rules.toString(), testName + " unexpected new string");
+		}
+		assertNull(BinaryOperatorRules.fromSymbol('a'), testName + " unexpected operator");
+		assertNull(BinaryOperatorRules.fromSymbol('×'), testName + " unexpected operator");
+	}
+
+	/**
+	 * Test method for
+	 * {@link BinaryOperatorRules#isPrecededBy(BinaryOperatorRules)}
+	 */
+	@Test
+	@DisplayName("isPrecededBy(BinaryOperatorRules)")
+	final void testIsPrecededBy()
+	{
+		String testName = "isPrecededBy(BinaryOperatorRules)";
+		System.out.println(testName);
+
+		assertTrue(BinaryOperatorRules.ADDITION.isPrecededBy(BinaryOperatorRules.MULTIPLICATION),
+		           testName + " unexpected order for a * b + c");
+		assertFalse(BinaryOperatorRules.MULTIPLICATION.isPrecededBy(BinaryOperatorRules.ADDITION),
+		            testName + " unexpected order for a + b * c");
+		assertTrue(BinaryOperatorRules.SUBTRACTION.isPrecededBy(BinaryOperatorRules.SUBTRACTION),
+		           testName + " unexpected order for a - b - c");
+		assertEquals(Associativity.RIGHT, BinaryOperatorRules.POWER.associativity(),
+		             testName + " unexpected associativity");
+		assertFalse(BinaryOperatorRules.POWER.isPrecededBy(BinaryOperatorRules.POWER),
+		            testName + " unexpected order for a ^ b ^ c");
+	}
+
+	/**
+	 * Test method for {@link BinaryOperatorRules#applyAsLong(long, long)} and
+	 * {@link BinaryOperatorRules#applyAsDouble(double, double)}
+	 */
+	@Test
+	@DisplayName("applyAsLong(long, long) & applyAsDouble(double, double)")
+	final void testKernels()
+	{
+		String testName = "applyAsLong(long, long) & applyAsDouble(double, double)";
+		System.out.println(testName);
+
+		assertEquals(7L, BinaryOperatorRules.ADDITION.applyAsLong(3, 4), testName + " unexpected value");
+		assertEquals(-1L, BinaryOperatorRules.SUBTRACTION.applyAsLong(3, 4), testName + " unexpected value");
+		assertEquals(12L, BinaryOperatorRules.MULTIPLICATION.applyAsLong(3, 4), testName + " unexpected value");
+		assertEquals(2L, BinaryOperatorRules.DIVISION.applyAsLong(9, 4), testName + " unexpected value");
+		assertEquals(81L, BinaryOperatorRules.POWER.applyAsLong(3, 4), testName + " unexpected value");
+		assertEquals(4L, BinaryOperatorRules.ASSIGNMENT.applyAsLong(3, 4), testName + " unexpected value");
+		assertEquals(2.25, BinaryOperatorRules.DIVISION.applyAsDouble(9, 4), testName + " unexpected value");
+		assertEquals(0.5, BinaryOperatorRules.POWER.applyAsDouble(4, -0.5), testName + " unexpected value");
+		assertThrows(ArithmeticException.class,
+		             () -> BinaryOperatorRules.DIVISION.applyAsLong(1, 0),
+		             testName + " unexpected success");
+	}
+
+	/**
+	 * Builds a power of constants (there is no power expression class yet)
+	 * @param <E> the type of numbers
+	 * @param base the base
+	 * @param exponent the exponent
+	 * @return a binary expression with power rules which can only be
+	 * evaluated through the kernels
+	 */
+	private static <E extends Number> BinaryExpression<E> power(E base, E exponent)
+	{
+		return new BinaryExpression<E>(new ConstantExpression<E>(base),
+		                               new ConstantExpression<E>(exponent),
+		                               BinaryOperatorRules.POWER)
+		{
+			@Override
+			protected E operate(E value1, E value2)
+			{
+				throw new UnsupportedOperationException("Power of boxed numbers");
+			}
+		};
+	}
+
+	/**
+	 * Test that every evaluation engine applies the kernels (with an int
+	 * power overflowing int, which wraps around)
+	 */
+	@Test
+	@DisplayName("kernels in every engine")
+	final void testEngines()
+	{
+		String testName = "kernels in every engine";
+		System.out.println(testName);
+
+		Expression<Integer> power = power(3, 21);
+		int expected = (int) 10460353203L;
+		assertEquals(expected, power.evalInt(), testName + " unexpected tree value");
+
+		ExpressionArena<Integer> arena = new ExpressionArena<Integer>(0);
+		int node = arena.binary(BinaryOperatorRules.POWER, arena.constant(3), arena.constant(21));
+		assertEquals(expected, arena.value(node), testName + " unexpected arena value");
+
+		Program program = new ProgramBuilder<Integer>(0).build(power);
+		assertEquals(Opcodes.POW, program.getCode()[program.getCode().length - 1],
+		             testName + " unexpected opcode");
+		assertEquals(expected, (int) new StackMachine().evaluate(program, program.newFrame()),
+		             testName + " unexpected program value");
+
+		double[] out = new double[3];
+		new ColumnEvaluator<Integer>(0).evaluateColumns(program, Map.of(), out);
+		for (double value : out)
+		{
+			assertEquals(expected, (int) value, testName + " unexpected column value");
+		}
+
+		assertEquals(expected,
+		             (int) new ExpressionCompiler<Integer>(0).compile(power).evaluate(new double[0]),
+		             testName + " unexpected compiled value");
+		assertEquals(Math.pow(3.0, 21.0),
+		             new ExpressionCompiler<Double>(0.0).compile(power(3.0, 21.0)).evaluate(new double[0]),
+		             testName + " unexpected compiled double value");
+
+		for (BinaryOperatorRules rules : BinaryOperatorRules.values())
+		{
+			if (rules != BinaryOperatorRules.ASSIGNMENT)
+			{
+				assertSame(rules, Opcodes.rulesOf(Opcodes.of(rules)), testName + " unexpected opcode of " + rules);
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.program.Program;
+import expressions.program.StackMachine;
+import parser.CachingExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link CachingExpressionParser}
+ */
+public class CachingExpressionParserTest
+{
+	/**
+	 * Test method for {@link CachingExpressionParser#parse(String)} hits and
+	 * least recently used evictions
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("parse(String) hits & evictions")
+	final void testParse() throws ParserException
+	{
+		String testName = "parse(String) hits & evictions";
+		System.out.println(testName);
+
+		CachingExpressionParser<Integer> parser = new CachingExpressionParser<>(0, 2, 1000);
+		List<Program> first = parser.parse("a = 1; a + x");
+		assertEquals(2, first.size(), testName + " unexpected programs count");
+		assertSame(first, parser.parse("a = 1; a + x"), testName + " unexpected new programs");
+		parser.parse("x + 2");
+		parser.parse("a = 1; a + x"); // most recently used
+		parser.parse("y + 3"); // evicts "x + 2"
+		assertEquals(2, parser.size(), testName + " unexpected size");
+		assertEquals(2L, parser.getHits(), testName + " unexpected hits");
+		assertEquals(3L, parser.getMisses(), testName + " unexpected misses");
+		assertEquals(1L, parser.getEvictions(), testName + " unexpected evictions");
+		assertSame(first, parser.parse("a = 1; a + x"), testName + " unexpected eviction");
+
+		CachingExpressionParser<Integer> light = new CachingExpressionParser<>(0, 100, 20);
+		light.parse("1 + 2");
+		light.parse("3 + 4");
+		assertEquals(1, light.size(), testName + " unexpected size with max weight");
+		assertTrue(light.getWeight() <= 20, testName + " unexpected weight");
+
+		assertThrows(ParserException.class, () -> parser.parse("a = = 1"), testName + " unexpected success");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new CachingExpressionParser<Integer>(0, 0, 10),
+		             testName + " unexpected success with invalid bounds");
+	}
+
+	/**
+	 * Test cached programs shared by several threads with their own frames
+	 * @throws Exception if parsing or evaluation fails
+	 */
+	@Test
+	@DisplayName("parse(String) shared by threads")
+	final void testSharedPrograms() throws Exception
+	{
+		String testName = "parse(String) shared by threads";
+		System.out.println(testName);
+
+		CachingExpressionParser<Double> parser = new CachingExpressionParser<>(0.0);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Double>> results = new ArrayList<Future<Double>>();
+			for (int t = 0; t < 16; t++)
+			{
+				double x = t;
+				results.add(executor.submit(() -> {
+					List<Program> programs = parser.parse("y = x + 0.5; y + x");
+					double[] frame = programs.get(0).newFrame();
+					frame[programs.get(0).slotOf("x")] = x;
+					StackMachine machine = new StackMachine();
+					machine.evaluate(programs.get(0), frame);
+					return machine.evaluate(programs.get(1), frame);
+				}));
+			}
+			for (int t = 0; t < results.size(); t++)
+			{
+				assertEquals(2 * t + 0.5, results.get(t).get(), testName + " unexpected value");
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		assertEquals(1, parser.size(), testName + " unexpected size");
+	}
+}
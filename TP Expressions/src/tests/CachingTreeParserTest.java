@@ -0,0 +1,64 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import parser.CachingTreeParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link CachingTreeParser}
+ */
+public class CachingTreeParserTest
+{
+	/**
+	 * Test method for {@link CachingTreeParser#parse(String)} hits, weights
+	 * and evaluation of shared trees in separate contexts
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("parse(String) on trees")
+	final void testParse() throws ParserException
+	{
+		String testName = "parse(String) on trees";
+		System.out.println(testName);
+
+		CachingTreeParser<Long> parser = new CachingTreeParser<>(0L, 2, 1000);
+		List<Expression<Long>> first = parser.parse("a = 1; a + x");
+		assertEquals(2, first.size(), testName + " unexpected statements count");
+		assertSame(first, parser.parse("a = 1; a + x"), testName + " unexpected new statements");
+		// 12 characters + 3 nodes + 3 nodes
+		assertEquals(18L, parser.getWeight(), testName + " unexpected weight");
+		parser.parse("x + 2");
+		parser.parse("y + 3"); // evicts "a = 1; a + x"
+		assertEquals(2, parser.size(), testName + " unexpected size");
+		assertEquals(1L, parser.getEvictions(), testName + " unexpected evictions");
+
+		CachingTreeParser<BigDecimal> decimals = new CachingTreeParser<>(BigDecimal.ZERO);
+		List<Expression<BigDecimal>> statements = decimals.parse("y = x + x; y + x");
+		for (long x = 1; x <= 3; x++)
+		{
+			EvaluationContext<BigDecimal> context =
+			    new EvaluationContext<BigDecimal>(Map.of("x", BigDecimal.valueOf(x)));
+			statements.get(0).value(context);
+			assertEquals(0,
+			             BigDecimal.valueOf(3 * x).compareTo(statements.get(1).value(context)),
+			             testName + " unexpected value");
+		}
+
+		assertThrows(ParserException.class, () -> parser.parse("a = = 1"), testName + " unexpected success");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new CachingTreeParser<Long>(0L, 1, 0),
+		             testName + " unexpected success with invalid bounds");
+	}
+}
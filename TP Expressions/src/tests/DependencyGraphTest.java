@@ -0,0 +1,136 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.binary.AssignmentExpression;
+import expressions.statements.DependencyGraph;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Test class for {@link DependencyGraph}
+ */
+public class DependencyGraphTest
+{
+	/**
+	 * Creates "name = left + right" with variables or constants operands
+	 * @param name the assigned variable name
+	 * @param left the left operand (variable name or integer constant)
+	 * @param right the right operand (variable name or integer constant)
+	 * @return a new assignment
+	 */
+	private static AssignmentExpression<Integer> assign(String name,
+	                                                    Object left,
+	                                                    Object right)
+	{
+		return new AssignmentExpression<>(new VariableExpression<Integer>(name),
+		                                  new AdditionExpression<Integer>(operand(left),
+		                                                                  operand(right)));
+	}
+
+	/**
+	 * Creates an operand
+	 * @param operand a variable name or an integer constant
+	 * @return a new variable or constant expression
+	 */
+	private static Expression<Integer> operand(Object operand)
+	{
+		if (operand instanceof String name)
+		{
+			return new VariableExpression<Integer>(name);
+		}
+		return new ConstantExpression<Integer>((Integer) operand);
+	}
+
+	/**
+	 * Test method for {@link DependencyGraph#evaluate()} with statements out
+	 * of order
+	 */
+	@Test
+	@DisplayName("evaluate()")
+	final void testEvaluate()
+	{
+		String testName = "evaluate()";
+		System.out.println(testName);
+
+		// c = b + a; b = a + 2; a = x + 1
+		DependencyGraph<Integer> graph =
+		    new DependencyGraph<Integer>(List.of(assign("c", "b", "a"),
+		                                         assign("b", "a", 2),
+		                                         assign("a", "x", 1)));
+		assertEquals(Set.of("x"), graph.getInputs(), testName + " unexpected inputs");
+		assertEquals("a = x + 1", graph.getStatements().get(0).toString(), testName + " unexpected order");
+		assertEquals(3, graph.evaluate(), testName + " unexpected evaluations count");
+		assertFalse(graph.getValue("c").isPresent(), testName + " unexpected value without input");
+
+		graph.setInput("x", 1);
+		assertEquals(3, graph.evaluate(), testName + " unexpected evaluations count");
+		assertEquals(Optional.of(6), graph.getValue("c"), testName + " unexpected value");
+		assertEquals(0, graph.evaluate(), testName + " unexpected evaluations without changes");
+		assertThrows(IllegalArgumentException.class,
+		             () -> graph.setInput("a", 3),
+		             testName + " unexpected success setting assigned variable");
+	}
+
+	/**
+	 * Test only statements depending on a changed input are evaluated again
+	 */
+	@Test
+	@DisplayName("setInput(String, E)")
+	final void testSetInput()
+	{
+		String testName = "setInput(String, E)";
+		System.out.println(testName);
+
+		// a = x + 1; b = y + 1; c = a + b
+		DependencyGraph<Integer> graph =
+		    new DependencyGraph<Integer>(List.of(assign("a", "x", 1),
+		                                         assign("b", "y", 1),
+		                                         assign("c", "a", "b")));
+		graph.setInput("x", 1);
+		graph.setInput("y", 2);
+		graph.evaluate();
+		assertEquals(Optional.of(5), graph.getValue("c"), testName + " unexpected value");
+		graph.setInput("y", 5);
+		assertEquals(2, graph.evaluate(), testName + " unexpected evaluations count");
+		assertEquals(Optional.of(8), graph.getValue("c"), testName + " unexpected value");
+		graph.setInput("y", 5);
+		assertEquals(0, graph.evaluate(), testName + " unexpected evaluations with same value");
+		graph.setInput("x", null);
+		graph.evaluate();
+		assertFalse(graph.getValue("c").isPresent(), testName + " unexpected value after clear");
+	}
+
+	/**
+	 * Test method for {@link DependencyGraph#DependencyGraph(List)} with
+	 * invalid programs
+	 */
+	@Test
+	@DisplayName("DependencyGraph(invalid program)")
+	final void testInvalidPrograms()
+	{
+		String testName = "DependencyGraph(invalid program)";
+		System.out.println(testName);
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> new DependencyGraph<Integer>(List.of(assign("a", "b", 1),
+		                                                        assign("b", "c", 1),
+		                                                        assign("c", "a", 1))),
+		             testName + " unexpected success with circular dependency");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new DependencyGraph<Integer>(List.of(assign("a", 1, 1),
+		                                                        assign("a", 2, 1))),
+		             testName + " unexpected success with multiple assignments");
+	}
+}
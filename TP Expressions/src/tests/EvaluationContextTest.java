@@ -0,0 +1,106 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.binary.BinaryExpression;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link Expression#value(EvaluationContext)}
+ */
+public class EvaluationContextTest
+{
+	/**
+	 * Test method for {@link Expression#value(EvaluationContext)}
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("value(EvaluationContext)")
+	final void testValue() throws ParserException
+	{
+		String testName = "value(EvaluationContext)";
+		System.out.println(testName);
+
+		List<Expression<Integer>> statements =
+		    new ExpressionParser<Integer>(0).parse("a = x + 2; b = a + y; a + b");
+		EvaluationContext<Integer> context = new EvaluationContext<>(Map.of("x", 1, "y", 10));
+		Integer result = null;
+		for (Expression<Integer> statement : statements)
+		{
+			result = statement.value(context);
+		}
+		assertEquals(Integer.valueOf(16), result, testName + " unexpected value");
+		assertEquals(Integer.valueOf(3), context.get("a"), testName + " unexpected assigned value");
+		assertEquals(Integer.valueOf(13), context.get("b"), testName + " unexpected assigned value");
+		// Expressions are not modified
+		BinaryExpression<Integer> first = (BinaryExpression<Integer>) statements.get(0);
+		assertFalse(first.getLeft().hasValue(), testName + " unexpected assignment of expression's variable");
+
+		context.clear();
+		assertThrows(IllegalStateException.class,
+		             () -> statements.get(0).value(context),
+		             testName + " unexpected success without value");
+		assertThrows(NullPointerException.class,
+		             () -> context.set("x", null),
+		             testName + " unexpected success with null value");
+	}
+
+	/**
+	 * Test a single expression evaluated concurrently with distinct contexts
+	 * @throws Exception if parsing or evaluation fails
+	 */
+	@Test
+	@DisplayName("value(EvaluationContext) shared by threads")
+	final void testSharedExpression() throws Exception
+	{
+		String testName = "value(EvaluationContext) shared by threads";
+		System.out.println(testName);
+
+		List<Expression<Double>> statements =
+		    new ExpressionParser<Double>(0.0).parse("a = x + 0.5; a + x + y");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 16; t++)
+			{
+				final double x = t;
+				results.add(executor.submit(() -> {
+					EvaluationContext<Double> context = new EvaluationContext<>();
+					boolean ok = true;
+					for (int i = 0; i < 1000; i++)
+					{
+						context.set("x", x);
+						context.set("y", (double) i);
+						statements.get(0).value(context);
+						ok &= statements.get(1).value(context) == (2 * x) + 0.5 + i;
+					}
+					return ok;
+				}));
+			}
+			for (Future<Boolean> result : results)
+			{
+				assertEquals(Boolean.TRUE, result.get(), testName + " unexpected value");
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import application.EvaluationServer;
+import application.LoadClient;
+
+/**
+ * Test class for {@link EvaluationServer} and {@link LoadClient}
+ */
+public class EvaluationServerTest
+{
+	/**
+	 * Test pipelined requests on a single connection
+	 * @throws IOException if the connection fails
+	 */
+	@Test
+	@DisplayName("pipelined requests")
+	final void testPipelined() throws IOException
+	{
+		String testName = "pipelined requests";
+		System.out.println(testName);
+
+		try (EvaluationServer<Integer> server = new EvaluationServer<Integer>(0);
+		     SocketChannel channel = SocketChannel.open(server.start(null)))
+		{
+			OutputStream output = channel.socket().getOutputStream();
+			output.write(("a + x|a=2,x=3\n"
+			    + "a + x|a=10,x=-1\n"
+			    + "a + x\n"
+			    + "b = a + 1; b + b|a=1\n"
+			    + "b + 1\n"
+			    + "a + (1|a=1\n"
+			    + "a + x|a=one\n").getBytes(StandardCharsets.UTF_8));
+			output.flush();
+			BufferedReader reader =
+			    new BufferedReader(new InputStreamReader(channel.socket().getInputStream(),
+			                                             StandardCharsets.UTF_8));
+			assertEquals("ok 5", reader.readLine(), testName + " unexpected response");
+			assertEquals("ok 9", reader.readLine(), testName + " unexpected response");
+			assertTrue(reader.readLine().startsWith("error "), testName + " unexpected value without frame");
+			assertEquals("ok 4", reader.readLine(), testName + " unexpected response");
+			assertTrue(reader.readLine().startsWith("error "), testName + " unexpected leaked assignment");
+			assertTrue(reader.readLine().startsWith("error "), testName + " unexpected parsed request");
+			assertTrue(reader.readLine().startsWith("error "), testName + " unexpected variable value");
+			assertEquals(7, server.getRequestsCount(), testName + " unexpected requests count");
+			assertEquals(4, server.getErrorsCount(), testName + " unexpected errors count");
+			assertEquals(2, server.getCacheHits(), testName + " unexpected cache hits");
+		}
+	}
+
+	/**
+	 * Test pipelined requests on numbers which can't be lowered into programs
+	 * @throws IOException if the connection fails
+	 */
+	@Test
+	@DisplayName("pipelined requests on Long formulas")
+	final void testPipelinedTrees() throws IOException
+	{
+		String testName = "pipelined requests on Long formulas";
+		System.out.println(testName);
+
+		try (EvaluationServer<Long> server = new EvaluationServer<Long>(0L);
+		     SocketChannel channel = SocketChannel.open(server.start(null)))
+		{
+			OutputStream output = channel.socket().getOutputStream();
+			output.write(("a + x|a=3000000000,x=3000000000\n"
+			    + "a + x|a=5,x=7\n"
+			    + "a + x\n"
+			    + "b = a + 1; b + b|a=1\n"
+			    + "b + 1\n").getBytes(StandardCharsets.UTF_8));
+			output.flush();
+			BufferedReader reader =
+			    new BufferedReader(new InputStreamReader(channel.socket().getInputStream(),
+			                                             StandardCharsets.UTF_8));
+			assertEquals("ok 6000000000", reader.readLine(), testName + " unexpected response");
+			assertEquals("ok 12", reader.readLine(), testName + " unexpected response");
+			assertTrue(reader.readLine().startsWith("error "), testName + " unexpected value without frame");
+			assertEquals("ok 4", reader.readLine(), testName + " unexpected response");
+			assertTrue(reader.readLine().startsWith("error "), testName + " unexpected leaked assignment");
+			assertEquals(5, server.getRequestsCount(), testName + " unexpected requests count");
+			assertEquals(2, server.getErrorsCount(), testName + " unexpected errors count");
+			assertEquals(2, server.getCacheHits(), testName + " unexpected cache hits");
+		}
+	}
+
+	/**
+	 * Test concurrent connections with the load client
+	 * @throws IOException if a connection fails
+	 */
+	@Test
+	@DisplayName("LoadClient.run(List)")
+	final void testLoad() throws IOException
+	{
+		String testName = "LoadClient.run(List)";
+		System.out.println(testName);
+
+		try (EvaluationServer<Double> server = new EvaluationServer<Double>(0.0, 2))
+		{
+			InetSocketAddress address = server.start(null);
+			LoadClient.Result result = new LoadClient(address, 8, 500, 16)
+			    .run(List.of("a + x + 1|a=2,x=0.5", "y = x + x; y + 1|x=1", "z + 1"));
+			assertEquals(4000, result.getRequestsCount(), testName + " unexpected requests count");
+			assertEquals(4000, server.getRequestsCount(), testName + " unexpected served requests count");
+			assertEquals(1328, result.getErrorsCount(), testName + " unexpected errors count");
+			assertTrue(result.getP50() <= result.getP99(), testName + " unexpected percentiles");
+			assertTrue(result.getP99() <= result.getPercentile(100.0), testName + " unexpected percentiles");
+			assertThrows(IllegalArgumentException.class,
+			             () -> result.getPercentile(101.0),
+			             testName + " unexpected percentile");
+			assertThrows(IllegalArgumentException.class,
+			             () -> new LoadClient(address, 0, 1, 1),
+			             testName + " unexpected load without connections");
+		}
+	}
+}
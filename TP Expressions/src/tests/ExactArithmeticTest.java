@@ -0,0 +1,113 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.terminal.ConstantExpression;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for exact arithmetic on {@link Long} and {@link BigDecimal}
+ * numbers
+ */
+public class ExactArithmeticTest
+{
+	/**
+	 * Test parsing and evaluating long expressions
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("Long expressions")
+	final void testLong() throws ParserException
+	{
+		String testName = "Long expressions";
+		System.out.println(testName);
+
+		ExpressionParser<Long> parser = new ExpressionParser<Long>(0L);
+		List<Expression<Long>> expressions =
+		    parser.parse("a = 9223372036854775800 + 7; +5; a + 1");
+		assertEquals(Long.MAX_VALUE, expressions.get(0).value(), testName + " unexpected value");
+		assertEquals(Long.valueOf(5L), expressions.get(1).value(), testName + " unexpected unary value");
+		Expression<Long> overflow = new ExpressionParser<Long>(0L)
+		    .parse("9223372036854775807 + 1").get(0);
+		assertThrows(ArithmeticException.class, () -> overflow.value(), testName + " unexpected overflow");
+		assertThrows(ParserException.class,
+		             () -> parser.parse("9223372036854775808"),
+		             testName + " unexpected long overflow");
+		assertThrows(ParserException.class,
+		             () -> parser.parse("1.5"),
+		             testName + " unexpected decimal point");
+	}
+
+	/**
+	 * Test parsing and evaluating decimal expressions
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("BigDecimal expressions")
+	final void testDecimal() throws ParserException
+	{
+		String testName = "BigDecimal expressions";
+		System.out.println(testName);
+
+		ExpressionParser<BigDecimal> parser = new ExpressionParser<BigDecimal>(BigDecimal.ZERO);
+		List<Expression<BigDecimal>> expressions =
+		    parser.parse("0.1 + 0.2; 9000000000000000000 + 9000000000000000000; 12345678901234567890.5 + 0.5");
+		assertEquals(new BigDecimal("0.3"), expressions.get(0).value(), testName + " unexpected value");
+		assertEquals(new BigDecimal("18000000000000000000"), expressions.get(1).value(),
+		             testName + " unexpected promoted value");
+		assertEquals(new BigDecimal("12345678901234567891.0"), expressions.get(2).value(),
+		             testName + " unexpected long number");
+		assertThrows(ParserException.class,
+		             () -> parser.parse("1.2.3"),
+		             testName + " unexpected success with several points");
+
+		AdditionExpression<Number> mixed =
+		    new AdditionExpression<Number>(new ConstantExpression<Number>(Long.valueOf(2L)),
+		                                   new ConstantExpression<Number>(new BigDecimal("0.25")));
+		assertEquals(new BigDecimal("2.25"), mixed.value(), testName + " unexpected mixed value");
+	}
+
+	/**
+	 * Test exact kernels of operators
+	 */
+	@Test
+	@DisplayName("applyExact & applyAsDecimal")
+	final void testKernels()
+	{
+		String testName = "applyExact & applyAsDecimal";
+		System.out.println(testName);
+
+		assertEquals(1L << 62, BinaryOperatorRules.POWER.applyExact(2, 62), testName + " unexpected power");
+		assertEquals(-1L, BinaryOperatorRules.POWER.applyExact(-1, -3), testName + " unexpected power");
+		assertEquals(-3L, BinaryOperatorRules.DIVISION.applyExact(-7, 2), testName + " unexpected division");
+		assertThrows(ArithmeticException.class,
+		             () -> BinaryOperatorRules.POWER.applyExact(2, 63),
+		             testName + " unexpected power overflow");
+		assertThrows(ArithmeticException.class,
+		             () -> BinaryOperatorRules.MULTIPLICATION.applyExact(Long.MAX_VALUE, 2),
+		             testName + " unexpected product overflow");
+		assertThrows(ArithmeticException.class,
+		             () -> BinaryOperatorRules.DIVISION.applyExact(Long.MIN_VALUE, -1),
+		             testName + " unexpected quotient overflow");
+		assertEquals(new BigDecimal("0.5"),
+		             BinaryOperatorRules.POWER.applyAsDecimal(new BigDecimal(2), new BigDecimal(-1)),
+		             testName + " unexpected decimal power");
+		assertEquals(new BigDecimal("3.5"),
+		             BinaryOperatorRules.DIVISION.applyAsDecimal(new BigDecimal(7), new BigDecimal(2)),
+		             testName + " unexpected decimal division");
+		assertThrows(ArithmeticException.class,
+		             () -> BinaryOperatorRules.POWER.applyAsDecimal(BigDecimal.TEN, new BigDecimal("0.5")),
+		             testName + " unexpected non integral exponent");
+	}
+}
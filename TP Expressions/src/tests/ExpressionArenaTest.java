@@ -0,0 +1,184 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.arena.ArenaExpression;
+import expressions.arena.ExpressionArena;
+import expressions.binary.BinaryOperatorRules;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link ExpressionArena} and {@link ArenaExpression}
+ */
+public class ExpressionArenaTest
+{
+	/**
+	 * Test copying parsed expressions into an arena
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("add(Expression)")
+	final void testAdd() throws ParserException
+	{
+		String testName = "add(Expression)";
+		System.out.println(testName);
+
+		ExpressionArena<Integer> arena = new ExpressionArena<>(0, 2);
+		List<Expression<Integer>> expressions =
+		    new ExpressionParser<Integer>(0).parse("a = 2 + 3; a + (1 + b)");
+		ArenaExpression<Integer> assignment = arena.get(arena.add(expressions.get(0)));
+		ArenaExpression<Integer> sum = arena.get(arena.add(expressions.get(1)));
+
+		assertEquals(10, arena.size(), testName + " unexpected size");
+		assertEquals(expressions.get(0).toString(), assignment.toString(), testName + " unexpected string");
+		assertEquals(expressions.get(1).toString(), sum.toString(), testName + " unexpected string");
+		assertEquals(BinaryOperatorRules.ASSIGNMENT, assignment.getRules(), testName + " unexpected rules");
+		assertNull(assignment.getParent(), testName + " unexpected parent");
+		assertEquals(assignment, assignment.getLeft().getParent(), testName + " unexpected parent");
+		assertTrue(sum.contains(sum.getRight().getRight()), testName + " unexpected containment");
+		assertFalse(sum.getRight().contains(sum), testName + " unexpected containment");
+		assertThrows(UnsupportedOperationException.class,
+		             () -> sum.getLeft().setParent(null),
+		             testName + " unexpected parent change");
+	}
+
+	/**
+	 * Test evaluating arena nodes
+	 */
+	@Test
+	@DisplayName("value()")
+	final void testValue()
+	{
+		String testName = "value()";
+		System.out.println(testName);
+
+		ExpressionArena<Integer> arena = new ExpressionArena<>(0);
+		int quotient = arena.binary(BinaryOperatorRules.DIVISION, arena.constant(7), arena.variable("x"));
+		int assignment = arena.binary(BinaryOperatorRules.ASSIGNMENT, arena.variable("y"), quotient);
+		ArenaExpression<Integer> view = arena.get(assignment);
+
+		assertFalse(view.hasValue(), testName + " unexpected value");
+		assertThrows(IllegalStateException.class, () -> view.value(), testName + " unexpected value");
+		arena.setValue("x", 2);
+		assertTrue(view.hasValue(), testName + " expected value");
+		assertEquals(3, view.value(), testName + " unexpected value");
+		assertEquals(3, arena.getValue("y"), testName + " unexpected assigned value");
+
+		EvaluationContext<Integer> context = new EvaluationContext<>();
+		context.set("x", 3);
+		assertEquals(2, view.value(context), testName + " unexpected value in context");
+		assertEquals(2, context.get("y"), testName + " unexpected assigned value in context");
+		assertEquals(3, arena.getValue("y"), testName + " unexpected modified value");
+
+		arena.setValue("x", 0);
+		assertThrows(ArithmeticException.class, () -> view.value(), testName + " unexpected division");
+		assertThrows(IllegalArgumentException.class,
+		             () -> arena.binary(BinaryOperatorRules.ADDITION, quotient, arena.constant(1)),
+		             testName + " unexpected second parent");
+		assertThrows(IllegalArgumentException.class,
+		             () -> arena.binary(BinaryOperatorRules.ASSIGNMENT, arena.constant(1), arena.constant(2)),
+		             testName + " unexpected assignment to a constant");
+
+		ExpressionArena<Float> floats = new ExpressionArena<>(0.0f);
+		int third = floats.binary(BinaryOperatorRules.DIVISION, floats.constant(1.0f), floats.constant(3.0f));
+		assertEquals(1.0f / 3.0f, floats.value(third), testName + " unexpected float value");
+	}
+
+	/**
+	 * Test a very deep tree (which would overflow recursive evaluation)
+	 */
+	@Test
+	@DisplayName("deep tree")
+	final void testDeepTree()
+	{
+		String testName = "deep tree";
+		System.out.println(testName);
+
+		ExpressionArena<Double> arena = new ExpressionArena<>(0.0, 16);
+		arena.setValue("x", 0.5);
+		int count = 1_000_000;
+		int root = arena.variable("x");
+		for (int i = 0; i < count; i++)
+		{
+			root = arena.binary(BinaryOperatorRules.ADDITION, root, arena.constant(1.0));
+		}
+		assertEquals((2 * count) + 1, arena.size(), testName + " unexpected size");
+		assertTrue(arena.getMemoryUsage() >= (long) arena.size() * ExpressionArena.NODE_SIZE,
+		           testName + " unexpected memory usage");
+		assertEquals(count + 0.5, arena.value(root), testName + " unexpected value");
+		assertTrue(arena.hasValue(root), testName + " expected value");
+
+		ExpressionArena<Double> other = new ExpressionArena<>(0.0);
+		int copy = other.add(arena.get(root).toExpression());
+		assertEquals(arena.get(root), other.get(copy), testName + " unexpected copy");
+		assertNotEquals(arena.get(root), other.get(other.variable("x")), testName + " unexpected equality");
+		assertEquals(arena.get(root).hashCode(), other.get(copy).hashCode(), testName + " unexpected hash code");
+	}
+
+	/**
+	 * Test evaluating the same node in distinct contexts from several threads
+	 * @throws Exception if a thread fails
+	 */
+	@Test
+	@DisplayName("value(int, EvaluationContext) concurrently")
+	final void testConcurrentValue() throws Exception
+	{
+		String testName = "value(int, EvaluationContext) concurrently";
+		System.out.println(testName);
+
+		ExpressionArena<Integer> arena = new ExpressionArena<>(0);
+		int root = arena.variable("x");
+		for (int i = 0; i < 1000; i++)
+		{
+			root = arena.binary(BinaryOperatorRules.ADDITION, arena.constant(1), root);
+		}
+		int node = root;
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 4; t++)
+			{
+				int offset = t * 1_000_000;
+				results.add(pool.submit(() ->
+				{
+					EvaluationContext<Integer> context = new EvaluationContext<>();
+					for (int i = 0; i < 2000; i++)
+					{
+						context.set("x", offset + i);
+						if (arena.value(node, context) != offset + i + 1000)
+						{
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> result : results)
+			{
+				assertTrue(result.get(), testName + " unexpected value");
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.binary.AdditionExpression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Test class for cached values of {@link BinaryExpression}s
+ */
+public class ExpressionCacheTest
+{
+	/**
+	 * Shared variable
+	 */
+	private VariableExpression<Integer> x;
+
+	/**
+	 * Other variable
+	 */
+	private VariableExpression<Integer> y;
+
+	/**
+	 * x + 1
+	 */
+	private AdditionExpression<Integer> left;
+
+	/**
+	 * y + x
+	 */
+	private AdditionExpression<Integer> right;
+
+	/**
+	 * (x + 1) + (y + x)
+	 */
+	private AdditionExpression<Integer> root;
+
+	/**
+	 * Setup before each test
+	 */
+	@BeforeEach
+	void setUp()
+	{
+		x = new VariableExpression<>("x", 1);
+		y = new VariableExpression<>("y", 2);
+		left = new AdditionExpression<>(x, new ConstantExpression<Integer>(1));
+		right = new AdditionExpression<>(y, x);
+		root = new AdditionExpression<>(left, right);
+		BinaryExpression.setCacheStatistics(true);
+	}
+
+	/**
+	 * Tear down after each test
+	 */
+	@AfterEach
+	void tearDown()
+	{
+		BinaryExpression.setCacheStatistics(false);
+	}
+
+	/**
+	 * Test cached values are reused when nothing changes
+	 */
+	@Test
+	@DisplayName("value() with unchanged variables")
+	final void testCacheHits()
+	{
+		String testName = "value() with unchanged variables";
+		System.out.println(testName);
+
+		assertEquals(Integer.valueOf(5), root.value(), testName + " unexpected value");
+		assertEquals(3L, BinaryExpression.getCacheMisses(), testName + " unexpected misses");
+		assertEquals(0L, BinaryExpression.getCacheHits(), testName + " unexpected hits");
+		assertEquals(Integer.valueOf(5), root.value(), testName + " unexpected value");
+		assertEquals(3L, BinaryExpression.getCacheMisses(), testName + " unexpected misses");
+		assertEquals(1L, BinaryExpression.getCacheHits(), testName + " unexpected hits");
+		x.setValue(1);
+		assertEquals(Integer.valueOf(5), root.value(), testName + " unexpected value");
+		assertEquals(2L, BinaryExpression.getCacheHits(), testName + " unexpected hits after same value");
+	}
+
+	/**
+	 * Test only ancestors of a modified variable are evaluated again
+	 */
+	@Test
+	@DisplayName("value() after setValue(E) / clearValue()")
+	final void testInvalidation()
+	{
+		String testName = "value() after setValue(E) / clearValue()";
+		System.out.println(testName);
+
+		root.value();
+		y.setValue(10);
+		assertEquals(Integer.valueOf(13), root.value(), testName + " unexpected value");
+		assertEquals(5L, BinaryExpression.getCacheMisses(), testName + " unexpected misses");
+		assertEquals(1L, BinaryExpression.getCacheHits(), testName + " unexpected hits");
+
+		// x is shared by both sides of root
+		x.setValue(2);
+		assertEquals(Integer.valueOf(15), root.value(), testName + " unexpected value");
+		assertEquals(Integer.valueOf(3), left.value(), testName + " unexpected left value");
+
+		x.clearValue();
+		assertFalse(root.hasValue(), testName + " unexpected value after clear");
+		assertThrows(IllegalStateException.class,
+		             () -> root.value(),
+		             testName + " unexpected evaluation after clear");
+	}
+
+	/**
+	 * Test replacing operands and assigning variables invalidate cached values
+	 */
+	@Test
+	@DisplayName("value() after setLeft / assignment")
+	final void testStructuralChanges()
+	{
+		String testName = "value() after setLeft / assignment";
+		System.out.println(testName);
+
+		assertEquals(Integer.valueOf(5), root.value(), testName + " unexpected value");
+		left.setLeft(new ConstantExpression<Integer>(10));
+		assertEquals(Integer.valueOf(14), root.value(), testName + " unexpected value after setLeft");
+
+		// detached x no longer affects left
+		AssignmentExpression<Integer> assignment =
+		    new AssignmentExpression<>(x, new ConstantExpression<Integer>(7));
+		assignment.value();
+		assertEquals(Integer.valueOf(11), left.value(), testName + " unexpected left value");
+		assertEquals(Integer.valueOf(20), root.value(), testName + " unexpected value after assignment");
+	}
+
+	/**
+	 * Test cache hits and misses are not counted when statistics are disabled
+	 */
+	@Test
+	@DisplayName("setCacheStatistics(false)")
+	final void testStatisticsDisabled()
+	{
+		String testName = "setCacheStatistics(false)";
+		System.out.println(testName);
+
+		BinaryExpression.setCacheStatistics(false);
+		assertFalse(BinaryExpression.isCacheStatistics(), testName + " unexpected statistics");
+		assertEquals(Integer.valueOf(5), root.value(), testName + " unexpected value");
+		assertEquals(Integer.valueOf(5), root.value(), testName + " unexpected value");
+		assertEquals(0L, BinaryExpression.getCacheMisses(), testName + " unexpected misses");
+		assertEquals(0L, BinaryExpression.getCacheHits(), testName + " unexpected hits");
+	}
+}
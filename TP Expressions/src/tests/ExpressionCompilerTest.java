@@ -0,0 +1,202 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.binary.AssignmentExpression;
+import expressions.compiler.CompiledExpression;
+import expressions.compiler.ExpressionCompiler;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Test class for {@link ExpressionCompiler}
+ */
+public class ExpressionCompilerTest
+{
+	/**
+	 * Test method for {@link ExpressionCompiler#ExpressionCompiler(Number)}.
+	 */
+	@Test
+	@DisplayName("ExpressionCompiler(Number specimen)")
+	final void testExpressionCompiler()
+	{
+		String testName = "ExpressionCompiler(Number specimen)";
+		System.out.println(testName);
+
+		assertNotNull(new ExpressionCompiler<Integer>(0), testName + " failed with null instance");
+		assertNotNull(new ExpressionCompiler<Float>(0.0f), testName + " failed with null instance");
+		assertNotNull(new ExpressionCompiler<Double>(0.0), testName + " failed with null instance");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new ExpressionCompiler<BigDecimal>(BigDecimal.ZERO),
+		             testName + " unexpected success with unsupported number class");
+	}
+
+	/**
+	 * Test method for {@link ExpressionCompiler#compile(Expression)} with
+	 * integer expressions
+	 */
+	@Test
+	@DisplayName("compile(Expression<Integer>)")
+	final void testCompileInteger()
+	{
+		String testName = "compile(Expression<Integer>)";
+		System.out.println(testName);
+
+		// x + 100000 + -3
+		AdditionExpression<Integer> inner =
+		    new AdditionExpression<>(new VariableExpression<Integer>("x"),
+		                             new ConstantExpression<Integer>(100000));
+		AdditionExpression<Integer> root =
+		    new AdditionExpression<>(inner, new ConstantExpression<Integer>(-3));
+		ExpressionCompiler<Integer> compiler = new ExpressionCompiler<>(0);
+		CompiledExpression compiled = compiler.compile(root);
+
+		assertEquals(1, compiled.getVariablesCount(), testName + " unexpected variables count");
+		assertEquals(0, compiled.slotOf("x"), testName + " unexpected slot");
+		assertEquals(-1, compiled.slotOf("y"), testName + " unexpected slot");
+		assertEquals(root.toString(), compiled.toString(), testName + " unexpected string");
+		double[] frame = compiled.newFrame();
+		for (int x = -10; x <= 10; x++)
+		{
+			frame[0] = x;
+			assertEquals(x + 100000 - 3,
+			             compiled.evaluate(frame),
+			             testName + " unexpected value");
+		}
+	}
+
+	/**
+	 * Test method for {@link ExpressionCompiler#compile(Expression)} with
+	 * floating point expressions
+	 */
+	@Test
+	@DisplayName("compile(Expression<Float|Double>)")
+	final void testCompileFloatingPoint()
+	{
+		String testName = "compile(Expression<Float|Double>)";
+		System.out.println(testName);
+
+		AdditionExpression<Float> floatRoot =
+		    new AdditionExpression<>(new VariableExpression<Float>("x"),
+		                             new ConstantExpression<Float>(0.1f));
+		CompiledExpression floatCompiled =
+		    new ExpressionCompiler<Float>(0.0f).compile(floatRoot);
+		assertEquals(2.0f + 0.1f,
+		             floatCompiled.evaluate(new double[] {2.0}),
+		             testName + " unexpected float value");
+
+		AdditionExpression<Double> doubleRoot =
+		    new AdditionExpression<>(new ConstantExpression<Double>(1.0),
+		                             new AdditionExpression<Double>(
+		                                 new VariableExpression<Double>("x"),
+		                                 new ConstantExpression<Double>(2.5)));
+		CompiledExpression doubleCompiled =
+		    new ExpressionCompiler<Double>(0.0).compile(doubleRoot);
+		assertEquals(3.75,
+		             doubleCompiled.evaluate(new double[] {0.25}),
+		             testName + " unexpected double value");
+	}
+
+	/**
+	 * Test method for {@link ExpressionCompiler#compile(List)} with
+	 * assignments sharing a frame
+	 */
+	@Test
+	@DisplayName("compile(List<Expression<Integer>>)")
+	final void testCompileStatements()
+	{
+		String testName = "compile(List<Expression<Integer>>)";
+		System.out.println(testName);
+
+		// a = 1; b = a + 2; b + a
+		AssignmentExpression<Integer> first =
+		    new AssignmentExpression<>(new VariableExpression<Integer>("a"),
+		                               new ConstantExpression<Integer>(1));
+		AssignmentExpression<Integer> second =
+		    new AssignmentExpression<>(new VariableExpression<Integer>("b"),
+		                               new AdditionExpression<Integer>(
+		                                   new VariableExpression<Integer>("a"),
+		                                   new ConstantExpression<Integer>(2)));
+		AdditionExpression<Integer> third =
+		    new AdditionExpression<>(new VariableExpression<Integer>("b"),
+		                             new VariableExpression<Integer>("a"));
+		List<CompiledExpression> program =
+		    new ExpressionCompiler<Integer>(0).compile(List.<Expression<Integer>>of(first, second, third));
+
+		assertEquals(3, program.size(), testName + " unexpected program size");
+		double[] frame = program.get(0).newFrame();
+		assertEquals(1.0, program.get(0).evaluate(frame), testName + " unexpected value");
+		assertEquals(3.0, program.get(1).evaluate(frame), testName + " unexpected value");
+		assertEquals(4.0, program.get(2).evaluate(frame), testName + " unexpected value");
+		assertEquals(1.0, frame[program.get(2).slotOf("a")], testName + " unexpected assigned value");
+		assertEquals(3.0, frame[program.get(2).slotOf("b")], testName + " unexpected assigned value");
+	}
+
+	/**
+	 * Test method for {@link ExpressionCompiler#compile(Expression)} with
+	 * incomplete expressions
+	 */
+	@Test
+	@DisplayName("compile(incomplete Expression)")
+	final void testCompileIncomplete()
+	{
+		String testName = "compile(incomplete Expression)";
+		System.out.println(testName);
+
+		ExpressionCompiler<Integer> compiler = new ExpressionCompiler<>(0);
+		assertThrows(IllegalArgumentException.class,
+		             () -> compiler.compile((Expression<Integer>) null),
+		             testName + " unexpected success with null expression");
+		assertThrows(IllegalArgumentException.class,
+		             () -> compiler.compile(new AdditionExpression<Integer>()),
+		             testName + " unexpected success with incomplete expression");
+	}
+
+	/**
+	 * Test method for {@link ExpressionCompiler#compile(Expression)} with an
+	 * expression whose constants don't fit in a constant pool
+	 */
+	@Test
+	@DisplayName("compile(too large Expression)")
+	final void testCompileTooLarge()
+	{
+		String testName = "compile(too large Expression)";
+		System.out.println(testName);
+
+		// Balanced sum of 40000 distinct double constants (2 pool slots each)
+		List<Expression<Double>> operands = new ArrayList<Expression<Double>>();
+		for (int i = 0; i < 40000; i++)
+		{
+			operands.add(new ConstantExpression<Double>(i + 0.5));
+		}
+		while (operands.size() > 1)
+		{
+			List<Expression<Double>> sums = new ArrayList<Expression<Double>>();
+			for (int i = 0; i + 1 < operands.size(); i += 2)
+			{
+				sums.add(new AdditionExpression<Double>(operands.get(i), operands.get(i + 1)));
+			}
+			if (operands.size() % 2 != 0)
+			{
+				sums.add(operands.get(operands.size() - 1));
+			}
+			operands = sums;
+		}
+		Expression<Double> sum = operands.get(0);
+		ExpressionCompiler<Double> compiler = new ExpressionCompiler<>(0.0);
+		assertThrows(IllegalArgumentException.class,
+		             () -> compiler.compile(sum),
+		             testName + " unexpected success with too many constants");
+	}
+}
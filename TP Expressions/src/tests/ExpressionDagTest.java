@@ -0,0 +1,100 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.ExpressionDag;
+import expressions.ExpressionInterner;
+import expressions.binary.AdditionExpression;
+import expressions.binary.BinaryExpression;
+import expressions.terminal.VariableExpression;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link ExpressionInterner} and {@link ExpressionDag}
+ */
+public class ExpressionDagTest
+{
+	/**
+	 * Test method for {@link ExpressionInterner#intern(Expression)}
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("intern(Expression)")
+	final void testIntern() throws ParserException
+	{
+		String testName = "intern(Expression)";
+		System.out.println(testName);
+
+		ExpressionInterner<Integer> interner = new ExpressionInterner<>();
+		List<Expression<Integer>> parsed = new ExpressionParser<Integer>(0).parse("(a + b) + (a + b)");
+		BinaryExpression<Integer> root = (BinaryExpression<Integer>) interner.intern(parsed.get(0));
+		assertSame(root.getLeft(), root.getRight(), testName + " unexpected distinct operands");
+		assertEquals(parsed.get(0), root, testName + " unexpected structure");
+		assertEquals(4, interner.size(), testName + " unexpected size");
+
+		BinaryExpression<Integer> shared = (BinaryExpression<Integer>) root.getLeft();
+		assertEquals(2, shared.getDependents().size(), testName + " unexpected dependents");
+		AdditionExpression<Integer> other = new AdditionExpression<>();
+		other.setLeft(shared);
+		assertSame(other, shared.getParent(), testName + " unexpected parent");
+		other.setLeft(null);
+		assertEquals(2, shared.getDependents().size(), testName + " unexpected dependents after release");
+		assertSame(interner.variable("a"), shared.getLeft(), testName + " unexpected variable");
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> interner.intern(new AdditionExpression<Integer>()),
+		             testName + " unexpected success");
+	}
+
+	/**
+	 * Test method for {@link ExpressionDag#evaluate()}
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("evaluate()")
+	final void testEvaluate() throws ParserException
+	{
+		String testName = "evaluate()";
+		System.out.println(testName);
+
+		List<Expression<Integer>> statements =
+		    new ExpressionParser<Integer>(0).parse("x = (a + b) + (a + b); y = x + (a + b); a = 10; y + (a + b)");
+		ExpressionDag<Integer> dag = new ExpressionDag<>(statements);
+		assertEquals(24, dag.getTreeSize(), testName + " unexpected tree size");
+		assertEquals(12, dag.getNodesCount(), testName + " unexpected nodes count");
+		assertEquals(List.of("a", "b", "x", "y"), List.copyOf(dag.getVariables().keySet()),
+		             testName + " unexpected variables");
+
+		VariableExpression<Integer> a = dag.getVariable("a").orElseThrow();
+		assertEquals(List.of(Optional.empty(), Optional.empty(), Optional.of(10), Optional.empty()),
+		             dag.evaluate(),
+		             testName + " unexpected values without b");
+
+		a.setValue(1);
+		dag.getVariable("b").orElseThrow().setValue(2);
+		BinaryExpression.setCacheStatistics(true);
+		try
+		{
+			assertEquals(List.of(Optional.of(6), Optional.of(9), Optional.of(10), Optional.of(21)),
+			             dag.evaluate(),
+			             testName + " unexpected values");
+			// a + b evaluated twice (before and after a = 10) instead of 4 times
+			assertEquals(5L, BinaryExpression.getCacheMisses(), testName + " unexpected evaluations");
+		}
+		finally
+		{
+			BinaryExpression.setCacheStatistics(false);
+		}
+		assertEquals(Integer.valueOf(9), dag.getVariable("y").orElseThrow().value(), testName + " unexpected y");
+	}
+}
@@ -0,0 +1,87 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.AbstractExpression;
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Test class for structural {@link AbstractExpression#equals(Object)} and
+ * cached {@link AbstractExpression#hashCode()}
+ */
+public class ExpressionEqualityTest
+{
+	/**
+	 * Test method for {@link AbstractExpression#hashCode()} after structural
+	 * changes deep in an expression
+	 */
+	@Test
+	@DisplayName("hashCode() after setLeft")
+	final void testHashCode()
+	{
+		String testName = "hashCode() after setLeft";
+		System.out.println(testName);
+
+		AdditionExpression<Double> inner =
+		    new AdditionExpression<>(new VariableExpression<Double>("x"), new ConstantExpression<Double>(1.5));
+		AdditionExpression<Double> root =
+		    new AdditionExpression<>(inner, new VariableExpression<Double>("yy"));
+		assertEquals(root.toString().hashCode(), root.hashCode(), testName + " unexpected hash");
+		assertEquals(AbstractExpression.scaleOf(root.toString().length()),
+		             root.hashScale(),
+		             testName + " unexpected hash scale");
+
+		inner.setLeft(new ConstantExpression<Double>(-2.25));
+		assertEquals(root.toString().hashCode(), root.hashCode(), testName + " unexpected hash after setLeft");
+
+		AdditionExpression<Double> empty = new AdditionExpression<>(null, null);
+		assertEquals(empty.toString().hashCode(), empty.hashCode(), testName + " unexpected hash with null operands");
+	}
+
+	/**
+	 * Test method for {@link AbstractExpression#equals(Object)} with
+	 * expressions written the same way but with different structures
+	 */
+	@Test
+	@DisplayName("equals(Object) with different structures")
+	final void testEquals()
+	{
+		String testName = "equals(Object) with different structures";
+		System.out.println(testName);
+
+		// (a + b) + c and a + (b + c) are both written "a + b + c"
+		AdditionExpression<Integer> leftAssociative = new AdditionExpression<>(
+		    new AdditionExpression<>(new VariableExpression<Integer>("a"), new VariableExpression<Integer>("b")),
+		    new VariableExpression<Integer>("c"));
+		AdditionExpression<Integer> rightAssociative = new AdditionExpression<>(
+		    new VariableExpression<Integer>("a"),
+		    new AdditionExpression<>(new VariableExpression<Integer>("b"), new VariableExpression<Integer>("c")));
+		assertEquals(leftAssociative.toString(), rightAssociative.toString(), testName + " unexpected strings");
+		assertNotEquals(leftAssociative, rightAssociative, testName + " unexpected equality");
+
+		AdditionExpression<Integer> copy = new AdditionExpression<>(
+		    new AdditionExpression<>(new VariableExpression<Integer>("a", 1), new VariableExpression<Integer>("b")),
+		    new VariableExpression<Integer>("c"));
+		assertEquals(leftAssociative, copy, testName + " unexpected inequality");
+		assertNotEquals(new ConstantExpression<Integer>(1),
+		                new ConstantExpression<Double>(1.0),
+		                testName + " unexpected equality between number types");
+
+		Map<Expression<Integer>, String> map = new HashMap<>();
+		map.put(leftAssociative, "left");
+		map.put(rightAssociative, "right");
+		assertEquals(2, map.size(), testName + " unexpected map size");
+		assertSame("left", map.get(copy), testName + " unexpected value in map");
+	}
+}
@@ -0,0 +1,146 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.ExpressionOptimizer;
+import expressions.binary.AdditionExpression;
+import expressions.binary.BinaryExpression;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link ExpressionOptimizer}
+ */
+public class ExpressionOptimizerTest
+{
+	/**
+	 * Parses and optimizes a single statement
+	 * @param <E> The type of numbers in expressions
+	 * @param specimen A specimen to provide the Number class for expressions
+	 * @param optimizer the optimizer to use
+	 * @param statement the statement to parse
+	 * @return the optimized statement
+	 * @throws ParserException if parsing fails
+	 */
+	private static <E extends Number> Expression<E> optimize(Number specimen,
+	                                                         ExpressionOptimizer<E> optimizer,
+	                                                         String statement)
+		throws ParserException
+	{
+		return optimizer.optimize(new ExpressionParser<E>(specimen).parse(statement).get(0));
+	}
+
+	/**
+	 * Test method for {@link ExpressionOptimizer#optimize(Expression)} with
+	 * integers
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("optimize(Expression) with integers")
+	final void testOptimizeIntegers() throws ParserException
+	{
+		String testName = "optimize(Expression) with integers";
+		System.out.println(testName);
+
+		ExpressionOptimizer<Integer> optimizer = new ExpressionOptimizer<>(0);
+		assertEquals("x + 5", optimize(0, optimizer, "2 + 3 + x").toString(), testName + " unexpected folding");
+		assertEquals(2L, optimizer.getRemovedNodes(), testName + " unexpected removed nodes");
+		assertEquals("x + y + 5", optimize(0, optimizer, "x + 2 + (y + 3)").toString(), testName + " unexpected reassociation");
+		assertEquals("x", optimize(0, optimizer, "x + 0").toString(), testName + " unexpected identity");
+		assertEquals("a = 3", optimize(0, optimizer, "a = 1 + 2").toString(), testName + " unexpected assignment");
+		assertEquals(8L, optimizer.getRemovedNodes(), testName + " unexpected removed nodes");
+
+		// Long chain : xa + 1 + xb + 1 + ... evaluated the same way with a small depth
+		StringBuilder source = new StringBuilder("xa");
+		for (int i = 1; i < 200; i++)
+		{
+			source.append(" + 1 + x" + (char) ('a' + (i / 26)) + (char) ('a' + (i % 26)));
+		}
+		Expression<Integer> chain = new ExpressionParser<Integer>(0).parse(source.toString()).get(0);
+		List<VariableExpression<Integer>> variables = new ArrayList<>();
+		collect(chain, variables);
+		assertEquals(200, variables.size(), testName + " unexpected variables count");
+		for (int i = 0; i < variables.size(); i++)
+		{
+			variables.get(i).setValue(i);
+		}
+		Integer expected = chain.value();
+		Expression<Integer> optimized = new ExpressionOptimizer<Integer>(0).optimize(chain);
+		assertEquals(expected, optimized.value(), testName + " unexpected chain value");
+		assertEquals(9, depthOf(optimized), testName + " unexpected chain depth");
+		variables.get(0).setValue(1000);
+		assertEquals(Integer.valueOf(expected + 1000), optimized.value(), testName + " unexpected value after setValue");
+	}
+
+	/**
+	 * Test method for {@link ExpressionOptimizer#optimize(Expression)} with
+	 * floating point numbers
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("optimize(Expression) with doubles")
+	final void testOptimizeDoubles() throws ParserException
+	{
+		String testName = "optimize(Expression) with doubles";
+		System.out.println(testName);
+
+		ExpressionOptimizer<Double> optimizer = new ExpressionOptimizer<>(0.0);
+		assertEquals("4.0 + x", optimize(0.0, optimizer, "1.5 + 2.5 + x").toString(), testName + " unexpected folding");
+		// Not reassociated since floating point additions are not associative
+		assertEquals("x + 1.5 + 2.5", optimize(0.0, optimizer, "x + 1.5 + 2.5").toString(), testName + " unexpected reassociation");
+		// -0.0 + 0.0 is 0.0 so x + 0.0 can't be simplified
+		assertEquals("x + 0.0", optimize(0.0, optimizer, "x + 0.0").toString(), testName + " unexpected identity");
+		VariableExpression<Double> x = new VariableExpression<>("x");
+		assertSame(x,
+		           optimizer.optimize(new AdditionExpression<Double>(x, new ConstantExpression<Double>(-0.0))),
+		           testName + " unexpected identity with -0.0");
+		assertEquals(4L, optimizer.getRemovedNodes(), testName + " unexpected removed nodes");
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> new ExpressionOptimizer<Long>(0L),
+		             testName + " unexpected success");
+	}
+
+	/**
+	 * Collects the variables of an expression
+	 * @param expression the expression to explore
+	 * @param variables the list of variables to fill
+	 */
+	private static void collect(Expression<Integer> expression, List<VariableExpression<Integer>> variables)
+	{
+		if (expression instanceof BinaryExpression<Integer> binary)
+		{
+			collect(binary.getLeft(), variables);
+			collect(binary.getRight(), variables);
+		}
+		else if (expression instanceof VariableExpression<Integer> variable)
+		{
+			variables.add(variable);
+		}
+	}
+
+	/**
+	 * Depth of an expression
+	 * @param expression the expression to explore
+	 * @return the depth of the expression (1 for terminal expressions)
+	 */
+	private static int depthOf(Expression<?> expression)
+	{
+		if (expression instanceof BinaryExpression<?> binary)
+		{
+			return 1 + Math.max(depthOf(binary.getLeft()), depthOf(binary.getRight()));
+		}
+		return 1;
+	}
+}
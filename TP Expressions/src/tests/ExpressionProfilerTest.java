@@ -0,0 +1,111 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.EvaluationContext;
+import expressions.Expression;
+import expressions.profiling.ExpressionProfiler;
+import expressions.profiling.ExpressionProfiler.NodeProfile;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link ExpressionProfiler}
+ */
+public class ExpressionProfilerTest
+{
+	/**
+	 * Test profiling the evaluation of statements
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("evaluate(Expression, EvaluationContext)")
+	final void testEvaluate() throws ParserException
+	{
+		String testName = "evaluate(Expression, EvaluationContext)";
+		System.out.println(testName);
+
+		ExpressionProfiler<Integer> profiler = new ExpressionProfiler<Integer>();
+		List<Expression<Integer>> statements =
+		    profiler.parse(new ExpressionParser<Integer>(0), "a = 1 + 2; a + (b + 3)");
+		EvaluationContext<Integer> context = new EvaluationContext<Integer>();
+		assertEquals(3, profiler.evaluate(statements.get(0), context), testName + " unexpected value");
+		context.set("b", 4);
+		for (int i = 0; i < 3; i++)
+		{
+			assertEquals(10, profiler.evaluate(statements.get(1), context), testName + " unexpected value");
+		}
+		assertEquals(3, context.get("a"), testName + " unexpected assigned value");
+
+		List<NodeProfile> profiles = profiler.getProfiles();
+		assertEquals(4, profiles.size(), testName + " unexpected profiles count");
+		assertEquals("a = 1 + 2", profiles.get(0).getPath(), testName + " unexpected path");
+		assertEquals("a = 1 + 2;1 + 2", profiles.get(1).getPath(), testName + " unexpected path");
+		assertEquals("a + b + 3;b + 3", profiles.get(3).getPath(), testName + " unexpected path");
+		assertEquals(1, profiles.get(1).getCount(), testName + " unexpected count");
+		assertEquals(3, profiles.get(3).getCount(), testName + " unexpected count");
+		for (NodeProfile profile : profiles)
+		{
+			assertTrue(profile.getSelfNanos() <= profile.getTotalNanos(), testName + " unexpected self time");
+			assertTrue(profile.getAllocatedBytes() <= profile.getTotalAllocatedBytes(),
+			           testName + " unexpected self allocations");
+		}
+		assertTrue(profiles.get(2).getTotalNanos() >= profiles.get(3).getTotalNanos(),
+		           testName + " unexpected total time");
+
+		EvaluationContext<Integer> empty = new EvaluationContext<Integer>();
+		assertThrows(IllegalStateException.class,
+		             () -> profiler.evaluate(statements.get(1), empty),
+		             testName + " unexpected value without b");
+		assertEquals(3, profiles.get(3).getCount(), testName + " unexpected count after failure");
+	}
+
+	/**
+	 * Test folded stacks export
+	 * @throws Exception if parsing or writing fails
+	 */
+	@Test
+	@DisplayName("writeFoldedStacks(Writer, Metric)")
+	final void testFoldedStacks() throws Exception
+	{
+		String testName = "writeFoldedStacks(Writer, Metric)";
+		System.out.println(testName);
+
+		ExpressionProfiler<Double> profiler = new ExpressionProfiler<Double>();
+		List<Expression<Double>> statements =
+		    profiler.parse(new ExpressionParser<Double>(0.0), "(x + 1) + (x + 1); (x + 1) + (x + 1)");
+		EvaluationContext<Double> context = new EvaluationContext<Double>();
+		context.set("x", 0.5);
+		for (Expression<Double> statement : statements)
+		{
+			assertEquals(3.0, profiler.evaluate(statement, context), testName + " unexpected value");
+		}
+		StringWriter writer = new StringWriter();
+		profiler.writeFoldedStacks(writer, ExpressionProfiler.Metric.COUNT);
+		String root = "x + 1.0 + x + 1.0";
+		assertEquals(root + " 2\n" + root + ";x + 1.0 4\n",
+		             writer.toString(),
+		             testName + " unexpected folded stacks");
+
+		writer = new StringWriter();
+		profiler.writeFoldedStacks(writer, ExpressionProfiler.Metric.SELF_NANOS);
+		for (String line : writer.toString().split("\n"))
+		{
+			long value = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+			assertTrue(value >= 0, testName + " unexpected self time");
+		}
+
+		profiler.reset();
+		writer = new StringWriter();
+		profiler.writeFoldedStacks(writer, ExpressionProfiler.Metric.ALLOCATED_BYTES);
+		assertEquals("", writer.toString(), testName + " unexpected stacks after reset");
+	}
+}
@@ -0,0 +1,118 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import parser.Diagnostic;
+import parser.ExpressionParser;
+import parser.ExpressionValidator;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link ExpressionValidator}
+ */
+public class ExpressionValidatorTest
+{
+	/**
+	 * Programs with their expected diagnostic code and position
+	 * @return a stream of (program, code, position) arguments
+	 */
+	private static Stream<Arguments> programsProvider()
+	{
+		return Stream.of(
+		    Arguments.of("a = 2; b = a + 3", Diagnostic.Code.NONE, -1),
+		    Arguments.of("+a + (+2 + b)", Diagnostic.Code.NONE, -1),
+		    Arguments.of("(a = 1)", Diagnostic.Code.NONE, -1),
+		    Arguments.of("a + 2;", Diagnostic.Code.NONE, -1),
+		    Arguments.of("a + 2; ", Diagnostic.Code.MISSING_RIGHT_OPERAND, 7),
+		    Arguments.of("", Diagnostic.Code.MISSING_RIGHT_OPERAND, 0),
+		    Arguments.of(";a", Diagnostic.Code.MISSING_RIGHT_OPERAND, 2),
+		    Arguments.of("+", Diagnostic.Code.MISSING_RIGHT_OPERAND, 0),
+		    Arguments.of("a + ()", Diagnostic.Code.MISSING_RIGHT_OPERAND, 5),
+		    Arguments.of("a b", Diagnostic.Code.MISSING_OPERATOR, 2),
+		    Arguments.of("a + # 2", Diagnostic.Code.UNKNOWN_TOKEN, 4),
+		    Arguments.of("a + 2)", Diagnostic.Code.UNKNOWN_TOKEN, 5),
+		    Arguments.of("a + (2 + (b)", Diagnostic.Code.UNFINISHED_SUB_CONTEXT, 4),
+		    Arguments.of("9999999999 + a", Diagnostic.Code.INVALID_NUMBER, 0),
+		    Arguments.of("a * 2", Diagnostic.Code.UNSUPPORTED_OPERATOR, 2),
+		    Arguments.of("a = b = 2", Diagnostic.Code.MULTIPLE_ASSIGNMENTS, 6),
+		    Arguments.of("= 2", Diagnostic.Code.UNSUPPORTED_UNARY_OPERATOR, 0),
+		    Arguments.of("a = a + 1", Diagnostic.Code.ILLEGAL_ASSIGNMENT, 2),
+		    Arguments.of("a + b = 1", Diagnostic.Code.ILLEGAL_ASSIGNMENT, 0),
+		    Arguments.of("2 = 1", Diagnostic.Code.ILLEGAL_ASSIGNMENT, 0),
+		    Arguments.of("(a = 1) + 2", Diagnostic.Code.ILLEGAL_ASSIGNMENT, 0),
+		    Arguments.of("ab = (ba + (b + 1))", Diagnostic.Code.NONE, -1),
+		    Arguments.of("(b)=b", Diagnostic.Code.ILLEGAL_ASSIGNMENT, 3),
+		    Arguments.of("(b) = b + 1", Diagnostic.Code.ILLEGAL_ASSIGNMENT, 4),
+		    Arguments.of("b = 1; a = (c + (a + 1))", Diagnostic.Code.ILLEGAL_ASSIGNMENT, 9));
+	}
+
+	/**
+	 * Test method for {@link ExpressionValidator#validate(CharSequence)}
+	 * compared to {@link ExpressionParser#parse(CharSequence)}
+	 * @param program the program to validate
+	 * @param code the expected diagnostic code
+	 * @param position the expected error position
+	 */
+	@ParameterizedTest(name = "[{index}] validate(\"{0}\")")
+	@MethodSource("programsProvider")
+	@DisplayName("validate(CharSequence)")
+	final void testValidate(String program, Diagnostic.Code code, int position)
+	{
+		String testName = "validate(\"" + program + "\")";
+		System.out.println(testName);
+
+		Diagnostic diagnostic = new ExpressionValidator(0).validate(program);
+		assertEquals(code, diagnostic.getCode(), testName + " unexpected code");
+		assertEquals(position, diagnostic.getPosition(), testName + " unexpected position");
+		boolean parsed;
+		try
+		{
+			new ExpressionParser<Integer>(0).parse(program);
+			parsed = true;
+		}
+		catch (ParserException e)
+		{
+			parsed = false;
+		}
+		assertEquals(parsed, diagnostic.isValid(), testName + " unexpected difference with parser");
+	}
+
+	/**
+	 * Test method for {@link ExpressionValidator#validateAll(java.util.Collection)}
+	 */
+	@Test
+	@DisplayName("validateAll(Collection)")
+	final void testValidateAll()
+	{
+		String testName = "validateAll(Collection)";
+		System.out.println(testName);
+
+		ExpressionValidator validator = new ExpressionValidator(0.0);
+		List<Diagnostic> diagnostics = validator.validateAll(List.of("a = 1.5; a + 2", "1.2.3", "x + y; (z"));
+		assertSame(Diagnostic.VALID, diagnostics.get(0), testName + " unexpected diagnostic");
+		assertEquals(Diagnostic.Code.INVALID_NUMBER, diagnostics.get(1).getCode(), testName + " unexpected code");
+		assertEquals(Diagnostic.Code.UNFINISHED_SUB_CONTEXT, diagnostics.get(2).getCode(), testName + " unexpected code");
+		assertEquals(1, diagnostics.get(2).getStatement(), testName + " unexpected statement");
+		assertTrue(diagnostics.get(2).toString().contains("statement 1"), testName + " unexpected string");
+
+		StringBuilder source = new StringBuilder("x");
+		for (int i = 0; i < 100000; i++)
+		{
+			source.append(" + (y");
+		}
+		assertEquals(Diagnostic.Code.UNFINISHED_SUB_CONTEXT,
+		             validator.validate(source).getCode(),
+		             testName + " unexpected code with large program");
+	}
+}
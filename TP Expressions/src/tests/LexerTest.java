@@ -0,0 +1,156 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+import parser.ExpressionParser;
+import parser.Lexer;
+import parser.Lexer.Token;
+import parser.exceptions.IndirectParserException;
+import parser.exceptions.MissingRightOperandException;
+import parser.exceptions.ParserException;
+import parser.exceptions.UnfinishedSubContextException;
+import parser.exceptions.UnknownTokenException;
+
+/**
+ * Test class for {@link Lexer} and its use by {@link ExpressionParser}
+ */
+public class LexerTest
+{
+	/**
+	 * Test method for {@link Lexer#next()}
+	 */
+	@Test
+	@DisplayName("next()")
+	final void testNext()
+	{
+		String testName = "next()";
+		System.out.println(testName);
+
+		Lexer lexer = new Lexer(0);
+		lexer.reset("ab = (12+c) ;!");
+		Token[] expected = new Token[] {
+			Token.IDENTIFIER, Token.OPERATOR, Token.OPEN, Token.NUMBER,
+			Token.OPERATOR, Token.IDENTIFIER, Token.CLOSE, Token.SEPARATOR,
+			Token.UNKNOWN, Token.END
+		};
+		for (Token token : expected)
+		{
+			assertEquals(token, lexer.next(), testName + " unexpected token");
+			if (token == Token.IDENTIFIER && lexer.tokenStart() == 0)
+			{
+				assertEquals("ab", lexer.tokenText(), testName + " unexpected identifier");
+			}
+			if (token == Token.NUMBER)
+			{
+				assertEquals(12L, lexer.longValue(), testName + " unexpected number");
+				assertEquals(6, lexer.tokenStart(), testName + " unexpected token start");
+				assertEquals(8, lexer.tokenEnd(), testName + " unexpected token end");
+			}
+			if (token == Token.OPERATOR && lexer.tokenChar() == '=')
+			{
+				assertEquals(BinaryOperatorRules.ASSIGNMENT, lexer.operator(), testName + " unexpected operator");
+			}
+		}
+		assertEquals(Token.END, lexer.next(), testName + " unexpected token after end");
+	}
+
+	/**
+	 * Test numbers conversions match {@link Float#valueOf(String)} and
+	 * {@link Double#valueOf(String)}
+	 */
+	@Test
+	@DisplayName("next() with numbers")
+	final void testNumbers()
+	{
+		String testName = "next() with numbers";
+		System.out.println(testName);
+
+		String[] numbers = new String[] {
+			"0", "1.", ".5", "3.14159", "2.35", "0.1", "16777217", "123456789.123456789",
+			"9007199254740993", "0.30000000000000004", "1234567890123456789012345"
+		};
+		Lexer doubles = new Lexer(0.0);
+		Lexer floats = new Lexer(0.0f);
+		for (String number : numbers)
+		{
+			doubles.reset(number);
+			assertEquals(Token.NUMBER, doubles.next(), testName + " unexpected token");
+			assertEquals(Double.parseDouble(number), doubles.doubleValue(), testName + " unexpected double " + number);
+			floats.reset(number);
+			assertEquals(Token.NUMBER, floats.next(), testName + " unexpected token");
+			assertEquals(Float.parseFloat(number), (float) floats.doubleValue(), testName + " unexpected float " + number);
+		}
+
+		Lexer integers = new Lexer(0);
+		integers.reset("2147483647 2.5");
+		integers.next();
+		assertEquals(Integer.MAX_VALUE, integers.longValue(), testName + " unexpected int");
+		assertEquals(Token.NUMBER, integers.next(), testName + " unexpected token");
+		assertEquals(Token.UNKNOWN, integers.next(), testName + " unexpected decimal point");
+		integers.reset("2147483648");
+		assertThrows(NumberFormatException.class, () -> integers.next(), testName + " unexpected overflow");
+		doubles.reset("1.2.3");
+		assertThrows(NumberFormatException.class, () -> doubles.next(), testName + " unexpected number");
+	}
+
+	/**
+	 * Test method for {@link ExpressionParser#parse(CharSequence)} with
+	 * nested sub-contexts
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("parse(CharSequence) with nested sub-contexts")
+	final void testParseNested() throws ParserException
+	{
+		String testName = "parse(CharSequence) with nested sub-contexts";
+		System.out.println(testName);
+
+		ExpressionParser<Integer> parser = new ExpressionParser<>(0);
+		List<Expression<Integer>> expressions = parser.parse("a = 1 + (b + (2 + c)); ((d));");
+		assertEquals(2, expressions.size(), testName + " unexpected expressions count");
+		Expression<Integer> expected =
+		    new AdditionExpression<Integer>(new ConstantExpression<Integer>(1),
+		                                    new AdditionExpression<Integer>(
+		                                        new VariableExpression<Integer>("b"),
+		                                        new AdditionExpression<Integer>(
+		                                            new ConstantExpression<Integer>(2),
+		                                            new VariableExpression<Integer>("c"))));
+		BinaryExpression<Integer> assignment = (BinaryExpression<Integer>) expressions.get(0);
+		assertTrue(ExpressionsComparator.compare(expected, assignment.getRight()),
+		           testName + " unexpected expression " + assignment);
+		assertEquals("d", expressions.get(1).toString(), testName + " unexpected expression");
+
+		StringBuilder deep = new StringBuilder();
+		int depth = 2000;
+		for (int i = 0; i < depth; i++)
+		{
+			deep.append("(1+");
+		}
+		deep.append('1');
+		for (int i = 0; i < depth; i++)
+		{
+			deep.append(')');
+		}
+		assertEquals(Integer.valueOf(depth + 1),
+		             parser.parse(deep).get(0).value(),
+		             testName + " unexpected deep value");
+
+		assertThrows(UnfinishedSubContextException.class, () -> parser.parse("a+((b+c)+d"), testName + " unexpected success");
+		assertThrows(UnknownTokenException.class, () -> parser.parse("a+b)"), testName + " unexpected success");
+		assertThrows(MissingRightOperandException.class, () -> parser.parse("a;;b"), testName + " unexpected success");
+		assertThrows(IndirectParserException.class, () -> parser.parse("a = 99999999999"), testName + " unexpected success");
+	}
+}
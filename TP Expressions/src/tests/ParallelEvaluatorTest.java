@@ -0,0 +1,190 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.binary.AssignmentExpression;
+import expressions.statements.ParallelEvaluator;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Test class for {@link ParallelEvaluator}
+ */
+public class ParallelEvaluatorTest
+{
+	/**
+	 * Pool running statements
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Evaluator to test
+	 */
+	private ParallelEvaluator<Integer> evaluator;
+
+	/**
+	 * Setup before each test
+	 */
+	@BeforeEach
+	void setUp()
+	{
+		pool = new ForkJoinPool(4);
+		evaluator = new ParallelEvaluator<>(pool);
+	}
+
+	/**
+	 * Tear down after each test
+	 */
+	@AfterEach
+	void tearDown()
+	{
+		pool.shutdown();
+	}
+
+	/**
+	 * Creates "name = left + right"
+	 * @param name the assigned variable name
+	 * @param left the left variable name
+	 * @param right the right integer constant
+	 * @return a new assignment
+	 */
+	private static AssignmentExpression<Integer> assign(String name,
+	                                                    String left,
+	                                                    int right)
+	{
+		return new AssignmentExpression<>(new VariableExpression<Integer>(name),
+		                                  new AdditionExpression<Integer>(
+		                                      new VariableExpression<Integer>(left),
+		                                      new ConstantExpression<Integer>(right)));
+	}
+
+	/**
+	 * Test sequential semantics with reassigned variables
+	 */
+	@Test
+	@DisplayName("evaluate(List, Map) with reassignments")
+	final void testReassignments()
+	{
+		String testName = "evaluate(List, Map) with reassignments";
+		System.out.println(testName);
+
+		// a = x + 1; b = a + 1; a = b + 10; c = a + b
+		List<Expression<Integer>> program = new ArrayList<Expression<Integer>>();
+		program.add(assign("a", "x", 1));
+		program.add(assign("b", "a", 1));
+		program.add(assign("a", "b", 10));
+		program.add(new AssignmentExpression<>(new VariableExpression<Integer>("c"),
+		                                       new AdditionExpression<Integer>(
+		                                           new VariableExpression<Integer>("a"),
+		                                           new VariableExpression<Integer>("b"))));
+		SortedMap<String, Integer> values = evaluator.evaluate(program, Map.of("x", 1));
+		assertEquals(Integer.valueOf(13), values.get("a"), testName + " unexpected a value");
+		assertEquals(Integer.valueOf(3), values.get("b"), testName + " unexpected b value");
+		assertEquals(Integer.valueOf(16), values.get("c"), testName + " unexpected c value");
+		assertEquals(Integer.valueOf(3), program.get(1).value(), testName + " unexpected b statement value");
+
+		SortedMap<String, Integer> noInput = evaluator.evaluate(List.of(assign("d", "y", 1)));
+		assertFalse(noInput.containsKey("d"), testName + " unexpected d value without input");
+	}
+
+	/**
+	 * Test many independent chains of statements
+	 */
+	@Test
+	@DisplayName("evaluate(List) with independent statements")
+	final void testIndependentStatements()
+	{
+		String testName = "evaluate(List) with independent statements";
+		System.out.println(testName);
+
+		// v<i>_0 = 0 + i; v<i>_1 = v<i>_0 + 1 ... for 500 chains of 4
+		int chains = 500;
+		List<Expression<Integer>> program = new ArrayList<Expression<Integer>>();
+		for (int i = 0; i < chains; i++)
+		{
+			program.add(new AssignmentExpression<>(new VariableExpression<Integer>("v" + i + "_0"),
+			                                       new ConstantExpression<Integer>(i)));
+		}
+		for (int step = 1; step < 4; step++)
+		{
+			for (int i = 0; i < chains; i++)
+			{
+				program.add(assign("v" + i + "_" + step, "v" + i + "_" + (step - 1), 1));
+			}
+		}
+		SortedMap<String, Integer> values = evaluator.evaluate(program);
+		assertEquals(4 * chains, values.size(), testName + " unexpected values count");
+		for (int i = 0; i < chains; i++)
+		{
+			assertEquals(Integer.valueOf(i + 3), values.get("v" + i + "_3"), testName + " unexpected value");
+		}
+	}
+
+	/**
+	 * Test an error thrown by a statement is rethrown instead of blocking
+	 * the evaluation of its successors
+	 */
+	@Test
+	@DisplayName("evaluate(List) with a failing statement")
+	final void testFailingStatement()
+	{
+		String testName = "evaluate(List) with a failing statement";
+		System.out.println(testName);
+
+		// a = x + <error>; b = a + 1; c = y + 1
+		ConstantExpression<Integer> failing = new ConstantExpression<Integer>(1)
+		{
+			@Override
+			public Integer value()
+			{
+				throw new AssertionError("failing statement");
+			}
+		};
+		List<Expression<Integer>> program = new ArrayList<Expression<Integer>>();
+		program.add(new AssignmentExpression<>(new VariableExpression<Integer>("a"),
+		                                       new AdditionExpression<Integer>(
+		                                           new VariableExpression<Integer>("x"),
+		                                           failing)));
+		program.add(assign("b", "a", 1));
+		program.add(assign("c", "y", 1));
+		AssertionError error =
+		    assertTimeoutPreemptively(Duration.ofSeconds(10),
+		                              () -> assertThrows(AssertionError.class,
+		                                                 () -> evaluator.evaluate(program, Map.of("x", 1, "y", 1)),
+		                                                 testName + " unexpected success"),
+		                              testName + " unexpected blocked evaluation");
+		assertEquals("failing statement", error.getMessage(), testName + " unexpected error");
+	}
+
+	/**
+	 * Test method for {@link ParallelEvaluator#ParallelEvaluator(ForkJoinPool)}
+	 */
+	@Test
+	@DisplayName("ParallelEvaluator(null)")
+	final void testNullPool()
+	{
+		String testName = "ParallelEvaluator(null)";
+		System.out.println(testName);
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> new ParallelEvaluator<Integer>(null),
+		             testName + " unexpected success with null pool");
+	}
+}
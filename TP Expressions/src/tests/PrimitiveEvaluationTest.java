@@ -0,0 +1,92 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.binary.AssignmentExpression;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Test class for primitive evaluations {@link Expression#evalInt()},
+ * {@link Expression#evalLong()}, {@link Expression#evalFloat()} and
+ * {@link Expression#evalDouble()}
+ */
+public class PrimitiveEvaluationTest
+{
+	/**
+	 * Test primitive evaluations match {@link Expression#value()}
+	 */
+	@Test
+	@DisplayName("evalInt() / evalLong() / evalFloat() / evalDouble()")
+	final void testPrimitiveEvaluations()
+	{
+		String testName = "evalXXX()";
+		System.out.println(testName);
+
+		VariableExpression<Integer> a = new VariableExpression<>("a", 3);
+		AdditionExpression<Integer> integers =
+		    new AdditionExpression<>(new AdditionExpression<Integer>(a,
+		                                 new ConstantExpression<Integer>(4)),
+		                             new ConstantExpression<Integer>(5));
+		assertEquals(integers.value().intValue(), integers.evalInt(), testName + " unexpected int value");
+		assertEquals(12L, integers.evalLong(), testName + " unexpected long value");
+
+		AdditionExpression<Float> floats =
+		    new AdditionExpression<>(new ConstantExpression<Float>(1.5f),
+		                             new VariableExpression<Float>("b", 0.25f));
+		assertEquals(floats.value().floatValue(), floats.evalFloat(), testName + " unexpected float value");
+
+		AdditionExpression<Double> doubles =
+		    new AdditionExpression<>(new ConstantExpression<Double>(1.5),
+		                             new ConstantExpression<Double>(0.1));
+		assertEquals(doubles.value().doubleValue(), doubles.evalDouble(), testName + " unexpected double value");
+	}
+
+	/**
+	 * Test primitive evaluation of assignments
+	 */
+	@Test
+	@DisplayName("AssignmentExpression.evalInt()")
+	final void testAssignmentEvaluation()
+	{
+		String testName = "AssignmentExpression.evalInt()";
+		System.out.println(testName);
+
+		VariableExpression<Integer> a = new VariableExpression<>("a");
+		VariableExpression<Integer> b = new VariableExpression<>("b", 2);
+		AssignmentExpression<Integer> assignment =
+		    new AssignmentExpression<>(a, new AdditionExpression<Integer>(b,
+		                                   new ConstantExpression<Integer>(1)));
+		b.setValue(10);
+		assertEquals(11, assignment.evalInt(), testName + " unexpected value");
+		assertEquals(Integer.valueOf(11), a.value(), testName + " unexpected assigned value");
+	}
+
+	/**
+	 * Test primitive evaluations of expressions without values
+	 */
+	@Test
+	@DisplayName("evalDouble() without value")
+	final void testNoValue()
+	{
+		String testName = "evalDouble() without value";
+		System.out.println(testName);
+
+		AdditionExpression<Double> missingValue =
+		    new AdditionExpression<>(new ConstantExpression<Double>(1.0),
+		                             new VariableExpression<Double>("x"));
+		assertThrows(IllegalStateException.class,
+		             () -> missingValue.evalDouble(),
+		             testName + " unexpected evaluation");
+		AdditionExpression<Double> missingOperand = new AdditionExpression<>();
+		assertThrows(IllegalStateException.class,
+		             () -> missingOperand.evalDouble(),
+		             testName + " unexpected evaluation");
+	}
+}
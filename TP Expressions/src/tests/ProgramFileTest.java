@@ -0,0 +1,177 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.program.Program;
+import expressions.binary.AdditionExpression;
+import expressions.program.Opcodes;
+import expressions.program.ProgramBuilder;
+import expressions.program.ProgramFile;
+import expressions.program.ProgramWriter;
+import expressions.program.StackMachine;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link ProgramWriter} and {@link ProgramFile}
+ */
+public class ProgramFileTest
+{
+	/**
+	 * Test writing programs and reading them back from memory
+	 * @throws ParserException if parsing fails
+	 * @throws IOException if writing fails
+	 */
+	@Test
+	@DisplayName("write(OutputStream) & get(int)")
+	final void testRoundTrip() throws ParserException, IOException
+	{
+		String testName = "write(OutputStream) & get(int)";
+		System.out.println(testName);
+
+		List<Program> programs = new ProgramBuilder<Double>(0.0)
+		    .build(new ExpressionParser<Double>(0.0).parse("a = 1.5 + x; a + 2.25; y + 0.1"));
+		ProgramWriter writer = new ProgramWriter(0.0);
+		writer.addAll(programs);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		writer.write(output);
+
+		ProgramFile file = new ProgramFile(ByteBuffer.wrap(output.toByteArray()));
+		assertEquals(Double.class, file.getNumberClass(), testName + " unexpected number class");
+		assertEquals(3, file.size(), testName + " unexpected size");
+		assertArrayEquals(new String[] {"a", "x", "y"}, file.getSymbols(), testName + " unexpected symbols");
+		StackMachine machine = new StackMachine();
+		for (int i = 0; i < programs.size(); i++)
+		{
+			Program expected = programs.get(i);
+			Program actual = file.get(i);
+			assertEquals(expected.disassemble(), actual.disassemble(), testName + " unexpected program " + i);
+			assertArrayEquals(expected.getVariables(), actual.getVariables(), testName + " unexpected variables " + i);
+			double[] frame = actual.newFrame();
+			frame[actual.slotOf("x")] = 4.0;
+			frame[actual.slotOf("y")] = 0.2;
+			double[] expectedFrame = frame.clone();
+			assertEquals(machine.evaluate(expected, expectedFrame),
+			             machine.evaluate(actual, frame),
+			             testName + " unexpected value " + i);
+		}
+
+		assertThrows(IndexOutOfBoundsException.class, () -> file.get(3), testName + " unexpected program");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new ProgramFile(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})),
+		             testName + " unexpected success with invalid file");
+		assertThrows(IllegalArgumentException.class,
+		             () -> writer.add(new ProgramBuilder<Integer>(0).build(new ExpressionParser<Integer>(0).parse("1 + a").get(0))),
+		             testName + " unexpected success with integer program");
+	}
+
+	/**
+	 * Test writing many programs into a file and opening it mapped
+	 * @throws ParserException if parsing fails
+	 * @throws IOException if writing or mapping fails
+	 */
+	@Test
+	@DisplayName("open(Path)")
+	final void testOpen() throws ParserException, IOException
+	{
+		String testName = "open(Path)";
+		System.out.println(testName);
+
+		ProgramBuilder<Integer> builder = new ProgramBuilder<>(0);
+		ExpressionParser<Integer> parser = new ExpressionParser<>(0);
+		ProgramWriter writer = new ProgramWriter(0);
+		for (int i = 0; i < 10000; i++)
+		{
+			writer.add(builder.build(parser.parse("x + " + i + " + y").get(0)));
+		}
+		Path path = Files.createTempFile("programs", ".bin");
+		try
+		{
+			writer.write(path);
+			ProgramFile file = ProgramFile.open(path);
+			assertEquals(10000, file.size(), testName + " unexpected size");
+			Program program = file.get(1234);
+			assertEquals("x + 1234 + y", program.toString(), testName + " unexpected program");
+			double[] frame = program.newFrame();
+			frame[program.slotOf("x")] = 1;
+			frame[program.slotOf("y")] = 2;
+			assertEquals(1237.0, new StackMachine().evaluate(program, frame), testName + " unexpected value");
+		}
+		finally
+		{
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Test corrupted records are rejected when they are decoded
+	 * @throws ParserException if parsing fails
+	 * @throws IOException if writing fails
+	 */
+	@Test
+	@DisplayName("get(int) with corrupted records")
+	final void testCorrupted() throws ParserException, IOException
+	{
+		String testName = "get(int) with corrupted records";
+		System.out.println(testName);
+
+		ProgramWriter writer = new ProgramWriter(0.0);
+		writer.add(new ProgramBuilder<Double>(0.0).build(new ExpressionParser<Double>(0.0).parse("x + 1.5").get(0)));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		writer.write(output);
+		byte[] bytes = output.toByteArray();
+
+		// Header and records are big endian whatever the buffer's order
+		ProgramFile little = new ProgramFile(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN));
+		assertEquals(1, little.size(), testName + " unexpected size");
+		assertEquals("x + 1.5", little.get(0).toString(), testName + " unexpected program");
+
+		// Record : max stack, 1 slot, 1 constant, code (LOAD 0, PUSH 0, ADD)
+		int record = ByteBuffer.wrap(bytes).getInt(19);
+		int code = record + 28;
+		assertEquals(Opcodes.LOAD, bytes[code], testName + " unexpected record layout");
+		int[][] corruptions = {
+			{code + 6, 99},               // unknown opcode
+			{code + 2, 1},                // LOAD slot 1
+			{code + 5, 1},                // PUSH constant 1
+			{code + 6, Opcodes.STORE},    // truncated STORE
+			{code, Opcodes.ADD},          // stack underflow
+			{record + 3, 1},              // max stack 1
+			{record + 3, 0},              // max stack 0
+			{record + 11, 1},             // unknown symbol
+		};
+		for (int[] corruption : corruptions)
+		{
+			byte[] corrupted = bytes.clone();
+			corrupted[corruption[0]] = (byte) corruption[1];
+			ProgramFile file = new ProgramFile(ByteBuffer.wrap(corrupted));
+			assertThrows(IllegalArgumentException.class,
+			             () -> file.get(0),
+			             testName + " unexpected success with byte " + corruption[0] + " = " + corruption[1]);
+		}
+
+		String longName = "x".repeat(ProgramWriter.MAX_NAME_LENGTH + 1);
+		Program longProgram = new ProgramBuilder<Double>(0.0)
+		    .build(new AdditionExpression<Double>(new VariableExpression<Double>(longName),
+		                                          new ConstantExpression<Double>(1.0)));
+		assertThrows(IllegalArgumentException.class,
+		             () -> writer.add(longProgram),
+		             testName + " unexpected success with a long variable name");
+		assertEquals(1, writer.size(), testName + " unexpected added program");
+	}
+}
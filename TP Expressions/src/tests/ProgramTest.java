@@ -0,0 +1,243 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.AdditionExpression;
+import expressions.binary.AssignmentExpression;
+import expressions.binary.BinaryExpression;
+import expressions.binary.BinaryOperatorRules;
+import expressions.program.ColumnEvaluator;
+import expressions.program.Opcodes;
+import expressions.program.Program;
+import expressions.program.ProgramBuilder;
+import expressions.program.StackMachine;
+import expressions.terminal.ConstantExpression;
+import expressions.terminal.VariableExpression;
+
+/**
+ * Test class for {@link Program}, {@link ProgramBuilder},
+ * {@link StackMachine} and {@link ColumnEvaluator}
+ */
+public class ProgramTest
+{
+	/**
+	 * Test method for {@link ProgramBuilder#build(Expression)} and
+	 * {@link StackMachine#evaluate(Program, double[])}
+	 */
+	@Test
+	@DisplayName("build(Expression) & evaluate(Program, double[])")
+	final void testEvaluate()
+	{
+		String testName = "build(Expression) & evaluate(Program, double[])";
+		System.out.println(testName);
+
+		// 2 + x + 2
+		AdditionExpression<Integer> root =
+		    new AdditionExpression<>(new AdditionExpression<Integer>(
+		                                 new ConstantExpression<Integer>(2),
+		                                 new VariableExpression<Integer>("x")),
+		                             new ConstantExpression<Integer>(2));
+		Program program = new ProgramBuilder<Integer>(0).build(root);
+		byte[] code = program.getCode();
+		assertEquals(Opcodes.PUSH, code[0], testName + " unexpected first instruction");
+		assertEquals(Opcodes.ADD, code[code.length - 1], testName + " unexpected last instruction");
+		assertEquals(2, program.getMaxStack(), testName + " unexpected stack depth");
+		assertEquals(1, program.getVariablesCount(), testName + " unexpected variables count");
+
+		StackMachine machine = new StackMachine(1);
+		double[] frame = program.newFrame();
+		for (int x = -5; x <= 5; x++)
+		{
+			frame[program.slotOf("x")] = x;
+			assertEquals(x + 4, machine.evaluate(program, frame), testName + " unexpected value");
+		}
+
+		AdditionExpression<Float> floats =
+		    new AdditionExpression<>(new VariableExpression<Float>("x"),
+		                             new ConstantExpression<Float>(0.1f));
+		Program floatProgram = new ProgramBuilder<Float>(0.0f).build(floats);
+		assertEquals(2.0f + 0.1f,
+		             machine.evaluate(floatProgram, new double[] {2.0}),
+		             testName + " unexpected float value");
+	}
+
+	/**
+	 * Test method for {@link ProgramBuilder#build(List)} with assignments
+	 * sharing a frame
+	 */
+	@Test
+	@DisplayName("build(List<Expression>)")
+	final void testStatements()
+	{
+		String testName = "build(List<Expression>)";
+		System.out.println(testName);
+
+		// a = 1.5; a + a
+		AssignmentExpression<Double> first =
+		    new AssignmentExpression<>(new VariableExpression<Double>("a"),
+		                               new ConstantExpression<Double>(1.5));
+		AdditionExpression<Double> second =
+		    new AdditionExpression<>(new VariableExpression<Double>("a"),
+		                             new VariableExpression<Double>("a"));
+		List<Program> programs =
+		    new ProgramBuilder<Double>(0.0).build(List.<Expression<Double>>of(first, second));
+		StackMachine machine = new StackMachine();
+		double[] frame = programs.get(0).newFrame();
+		assertEquals(1.5, machine.evaluate(programs.get(0), frame), testName + " unexpected value");
+		assertEquals(3.0, machine.evaluate(programs.get(1), frame), testName + " unexpected value");
+	}
+
+	/**
+	 * Test method for {@link Program#toExpression()} and
+	 * {@link Program#toString()}
+	 */
+	@Test
+	@DisplayName("toExpression()")
+	final void testToExpression()
+	{
+		String testName = "toExpression()";
+		System.out.println(testName);
+
+		AssignmentExpression<Integer> assignment =
+		    new AssignmentExpression<>(new VariableExpression<Integer>("b"),
+		                               new AdditionExpression<Integer>(
+		                                   new VariableExpression<Integer>("a"),
+		                                   new ConstantExpression<Integer>(3)));
+		Program program = new ProgramBuilder<Integer>(0).build(assignment);
+		Expression<Integer> rebuilt = program.toExpression();
+		assertTrue(ExpressionsComparator.compare(assignment, rebuilt),
+		           testName + " unexpected rebuilt expression " + rebuilt);
+		assertEquals(assignment.toString(), program.toString(), testName + " unexpected string");
+		assertTrue(program.disassemble().contains("STORE b"), testName + " unexpected listing");
+	}
+
+	/**
+	 * Creates a subtraction (which has no expression class yet)
+	 * @param left the left operand
+	 * @param right the right operand
+	 * @return a new binary expression following the subtraction rules
+	 */
+	private static BinaryExpression<Integer> subtract(Expression<Integer> left,
+	                                                  Expression<Integer> right)
+	{
+		return new BinaryExpression<Integer>(left, right, BinaryOperatorRules.SUBTRACTION)
+		{
+			@Override
+			protected Integer operate(Integer value1, Integer value2)
+			{
+				return value1 - value2;
+			}
+		};
+	}
+
+	/**
+	 * Test method for {@link Program#toString()} with operators which have
+	 * no expression class
+	 */
+	@Test
+	@DisplayName("toString() without expression classes")
+	final void testToInfix()
+	{
+		String testName = "toString() without expression classes";
+		System.out.println(testName);
+
+		ProgramBuilder<Integer> builder = new ProgramBuilder<>(0);
+		// a - (b - 2)
+		Program nested = builder.build(subtract(new VariableExpression<Integer>("a"),
+		                                        subtract(new VariableExpression<Integer>("b"),
+		                                                 new ConstantExpression<Integer>(2))));
+		assertThrows(UnsupportedOperationException.class,
+		             () -> nested.toExpression(),
+		             testName + " unexpected expression");
+		assertEquals("a - (b - 2)", nested.toString(), testName + " unexpected string");
+
+		// y = a - b + 1
+		Program assignment =
+		    builder.build(new AssignmentExpression<>(new VariableExpression<Integer>("y"),
+		                                             new AdditionExpression<Integer>(
+		                                                 subtract(new VariableExpression<Integer>("a"),
+		                                                          new VariableExpression<Integer>("b")),
+		                                                 new ConstantExpression<Integer>(1))));
+		assertEquals("y = a - b + 1", assignment.toString(), testName + " unexpected string");
+	}
+
+	/**
+	 * Test method for {@link ProgramBuilder#build(Expression)} with
+	 * incomplete expressions
+	 */
+	@Test
+	@DisplayName("build(incomplete Expression)")
+	final void testIncomplete()
+	{
+		String testName = "build(incomplete Expression)";
+		System.out.println(testName);
+
+		ProgramBuilder<Integer> builder = new ProgramBuilder<>(0);
+		assertThrows(IllegalArgumentException.class,
+		             () -> builder.build(new AdditionExpression<Integer>()),
+		             testName + " unexpected success with incomplete expression");
+	}
+
+	/**
+	 * Test method for
+	 * {@link ColumnEvaluator#evaluateColumns(Expression, Map, double[])}
+	 */
+	@Test
+	@DisplayName("evaluateColumns(Expression, Map, double[])")
+	final void testEvaluateColumns()
+	{
+		String testName = "evaluateColumns(Expression, Map, double[])";
+		System.out.println(testName);
+
+		// y = a + x + 1 over more rows than a single block
+		int rows = 2500;
+		double[] a = new double[rows];
+		double[] x = new double[rows];
+		for (int i = 0; i < rows; i++)
+		{
+			a[i] = i;
+			x[i] = 2 * i;
+		}
+		Map<String, double[]> columns = new HashMap<String, double[]>();
+		columns.put("a", a);
+		columns.put("x", x);
+		double[] out = new double[rows];
+
+		AssignmentExpression<Integer> integers =
+		    new AssignmentExpression<>(new VariableExpression<Integer>("y"),
+		                               new AdditionExpression<Integer>(
+		                                   new AdditionExpression<Integer>(
+		                                       new VariableExpression<Integer>("a"),
+		                                       new VariableExpression<Integer>("x")),
+		                                   new ConstantExpression<Integer>(1)));
+		new ColumnEvaluator<Integer>(0, 1000).evaluateColumns(integers, columns, out);
+		for (int i = 0; i < rows; i++)
+		{
+			assertEquals(3 * i + 1, out[i], testName + " unexpected integer value at row " + i);
+		}
+
+		AdditionExpression<Double> doubles =
+		    new AdditionExpression<>(new VariableExpression<Double>("a"),
+		                             new ConstantExpression<Double>(0.5));
+		new ColumnEvaluator<Double>(0.0).evaluateColumns(doubles, columns, out);
+		for (int i = 0; i < rows; i++)
+		{
+			assertEquals(i + 0.5, out[i], testName + " unexpected double value at row " + i);
+		}
+
+		columns.remove("a");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new ColumnEvaluator<Double>(0.0).evaluateColumns(doubles, columns, out),
+		             testName + " unexpected success with missing column");
+	}
+}
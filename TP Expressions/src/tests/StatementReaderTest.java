@@ -0,0 +1,125 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import expressions.Expression;
+import parser.ExpressionParser;
+import parser.StatementReader;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link StatementReader} and streaming entry points of
+ * {@link ExpressionParser}
+ */
+public class StatementReaderTest
+{
+	/**
+	 * Program used in tests (with a trailing line break)
+	 */
+	private static final String program = "a = 1;\nb = a + 22;\n  c = (b + a) + 333;\n";
+
+	/**
+	 * Expected statements of {@link #program}
+	 */
+	private static final List<String> expected = List.of("a = 1", "b = a + 22", "c = b + a + 333");
+
+	/**
+	 * Test method for {@link StatementReader#nextStatement()} with a read
+	 * buffer smaller than statements
+	 * @throws Exception if reading or parsing fails
+	 */
+	@Test
+	@DisplayName("nextStatement() with small buffer")
+	final void testNextStatement() throws Exception
+	{
+		String testName = "nextStatement() with small buffer";
+		System.out.println(testName);
+
+		try (StatementReader<Integer> statements =
+		    new StatementReader<Integer>(new ExpressionParser<Integer>(0),
+		                                 new StringReader(program),
+		                                 3))
+		{
+			for (String statement : expected)
+			{
+				assertEquals(statement, statements.nextStatement().toString(), testName + " unexpected statement");
+			}
+			assertEquals(null, statements.nextStatement(), testName + " unexpected statement");
+			assertFalse(statements.hasNext(), testName + " unexpected next statement");
+			assertEquals(4, statements.getStatementsCount(), testName + " unexpected statements count");
+		}
+	}
+
+	/**
+	 * Test method for {@link ExpressionParser#parse(java.io.Reader)} and
+	 * {@link ExpressionParser#parse(java.nio.channels.ReadableByteChannel, java.nio.charset.Charset)}
+	 */
+	@Test
+	@DisplayName("parse(Reader) / parse(ReadableByteChannel, Charset)")
+	final void testParseReader()
+	{
+		String testName = "parse(Reader) / parse(ReadableByteChannel, Charset)";
+		System.out.println(testName);
+
+		ExpressionParser<Double> parser = new ExpressionParser<>(0.0);
+		try (Stream<Expression<Double>> statements = parser.parse(new StringReader("x = 1.5; x + 2.25")))
+		{
+			assertEquals(List.of("x = 1.5", "x + 2.25"),
+			             statements.map(Expression::toString).collect(Collectors.toList()),
+			             testName + " unexpected statements");
+		}
+		try (Stream<Expression<Double>> statements =
+		    parser.parse(Channels.newChannel(new ByteArrayInputStream(program.getBytes(StandardCharsets.UTF_8))),
+		                 StandardCharsets.UTF_8))
+		{
+			assertEquals(3L, statements.count(), testName + " unexpected statements count");
+		}
+		try (Stream<Expression<Double>> statements = parser.parse(new StringReader("a = 1; b = = 2")))
+		{
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+			                                          () -> statements.count(),
+			                                          testName + " unexpected success");
+			assertTrue(e.getCause() instanceof ParserException, testName + " unexpected cause");
+		}
+	}
+
+	/**
+	 * Test method for {@link ExpressionParser#parseMapped(Path)}
+	 * @param directory temporary directory
+	 * @throws IOException if file can't be written or read
+	 */
+	@Test
+	@DisplayName("parseMapped(Path)")
+	final void testParseMapped(@TempDir Path directory) throws IOException
+	{
+		String testName = "parseMapped(Path)";
+		System.out.println(testName);
+
+		Path file = directory.resolve("program.txt");
+		Files.writeString(file, program, StandardCharsets.US_ASCII);
+		try (Stream<Expression<Integer>> statements = new ExpressionParser<Integer>(0).parseMapped(file))
+		{
+			assertEquals(expected,
+			             statements.map(Expression::toString).collect(Collectors.toList()),
+			             testName + " unexpected statements");
+		}
+	}
+}
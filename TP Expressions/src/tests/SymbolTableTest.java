@@ -0,0 +1,116 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.binary.BinaryExpression;
+import expressions.program.Program;
+import expressions.program.ProgramBuilder;
+import expressions.program.StackMachine;
+import expressions.terminal.SymbolTable;
+import parser.ExpressionParser;
+import parser.exceptions.ParserException;
+
+/**
+ * Test class for {@link SymbolTable}
+ */
+public class SymbolTableTest
+{
+	/**
+	 * Test method for {@link ExpressionParser#parse(CharSequence, SymbolTable)}
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("parse(CharSequence, SymbolTable)")
+	final void testParse() throws ParserException
+	{
+		String testName = "parse(CharSequence, SymbolTable)";
+		System.out.println(testName);
+
+		SymbolTable<Integer> symbols = new SymbolTable<>(0);
+		ExpressionParser<Integer> parser = new ExpressionParser<>(0);
+		List<Expression<Integer>> statements = parser.parse("a = 1; b = a + 2; a + b", symbols);
+		assertEquals(List.of("a", "b"), symbols.getNames(), testName + " unexpected names");
+		assertEquals(0, symbols.slotOf("a"), testName + " unexpected slot");
+		assertEquals(1, symbols.slotOf("b"), testName + " unexpected slot");
+		assertEquals(-1, symbols.slotOf("c"), testName + " unexpected slot");
+
+		BinaryExpression<Integer> first = (BinaryExpression<Integer>) statements.get(0);
+		BinaryExpression<Integer> last = (BinaryExpression<Integer>) statements.get(2);
+		assertSame(symbols.get(0), first.getLeft(), testName + " unexpected variable");
+		assertSame(first.getLeft(), last.getLeft(), testName + " unexpected distinct variables");
+		assertEquals(Integer.valueOf(3), symbols.get(1).value(), testName + " unexpected assigned value");
+		assertEquals(Integer.valueOf(4), last.value(), testName + " unexpected value");
+
+		// Same storage : a new assignment of a is read by all statements (b keeps its assigned value)
+		parser.parse("a = 10", symbols);
+		assertEquals(Integer.valueOf(3), symbols.get(1).value(), testName + " unexpected value after assignment");
+		assertEquals(Integer.valueOf(13), last.value(), testName + " unexpected value after assignment");
+
+		// Without symbol table each occurrence is a distinct variable
+		List<Expression<Integer>> separate = parser.parse("a = 1; a + 2");
+		assertNotSame(((BinaryExpression<Integer>) separate.get(0)).getLeft(),
+		              ((BinaryExpression<Integer>) separate.get(1)).getLeft(),
+		              testName + " unexpected shared variable");
+
+		assertThrows(ParserException.class,
+		             () -> parser.parse("a = a + 1", symbols),
+		             testName + " unexpected success with recursive assignment");
+		assertThrows(IllegalArgumentException.class,
+		             () -> new SymbolTable<Long>(0L),
+		             testName + " unexpected success");
+	}
+
+	/**
+	 * Test method for {@link SymbolTable#load(double[])},
+	 * {@link SymbolTable#store(double[])} and
+	 * {@link SymbolTable#store(double[], List)} with programs built by
+	 * {@link ProgramBuilder#build(List, SymbolTable)}
+	 * @throws ParserException if parsing fails
+	 */
+	@Test
+	@DisplayName("load(double[]) & store(double[])")
+	final void testFrames() throws ParserException
+	{
+		String testName = "load(double[]) & store(double[])";
+		System.out.println(testName);
+
+		SymbolTable<Double> symbols = new SymbolTable<>(0.0);
+		symbols.variable("x").setValue(1.5);
+		List<Expression<Double>> statements =
+		    new ExpressionParser<Double>(0.0).parse("y = x + 2; z = y + x + w", symbols);
+		symbols.variable("w").setValue(0.5);
+
+		List<Program> programs = new ProgramBuilder<Double>(0.0).build(statements, symbols);
+		assertEquals(symbols.getNames(), List.of(programs.get(0).getVariables()), testName + " unexpected slots");
+		for (Program program : programs)
+		{
+			assertEquals(symbols.size(), program.getVariablesCount(), testName + " unexpected frame size");
+		}
+
+		double[] frame = symbols.newFrame();
+		symbols.load(frame);
+		frame[symbols.slotOf("x")] = 10.0;
+		StackMachine machine = new StackMachine();
+		for (Program program : programs)
+		{
+			machine.evaluate(program, frame);
+		}
+		symbols.store(frame);
+		assertEquals(Double.valueOf(10.0), symbols.variable("x").value(), testName + " unexpected stored value");
+		assertFalse(symbols.variable("z").hasValue(), testName + " unexpected stored value without assignment");
+		symbols.store(frame, programs);
+		assertEquals(Double.valueOf(12.0), symbols.variable("y").value(), testName + " unexpected stored value");
+		assertEquals(Double.valueOf(22.5), symbols.variable("z").value(), testName + " unexpected stored value");
+		assertEquals(Double.valueOf(22.5), statements.get(1).value(), testName + " unexpected expression value");
+	}
+}
@@ -0,0 +1,93 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import expressions.Expression;
+import expressions.ExpressionInterner;
+import expressions.binary.AdditionExpression;
+import expressions.binary.BinaryExpression;
+import expressions.terminal.VariableExpression;
+import parser.ExpressionParser;
+
+/**
+ * Test class for cycle checks of {@link BinaryExpression#setParent(Expression)}
+ * and for construction time of large expressions
+ */
+public class TreeConstructionTest
+{
+	/**
+	 * Test method for {@link BinaryExpression#setParent(Expression)} with
+	 * cycles
+	 */
+	@Test
+	@DisplayName("setParent(Expression) with cycles")
+	final void testSetParent()
+	{
+		String testName = "setParent(Expression) with cycles";
+		System.out.println(testName);
+
+		AdditionExpression<Integer> bottom =
+		    new AdditionExpression<>(new VariableExpression<Integer>("x"), new VariableExpression<Integer>("y"));
+		BinaryExpression<Integer> top = bottom;
+		for (int i = 0; i < 1000; i++)
+		{
+			AdditionExpression<Integer> addition = new AdditionExpression<>();
+			addition.setLeft(top);
+			addition.setRight(new VariableExpression<Integer>("z"));
+			top = addition;
+		}
+		BinaryExpression<Integer> root = top;
+		assertTrue(bottom.isOperandOf(root), testName + " unexpected missing ancestor");
+		assertFalse(root.isOperandOf(bottom), testName + " unexpected ancestor");
+		assertThrows(IllegalArgumentException.class,
+		             () -> bottom.setLeft(root),
+		             testName + " unexpected success with a cycle");
+		assertThrows(IllegalArgumentException.class,
+		             () -> root.setParent(root),
+		             testName + " unexpected success with self");
+
+		// Shared expressions have several ancestors
+		ExpressionInterner<Integer> interner = new ExpressionInterner<>();
+		AdditionExpression<Integer> source = new AdditionExpression<>(
+		    new AdditionExpression<>(new VariableExpression<Integer>("a"), new VariableExpression<Integer>("b")),
+		    new AdditionExpression<>(new VariableExpression<Integer>("b"),
+		                             new AdditionExpression<>(new VariableExpression<Integer>("a"),
+		                                                      new VariableExpression<Integer>("b"))));
+		BinaryExpression<Integer> shared = (BinaryExpression<Integer>) interner.intern(source);
+		BinaryExpression<Integer> sum = (BinaryExpression<Integer>) shared.getLeft();
+		assertThrows(IllegalArgumentException.class,
+		             () -> sum.setLeft(shared),
+		             testName + " unexpected success with a cycle through shared expressions");
+	}
+
+	/**
+	 * Test construction time of a large expression which was quadratic when
+	 * each new parent was searched in the whole expression
+	 */
+	@Test
+	@DisplayName("parse(String) with large expressions")
+	final void testLinearConstruction()
+	{
+		String testName = "parse(String) with large expressions";
+		System.out.println(testName);
+
+		StringBuilder source = new StringBuilder("x");
+		for (int i = 0; i < 200000; i++)
+		{
+			source.append(" + y");
+		}
+		Expression<Integer> expression = assertTimeout(Duration.ofSeconds(10),
+		                                               () -> new ExpressionParser<Integer>(0).parse(source.toString()).get(0),
+		                                               testName + " unexpected construction time");
+		assertFalse(((BinaryExpression<Integer>) expression).isTrusted(),
+		            testName + " unexpected trusted expression");
+	}
+}